@@ -0,0 +1,61 @@
+import numpy as np
+from typing import Dict
+
+# Layout of the file written by com.catanai.server.replay.ReplayBuffer.
+MAGIC = 0x31425243
+VERSION = 1
+HEADER_LENGTH = 64
+WRITTEN_OFFSET = 24
+
+class ReplayBuffer:
+  """Samples transitions recorded by the game server, straight from its memory-mapped file."""
+
+  def __init__(self, path: str) -> None:
+    header = np.memmap(path, dtype='<i4', mode='r', shape=(6,))
+    magic, version, observation_length, action_space_size, record_length, capacity = (int(v) for v in header)
+    if magic != MAGIC or version != VERSION:
+      raise ValueError(f'{path} is not a replay buffer of version {VERSION}.')
+    self.observation_length = observation_length
+    self.action_space_size = action_space_size
+    self.capacity = capacity
+
+    mask_offset = (16 + 4 * observation_length + 7) // 8 * 8
+    mask_words = (action_space_size + 63) // 64
+    record = np.dtype({
+      'names': ['stamp', 'action', 'reward', 'done', 'observation', 'next_observation', 'legal_mask'],
+      'formats': ['<i8', '<i4', '<i2', '<i2', ('<i2', observation_length), ('<i2', observation_length), ('<u8', mask_words)],
+      'offsets': [0, 8, 12, 14, 16, 16 + 2 * observation_length, mask_offset],
+      'itemsize': record_length,
+    })
+    self.written = np.memmap(path, dtype='<i8', mode='r', offset=WRITTEN_OFFSET, shape=(1,))
+    self.records = np.memmap(path, dtype=record, mode='r', offset=HEADER_LENGTH, shape=(capacity,))
+
+  def __len__(self) -> int:
+    return int(min(self.written[0], self.capacity))
+
+  def sample(self, batch_size: int, rng: np.random.Generator | None = None) -> Dict[str, np.ndarray]:
+    """
+    Samples up to batch_size transitions among those held, without the ones overwritten while
+    they were copied. The legal mask is unpacked to one boolean per action id.
+    """
+    rng = rng if rng is not None else np.random.default_rng()
+    written = int(self.written[0])
+    oldest = max(0, written - self.capacity)
+    if written == oldest:
+      raise ValueError('The replay buffer is empty.')
+    sequences = rng.integers(oldest, written, size=batch_size)
+    slots = sequences % self.capacity
+    batch = self.records[slots]
+    # The server stamps a record -1 before overwriting it, and its sequence + 1 once done. A copied
+    # record is whole only if the stamp held its sequence both when the copy started and after it.
+    stamps = self.records['stamp'][slots]
+    batch = batch[(batch['stamp'] == sequences + 1) & (stamps == sequences + 1)]
+    legal_mask = np.unpackbits(batch['legal_mask'].view(np.uint8), axis=1, bitorder='little')
+    return {
+      'observations': batch['observation'],
+      'actions': batch['action'],
+      'rewards': batch['reward'],
+      'dones': batch['done'].astype(bool),
+      'next_observations': batch['next_observation'],
+      'legal_masks': legal_mask[:, :self.action_space_size].astype(bool),
+    }
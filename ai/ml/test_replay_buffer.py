@@ -0,0 +1,71 @@
+import multiprocessing
+import os
+import struct
+import tempfile
+import unittest
+import numpy as np
+from ml.replay_buffer import HEADER_LENGTH, MAGIC, VERSION, WRITTEN_OFFSET, ReplayBuffer
+
+OBSERVATION_LENGTH = 3
+ACTION_SPACE_SIZE = 70
+CAPACITY = 4
+# Stamp, action, reward and done, both observations, then the 2 mask words 8-byte aligned.
+RECORD_LENGTH = 32 + 2 * 8
+
+def create(path: str) -> None:
+  with open(path, 'wb') as file:
+    file.write(struct.pack('<6i', MAGIC, VERSION, OBSERVATION_LENGTH, ACTION_SPACE_SIZE, RECORD_LENGTH, CAPACITY))
+    file.write(bytes(HEADER_LENGTH - 24 + CAPACITY * RECORD_LENGTH))
+
+def write(path: str, sequences: range) -> None:
+  """Writes transitions the way the server does: stamp -1, the values, then sequence + 1."""
+  records = np.memmap(path, dtype=ReplayBuffer(path).records.dtype, mode='r+', offset=HEADER_LENGTH, shape=(CAPACITY,))
+  written = np.memmap(path, dtype='<i8', mode='r+', offset=WRITTEN_OFFSET, shape=(1,))
+  for sequence in sequences:
+    slot = sequence % CAPACITY
+    value = sequence % 30_000
+    records['stamp'][slot] = -1
+    records['action'][slot] = value
+    records['reward'][slot] = value
+    records['observation'][slot] = value
+    records['next_observation'][slot] = value
+    records['stamp'][slot] = sequence + 1
+    written[0] = max(written[0], sequence + 1)
+
+class TestReplayBuffer(unittest.TestCase):
+  def setUp(self) -> None:
+    handle, self.path = tempfile.mkstemp(suffix='.replay')
+    os.close(handle)
+    create(self.path)
+
+  def tearDown(self) -> None:
+    os.remove(self.path)
+
+  def test_records_being_written_are_skipped(self) -> None:
+    write(self.path, range(3))
+    stamps = np.memmap(self.path, dtype='<i8', mode='r+', offset=HEADER_LENGTH, shape=(CAPACITY, RECORD_LENGTH // 8))
+    stamps[1, 0] = -1
+    batch = ReplayBuffer(self.path).sample(64, np.random.default_rng(5))
+    self.assertGreater(len(batch['actions']), 0)
+    self.assertNotIn(1, batch['actions'])
+
+  def test_samples_taken_while_writing_are_whole(self) -> None:
+    writer = multiprocessing.Process(target=write, args=(self.path, range(1, 200_000)))
+    write(self.path, range(1))
+    writer.start()
+    buffer = ReplayBuffer(self.path)
+    rng = np.random.default_rng(7)
+    sampled = 0
+    while writer.is_alive():
+      batch = buffer.sample(CAPACITY, rng)
+      actions = batch['actions'][:, None]
+      self.assertTrue(np.all(batch['observations'] == actions))
+      self.assertTrue(np.all(batch['next_observations'] == actions))
+      self.assertTrue(np.all(batch['rewards'] == batch['actions']))
+      sampled += len(actions)
+    writer.join()
+    self.assertEqual(0, writer.exitcode)
+    self.assertGreater(sampled, 0)
+
+if __name__ == '__main__':
+  unittest.main()
@@ -0,0 +1,86 @@
+import numpy as np
+
+# Layout of a gamestate in a binary frame, see GameState.writeBinary on the server.
+TILES = slice(0, 38)
+BANKS = slice(38, 44)
+PLAYER_PERSPECTIVE_RESOURCE_CARDS = slice(44, 64)
+PLAYER_FULL_RESOURCE_CARDS = slice(64, 84)
+PLAYER_DEVELOPMENT_CARDS_OFFSET = 84
+EDGES = slice(104, 176)
+NODES = slice(176, 284)
+PORTS = slice(284, 293)
+PLAYER_METADATA = slice(293, 325)
+LAST_ROLL = 325
+ACTION_ID = 326
+CURRENT_PLAYER = 327
+FINISHED = 328
+ACTION_STATE = 329
+GAME_STATE_LENGTH = 330
+
+class GameBinaryParser:
+  ''' Decodes binary frames: little-endian int16 values holding the number of games,
+  then for each game its reward followed by its gamestate. '''
+  game_states: np.ndarray
+  rewards: np.ndarray
+
+  def __init__(self, message: bytes = b''):
+    if message != b'':
+      self.setMessage(message)
+
+  def setMessage(self, message: bytes):
+    values = np.frombuffer(message, dtype='<i2')
+    n_games = int(values[0])
+    records = values[1:].reshape(n_games, GAME_STATE_LENGTH + 1)
+    self.rewards = records[:, 0].astype(np.float32)
+    self.game_states = records[:, 1:]
+
+  def getGameStates(self) -> np.ndarray:
+    return self.game_states
+
+  def getRewards(self) -> np.ndarray:
+    return self.rewards
+
+  def getDones(self) -> np.ndarray:
+    return self.game_states[:, FINISHED] == 1
+
+  def getGameStatesAsObservations(self) -> np.ndarray:
+    ''' Observations in the same layout as GameResponseParser.getGameStateAsObservation. '''
+    states = self.game_states
+    current_player = states[:, CURRENT_PLAYER].astype(np.int64) - 1
+    dev_card_columns = PLAYER_DEVELOPMENT_CARDS_OFFSET + current_player[:, None] * 5 + np.arange(5)
+    return np.concatenate([
+      states[:, TILES],
+      states[:, PLAYER_PERSPECTIVE_RESOURCE_CARDS],
+      states[:, EDGES],
+      states[:, NODES],
+      states[:, PORTS],
+      states[:, PLAYER_METADATA],
+      states[:, LAST_ROLL:LAST_ROLL + 1],
+      states[:, ACTION_STATE:ACTION_STATE + 1],
+      np.take_along_axis(states, dev_card_columns, axis=1),
+    ], axis=1)
+
+
+class StepBinaryParser:
+  ''' Decodes the binary reply of a step: the request id as a little-endian int32, then int16
+  values holding the reward, the done flag, the gamestate, the number of legal action ids and
+  the ids. '''
+  request_id: int
+  reward: float
+  done: bool
+  game_state: np.ndarray
+  legal_action_ids: np.ndarray
+
+  def __init__(self, message: bytes):
+    self.request_id = int(np.frombuffer(message, dtype='<i4', count=1)[0])
+    values = np.frombuffer(message, dtype='<i2', offset=4)
+    self.reward = float(values[0])
+    self.done = values[1] == 1
+    self.game_state = values[2:2 + GAME_STATE_LENGTH]
+    n_legal = int(values[2 + GAME_STATE_LENGTH])
+    self.legal_action_ids = values[3 + GAME_STATE_LENGTH:3 + GAME_STATE_LENGTH + n_legal].astype(np.int64)
+
+  def getLegalMask(self, action_space_size: int) -> np.ndarray:
+    mask = np.zeros(action_space_size, dtype=bool)
+    mask[self.legal_action_ids] = True
+    return mask
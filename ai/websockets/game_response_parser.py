@@ -69,4 +69,37 @@ class GameResponseParser:
     for val in self.game_state.playerDevelopmentCards[int(self.game_state.currentPlayer[0][0]) - 1]:
       arr.append(val)
     
-    return np.array(arr)
\ No newline at end of file
+    return np.array(arr)
+
+class GameBatchResponseParser:
+  ''' Observations, rewards and done flags of every game in a batched response. '''
+  game_states: List[GameState]
+  rewards: np.ndarray
+  dones: np.ndarray
+
+  def __init__(self, message: str = ''):
+    if message != '':
+      self.setMessage(message)
+
+  def setMessage(self, message: str):
+    batch = json.loads(message)
+    self.game_states = [parse_obj_as(GameState, obs) for obs in batch['observations']]
+    self.rewards = np.array(batch['rewards'], dtype=np.float32)
+    self.dones = np.array(batch['dones'], dtype=bool)
+
+  def getGameStates(self) -> List[GameState]:
+    return self.game_states
+
+  def getRewards(self) -> np.ndarray:
+    return self.rewards
+
+  def getDones(self) -> np.ndarray:
+    return self.dones
+
+  def getGameStatesAsObservations(self) -> np.ndarray:
+    parser = GameResponseParser()
+    observations = []
+    for game_state in self.game_states:
+      parser.game_state = game_state
+      observations.append(parser.getGameStateAsObservation())
+    return np.stack(observations)
@@ -7,29 +7,70 @@ class GameWebSocketHandler:
   getting Gamestates, doing player actions, etc. from backend (Java)."""
 
   connectionString: str
+  binary: bool
 
-  def __init__(self, connectionString: str | None = None):
+  def __init__(self, connectionString: str | None = None, binary: bool = False):
+    ''' If binary is set, gamestates are received as binary frames (see GameBinaryParser) instead of JSON. '''
     if connectionString is None:
       self.connectionString = 'ws://127.0.0.1:8080/game'
     else: 
       self.connectionString = connectionString
+    self.binary = binary
 
-  def newGame(self) -> str:
-    actionString = json.dumps({'command': 'newGame'})
-    self.ws.send(bytes(actionString, "utf-8"))
+  def _gameStateCommand(self, message: dict) -> str | bytes:
+    if self.binary:
+      message['encoding'] = 'binary'
+    self.ws.send(bytes(json.dumps(message), "utf-8"))
     return self.ws.recv()
 
-  def getCurrentGamestate(self) -> str:
-    actionString = json.dumps({'command': 'getCurrentGamestate'})
+  def newGame(self) -> str | bytes:
+    return self._gameStateCommand({'command': 'newGame'})
+
+  def getCurrentGamestate(self) -> str | bytes:
+    return self._gameStateCommand({'command': 'getCurrentGamestate'})
+
+  def makeMove(self) -> str | bytes:
+    return self._gameStateCommand({'command': 'makeMove'})
+
+  def getLegalMasks(self) -> str:
+    actionString = json.dumps({'command': 'getLegalMasks'})
     self.ws.send(bytes(actionString, "utf-8"))
     return self.ws.recv()
 
-  def makeMove(self) -> str:
-    actionString = json.dumps({'command': 'makeMove'})
-    self.ws.send(bytes(actionString, "utf-8"))
+  def getLegalActionIds(self) -> List[int]:
+    ''' Ids of the current player's legal actions in the server's flat ActionSpace. '''
+    self.ws.send(bytes(json.dumps({'command': 'getLegalActionIds'}), "utf-8"))
+    return json.loads(self.ws.recv())
+
+  def newGames(self, count: int) -> str | bytes:
+    return self._gameStateCommand({'command': 'newGames', 'count': count})
+
+  def stepBatch(self, actions: List[List[int] | int]) -> str | bytes:
+    return self._gameStateCommand({'command': 'stepBatch', 'action': actions})
+
+  def sendStep(self, action: List[int] | int, requestId: int, game: int | None = None, persistAs: int | None = None):
+    ''' Sends a step without waiting for its reply, so several steps can be in flight;
+    read the replies in order with receive() and match them by requestId. With persistAs,
+    the server stores the resulting gamestate under that game id in batches. '''
+    message = {'command': 'step', 'action': action, 'requestId': requestId}
+    if game is not None:
+      message['game'] = game
+    if persistAs is not None:
+      message['persistAs'] = persistAs
+    if self.binary:
+      message['encoding'] = 'binary'
+    self.ws.send(bytes(json.dumps(message), "utf-8"))
+
+  def receive(self) -> str | bytes:
+    return self.ws.recv()
+
+  def step(self, action: List[int] | int, requestId: int = 0, game: int | None = None, persistAs: int | None = None) -> str | bytes:
+    ''' Adds the action, makes the move and returns the observation, reward, done flag and
+    legal action ids in one round trip. '''
+    self.sendStep(action, requestId, game, persistAs)
     return self.ws.recv()
 
-  def addMove(self, action: List[int], playerID: str) -> str:
+  def addMove(self, action: List[int] | int, playerID: str) -> str:
     actionString = json.dumps(
       {
         'command': 'addPlayerMove',
@@ -53,4 +53,25 @@ export namespace catanapi {
   export function getGameByID(gameID: number): Promise<AxiosResponse<IGameState[], any>> {
     return axios.get<IGameState[]>(`${API_NETWORK_LOCATION}/game?gameId=${gameID}`);
   }
+
+  /**
+   * Streams the gamestates of a game as newline delimited JSON, passing on the gamestates of
+   * each received chunk as soon as it arrives, so long games show before they are fully read.
+   */
+  export async function streamGameByID(gameID: number, onGameStates: (gameStates: IGameState[]) => void): Promise<void> {
+    const response = await fetch(`${API_NETWORK_LOCATION}/game/stream?gameId=${gameID}`, { headers: {"Accept": 'application/x-ndjson'}});
+    if (response.body === null) return;
+    const reader = response.body.getReader();
+    const decoder = new TextDecoder();
+    let partialLine = '';
+    for (;;) {
+      const { done, value } = await reader.read();
+      partialLine += done ? decoder.decode() : decoder.decode(value, { stream: true });
+      const lines = partialLine.split('\n');
+      partialLine = done ? '' : lines.pop() ?? '';
+      const gameStates = lines.filter((line) => line !== '').map((line) => JSON.parse(line) as IGameState);
+      if (gameStates.length > 0) onGameStates(gameStates);
+      if (done) return;
+    }
+  }
 };
\ No newline at end of file
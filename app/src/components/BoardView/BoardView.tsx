@@ -6,7 +6,7 @@ import { Button, Input, Space } from 'antd';
 import Player from './Player/Player';
 import GameMetadata from './GameMetadata/GameMetadata';
 import { useDispatch } from 'react-redux';
-import { setGameStates } from '../../features/gameStateSlice';
+import { appendGameStates, setGameStates } from '../../features/gameStateSlice';
 import { setCurrentGameState } from '../../features/currentGameState';
 import { useAppSelector } from '../../hooks';
 
@@ -127,29 +127,26 @@ const Board: React.FC = () => {
     }
   }
 
+  // Shows the first gamestate as soon as it arrives, while the rest of the game streams in.
+  const loadGame = (id: number) => {
+    dispatch(setGameStates([]));
+    dispatch(setCurrentGameState(0));
+    let first = true;
+    catanapi.streamGameByID(id, (streamed) => {
+      dispatch(appendGameStates(streamed));
+      if (first) {
+        first = false;
+        drawBoard(streamed[0], canvasRef);
+      }
+    });
+  }
+
   const newGameID = (e: any) => {
-    catanapi.getGameByID(gameID)
-      .then((resp) => {
-        const jsonData = resp.data as catanapi.IGameState[];
-        // console.log(jsonData);
-        dispatch(setGameStates(jsonData));
-        console.log(jsonData)
-        console.log(gameStates)
-        dispatch(setCurrentGameState(0));
-        drawBoard(jsonData[0], canvasRef);
-      });
+    loadGame(gameID);
   }
 
   useEffect(() => {
-    catanapi.getGameByID(gameID)
-      .then((resp) => {
-        const jsonData = resp.data as catanapi.IGameState[];
-        dispatch(setGameStates(jsonData));
-        console.log(jsonData)
-        console.log(gameStates)
-        dispatch(setCurrentGameState(0));
-        drawBoard(jsonData[0], canvasRef);
-      });
+    loadGame(gameID);
   }, []);
 
   const reduceCurrentGameState = (e: any) => {
@@ -16,11 +16,14 @@ export const gameStatesSlice = createSlice({
   reducers: {
     setGameStates: (state, gameStates: PayloadAction<catanapi.IGameState[]>) => {
       state.value = gameStates.payload;
+    },
+    appendGameStates: (state, gameStates: PayloadAction<catanapi.IGameState[]>) => {
+      (state.value as catanapi.IGameState[]).push(...gameStates.payload);
     }
   },
 });
 
-export const { setGameStates } = gameStatesSlice.actions;
+export const { setGameStates, appendGameStates } = gameStatesSlice.actions;
 
 export const selectGameStates = (state: RootState) => state.gameStates;
 
@@ -0,0 +1,226 @@
+package com.catanai.server.benchmark;
+
+import com.catanai.server.model.Game;
+import com.catanai.server.model.action.LegalActionEnumerator;
+import com.catanai.server.model.board.Board;
+import com.catanai.server.model.board.LongestRoadCalculator;
+import com.catanai.server.model.board.building.Road;
+import com.catanai.server.model.board.building.Settlement;
+import com.catanai.server.model.board.graph.BoardTopology;
+import com.catanai.server.model.board.graph.Edge;
+import com.catanai.server.model.board.graph.Node;
+import com.catanai.server.model.gamestate.GameState;
+import com.catanai.server.model.player.DeterministicPlayer;
+import com.catanai.server.model.player.Player;
+import com.catanai.server.model.player.PlayerID;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmarks of the individual operations of the rules engine.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Thread)
+public class EngineBenchmark {
+  /** Seed of every game, so each run times the same board. */
+  static final long SEED = 42;
+
+  /** Starting settlements and roads of all players, in turn order. */
+  static final int[][] STARTING_MOVES = {
+      {2, 0}, {1, 0}, {2, 1}, {1, 2}, {2, 2}, {1, 4}, {2, 7}, {1, 10},
+      {2, 8}, {1, 12}, {2, 9}, {1, 14}, {2, 10}, {1, 16}, {2, 16}, {1, 23}
+  };
+
+  /** Dice rolls which produce resources, cycled through by the produce benchmark. */
+  private static final int[] PRODUCING_ROLLS = {2, 3, 4, 5, 6, 8, 9, 10, 11, 12};
+
+  /** Amount of roads player one has when measuring the longest road computation. */
+  private static final int LONGEST_ROAD_SIZE = 10;
+
+  private final ObjectMapper objectMapper = new ObjectMapper();
+  private final LegalActionEnumerator legalActions = new LegalActionEnumerator();
+
+  private Game game;
+  private GameState gameState;
+  private long longestRoadLow;
+  private long longestRoadHigh;
+  private long longestRoadBrokenNodes;
+
+  /**
+   * Sets up a game where every starting placement has been made, and where player one has
+   * extended their roads for the longest road computation.
+   */
+  @Setup(Level.Trial)
+  public void setUp() {
+    this.game = startedGame();
+    this.gameState = new GameState(this.game);
+
+    Player longestRoadPlayer = this.game.getPlayerByID(PlayerID.ONE);
+    Board board = this.game.getBoard();
+    while (longestRoadPlayer.getRoads().size() < LONGEST_ROAD_SIZE) {
+      Edge edge = board.getLegalRoadEdges(PlayerID.ONE).get(0);
+      Road road = new Road(edge.getIndex(), PlayerID.ONE);
+      board.placeRoad(road);
+      longestRoadPlayer.addRoad(road);
+    }
+    for (Road road : longestRoadPlayer.getRoads()) {
+      if (road.getPlacement() < 64) {
+        this.longestRoadLow |= 1L << road.getPlacement();
+      } else {
+        this.longestRoadHigh |= 1L << (road.getPlacement() - 64);
+      }
+    }
+    for (Node node : board.getNodes()) {
+      if (node.hasBuilding() && node.getBuilding().getPlayerId() != PlayerID.ONE) {
+        this.longestRoadBrokenNodes |= 1L << node.getIndex();
+      }
+    }
+  }
+
+  /**
+   * A game which has just finished its starting placements, for benchmarks which change it.
+   */
+  @State(Scope.Thread)
+  public static class StartedGame {
+    Game game;
+    int roll;
+    private int rollIndex;
+
+    @Setup(Level.Invocation)
+    public void setUp() {
+      this.game = startedGame();
+      this.rollIndex = (this.rollIndex + 1) % PRODUCING_ROLLS.length;
+      this.roll = PRODUCING_ROLLS[this.rollIndex];
+    }
+  }
+
+  //****************************************************************************
+  //******************************* Construction *******************************
+  //****************************************************************************
+
+  @Benchmark
+  public Game newGame() {
+    return new Game(newPlayers(), SEED);
+  }
+
+  @Benchmark
+  public Board newBoard() {
+    return new Board();
+  }
+
+  @Benchmark
+  public Game fork() {
+    return this.game.fork();
+  }
+
+  @Benchmark
+  public GameState newGameState() {
+    return new GameState(this.game);
+  }
+
+  //****************************************************************************
+  //******************************* Serialization ******************************
+  //****************************************************************************
+
+  @Benchmark
+  public String gameStateToJson() throws Exception {
+    return this.objectMapper.writeValueAsString(this.gameState.toMap());
+  }
+
+  //****************************************************************************
+  //********************************** Rules ***********************************
+  //****************************************************************************
+
+  /**
+   * Checks a road of player two on every edge.
+   */
+  @Benchmark
+  public void canPlaceRoad(Blackhole blackhole) {
+    Board board = this.game.getBoard();
+    for (int i = 0; i < BoardTopology.NUM_EDGES; i++) {
+      blackhole.consume(board.canPlaceRoad(new Road(i, PlayerID.TWO)));
+    }
+  }
+
+  /**
+   * Checks a settlement of player two on every node.
+   */
+  @Benchmark
+  public void canPlaceSettlement(Blackhole blackhole) {
+    Board board = this.game.getBoard();
+    for (int i = 0; i < BoardTopology.NUM_NODES; i++) {
+      blackhole.consume(board.canPlaceSettlement(new Settlement(i, PlayerID.TWO, false)));
+    }
+  }
+
+  /**
+   * Lists the actions of the first player's first turn, after the starting placements.
+   */
+  @Benchmark
+  public int legalActions() {
+    return this.legalActions.enumerate(this.game);
+  }
+
+  @Benchmark
+  public Game produce(StartedGame startedGame) {
+    startedGame.game.produce(startedGame.roll);
+    return startedGame.game;
+  }
+
+  /**
+   * Searches every road network of player one, as done when a settlement breaks a road.
+   */
+  @Benchmark
+  public int longestRoad() {
+    return LongestRoadCalculator.longestRoad(
+        this.longestRoadLow, this.longestRoadHigh, this.longestRoadBrokenNodes
+    );
+  }
+
+  //****************************************************************************
+  //********************************* Helpers **********************************
+  //****************************************************************************
+
+  /**
+   * Creates a game and plays every starting settlement and road.
+   *
+   * @return game in the first dice roll action state.
+   */
+  static Game startedGame() {
+    List<DeterministicPlayer> players = newPlayers();
+    Game startedGame = new Game(players, SEED);
+    for (int[] move : STARTING_MOVES) {
+      ((DeterministicPlayer) startedGame.getCurrentPlayer()).addNextMove(move);
+      if (!startedGame.nextMove()) {
+        throw new IllegalStateException("Starting move " + move[0] + "," + move[1] + " failed.");
+      }
+    }
+    return startedGame;
+  }
+
+  private static List<DeterministicPlayer> newPlayers() {
+    List<DeterministicPlayer> players = new ArrayList<>();
+    for (PlayerID id : PlayerID.values()) {
+      players.add(new DeterministicPlayer(id));
+    }
+    return players;
+  }
+}
@@ -0,0 +1,83 @@
+package com.catanai.server.benchmark;
+
+import com.catanai.server.model.Game;
+import com.catanai.server.model.player.PlayerID;
+import com.catanai.server.model.player.RandomLegalPlayer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Plays random legal games from a fixed sequence of seeds, so every run plays the same games.
+ * The score is games per second; the finished and cutOff counters split it into games which
+ * were won and games cut off at maxActions, e.g. when the board leaves everybody short of a
+ * resource they cannot trade for.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(2)
+@State(Scope.Thread)
+public class PlayoutBenchmark {
+  @Param({"20000"})
+  int maxActions;
+
+  private SplittableRandom random;
+
+  /**
+   * Games played per outcome, reported next to the score.
+   */
+  @State(Scope.Thread)
+  @AuxCounters(AuxCounters.Type.OPERATIONS)
+  public static class Outcomes {
+    public long finished;
+    public long cutOff;
+  }
+
+  @Setup
+  public void setUp() {
+    this.random = new SplittableRandom(EngineBenchmark.SEED);
+  }
+
+  /**
+   * Plays one game from the first starting settlement.
+   *
+   * @param outcomes counters of finished and cut off games.
+   * @return amount of actions attempted.
+   */
+  @Benchmark
+  public int playout(Outcomes outcomes) {
+    List<RandomLegalPlayer> players = new ArrayList<>();
+    for (PlayerID id : PlayerID.values()) {
+      players.add(new RandomLegalPlayer(id, this.random.split(), Map.of()));
+    }
+    Game game = new Game(players, this.random.nextLong());
+
+    int actions = 0;
+    while (!game.hasEnded() && actions < this.maxActions) {
+      game.nextMove();
+      actions++;
+    }
+    if (game.hasEnded()) {
+      outcomes.finished++;
+    } else {
+      outcomes.cutOff++;
+    }
+    return actions;
+  }
+}
@@ -0,0 +1,59 @@
+package com.catanai.server.benchmark;
+
+import com.catanai.server.model.Game;
+import com.catanai.server.model.player.MctsPlayer;
+import com.catanai.server.model.player.Player;
+import com.catanai.server.model.player.PlayerID;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the time Monte Carlo tree search players take to choose the first settlement of a
+ * game, where each of the 54 nodes is legal. Every iteration forks the game and plays a random
+ * playout, so this mostly measures the engine.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(2)
+@State(Scope.Thread)
+public class SearchBenchmark {
+  @Param({"200"})
+  int iterations;
+
+  @Param({"1", "4"})
+  int threads;
+
+  private Game game;
+
+  /**
+   * Sets up a new game of search players.
+   */
+  @Setup(Level.Trial)
+  public void setUp() {
+    List<Player> players = new ArrayList<>();
+    for (PlayerID id : PlayerID.values()) {
+      players.add(new MctsPlayer(id, this.iterations, 0, this.threads, id.getValue()));
+    }
+    this.game = new Game(players, EngineBenchmark.SEED);
+  }
+
+  @Benchmark
+  public int[] firstSettlement() {
+    return this.game.getCurrentPlayer().play(this.game.getCurrentGameState());
+  }
+}
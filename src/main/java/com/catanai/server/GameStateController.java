@@ -1,17 +1,21 @@
 package com.catanai.server;
 
 import com.catanai.server.dao.GameStatesDAO;
+import com.catanai.server.dao.StoredGameState;
 import com.catanai.server.model.Game;
+import com.catanai.server.model.board.graph.BoardTopology;
 import com.catanai.server.model.gamestate.GameState;
 import com.catanai.server.model.player.DeterministicPlayer;
 import com.catanai.server.model.player.Player;
 import com.catanai.server.model.player.PlayerID;
-import java.io.File;
-import java.io.FileNotFoundException;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
-import java.util.Scanner;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.MediaType;
 import org.springframework.stereotype.Controller;
@@ -20,6 +24,7 @@ import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 /**
  * Main endpoint for Catan AI webviewer.
@@ -28,6 +33,7 @@ import org.springframework.web.bind.annotation.ResponseBody;
 @RequestMapping("api/v1")
 @CrossOrigin(origins = "*")
 public class GameStateController {
+  private static final JsonFactory jsonFactory = new JsonFactory();
 
   @Autowired
   private GameStatesDAO gameStatesDAO;
@@ -82,16 +88,7 @@ public class GameStateController {
   @GetMapping(path = "/nodeTileMappings", produces = MediaType.TEXT_PLAIN_VALUE)
   @ResponseBody
   public String nodeTileMappings() {
-    try (Scanner s = new Scanner(new File("./node_tile_mapping.txt"))) {
-      String returnString = "";
-      while (s.hasNextLine()) {
-        returnString += s.nextLine();
-      }
-      s.close();
-      return returnString;
-    } catch (FileNotFoundException e) {
-      return "";
-    }
+    return String.join("", BoardTopology.readMappingFile("node_tile_mapping.txt"));
   }
 
   /**
@@ -102,16 +99,7 @@ public class GameStateController {
   @GetMapping(path = "/nodeEdgeMappings", produces = MediaType.TEXT_PLAIN_VALUE)
   @ResponseBody
   public String nodeEdgeMappings() {
-    try (Scanner s = new Scanner(new File("./node_edge_mapping.txt"))) {
-      String returnString = "";
-      while (s.hasNextLine()) {
-        returnString += s.nextLine();
-      }
-      s.close();
-      return returnString;
-    } catch (FileNotFoundException e) {
-      return "";
-    }
+    return String.join("", BoardTopology.readMappingFile("node_edge_mapping.txt"));
   }
 
   /**
@@ -125,4 +113,37 @@ public class GameStateController {
   public List<Map<String, Object>> game(@RequestParam("gameId") int id) {
     return gameStatesDAO.getGameStates(id);
   }
+
+  /**
+   * Streams the gamestates of the game with the given id as newline delimited JSON, one
+   * gamestate per line, oldest first. Gamestates are written as they are read from the
+   * database, so neither the server nor the client has to wait for the whole game.
+   *
+   * @param id id of the game to stream.
+   * @return body writing the gamestates.
+   */
+  @GetMapping(path = "game/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+  @ResponseBody
+  public StreamingResponseBody gameStream(@RequestParam("gameId") long id) {
+    return outputStream -> {
+      try (JsonGenerator generator = jsonFactory.createGenerator(outputStream, JsonEncoding.UTF8)) {
+        generator.setRootValueSeparator(null);
+        try {
+          gameStatesDAO.streamGameStates(id, gameState -> writeLine(generator, gameState));
+        } catch (UncheckedIOException e) {
+          throw e.getCause();
+        }
+      }
+    };
+  }
+
+  private static void writeLine(JsonGenerator generator, StoredGameState gameState) {
+    try {
+      gameState.writeJson(generator);
+      generator.writeRaw('\n');
+    } catch (IOException e) {
+      // Usually the client went away; stop reading the game.
+      throw new UncheckedIOException(e);
+    }
+  }
 }
@@ -0,0 +1,288 @@
+package com.catanai.server.config;
+
+import com.catanai.server.dao.GameStatePersister;
+import com.catanai.server.replay.ReplayBuffer;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+/**
+ * Holds an independent SocketCommandHandler, and so independent games, for each WebSocket session.
+ * Commands for one session run one at a time, while different sessions run in parallel without
+ * sharing a lock. The registry holds at most a fixed number of sessions; sessions idle for longer
+ * than the idle timeout are evicted when room is needed. An evicted session which is still open
+ * is told it expired instead of silently getting new, empty games; it must reconnect.
+ */
+public final class GameRegistry {
+  public static final int DEFAULT_CAPACITY = 256;
+  public static final Duration DEFAULT_IDLE_TIMEOUT = Duration.ofMinutes(30);
+
+  static final String TOO_MANY_GAMES = "ERROR: too many games are running.";
+  static final String SESSION_EXPIRED = "ERROR: session expired after being idle; reconnect to play again.";
+
+  private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+
+  /** Sessions evicted while idle which have not been closed yet. */
+  private final Set<String> expired = ConcurrentHashMap.newKeySet();
+  private final Semaphore slots;
+  private final long idleTimeoutNanos;
+  private final LongSupplier clock;
+  private final GameStatePersister gameStatePersister;
+  private final ReplayBuffer replayBuffer;
+
+  /**
+   * A session's command handler, and when it was last used. Both lastUsed and evicted are only
+   * changed while holding the entry's lock.
+   */
+  private static final class Entry {
+    private final SocketCommandHandler commandHandler;
+    private volatile long lastUsed;
+    private boolean evicted;
+
+    private Entry(long now, GameStatePersister gameStatePersister, ReplayBuffer replayBuffer) {
+      this.commandHandler = new SocketCommandHandler(gameStatePersister, replayBuffer);
+      this.lastUsed = now;
+    }
+  }
+
+  public GameRegistry() {
+    this(DEFAULT_CAPACITY, DEFAULT_IDLE_TIMEOUT);
+  }
+
+  public GameRegistry(int capacity, Duration idleTimeout) {
+    this(capacity, idleTimeout, System::nanoTime, null, null);
+  }
+
+  /**
+   * Creates a registry whose sessions can store the gamestates of their steps.
+   *
+   * @param gameStatePersister persister of the gamestates, or null to store none.
+   */
+  public GameRegistry(GameStatePersister gameStatePersister) {
+    this(gameStatePersister, null);
+  }
+
+  /**
+   * Creates a registry whose sessions can store the gamestates of their steps and record their
+   * transitions.
+   *
+   * @param gameStatePersister persister of the gamestates, or null to store none.
+   * @param replayBuffer buffer shared by every session to record transitions into, or null.
+   */
+  public GameRegistry(GameStatePersister gameStatePersister, ReplayBuffer replayBuffer) {
+    this(DEFAULT_CAPACITY, DEFAULT_IDLE_TIMEOUT, System::nanoTime, gameStatePersister, replayBuffer);
+  }
+
+  GameRegistry(int capacity, Duration idleTimeout, LongSupplier clock) {
+    this(capacity, idleTimeout, clock, null, null);
+  }
+
+  GameRegistry(
+      int capacity,
+      Duration idleTimeout,
+      LongSupplier clock,
+      GameStatePersister gameStatePersister,
+      ReplayBuffer replayBuffer
+  ) {
+    if (capacity < 1) {
+      throw new IllegalArgumentException("Capacity must be positive.");
+    }
+    this.slots = new Semaphore(capacity);
+    this.idleTimeoutNanos = idleTimeout.toNanos();
+    this.clock = clock;
+    this.gameStatePersister = gameStatePersister;
+    this.replayBuffer = replayBuffer;
+  }
+
+  /**
+   * Handles a command with the command handler of the given session, creating it if needed.
+   *
+   * @param sessionId session the command was sent on.
+   * @param command command to handle from websocket.
+   * @param action action, or one action per game for stepBatch, as a JSON array.
+   * @param playerID player to add the action to, for addPlayerMove.
+   * @param count number of games to create, for newGames.
+   * @return string of command output.
+   */
+  public String handleCommand(String sessionId, String command, String action, String playerID, Integer count) {
+    return this.run(
+        sessionId,
+        commandHandler -> commandHandler.handleCommand(command, action, playerID, count),
+        TOO_MANY_GAMES,
+        SESSION_EXPIRED
+    );
+  }
+
+  /**
+   * Handles a command with the command handler of the given session, replying with a binary frame.
+   *
+   * @param sessionId session the command was sent on.
+   * @param command command with a binary reply, see SocketCommandHandler.hasBinaryReply.
+   * @param action one action per game for stepBatch, as a JSON array.
+   * @param count number of games to create, for newGames.
+   * @return binary frame of the resulting gamestates, or null if the command could not be handled
+   *     or the session expired.
+   */
+  public byte[] handleBinaryCommand(String sessionId, String command, String action, Integer count) {
+    return this.run(
+        sessionId, commandHandler -> commandHandler.handleBinaryCommand(command, action, count), null, null
+    );
+  }
+
+  /**
+   * Handles a step with the command handler of the given session, see SocketCommandHandler.handleStep.
+   *
+   * @param sessionId session the step was sent on.
+   * @param action action as a JSON array or an ActionSpace id.
+   * @param gameIndex index of the batched game to step, or null for the game of newGame.
+   * @param requestId id echoed in the reply, or null.
+   * @param persistAs id to store the gamestate of a successful step under, or null.
+   * @return JSON of the step.
+   */
+  public String handleStep(String sessionId, String action, Integer gameIndex, Object requestId, Long persistAs) {
+    return this.run(
+        sessionId,
+        commandHandler -> commandHandler.handleStep(action, gameIndex, requestId, persistAs),
+        TOO_MANY_GAMES,
+        SESSION_EXPIRED
+    );
+  }
+
+  /**
+   * Handles a step with the command handler of the given session, replying with a binary frame.
+   *
+   * @param sessionId session the step was sent on.
+   * @param action action as a JSON array or an ActionSpace id.
+   * @param gameIndex index of the batched game to step, or null for the game of newGame.
+   * @param requestId id echoed in the reply.
+   * @param persistAs id to store the gamestate of a successful step under, or null.
+   * @return binary frame of the step, or null if it could not be made or the session expired.
+   */
+  public byte[] handleBinaryStep(String sessionId, String action, Integer gameIndex, int requestId, Long persistAs) {
+    return this.run(
+        sessionId,
+        commandHandler -> commandHandler.handleBinaryStep(action, gameIndex, requestId, persistAs),
+        null,
+        null
+    );
+  }
+
+  /**
+   * Runs a command with the command handler of a session, creating it if needed, while holding
+   * the handler's lock.
+   */
+  private <T> T run(String sessionId, Function<SocketCommandHandler, T> command, T unavailable, T expiredReply) {
+    Entry entry = this.getOrCreate(sessionId);
+    if (entry == null) {
+      return this.expired.contains(sessionId) ? expiredReply : unavailable;
+    }
+    synchronized (entry) {
+      if (entry.evicted) {
+        // Evicted between being fetched and being locked.
+        return expiredReply;
+      }
+      entry.lastUsed = this.clock.getAsLong();
+      return command.apply(entry.commandHandler);
+    }
+  }
+
+  /**
+   * Returns whether a session was evicted while idle, and has not been removed since.
+   *
+   * @param sessionId session to check.
+   * @return whether commands of the session are answered with a session expired error.
+   */
+  public boolean isExpired(String sessionId) {
+    return this.expired.contains(sessionId);
+  }
+
+  /**
+   * Returns the reply for a session the registry could not run a command for, which binary
+   * commands report as a null frame like a failed command.
+   *
+   * @param sessionId session to check.
+   * @return the session expired or too many games error, or null if the session is registered.
+   */
+  public String unavailableReply(String sessionId) {
+    if (this.expired.contains(sessionId)) {
+      return SESSION_EXPIRED;
+    }
+    return this.entries.containsKey(sessionId) ? null : TOO_MANY_GAMES;
+  }
+
+  /**
+   * Removes a session and its games, once it is closed.
+   *
+   * @param sessionId session to remove.
+   */
+  public void remove(String sessionId) {
+    this.expired.remove(sessionId);
+    Entry entry = this.entries.remove(sessionId);
+    if (entry != null) {
+      synchronized (entry) {
+        entry.evicted = true;
+      }
+      this.slots.release();
+    }
+  }
+
+  /**
+   * Removes every session which has been idle for longer than the idle timeout. Idleness is
+   * checked again under the session's lock, so a session whose command is about to run is kept.
+   *
+   * @return number of sessions removed.
+   */
+  public int evictIdle() {
+    int evicted = 0;
+    for (var e : this.entries.entrySet()) {
+      Entry entry = e.getValue();
+      long lastUsed = entry.lastUsed;
+      if (this.clock.getAsLong() - lastUsed <= this.idleTimeoutNanos) {
+        continue;
+      }
+      synchronized (entry) {
+        if (entry.evicted || this.clock.getAsLong() - entry.lastUsed <= this.idleTimeoutNanos) {
+          continue;
+        }
+        // Marked expired before it is removed, so getOrCreate() never replaces it with a new handler.
+        this.expired.add(e.getKey());
+        if (this.entries.remove(e.getKey(), entry)) {
+          entry.evicted = true;
+          this.slots.release();
+          evicted++;
+        } else {
+          // The session was closed meanwhile.
+          this.expired.remove(e.getKey());
+        }
+      }
+    }
+    return evicted;
+  }
+
+  public int size() {
+    return this.entries.size();
+  }
+
+  private Entry getOrCreate(String sessionId) {
+    Entry entry = this.entries.get(sessionId);
+    if (entry != null) {
+      return entry;
+    } else if (this.expired.contains(sessionId)) {
+      return null;
+    }
+    if (!this.slots.tryAcquire() && (this.evictIdle() == 0 || !this.slots.tryAcquire())) {
+      return null;
+    }
+    Entry created = new Entry(this.clock.getAsLong(), this.gameStatePersister, this.replayBuffer);
+    Entry existing = this.entries.putIfAbsent(sessionId, created);
+    if (existing != null) {
+      // Another thread registered the session first.
+      this.slots.release();
+      return existing;
+    }
+    return created;
+  }
+}
@@ -1,11 +1,15 @@
 package com.catanai.server.config;
 
+import com.catanai.server.dao.GameStatePersister;
+import com.catanai.server.replay.ReplayBuffer;
 import com.google.gson.Gson;
 import java.io.IOException;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CopyOnWriteArrayList;
 import org.springframework.stereotype.Component;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.CloseStatus;
 import org.springframework.web.socket.TextMessage;
 import org.springframework.web.socket.WebSocketSession;
 import org.springframework.web.socket.handler.TextWebSocketHandler;
@@ -16,8 +20,30 @@ import org.springframework.web.socket.handler.TextWebSocketHandler;
 @Component
 public class GameSocketHandler extends TextWebSocketHandler {
   List<WebSocketSession> sessions = new CopyOnWriteArrayList<>();
-  private static SocketCommandHandler commandHandler = new SocketCommandHandler();
+  private final GameRegistry gameRegistry;
 
+  public GameSocketHandler() {
+    this(null);
+  }
+
+  /**
+   * Creates a handler whose steps can be stored by a persister.
+   *
+   * @param gameStatePersister persister of the gamestates of steps sent with persistAs, or null.
+   */
+  public GameSocketHandler(GameStatePersister gameStatePersister) {
+    this(gameStatePersister, null);
+  }
+
+  /**
+   * Creates a handler whose steps can be stored by a persister and recorded in a replay buffer.
+   *
+   * @param gameStatePersister persister of the gamestates of steps sent with persistAs, or null.
+   * @param replayBuffer buffer to record the transition of every step into, or null.
+   */
+  public GameSocketHandler(GameStatePersister gameStatePersister, ReplayBuffer replayBuffer) {
+    this.gameRegistry = new GameRegistry(gameStatePersister, replayBuffer);
+  }
 
   @Override
   public void handleTextMessage(WebSocketSession session, TextMessage message)
@@ -26,11 +52,68 @@ public class GameSocketHandler extends TextWebSocketHandler {
     String command = value.get("command").toString();
     String action = value.get("action") == null ? null : value.get("action").toString();
     String playerID = value.get("playerID") == null ? null : value.get("playerID").toString();
-    session.sendMessage(new TextMessage(commandHandler.handleCommand(command, action, playerID)));
+    Integer count = value.get("count") == null ? null : ((Number) value.get("count")).intValue();
+    if ("step".equals(command)) {
+      this.handleStep(session, value, action);
+      return;
+    }
+    boolean binary = "binary".equals(value.get("encoding")) && SocketCommandHandler.hasBinaryReply(command);
+    if (binary) {
+      byte[] frame = this.gameRegistry.handleBinaryCommand(session.getId(), command, action, count);
+      this.sendFrame(session, frame, "ERROR: command not handled.");
+      return;
+    }
+    session.sendMessage(
+        new TextMessage(this.gameRegistry.handleCommand(session.getId(), command, action, playerID, count))
+    );
+  }
+
+  /**
+   * Steps a game; messages of a session are handled in order, so a client may send several
+   * steps, each with its own requestId, before reading the replies.
+   */
+  private void handleStep(WebSocketSession session, Map<?, ?> value, String action) throws IOException {
+    Integer gameIndex = value.get("game") == null ? null : ((Number) value.get("game")).intValue();
+    Object requestId = value.get("requestId");
+    Long persistAs = value.get("persistAs") == null ? null : ((Number) value.get("persistAs")).longValue();
+    if (requestId instanceof Number && ((Number) requestId).doubleValue() == ((Number) requestId).longValue()) {
+      // Gson reads every number as a double; echo whole ids back as integers.
+      requestId = ((Number) requestId).longValue();
+    }
+    if ("binary".equals(value.get("encoding"))) {
+      int binaryRequestId = requestId instanceof Number ? ((Number) requestId).intValue() : 0;
+      byte[] frame = this.gameRegistry.handleBinaryStep(
+          session.getId(), action, gameIndex, binaryRequestId, persistAs
+      );
+      this.sendFrame(session, frame, "ERROR: step " + binaryRequestId + " failed.");
+      return;
+    }
+    session.sendMessage(
+        new TextMessage(this.gameRegistry.handleStep(session.getId(), action, gameIndex, requestId, persistAs))
+    );
+  }
+
+  /**
+   * Sends a binary frame, or why there is none: the same session expired or too many games
+   * error as in text mode, or failure if the command itself failed.
+   */
+  private void sendFrame(WebSocketSession session, byte[] frame, String failure) throws IOException {
+    if (frame != null) {
+      session.sendMessage(new BinaryMessage(frame));
+      return;
+    }
+    String unavailable = this.gameRegistry.unavailableReply(session.getId());
+    session.sendMessage(new TextMessage(unavailable == null ? failure : unavailable));
   }
 
   @Override
   public void afterConnectionEstablished(WebSocketSession session) throws Exception {
     sessions.add(session);
   }
+
+  @Override
+  public void afterConnectionClosed(WebSocketSession session, CloseStatus status) throws Exception {
+    sessions.remove(session);
+    this.gameRegistry.remove(session.getId());
+  }
 }
@@ -1,23 +1,94 @@
 package com.catanai.server.config;
 
+import com.catanai.server.dao.GameStatePersister;
+import com.catanai.server.dao.GameStateRow;
 import com.catanai.server.model.Game;
+import com.catanai.server.model.action.ActionSpace;
+import com.catanai.server.model.action.LegalActionEnumerator;
+import com.catanai.server.model.gamestate.GameState;
 import com.catanai.server.model.player.DeterministicPlayer;
 import com.catanai.server.model.player.PlayerID;
+import com.catanai.server.replay.ReplayBuffer;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import org.json.JSONArray;
+import org.json.JSONException;
 
 /**
  * Socket command handler.
  */
 public class SocketCommandHandler {
+  private static final ObjectMapper objectMapper = new ObjectMapper();
+
+  /** Most games newGames creates at once, so one command cannot exhaust the server's memory. */
+  static final int MAX_BATCH_GAMES = 1024;
+  static final String BAD_BATCH_COUNT = "ERROR: newGames requires a count from 1 to " + MAX_BATCH_GAMES + ".";
+  static final String BAD_BATCH_ACTIONS = "ERROR: stepBatch requires a JSON array of actions.";
+
+  /** Commands which can reply with a binary frame. */
+  private static final Set<String> binaryCommands = Set.of(
+      "newGame", "getCurrentGamestate", "makeMove", "newGames", "stepBatch"
+  );
+
   Game game;
   List<DeterministicPlayer> players;
 
+  /** Games stepped together by the batched commands, and their players. */
+  List<Game> batchGames = new ArrayList<>();
+  List<List<DeterministicPlayer>> batchPlayers = new ArrayList<>();
+
+  private final LegalActionEnumerator legalActions = new LegalActionEnumerator();
+
+  /** Stores the gamestates of persisted steps; null if they are not stored. */
+  private final GameStatePersister gameStatePersister;
+
+  /** Failed steps of each persisted game since its last successful step. */
+  private final Map<Game, Integer> failedSteps = new IdentityHashMap<>();
+
+  /** Records the transition of every step; null if they are not recorded. */
+  private final ReplayBuffer replayBuffer;
+  private final ByteBuffer observation;
+  private final ByteBuffer nextObservation;
+  private final long[] legalMask;
+
+  public SocketCommandHandler() {
+    this(null);
+  }
+
+  public SocketCommandHandler(GameStatePersister gameStatePersister) {
+    this(gameStatePersister, null);
+  }
+
+  /**
+   * Creates a handler which can store the gamestates of its steps and record their transitions.
+   *
+   * @param gameStatePersister persister of the gamestates of steps sent with persistAs, or null.
+   * @param replayBuffer buffer to record the transition of every step into, or null.
+   */
+  public SocketCommandHandler(GameStatePersister gameStatePersister, ReplayBuffer replayBuffer) {
+    this.gameStatePersister = gameStatePersister;
+    this.replayBuffer = replayBuffer;
+    if (replayBuffer != null) {
+      this.observation = ByteBuffer.allocate(GameState.BINARY_LENGTH * Short.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+      this.nextObservation = ByteBuffer.allocate(GameState.BINARY_LENGTH * Short.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+      this.legalMask = new long[ActionSpace.MASK_WORDS];
+    } else {
+      this.observation = null;
+      this.nextObservation = null;
+      this.legalMask = null;
+    }
+  }
+
   /**
    * Handles command from websocket.
    *
@@ -25,20 +96,241 @@ public class SocketCommandHandler {
    * @return string of command output.
    */
   public String handleCommand(String command, String action, String playerID) {
+    return this.handleCommand(command, action, playerID, null);
+  }
+
+  /**
+   * Handles command from websocket.
+   *
+   * @param command command to handle from websocket.
+   * @param action action as a JSON array or an ActionSpace id, or one of those per game for
+   *     stepBatch, as a JSON array.
+   * @param playerID player to add the action to, for addPlayerMove.
+   * @param count number of games to create, for newGames.
+   * @return string of command output.
+   */
+  public String handleCommand(String command, String action, String playerID, Integer count) {
     switch (command) {
       case "newGame":
-        return this.handleNewGame();
+        this.newGame();
+        return this.currentGameStateAsJSON(0);
       case "getCurrentGamestate":
         return this.currentGameStateAsJSON(0);
       case "makeMove":
-        return this.handleMakeMove();
+        return this.currentGameStateAsJSON(this.makeMove());
       case "addPlayerMove":
         return this.handleAddPlayerMove(action, playerID);
+      case "getLegalMasks":
+        return this.legalMasksAsJSON();
+      case "getLegalActionIds":
+        return this.legalActionIdsAsJSON();
+      case "newGames":
+        if (!this.newGames(count)) {
+          return BAD_BATCH_COUNT;
+        }
+        return this.batchAsJSON(new int[count]);
+      case "stepBatch":
+        JSONArray actions = parseActions(action);
+        if (actions == null) {
+          return BAD_BATCH_ACTIONS;
+        }
+        int[] rewards = this.stepBatch(actions);
+        if (rewards == null) {
+          return "ERROR: stepBatch expects " + this.batchGames.size() + " actions or action ids.";
+        }
+        return this.batchAsJSON(rewards);
       default:
         return "ERROR: command not handled.";
     }
   }
 
+  public static boolean hasBinaryReply(String command) {
+    return binaryCommands.contains(command);
+  }
+
+  /**
+   * Handles a command from websocket, replying with gamestates in the binary frame format
+   * instead of JSON. See binaryFrame for the layout.
+   *
+   * @param command newGame, getCurrentGamestate, makeMove, newGames or stepBatch.
+   * @param action one action per game for stepBatch, as a JSON array.
+   * @param count number of games to create, for newGames.
+   * @return binary frame of the resulting gamestates, or null if the command could not be handled.
+   */
+  public byte[] handleBinaryCommand(String command, String action, Integer count) {
+    switch (command) {
+      case "newGame":
+        this.newGame();
+        return binaryFrame(List.of(this.game), new int[1]);
+      case "getCurrentGamestate":
+        return binaryFrame(List.of(this.game), new int[1]);
+      case "makeMove":
+        return binaryFrame(List.of(this.game), new int[] {this.makeMove()});
+      case "newGames":
+        return this.newGames(count) ? binaryFrame(this.batchGames, new int[count]) : null;
+      case "stepBatch":
+        JSONArray actions = parseActions(action);
+        int[] rewards = actions == null ? null : this.stepBatch(actions);
+        return rewards == null ? null : binaryFrame(this.batchGames, rewards);
+      default:
+        return null;
+    }
+  }
+
+  //****************************************************************************
+  //*********************************** Step ***********************************
+  //****************************************************************************
+
+  /**
+   * Handles the step command, which replaces addPlayerMove, makeMove and getCurrentGamestate:
+   * gives the action to the current player of a game, makes the move, and replies with
+   * {"requestId": id, "observation": gamestate, "reward": int, "done": boolean,
+   * "legalActionIds": int[]}, the legal ids being those of the player to act next. The request
+   * id is echoed back, so a client can send several steps without waiting and match the replies.
+   *
+   * @param action action as a JSON array or an ActionSpace id.
+   * @param gameIndex index of the batched game to step, or null for the game of newGame.
+   * @param requestId id echoed in the reply, or null.
+   * @param persistAs id to store the gamestate of a successful step under, or null.
+   * @return JSON of the step, or {"requestId": id, "error": message} if it could not be made.
+   */
+  public String handleStep(String action, Integer gameIndex, Object requestId, Long persistAs) {
+    Map<String, Object> reply = new LinkedHashMap<>();
+    if (requestId != null) {
+      reply.put("requestId", requestId);
+    }
+    Game stepGame = this.stepGame(gameIndex);
+    int[] move = action == null ? null : parseMove(action);
+    if (stepGame == null || move == null) {
+      reply.put("error", stepGame == null ? "no game to step." : "action is not an action array or id.");
+    } else {
+      int reward = this.step(stepGame, gameIndex, move, persistAs);
+      reply.put("observation", gameStateAsMap(stepGame, reward));
+      reply.put("reward", reward);
+      reply.put("done", stepGame.hasEnded());
+      reply.put("legalActionIds", this.legalActionIds(stepGame));
+    }
+    try {
+      return objectMapper.writeValueAsString(reply);
+    } catch (JsonProcessingException e) {
+      e.printStackTrace();
+      return "ERROR";
+    }
+  }
+
+  /**
+   * Handles the step command like handleStep, replying with little-endian values: the request
+   * id as an int32, then as int16 values the reward, whether the game is done, the
+   * GameState.BINARY_LENGTH values of the gamestate, the number of legal action ids and the ids.
+   *
+   * @param action action as a JSON array or an ActionSpace id.
+   * @param gameIndex index of the batched game to step, or null for the game of newGame.
+   * @param requestId id echoed in the reply.
+   * @param persistAs id to store the gamestate of a successful step under, or null.
+   * @return binary frame of the step, or null if it could not be made.
+   */
+  public byte[] handleBinaryStep(String action, Integer gameIndex, int requestId, Long persistAs) {
+    Game stepGame = this.stepGame(gameIndex);
+    int[] move = action == null ? null : parseMove(action);
+    if (stepGame == null || move == null) {
+      return null;
+    }
+    int reward = this.step(stepGame, gameIndex, move, persistAs);
+    int count = this.legalActions.enumerate(stepGame);
+    ByteBuffer buffer = ByteBuffer
+        .allocate(Integer.BYTES + Short.BYTES * (3 + GameState.BINARY_LENGTH + count))
+        .order(ByteOrder.LITTLE_ENDIAN);
+    buffer.putInt(requestId);
+    buffer.putShort((short) reward);
+    buffer.putShort((short) (stepGame.hasEnded() ? 1 : 0));
+    stepGame.getCurrentGameState().writeBinary(buffer);
+    int countPosition = buffer.position();
+    buffer.putShort((short) 0);
+    int encoded = 0;
+    for (int i = 0; i < count; i++) {
+      int id = ActionSpace.encode(this.legalActions.get(i));
+      if (id >= 0) {
+        buffer.putShort((short) id);
+        encoded++;
+      }
+    }
+    buffer.putShort(countPosition, (short) encoded);
+    return Arrays.copyOf(buffer.array(), buffer.position());
+  }
+
+  private Game stepGame(Integer gameIndex) {
+    if (gameIndex == null) {
+      return this.game;
+    }
+    return gameIndex >= 0 && gameIndex < this.batchGames.size() ? this.batchGames.get(gameIndex) : null;
+  }
+
+  private int step(Game stepGame, Integer gameIndex, int[] move, Long persistAs) {
+    List<DeterministicPlayer> gamePlayers = gameIndex == null ? this.players : this.batchPlayers.get(gameIndex);
+    gamePlayers.get(stepGame.getCurrentPlayer().getID().getValue() - 1).addNextMove(move);
+    if (this.replayBuffer != null) {
+      this.observe(stepGame);
+    }
+    boolean successful = stepGame.nextMove();
+    if (persistAs != null && this.gameStatePersister != null) {
+      this.persist(stepGame, successful, move, persistAs);
+    }
+    int reward = successful ? 1 : -1;
+    if (this.replayBuffer != null) {
+      this.record(stepGame, move, reward);
+    }
+    return reward;
+  }
+
+  /**
+   * Keeps the gamestate a move is about to be made in, and its legal mask, for record().
+   */
+  private void observe(Game stepGame) {
+    this.observation.clear();
+    stepGame.getCurrentGameState().writeBinary(this.observation);
+    this.legalActions.enumerate(stepGame);
+    ActionSpace.fillLegalMask(this.legalActions, this.legalMask);
+  }
+
+  /**
+   * Adds the transition of a step to the replay buffer, from the gamestate kept by observe().
+   */
+  private void record(Game stepGame, int[] move, int reward) {
+    this.nextObservation.clear();
+    stepGame.getCurrentGameState().writeBinary(this.nextObservation);
+    this.replayBuffer.add(
+        this.observation,
+        ActionSpace.encode(move),
+        reward,
+        stepGame.hasEnded(),
+        this.nextObservation,
+        this.legalMask
+    );
+  }
+
+  /**
+   * Queues a snapshot of a game after a successful step, like the trainer stores gamestates:
+   * with the failed steps before it and the action's metadata.
+   */
+  private void persist(Game stepGame, boolean successful, int[] move, long persistAs) {
+    if (!successful) {
+      this.failedSteps.merge(stepGame, 1, Integer::sum);
+      return;
+    }
+    Integer failed = this.failedSteps.remove(stepGame);
+    this.gameStatePersister.submit(new GameStateRow(
+        persistAs,
+        new GameState(stepGame),
+        failed == null ? 0 : failed,
+        1,
+        Arrays.copyOfRange(move, 1, move.length)
+    ));
+  }
+
+  //****************************************************************************
+  //********************************* Commands *********************************
+  //****************************************************************************
+
   private String handleAddPlayerMove(String action, String playerID) {
     Optional<DeterministicPlayer> playerToAddActions = this.players
         .stream()
@@ -49,44 +341,231 @@ public class SocketCommandHandler {
       throw new RuntimeException("Player of ID " + playerID + " to add actions to is not available in game.");
     }
 
-    JSONArray jsonActionArr = new JSONArray(action);
-    int[] intActionArr = new int[jsonActionArr.length()];
-    for (int i = 0; i < jsonActionArr.length(); ++i) {
-      intActionArr[i] = jsonActionArr.optInt(i);
+    int[] move = parseMove(action);
+    if (move == null) {
+      throw new RuntimeException("Action " + action + " is not an action array or id.");
     }
-
-    playerToAddActions.get().addNextMove(intActionArr);
+    playerToAddActions.get().addNextMove(move);
     return "{\"success\": true}";
   }
 
-  private String handleMakeMove() {
+  private int makeMove() {
     int reward = -1;
     boolean successful = this.game.nextMove();
     if (successful) {
       reward = 1;
     }
-    return this.currentGameStateAsJSON(reward);
+    return reward;
   }
 
-  private String handleNewGame() {
-    this.players = new ArrayList<DeterministicPlayer>();
-    this.players.add(new DeterministicPlayer(PlayerID.ONE));
-    this.players.add(new DeterministicPlayer(PlayerID.TWO));
-    this.players.add(new DeterministicPlayer(PlayerID.THREE));
-    this.players.add(new DeterministicPlayer(PlayerID.FOUR));
+  private void newGame() {
+    this.failedSteps.clear();
+    this.players = newPlayers();
     this.game = new Game(players);
-    return this.currentGameStateAsJSON(0);
+  }
+
+  private boolean newGames(Integer count) {
+    if (count == null || count < 1 || count > MAX_BATCH_GAMES) {
+      return false;
+    }
+    this.failedSteps.clear();
+    this.batchGames = new ArrayList<>(count);
+    this.batchPlayers = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      List<DeterministicPlayer> gamePlayers = newPlayers();
+      this.batchPlayers.add(gamePlayers);
+      this.batchGames.add(new Game(gamePlayers));
+    }
+    return true;
+  }
+
+  /**
+   * Gives each batched game's current player its action, then makes one move in every game.
+   *
+   * @param jsonActions one action array or ActionSpace id per game, in game order.
+   * @return reward of every game, or null if there is not exactly one valid action per game.
+   */
+  private int[] stepBatch(JSONArray jsonActions) {
+    if (jsonActions.length() != this.batchGames.size()) {
+      return null;
+    }
+    int[][] moves = new int[jsonActions.length()][];
+    for (int i = 0; i < moves.length; i++) {
+      moves[i] = toMove(jsonActions.get(i));
+      if (moves[i] == null) {
+        return null;
+      }
+    }
+
+    int[] rewards = new int[this.batchGames.size()];
+    for (int i = 0; i < this.batchGames.size(); i++) {
+      rewards[i] = this.step(this.batchGames.get(i), i, moves[i], null);
+    }
+    return rewards;
+  }
+
+  /**
+   * Parses the actions of stepBatch.
+   *
+   * @return the actions, or null if they are missing or not a JSON array.
+   */
+  private static JSONArray parseActions(String actions) {
+    if (actions == null) {
+      return null;
+    }
+    try {
+      return new JSONArray(actions);
+    } catch (JSONException e) {
+      return null;
+    }
+  }
+
+  private static List<DeterministicPlayer> newPlayers() {
+    List<DeterministicPlayer> newPlayers = new ArrayList<DeterministicPlayer>();
+    newPlayers.add(new DeterministicPlayer(PlayerID.ONE));
+    newPlayers.add(new DeterministicPlayer(PlayerID.TWO));
+    newPlayers.add(new DeterministicPlayer(PlayerID.THREE));
+    newPlayers.add(new DeterministicPlayer(PlayerID.FOUR));
+    return newPlayers;
+  }
+
+  /**
+   * Reads an action given either as an array or as an ActionSpace id.
+   *
+   * @return the move, or null if it is neither or the id is out of range.
+   */
+  private static int[] toMove(Object jsonAction) {
+    if (jsonAction instanceof JSONArray) {
+      return toIntArray((JSONArray) jsonAction);
+    } else if (jsonAction instanceof Number) {
+      int id = ((Number) jsonAction).intValue();
+      return id >= 0 && id < ActionSpace.SIZE ? ActionSpace.decode(id) : null;
+    }
+    return null;
+  }
+
+  /**
+   * Reads an action sent as a JSON array or as an ActionSpace id.
+   *
+   * @return the move, or null if it is neither or the id is out of range.
+   */
+  private static int[] parseMove(String action) {
+    String trimmedAction = action.trim();
+    if (trimmedAction.startsWith("[")) {
+      return toIntArray(new JSONArray(trimmedAction));
+    }
+    try {
+      return toMove(Double.parseDouble(trimmedAction));
+    } catch (NumberFormatException e) {
+      return null;
+    }
+  }
+
+  private static int[] toIntArray(JSONArray jsonActionArr) {
+    int[] intActionArr = new int[jsonActionArr.length()];
+    for (int i = 0; i < jsonActionArr.length(); ++i) {
+      intActionArr[i] = jsonActionArr.optInt(i);
+    }
+    return intActionArr;
+  }
+
+  //****************************************************************************
+  //******************************** Encoding **********************************
+  //****************************************************************************
+
+  private String legalMasksAsJSON() {
+    try {
+      return objectMapper.writeValueAsString(this.game.getLegalPlacementMasks());
+    } catch (JsonProcessingException e) {
+      e.printStackTrace();
+      return "ERROR";
+    }
+  }
+
+  /**
+   * Serializes the ActionSpace ids of the current player's legal actions.
+   */
+  private String legalActionIdsAsJSON() {
+    try {
+      return objectMapper.writeValueAsString(this.legalActionIds(this.game));
+    } catch (JsonProcessingException e) {
+      e.printStackTrace();
+      return "ERROR";
+    }
+  }
+
+  private List<Integer> legalActionIds(Game legalGame) {
+    int count = this.legalActions.enumerate(legalGame);
+    List<Integer> ids = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      int id = ActionSpace.encode(this.legalActions.get(i));
+      if (id >= 0) {
+        ids.add(id);
+      }
+    }
+    return ids;
   }
 
   private String currentGameStateAsJSON(Integer reward) {
-    ObjectMapper objectMapper = new ObjectMapper();
     try {
-      Map<String, int[][]> gameStateMap = this.game.getCurrentGameState().toMap();
-      gameStateMap.put("successful", new int[][]{{reward}});
-      return objectMapper.writeValueAsString(gameStateMap);
+      return objectMapper.writeValueAsString(gameStateAsMap(this.game, reward));
     } catch (JsonProcessingException e) {
       e.printStackTrace();
       return "ERROR";
     }
   }
+
+  /**
+   * Serializes every batched game in one message, as
+   * {"observations": [gamestate, ...], "rewards": [int, ...], "dones": [boolean, ...]}.
+   *
+   * @param rewards reward of each game's last move.
+   * @return JSON of the batch.
+   */
+  private String batchAsJSON(int[] rewards) {
+    List<Map<String, int[][]>> observations = new ArrayList<>(this.batchGames.size());
+    boolean[] dones = new boolean[this.batchGames.size()];
+    for (int i = 0; i < this.batchGames.size(); i++) {
+      Map<String, int[][]> gameStateMap = gameStateAsMap(this.batchGames.get(i), rewards[i]);
+      observations.add(gameStateMap);
+      dones[i] = gameStateMap.get("finished")[0][0] == 1;
+    }
+
+    Map<String, Object> batch = new LinkedHashMap<>();
+    batch.put("observations", observations);
+    batch.put("rewards", rewards);
+    batch.put("dones", dones);
+    try {
+      return objectMapper.writeValueAsString(batch);
+    } catch (JsonProcessingException e) {
+      e.printStackTrace();
+      return "ERROR";
+    }
+  }
+
+  private static Map<String, int[][]> gameStateAsMap(Game game, int reward) {
+    Map<String, int[][]> gameStateMap = game.getCurrentGameState().toMap();
+    gameStateMap.put("successful", new int[][]{{reward}});
+    return gameStateMap;
+  }
+
+  /**
+   * Encodes gamestates as little-endian int16 values: the number of games, then for each game
+   * its reward followed by GameState.BINARY_LENGTH values in the layout of GameState.writeBinary.
+   *
+   * @param games games to encode, in order.
+   * @param rewards reward of each game's last move.
+   * @return binary frame of the games.
+   */
+  static byte[] binaryFrame(List<Game> games, int[] rewards) {
+    ByteBuffer buffer = ByteBuffer
+        .allocate(Short.BYTES * (1 + games.size() * (1 + GameState.BINARY_LENGTH)))
+        .order(ByteOrder.LITTLE_ENDIAN);
+    buffer.putShort((short) games.size());
+    for (int i = 0; i < games.size(); i++) {
+      buffer.putShort((short) rewards[i]);
+      games.get(i).getCurrentGameState().writeBinary(buffer);
+    }
+    return buffer.array();
+  }
 }
@@ -1,18 +1,52 @@
 package com.catanai.server.config;
 
+import com.catanai.server.dao.GameStatePersister;
+import com.catanai.server.replay.ReplayBuffer;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import javax.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.web.socket.config.annotation.EnableWebSocket;
 import org.springframework.web.socket.config.annotation.WebSocketConfigurer;
 import org.springframework.web.socket.config.annotation.WebSocketHandlerRegistry;
 
 /**
- * WebSocket configuration.
+ * WebSocket configuration. Steps are recorded in a replay buffer when replay.path is set.
  */
 @Configuration
 @EnableWebSocket
 public class WebSocketConfig implements WebSocketConfigurer {
+  @Autowired
+  private GameStatePersister gameStatePersister;
+
+  /** File of the replay buffer, or empty to record no transitions. */
+  @Value("${replay.path:}")
+  private String replayPath;
+
+  @Value("${replay.capacity:" + ReplayBuffer.DEFAULT_CAPACITY + "}")
+  private int replayCapacity;
+
+  private ReplayBuffer replayBuffer;
+
   @Override
   public void registerWebSocketHandlers(WebSocketHandlerRegistry registry) {
-    registry.addHandler(new GameSocketHandler(), "/game");
+    if (!this.replayPath.isEmpty()) {
+      try {
+        this.replayBuffer = ReplayBuffer.create(Path.of(this.replayPath), this.replayCapacity);
+      } catch (IOException e) {
+        throw new UncheckedIOException("Replay buffer " + this.replayPath + " cannot be created.", e);
+      }
+    }
+    registry.addHandler(new GameSocketHandler(this.gameStatePersister, this.replayBuffer), "/game");
+  }
+
+  @PreDestroy
+  public void closeReplayBuffer() throws IOException {
+    if (this.replayBuffer != null) {
+      this.replayBuffer.close();
+    }
   }
 }
@@ -0,0 +1,239 @@
+package com.catanai.server.dao;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import javax.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Stores gamestates of live games without slowing them down: rows are put on a bounded queue,
+ * and a background thread writes them in batches of up to batchSize rows, or whatever is queued
+ * once flushInterval has passed. When the database lags and the queue fills up, the overflow
+ * policy decides between waiting for room and dropping rows.
+ */
+@Component
+public class GameStatePersister {
+  public static final int DEFAULT_CAPACITY = 65_536;
+  public static final int DEFAULT_BATCH_SIZE = 1_000;
+  public static final Duration DEFAULT_FLUSH_INTERVAL = Duration.ofMillis(200);
+  public static final Duration DEFAULT_BLOCK_TIMEOUT = Duration.ofSeconds(1);
+
+  /** Longest wait of the writing thread before it checks whether the persister was closed. */
+  private static final long CLOSE_CHECK_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
+
+  /**
+   * What submit() does with a row when the queue is full.
+   */
+  public enum OverflowPolicy {
+    /** Waits for room for at most the block timeout, then drops the row. */
+    BLOCK,
+    /** Drops the row being submitted. */
+    DROP_NEWEST,
+    /** Drops the oldest queued row to make room. */
+    DROP_OLDEST
+  }
+
+  private final ArrayBlockingQueue<GameStateRow> queue;
+  private final Consumer<List<GameStateRow>> writer;
+  private final int batchSize;
+  private final long flushIntervalNanos;
+  private final long blockTimeoutNanos;
+  private final OverflowPolicy overflowPolicy;
+  private final Thread flusher;
+  private volatile boolean closed;
+
+  private final AtomicLong written = new AtomicLong();
+  private final AtomicLong dropped = new AtomicLong();
+  private final AtomicLong failed = new AtomicLong();
+
+  @Autowired
+  public GameStatePersister(GameStatesDAO gameStatesDAO) {
+    this(
+        gameStatesDAO::insertGameStates,
+        DEFAULT_CAPACITY,
+        DEFAULT_BATCH_SIZE,
+        DEFAULT_FLUSH_INTERVAL,
+        OverflowPolicy.BLOCK,
+        DEFAULT_BLOCK_TIMEOUT
+    );
+  }
+
+  /**
+   * Creates a persister and starts its writing thread.
+   *
+   * @param writer writes a batch of rows; a batch it throws on is counted as failed.
+   * @param capacity most rows queued at once.
+   * @param batchSize most rows written at once.
+   * @param flushInterval longest time a queued row waits for a batch to fill up.
+   * @param overflowPolicy what to do with rows submitted while the queue is full.
+   * @param blockTimeout longest wait for room with OverflowPolicy.BLOCK.
+   */
+  public GameStatePersister(
+      Consumer<List<GameStateRow>> writer,
+      int capacity,
+      int batchSize,
+      Duration flushInterval,
+      OverflowPolicy overflowPolicy,
+      Duration blockTimeout
+  ) {
+    if (capacity < 1 || batchSize < 1) {
+      throw new IllegalArgumentException("Capacity and batch size must be positive.");
+    }
+    this.queue = new ArrayBlockingQueue<>(capacity);
+    this.writer = writer;
+    this.batchSize = batchSize;
+    this.flushIntervalNanos = flushInterval.toNanos();
+    this.blockTimeoutNanos = blockTimeout.toNanos();
+    this.overflowPolicy = overflowPolicy;
+    this.flusher = new Thread(this::writeBatches, "gamestate-persister");
+    this.flusher.setDaemon(true);
+    this.flusher.start();
+  }
+
+  /**
+   * Queues a row to be written. Every submitted row is eventually counted as written, dropped
+   * or failed.
+   *
+   * @param row row to write.
+   * @return whether the row was queued; false if it was dropped or the persister is closed.
+   */
+  public boolean submit(GameStateRow row) {
+    if (this.closed) {
+      this.dropped.incrementAndGet();
+      return false;
+    }
+    boolean queued = this.queue.offer(row);
+    if (!queued) {
+      queued = this.submitOverflow(row);
+    }
+    if (queued && this.closed && this.queue.remove(row)) {
+      // Closed while queueing: the writer may have drained the queue for the last time already.
+      queued = false;
+    }
+    if (!queued) {
+      this.dropped.incrementAndGet();
+    }
+    return queued;
+  }
+
+  private boolean submitOverflow(GameStateRow row) {
+    switch (this.overflowPolicy) {
+      case BLOCK:
+        try {
+          return this.queue.offer(row, this.blockTimeoutNanos, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          return false;
+        }
+      case DROP_OLDEST:
+        while (!this.queue.offer(row)) {
+          if (this.queue.poll() != null) {
+            this.dropped.incrementAndGet();
+          }
+        }
+        return true;
+      default:
+        return false;
+    }
+  }
+
+  /**
+   * Stops accepting rows, writes every queued row, and stops the writing thread. The thread
+   * notices within CLOSE_CHECK_NANOS and is never interrupted, so a batch being written is
+   * not cut short.
+   */
+  @PreDestroy
+  public void close() {
+    this.closed = true;
+    try {
+      this.flusher.join();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    // Rows queued by submit() calls racing with close() after the writer's last drain.
+    while (this.queue.poll() != null) {
+      this.dropped.incrementAndGet();
+    }
+  }
+
+  public long getWrittenCount() {
+    return this.written.get();
+  }
+
+  public long getDroppedCount() {
+    return this.dropped.get();
+  }
+
+  public long getFailedCount() {
+    return this.failed.get();
+  }
+
+  public int getQueuedCount() {
+    return this.queue.size();
+  }
+
+  //****************************************************************************
+  //********************************* Writing **********************************
+  //****************************************************************************
+
+  private void writeBatches() {
+    List<GameStateRow> batch = new ArrayList<>(this.batchSize);
+    while (!this.closed) {
+      try {
+        this.fillBatch(batch);
+      } catch (InterruptedException e) {
+        // Only close() stops the thread; write what was taken and carry on.
+      }
+      this.write(batch);
+    }
+    while (this.queue.drainTo(batch, this.batchSize) > 0) {
+      this.write(batch);
+    }
+  }
+
+  /**
+   * Waits for a full batch, or for the flush interval to pass after the first row arrived.
+   * Returns early, possibly with an empty batch, once the persister is closed.
+   */
+  private void fillBatch(List<GameStateRow> batch) throws InterruptedException {
+    GameStateRow first = this.queue.poll(CLOSE_CHECK_NANOS, TimeUnit.NANOSECONDS);
+    if (first == null) {
+      return;
+    }
+    batch.add(first);
+    long deadline = System.nanoTime() + this.flushIntervalNanos;
+    while (batch.size() < this.batchSize && !this.closed) {
+      if (this.queue.drainTo(batch, this.batchSize - batch.size()) > 0) {
+        continue;
+      }
+      long remaining = deadline - System.nanoTime();
+      if (remaining <= 0) {
+        return;
+      }
+      GameStateRow next = this.queue.poll(Math.min(remaining, CLOSE_CHECK_NANOS), TimeUnit.NANOSECONDS);
+      if (next != null) {
+        batch.add(next);
+      }
+    }
+  }
+
+  private void write(List<GameStateRow> batch) {
+    if (batch.isEmpty()) {
+      return;
+    }
+    try {
+      this.writer.accept(batch);
+      this.written.addAndGet(batch.size());
+    } catch (RuntimeException e) {
+      e.printStackTrace();
+      this.failed.addAndGet(batch.size());
+    }
+    batch.clear();
+  }
+}
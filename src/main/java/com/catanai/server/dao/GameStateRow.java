@@ -0,0 +1,43 @@
+package com.catanai.server.dao;
+
+import com.catanai.server.model.gamestate.GameState;
+import lombok.Getter;
+
+/**
+ * Row of games.gamestates: a gamestate snapshot after a successful action, with the action and
+ * how it was rewarded.
+ */
+@Getter
+public final class GameStateRow {
+  private final long gameId;
+  private final GameState gameState;
+  private final long numAttemptedActionsBeforeSuccessful;
+  private final double reward;
+  private final int[] actionMetadata;
+
+  /**
+   * Creates a row.
+   *
+   * @param gameId id the game is stored under.
+   * @param gameState snapshot of the game after the action, not a live gamestate.
+   * @param numAttemptedActionsBeforeSuccessful failed actions since the previous successful one.
+   * @param reward reward of the action.
+   * @param actionMetadata metadata of the action, without the action value.
+   */
+  public GameStateRow(
+      long gameId,
+      GameState gameState,
+      long numAttemptedActionsBeforeSuccessful,
+      double reward,
+      int[] actionMetadata
+  ) {
+    if (gameState.getGame() != null) {
+      throw new IllegalArgumentException("A row needs a gamestate snapshot, not a live gamestate.");
+    }
+    this.gameId = gameId;
+    this.gameState = gameState;
+    this.numAttemptedActionsBeforeSuccessful = numAttemptedActionsBeforeSuccessful;
+    this.reward = reward;
+    this.actionMetadata = actionMetadata;
+  }
+}
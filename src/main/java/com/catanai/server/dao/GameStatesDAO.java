@@ -1,13 +1,20 @@
 package com.catanai.server.dao;
 
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
 import org.postgresql.jdbc.PgArray;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
 import org.springframework.jdbc.core.ColumnMapRowMapper;
+import org.springframework.jdbc.core.ConnectionCallback;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
 import org.springframework.stereotype.Repository;
 
 /**
@@ -15,6 +22,22 @@ import org.springframework.stereotype.Repository;
  */
 @Repository
 public class GameStatesDAO {
+  /** Columns as created by the trainer's SQLAlchemy model, whose camel case names are quoted. */
+  private static final String INSERT_SQL = "INSERT INTO games.gamestates (game_id, tiles, \"playerMetadata\", "
+      + "nodes, banks, edges, \"playerFullResourceCards\", \"playerPerspectiveResourceCards\", "
+      + "\"playerDevelopmentCards\", ports, \"lastRoll\", \"currentPlayer\", \"actionID\", "
+      + "\"numAttemptedActionsBeforeSuccessful\", reward, \"actionMetadata\") "
+      + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+  /** Columns shown by the web viewer, in the order StoredGameStateMapper reads them. */
+  private static final String STREAM_SQL = "SELECT id, game_id, tiles, \"playerMetadata\", nodes, banks, edges, "
+      + "\"playerFullResourceCards\", \"playerPerspectiveResourceCards\", \"playerDevelopmentCards\", ports, "
+      + "\"lastRoll\", \"currentPlayer\", \"actionID\", \"numAttemptedActionsBeforeSuccessful\", reward "
+      + "FROM games.gamestates WHERE game_id = ? ORDER BY id ASC";
+
+  /** Rows fetched from the database at a time while streaming. */
+  static final int FETCH_SIZE = 256;
+
   @Autowired
   JdbcTemplate jdbcTemplate;
 
@@ -29,6 +52,63 @@ public class GameStatesDAO {
     }
   }
 
+  /**
+   * Maps a row selected by STREAM_SQL to a StoredGameState.
+   */
+  static class StoredGameStateMapper implements RowMapper<StoredGameState> {
+    @Override
+    public StoredGameState mapRow(ResultSet rs, int rowNum) throws SQLException {
+      return new StoredGameState(
+          rs.getLong(1),
+          rs.getLong(2),
+          toMatrix(rs.getArray(3)),
+          toMatrix(rs.getArray(4)),
+          toMatrix(rs.getArray(5)),
+          toVector(rs.getArray(6)),
+          toVector(rs.getArray(7)),
+          toMatrix(rs.getArray(8)),
+          toMatrix(rs.getArray(9)),
+          toMatrix(rs.getArray(10)),
+          toVector(rs.getArray(11)),
+          rs.getInt(12),
+          rs.getInt(13),
+          rs.getInt(14),
+          rs.getLong(15),
+          rs.getDouble(16)
+      );
+    }
+
+    private static int[] toVector(Array array) throws SQLException {
+      if (array == null) {
+        return new int[0];
+      }
+      int[] vector = toInts((Object[]) array.getArray());
+      array.free();
+      return vector;
+    }
+
+    private static int[][] toMatrix(Array array) throws SQLException {
+      if (array == null) {
+        return new int[0][];
+      }
+      Object[] rows = (Object[]) array.getArray();
+      int[][] matrix = new int[rows.length][];
+      for (int i = 0; i < rows.length; i++) {
+        matrix[i] = toInts((Object[]) rows[i]);
+      }
+      array.free();
+      return matrix;
+    }
+
+    private static int[] toInts(Object[] values) {
+      int[] ints = new int[values.length];
+      for (int i = 0; i < values.length; i++) {
+        ints[i] = ((Number) values[i]).intValue();
+      }
+      return ints;
+    }
+  }
+
   /**
    * Get all gamestates of the given gameId from the database.
    *
@@ -36,10 +116,99 @@ public class GameStatesDAO {
    * @return list of gamestates
    */
   public List<Map<String, Object>> getGameStates(int gameId) {
-    String sql = "SELECT * FROM games.gamestates WHERE game_id = " + gameId + " ORDER BY id ASC;";
+    String sql = "SELECT * FROM games.gamestates WHERE game_id = ? ORDER BY id ASC;";
     return jdbcTemplate.query(
         sql,
-        new ColumnRawMapper()
+        new ColumnRawMapper(),
+        gameId
     );
   }
+
+  /**
+   * Reads the gamestates of the given game one at a time, oldest first, without holding the
+   * whole game in memory. Rows are fetched FETCH_SIZE at a time through a cursor, which
+   * PostgreSQL only uses inside a transaction.
+   *
+   * @param gameId id of the game.
+   * @param consumer consumer of each gamestate; it may throw an unchecked exception to stop reading.
+   */
+  public void streamGameStates(long gameId, Consumer<StoredGameState> consumer) {
+    StoredGameStateMapper mapper = new StoredGameStateMapper();
+    jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+      boolean autoCommit = connection.getAutoCommit();
+      connection.setAutoCommit(false);
+      try (PreparedStatement ps = connection.prepareStatement(STREAM_SQL)) {
+        ps.setFetchSize(FETCH_SIZE);
+        ps.setLong(1, gameId);
+        try (ResultSet rs = ps.executeQuery()) {
+          int rowNum = 0;
+          while (rs.next()) {
+            consumer.accept(mapper.mapRow(rs, rowNum++));
+          }
+        }
+      } finally {
+        // Only read, so there is nothing to commit.
+        connection.rollback();
+        connection.setAutoCommit(autoCommit);
+      }
+      return null;
+    });
+  }
+
+  /**
+   * Inserts gamestates as one JDBC batch, in the layout the trainer stores them in. With
+   * reWriteBatchedInserts on the datasource URL, the driver sends the batch as multi-row inserts.
+   *
+   * @param rows rows to insert.
+   */
+  public void insertGameStates(List<GameStateRow> rows) {
+    jdbcTemplate.batchUpdate(INSERT_SQL, new BatchPreparedStatementSetter() {
+      @Override
+      public void setValues(PreparedStatement ps, int i) throws SQLException {
+        GameStateRow row = rows.get(i);
+        Map<String, int[][]> gameState = row.getGameState().toMap();
+        Connection connection = ps.getConnection();
+        ps.setLong(1, row.getGameId());
+        ps.setArray(2, smallints(connection, gameState.get("tiles")));
+        ps.setArray(3, smallints(connection, gameState.get("playerMetadata")));
+        ps.setArray(4, smallints(connection, gameState.get("nodes")));
+        ps.setArray(5, smallints(connection, gameState.get("banks")[0]));
+        ps.setArray(6, smallints(connection, gameState.get("edges")[0]));
+        ps.setArray(7, smallints(connection, gameState.get("playerFullResourceCards")));
+        ps.setArray(8, smallints(connection, gameState.get("playerPerspectiveResourceCards")));
+        ps.setArray(9, smallints(connection, gameState.get("playerDevelopmentCards")));
+        ps.setArray(10, smallints(connection, gameState.get("ports")[0]));
+        ps.setShort(11, (short) gameState.get("lastRoll")[0][0]);
+        ps.setShort(12, (short) gameState.get("currentPlayer")[0][0]);
+        ps.setShort(13, (short) gameState.get("actionID")[0][0]);
+        ps.setLong(14, row.getNumAttemptedActionsBeforeSuccessful());
+        ps.setDouble(15, row.getReward());
+        ps.setArray(16, smallints(connection, row.getActionMetadata()));
+      }
+
+      @Override
+      public int getBatchSize() {
+        return rows.size();
+      }
+    });
+  }
+
+  private static Array smallints(Connection connection, int[] values) throws SQLException {
+    Short[] shorts = new Short[values.length];
+    for (int i = 0; i < values.length; i++) {
+      shorts[i] = (short) values[i];
+    }
+    return connection.createArrayOf("int2", shorts);
+  }
+
+  private static Array smallints(Connection connection, int[][] values) throws SQLException {
+    Short[][] shorts = new Short[values.length][];
+    for (int i = 0; i < values.length; i++) {
+      shorts[i] = new Short[values[i].length];
+      for (int j = 0; j < values[i].length; j++) {
+        shorts[i][j] = (short) values[i][j];
+      }
+    }
+    return connection.createArrayOf("int2", shorts);
+  }
 }
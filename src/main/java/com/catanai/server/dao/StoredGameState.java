@@ -0,0 +1,106 @@
+package com.catanai.server.dao;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import java.io.IOException;
+import lombok.Getter;
+
+/**
+ * Gamestate read back from games.gamestates, holding the columns the web viewer shows as
+ * primitive arrays.
+ */
+@Getter
+public final class StoredGameState {
+  private final long id;
+  private final long gameId;
+  private final int[][] tiles;
+  private final int[][] playerMetadata;
+  private final int[][] nodes;
+  private final int[] banks;
+  private final int[] edges;
+  private final int[][] playerFullResourceCards;
+  private final int[][] playerPerspectiveResourceCards;
+  private final int[][] playerDevelopmentCards;
+  private final int[] ports;
+  private final int lastRoll;
+  private final int currentPlayer;
+  private final int actionId;
+  private final long numAttemptedActionsBeforeSuccessful;
+  private final double reward;
+
+  StoredGameState(
+      long id,
+      long gameId,
+      int[][] tiles,
+      int[][] playerMetadata,
+      int[][] nodes,
+      int[] banks,
+      int[] edges,
+      int[][] playerFullResourceCards,
+      int[][] playerPerspectiveResourceCards,
+      int[][] playerDevelopmentCards,
+      int[] ports,
+      int lastRoll,
+      int currentPlayer,
+      int actionId,
+      long numAttemptedActionsBeforeSuccessful,
+      double reward
+  ) {
+    this.id = id;
+    this.gameId = gameId;
+    this.tiles = tiles;
+    this.playerMetadata = playerMetadata;
+    this.nodes = nodes;
+    this.banks = banks;
+    this.edges = edges;
+    this.playerFullResourceCards = playerFullResourceCards;
+    this.playerPerspectiveResourceCards = playerPerspectiveResourceCards;
+    this.playerDevelopmentCards = playerDevelopmentCards;
+    this.ports = ports;
+    this.lastRoll = lastRoll;
+    this.currentPlayer = currentPlayer;
+    this.actionId = actionId;
+    this.numAttemptedActionsBeforeSuccessful = numAttemptedActionsBeforeSuccessful;
+    this.reward = reward;
+  }
+
+  /**
+   * Writes this gamestate as one JSON object, with the column names of games.gamestates as keys.
+   *
+   * @param generator generator to write to.
+   * @throws IOException if the generator cannot be written to.
+   */
+  public void writeJson(JsonGenerator generator) throws IOException {
+    generator.writeStartObject();
+    generator.writeNumberField("id", this.id);
+    generator.writeNumberField("game_id", this.gameId);
+    writeArray(generator, "tiles", this.tiles);
+    writeArray(generator, "playerMetadata", this.playerMetadata);
+    writeArray(generator, "nodes", this.nodes);
+    writeArray(generator, "banks", this.banks);
+    writeArray(generator, "edges", this.edges);
+    writeArray(generator, "playerFullResourceCards", this.playerFullResourceCards);
+    writeArray(generator, "playerPerspectiveResourceCards", this.playerPerspectiveResourceCards);
+    writeArray(generator, "playerDevelopmentCards", this.playerDevelopmentCards);
+    writeArray(generator, "ports", this.ports);
+    generator.writeNumberField("lastRoll", this.lastRoll);
+    generator.writeNumberField("currentPlayer", this.currentPlayer);
+    generator.writeNumberField("actionID", this.actionId);
+    generator.writeNumberField("numAttemptedActionsBeforeSuccessful", this.numAttemptedActionsBeforeSuccessful);
+    generator.writeNumberField("reward", this.reward);
+    generator.writeEndObject();
+  }
+
+  private static void writeArray(JsonGenerator generator, String name, int[] values) throws IOException {
+    generator.writeFieldName(name);
+    generator.writeArray(values, 0, values.length);
+  }
+
+  private static void writeArray(JsonGenerator generator, String name, int[][] values) throws IOException {
+    generator.writeFieldName(name);
+    generator.writeStartArray();
+    for (int[] row : values) {
+      generator.writeArray(row, 0, row.length);
+    }
+    generator.writeEndArray();
+  }
+}
@@ -1,29 +1,44 @@
 package com.catanai.server.model;
 
+import com.catanai.server.model.action.Action;
 import com.catanai.server.model.action.ActionExecutor;
 import com.catanai.server.model.action.ActionMetadata;
+import com.catanai.server.model.action.ActionState;
 import com.catanai.server.model.action.TradeOffer;
 import com.catanai.server.model.bank.Dealer;
+import com.catanai.server.model.bank.card.ResourceCard;
 import com.catanai.server.model.board.Board;
+import com.catanai.server.model.board.LegalMoveGenerator;
+import com.catanai.server.model.board.LongestRoadCalculator;
 import com.catanai.server.model.board.building.Settlement;
-import com.catanai.server.model.board.graph.Node;
-import com.catanai.server.model.board.tile.Terrain;
-import com.catanai.server.model.board.tile.Tile;
+import com.catanai.server.model.board.graph.BoardTopology;
 import com.catanai.server.model.gamestate.GameState;
+import com.catanai.server.model.gamestate.GameStateHistory;
+import com.catanai.server.model.gamestate.GameStateSection;
+import com.catanai.server.model.player.BuildCost;
+import com.catanai.server.model.player.DeterministicPlayer;
 import com.catanai.server.model.player.Player;
 import com.catanai.server.model.player.PlayerID;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.Random;
 import java.util.Set;
+import java.util.SplittableRandom;
 
 /**
  * Handles high-level game logic.
  */
 public final class Game {
+  private static final ResourceCard[] RESOURCE_CARDS = ResourceCard.values();
+  /** Amount of knights a player must play before they can hold the largest army. */
+  public static final int MIN_LARGEST_ARMY = 3;
+  private static final Set<GameStateSection> ALL_SECTIONS =
+      Collections.unmodifiableSet(EnumSet.allOf(GameStateSection.class));
+
   private List<? extends Player> players;
   private Player currentPlayer;
 
@@ -31,7 +46,8 @@ public final class Game {
 
   private Dealer dealer;
 
-  private List<GameState> gameStates;
+  /** Every gamestate since recording was turned on; null while gamestates are not recorded. */
+  private GameStateHistory gameStates;
   private GameState currentGameState;
 
   private boolean ended;
@@ -42,33 +58,129 @@ public final class Game {
 
   private List<TradeOffer> tradeOffers;
 
+  /** Generator of the dice and stolen cards; the board and dealer get generators split from it. */
+  private SplittableRandom random;
+
+  /** Generator reserved for seeding copies of this game, so copying never advances random. */
+  private SplittableRandom forkRandom;
+
   private int nextRoll; /* Used only for testing. */
 
+  /** Scratch resources owed on a dice roll, indexed [player][resource]. */
+  private final int[][] payouts = new int[PlayerID.values().length][RESOURCE_CARDS.length];
+
   /**
    * Creates a new Catan game with players @param players.
    *
    * @param players players in a game of Catan.
    */
   public Game(List<? extends Player> players) {
+    this(players, new SplittableRandom());
+  }
+
+  /**
+   * Creates a new Catan game whose board, dice, steals and development cards are decided by a
+   * seed, so the same seed and the same actions replay the same game.
+   *
+   * @param players players in a game of Catan.
+   * @param seed seed of every random event in the game.
+   */
+  public Game(List<? extends Player> players, long seed) {
+    this(players, new SplittableRandom(seed));
+  }
+
+  private Game(List<? extends Player> players, SplittableRandom random) {
     this.players = players;
     this.currentPlayer = players.get(0);
-    this.board = new Board();
-    this.dealer = new Dealer();
-    this.gameStates = new ArrayList<GameState>();
+    this.random = random;
+    this.board = new Board(random.split());
+    this.dealer = new Dealer(random.split());
+    this.forkRandom = random.split();
+    this.gameStates = null;
     this.ended = false;
     this.lastDiceRollValue = 0;
-    this.currentGameState = new GameState(this);
-    this.gameStates.add(this.currentGameState);
+    this.currentGameState = GameState.live(this);
     this.actionExecutor = new ActionExecutor(this);
     this.tradeOffers = new ArrayList<TradeOffer>();
   }
 
   /**
-   * Updates the gamestate, and adds it to the list of gamestates.
+   * Creates a fork of a game, played by the given players. See fork().
+   *
+   * @param other game to fork.
+   * @param players players of the fork, in the same order as the players of other.
    */
-  private void updateGamestate() {
-    this.currentGameState = new GameState(this);
-    this.gameStates.add(this.currentGameState);
+  private Game(Game other, List<? extends Player> players) {
+    this.players = players;
+    this.board = new Board(other.board);
+    for (int i = 0; i < players.size(); i++) {
+      Player otherPlayer = other.players.get(i);
+      if (players.get(i).getID() != otherPlayer.getID()) {
+        throw new IllegalArgumentException("Fork player " + i + " must have ID " + otherPlayer.getID() + ".");
+      }
+      players.get(i).copyStateFrom(otherPlayer, this.board);
+    }
+    this.currentPlayer = this.getPlayerByID(other.currentPlayer.getID());
+    this.random = other.splitRandom();
+    this.dealer = new Dealer(other.dealer, this.random.split());
+    this.forkRandom = this.random.split();
+    this.gameStates = null;
+    this.ended = other.ended;
+    this.lastDiceRollValue = other.lastDiceRollValue;
+    this.nextRoll = other.nextRoll;
+    this.currentGameState = GameState.live(this);
+    this.actionExecutor = new ActionExecutor(this);
+    this.actionExecutor.copyFrom(other.actionExecutor);
+    this.tradeOffers = new ArrayList<TradeOffer>(other.tradeOffers.size());
+    for (TradeOffer offer : other.tradeOffers) {
+      this.tradeOffers.add(new TradeOffer(offer));
+    }
+  }
+
+  /**
+   * Creates an independent copy of this game for search, played by DeterministicPlayers
+   * which have the state of this game's players. Moves are played on the fork by adding
+   * them to its players and calling nextMove().
+   *
+   * <p>The board topology, buildings and ports are shared; everything which can change is
+   * copied, so playing the fork never affects this game. A fork does not keep a gamestate
+   * history, and its random events are decided by a generator from splitRandom(), so forking
+   * does not change the dice or cards this game deals either.
+   *
+   * @return the fork.
+   */
+  public Game fork() {
+    List<DeterministicPlayer> forkPlayers = new ArrayList<>(this.players.size());
+    for (Player p : this.players) {
+      forkPlayers.add(new DeterministicPlayer(p.getID()));
+    }
+    return new Game(this, forkPlayers);
+  }
+
+  /**
+   * Creates an independent copy of this game, played by the given players. The game state of
+   * this game's players is copied into them. See fork().
+   *
+   * @param players new players, with the same IDs and order as this game's players.
+   * @return the fork.
+   */
+  public Game fork(List<? extends Player> players) {
+    if (players.size() != this.players.size()) {
+      throw new IllegalArgumentException("A fork needs " + this.players.size() + " players.");
+    }
+    return new Game(this, players);
+  }
+
+  /**
+   * Updates the gamestate, and adds it to the gamestate history.
+   *
+   * @param changedSections sections of the gamestate which may have changed.
+   */
+  private void updateGamestate(Set<GameStateSection> changedSections) {
+    this.currentGameState.invalidate(changedSections);
+    if (this.gameStates != null) {
+      this.gameStates.add(this.currentGameState);
+    }
   }
 
   // ****************************************************************************
@@ -81,7 +193,8 @@ public final class Game {
   public boolean nextMove() {
     ActionMetadata playerAction = new ActionMetadata(currentPlayer.play(this.currentGameState));
     if (this.actionExecutor.doAction(playerAction, currentPlayer)) {
-      this.updateGamestate();
+      this.ended = this.actionExecutor.getActionStateMachine().getCurrentActionState() == ActionState.FINISHED;
+      this.updateGamestate(GameStateSection.changedBy(playerAction.getAction()));
       return true;
     }
     return false;
@@ -97,129 +210,178 @@ public final class Game {
    * @param diceRoll the number of the dice roll
    */
   public void produce(int diceRoll) {
-    Map<Player, Map<Terrain, Integer>> resources = this.getResourcesToProduce(diceRoll);
-    Map<Terrain, Integer> amountToProduce = this.getAmountOfResourcesToProduce(resources);
-    Set<Terrain> doNotProduce = this.getResourcesUnableToProduce(resources, amountToProduce);
-
-    // Give all players resources for the roll
-    // if resource is able to be produced.
-    resources.forEach((player, terrainMap) -> {
-      terrainMap.forEach((terrain, amount) -> {
-        if (doNotProduce.contains(terrain)) {
-          return;
+    for (int[] playerPayouts : this.payouts) {
+      Arrays.fill(playerPayouts, 0);
+    }
+    this.board.getProduction().addPayouts(diceRoll, this.payouts);
+
+    for (ResourceCard card : RESOURCE_CARDS) {
+      int r = card.getValue();
+      int total = 0;
+      int playersOwed = 0;
+      int lastPlayerOwed = -1;
+      for (int p = 0; p < this.payouts.length; p++) {
+        if (this.payouts[p][r] > 0) {
+          total += this.payouts[p][r];
+          playersOwed++;
+          lastPlayerOwed = p;
         }
-        for (int i = 0; i < amount && dealer.canDrawResource(terrain, 1); i++) {
-          player.addToKnownCards(dealer.drawResource(terrain));
+      }
+
+      if (total == 0) {
+        continue;
+      } else if (this.dealer.getResourceBankSize(card) >= total) {
+        for (int p = 0; p < this.payouts.length; p++) {
+          this.payOut(p, card, this.payouts[p][r]);
         }
-      });
-    });
+      } else if (playersOwed == 1) {
+        this.payOut(lastPlayerOwed, card, total);
+      }
+    }
+  }
+
+  private void payOut(int playerIndex, ResourceCard card, int amount) {
+    if (amount > 0) {
+      this.players.get(playerIndex).addAmountToKnownCards(card, this.dealer.drawResources(card, amount));
+    }
   }
 
   /**
-   * Get all the resources that the players would get for the given dice roll,
-   * if each bank had enough resources for everyone.
+   * Simulates rolling 2 dice and returns the output.
    *
-   * @param diceRoll the roll which will produce for the players
-   * @return a map containing each player, and each terrain they are
-   *         expecting production from
+   * @return a value between 2-12 representing two d6 rolls.
    */
-  private Map<Player, Map<Terrain, Integer>> getResourcesToProduce(
-      int diceRoll) {
-    // Calculate the amount of resources which should be given to each player.
-    Map<Player, Map<Terrain, Integer>> resources = new HashMap<>();
-    for (Tile t : this.board.getTiles()) {
-      if (t.getTerrainChit().getValue() == diceRoll) {
-        for (Node n : t.getNodes()) {
-          if (n.hasBuilding()) {
-            int resourceAmt;
-            if (n.getBuilding() instanceof Settlement) {
-              resourceAmt = 1;
-            } else {
-              resourceAmt = 2;
-            }
-
-            Player p = this.players.get(n.getBuilding().getPlayerId().getValue() - 1);
-            resources.putIfAbsent(p, new HashMap<Terrain, Integer>());
-            resources.get(p).merge(
-                t.getTerrain(),
-                resourceAmt,
-                (oldValue, newValue) -> {
-                  return oldValue + newValue;
-                });
-          }
-        }
-      }
-    }
-    return resources;
+  public int rollDice() {
+    int dice1Value = this.random.nextInt(1, 7);
+    int dice2Value = this.random.nextInt(1, 7);
+    this.lastDiceRollValue = dice1Value + dice2Value;
+    this.updateGamestate(GameStateSection.changedBy(Action.ROLL_DICE));
+    this.produce(dice1Value + dice2Value);
+    return dice1Value + dice2Value;
   }
 
   /**
-   * Calculate the amount of each resource which needs to be produced based on
-   * a map of each player's expected resource income.
-   *
-   * @param resources map of each player's expected resource income
-   * @return amount of resources needed to give all player's their expected
-   *         resource income
+   * Updates every player's longest road size from the board, and moves the longest road, with
+   * its 2 victory points, to whoever should now hold it. Called after roads and settlements are
+   * placed, since a settlement can break another player's road.
    */
-  private Map<Terrain, Integer> getAmountOfResourcesToProduce(
-      Map<Player, Map<Terrain, Integer>> resources) {
-    // For each resource, determine the amount which the bank has to produce
-    // to give to all players.
-    HashMap<Terrain, Integer> amountToProduce = new HashMap<Terrain, Integer>();
-    resources.forEach((player, terrainMap) -> terrainMap
-        .forEach((terrain, amount) -> amountToProduce.merge(terrain, amount, (oldAmt, newAmt) -> {
-          return oldAmt + newAmt;
-        })));
-    return amountToProduce;
+  public void updateLongestRoad() {
+    LongestRoadCalculator longestRoads = this.board.getLongestRoads();
+    int[] lengths = new int[this.players.size()];
+    int holder = -1;
+    for (int i = 0; i < this.players.size(); i++) {
+      Player p = this.players.get(i);
+      lengths[i] = longestRoads.getLongestRoad(p.getID());
+      p.setLongestRoadSize(lengths[i]);
+      if (p.hasLongestRoad()) {
+        holder = i;
+      }
+    }
+
+    int newHolder = LongestRoadCalculator.longestRoadHolder(lengths, holder);
+    if (newHolder == holder) {
+      return;
+    }
+    if (holder >= 0) {
+      Player previous = this.players.get(holder);
+      previous.setLongestRoad(false);
+      previous.setVictoryPoints(previous.getVictoryPoints() - 2);
+    }
+    if (newHolder >= 0) {
+      Player next = this.players.get(newHolder);
+      next.setLongestRoad(true);
+      next.setVictoryPoints(next.getVictoryPoints() + 2);
+    }
   }
 
   /**
-   * Get the resources which cannot be produced based on the amount of
-   * resources in the bank vs. the amount of resources expected by the players
-   * given the roll of the dice. Resources can be given if the bank would be
-   * depleated but all resources of that type would be given to one player,
-   * otherwise the bank cannot allocate any resources to any players.
-   *
-   * @param resources       map of each player's expected resource income
-   * @param amountToProduce amount of resources needed to give all player's their
-   *                        expected resource income
-   * @return the set of terrains which cannot be produced
+   * Moves the largest army, with its 2 victory points, to the player who has played the most
+   * knights, once they have played at least MIN_LARGEST_ARMY and more than its holder. Called
+   * after a knight is played.
    */
-  private Set<Terrain> getResourcesUnableToProduce(
-      Map<Player, Map<Terrain, Integer>> resources,
-      Map<Terrain, Integer> amountToProduce) {
-    // Construct a set of resources which cannot be produced due to the
-    // size of the resource bank being to small.
-    Set<Terrain> doNotProduce = new HashSet<Terrain>();
-    amountToProduce.forEach((terrain, amount) -> {
-      if (dealer.canDrawResource(terrain, amount)) {
-        return;
+  public void updateLargestArmy() {
+    int holder = -1;
+    int most = 0;
+    for (int i = 0; i < this.players.size(); i++) {
+      Player p = this.players.get(i);
+      if (p.hasLargestArmy()) {
+        holder = i;
       }
-      resources.forEach((player, terrainMap) -> {
-        if (terrainMap.get(terrain).equals(amount)) {
-          return;
-        }
-      });
-      doNotProduce.add(terrain);
-    });
-    return doNotProduce;
+      if (p.getNumKnightsPlayed() > this.players.get(most).getNumKnightsPlayed()) {
+        most = i;
+      }
+    }
+
+    int knights = this.players.get(most).getNumKnightsPlayed();
+    if (most == holder || knights < MIN_LARGEST_ARMY) {
+      return;
+    } else if (holder >= 0 && knights <= this.players.get(holder).getNumKnightsPlayed()) {
+      return;
+    }
+    if (holder >= 0) {
+      Player previous = this.players.get(holder);
+      previous.setLargestArmy(false);
+      previous.setVictoryPoints(previous.getVictoryPoints() - 2);
+    }
+    Player next = this.players.get(most);
+    next.setLargestArmy(true);
+    next.setVictoryPoints(next.getVictoryPoints() + 2);
   }
 
   /**
-   * Simulates rolling 2 dice and returns the output.
+   * Returns where the current player may build with their next action, given the action
+   * state, their resources and remaining pieces. Flags are indexed like the gamestate
+   * edges ("roads", 72 flags) and nodes ("settlements" and "cities", 54 flags each).
    *
-   * @return a value between 2-12 representing two d6 rolls.
+   * @return legal placement flags of the current player.
    */
-  public int rollDice() {
-    Random rand = new Random();
-    int low = 1;
-    int high = 6;
-    int dice1Value = rand.nextInt(high - low) + low;
-    int dice2Value = rand.nextInt(high - low) + low;
-    this.lastDiceRollValue = dice1Value + dice2Value;
-    this.updateGamestate();
-    this.produce(dice1Value + dice2Value);
-    return dice1Value + dice2Value;
+  public Map<String, boolean[]> getLegalPlacementMasks() {
+    LegalMoveGenerator legalMoves = this.board.getLegalMoves();
+    Player p = this.currentPlayer;
+    PlayerID id = p.getID();
+    long roadsLow = 0;
+    long roadsHigh = 0;
+    long settlements = 0;
+    long cities = 0;
+
+    switch (this.actionExecutor.getActionStateMachine().getCurrentActionState()) {
+      case FIRST_SETTLEMENT:
+      case SECOND_SETTLEMENT:
+        settlements = legalMoves.getSettlementMask(id, true);
+        break;
+      case FIRST_ROAD:
+      case SECOND_ROAD:
+        // Starting roads must touch the starting settlement just placed.
+        Settlement lastSettlement = p.getSecondStartingSettlement() != null
+            ? p.getSecondStartingSettlement()
+            : p.getFirstStartingSettlement();
+        roadsLow = legalMoves.getRoadMaskLow(id) & BoardTopology.getNodeEdgeMaskLow(lastSettlement.getPlacement());
+        roadsHigh = legalMoves.getRoadMaskHigh(id) & BoardTopology.getNodeEdgeMaskHigh(lastSettlement.getPlacement());
+        break;
+      case BUSINESS_AS_USUAL:
+        if (p.getRemainingRoads() > 0
+            && p.canAfford(BuildCost.ROAD)) {
+          roadsLow = legalMoves.getRoadMaskLow(id);
+          roadsHigh = legalMoves.getRoadMaskHigh(id);
+        }
+        if (p.getRemainingSettlements() > 0
+            && p.canAfford(BuildCost.SETTLEMENT)) {
+          settlements = legalMoves.getSettlementMask(id, false);
+        }
+        if (p.getRemainingCities() > 0
+            && p.canAfford(BuildCost.CITY)) {
+          cities = legalMoves.getCityMask(id);
+        }
+        break;
+      default:
+        break;
+    }
+
+    Map<String, boolean[]> masks = new HashMap<>();
+    masks.put("roads", LegalMoveGenerator.toFlags(roadsLow, roadsHigh, BoardTopology.NUM_EDGES));
+    masks.put("settlements", LegalMoveGenerator.toFlags(settlements, 0, BoardTopology.NUM_NODES));
+    masks.put("cities", LegalMoveGenerator.toFlags(cities, 0, BoardTopology.NUM_NODES));
+    return masks;
   }
 
   //****************************************************************************
@@ -242,22 +404,115 @@ public final class Game {
     return this.dealer;
   }
 
+  /**
+   * Returns the generator of this game's dice and stolen cards. It must only be used while
+   * playing this game, e.g. by its executors.
+   *
+   * @return generator of this game.
+   */
+  public SplittableRandom getRandom() {
+    return this.random;
+  }
+
+  /**
+   * Returns a new generator for a copy of this game. It is split from a generator kept for
+   * copies only, so this game rolls and deals the same whether or not it is copied, and each
+   * copy gets different random events.
+   *
+   * @return generator independent of this game's.
+   */
+  public SplittableRandom splitRandom() {
+    return this.forkRandom.split();
+  }
+
+  /**
+   * Returns the live gamestate of this game. It always reflects the game as of the
+   * last successful action; use getGameStates() or new GameState(game) for snapshots.
+   *
+   * @return live gamestate.
+   */
   public GameState getCurrentGameState() {
     return this.currentGameState;
   }
 
+  /**
+   * Turns the gamestate history on or off. It is off by default, so that steps nobody observes
+   * never materialize the gamestate. Turning it on starts the history with the current
+   * gamestate; turning it off drops the history.
+   *
+   * @param recording whether to record every gamestate.
+   */
+  public void setRecordingGameStates(boolean recording) {
+    if (!recording) {
+      this.gameStates = null;
+    } else if (this.gameStates == null) {
+      this.gameStates = new GameStateHistory();
+      this.gameStates.add(this.currentGameState);
+    }
+  }
+
+  public boolean isRecordingGameStates() {
+    return this.gameStates != null;
+  }
+
+  /**
+   * Returns every gamestate recorded so far, rebuilt lazily from the history. A game which is
+   * not recording gamestates, such as a fork, returns an empty list.
+   *
+   * @return read-only list of gamestates, oldest first.
+   */
   public List<GameState> getGameStates() {
-    return this.gameStates;
+    if (this.gameStates == null) {
+      return Collections.emptyList();
+    }
+    return this.gameStates.asList();
   }
 
   public boolean hasEnded() {
     return this.ended;
   }
 
+  public void setEnded(boolean ended) {
+    this.ended = ended;
+  }
+
+  /**
+   * Returns the amount of gamestates in this game's history; 0 if gamestates are not recorded.
+   *
+   * @return amount of gamestates recorded.
+   */
+  public int getGameStateCount() {
+    return this.gameStates == null ? 0 : this.gameStates.size();
+  }
+
+  /**
+   * Returns the live gamestate and history to an earlier point, after the game itself has been
+   * restored to it. Every section of the live gamestate is recomputed on its next access.
+   *
+   * @param count amount of gamestates the history had at that point.
+   */
+  public void rewindGameStates(int count) {
+    this.currentGameState.invalidate(ALL_SECTIONS);
+    if (this.gameStates == null) {
+      return;
+    }
+    if (count < 1) {
+      // Recording was turned on after that point; the history starts again from here.
+      this.gameStates = null;
+      this.setRecordingGameStates(true);
+    } else {
+      this.gameStates.truncate(count);
+    }
+  }
+
   public int getLastDiceRollValue() {
     return this.lastDiceRollValue;
   }
 
+  public void setLastDiceRollValue(int lastDiceRollValue) {
+    this.lastDiceRollValue = lastDiceRollValue;
+  }
+
   public void setPlayers(List<Player> players) {
     this.players = players;
   }
@@ -267,7 +522,10 @@ public final class Game {
   }
 
   public int getLastAction() {
-    return this.actionExecutor == null ? 0 : this.actionExecutor.getLastActionMetadata().getAction().getValue();
+    if (this.actionExecutor == null || this.actionExecutor.getLastActionMetadata() == null) {
+      return 0;
+    }
+    return this.actionExecutor.getLastActionMetadata().getAction().getValue();
   }
 
   public void addTradeOffer(TradeOffer tradeOffer) {
@@ -2,9 +2,6 @@ package com.catanai.server.model.action;
 
 import lombok.Getter;
 
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
-
 /**
 * Represents the possible actions a player can take during their turn.
 */
@@ -27,6 +24,9 @@ public enum Action {
   // Roll dice
   ROLL_DICE(15);
   
+  /** Every action, indexed by value - 1; values() copies its array on each call. */
+  private static final Action[] VALUES = values();
+
   private final int value;
   
   Action(int value) {
@@ -43,9 +43,6 @@ public enum Action {
     if (value < 1 || value > 15) {
       return null;
     }
-    return Stream.of(values())
-      .filter((action) -> action.getValue() == value)
-      .collect(Collectors.toList())
-      .get(0);
+    return VALUES[value - 1];
   }
 }
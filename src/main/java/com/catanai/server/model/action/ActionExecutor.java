@@ -33,6 +33,9 @@ public final class ActionExecutor {
   private final ActionStateMachine actionStateMachine;
 
   private Map<Action, SpecificActionExecutor> actionToExecutorMap;
+
+  /** Undo records of successful actions, or null while undo is not recorded. */
+  private UndoLog undoLog;
   
   /**
    * Generate an ActionExecutor working on a game @param game.
@@ -65,6 +68,17 @@ public final class ActionExecutor {
     this.actionToExecutorMap.put(Action.PLAY_YEAR_OF_PLENTY, new YearOfPlentyExecutor(this.game));
   }
 
+  /**
+   * Overwrites the action state of this executor with that of another executor, such as when
+   * forking a game.
+   *
+   * @param other executor to copy.
+   */
+  public void copyFrom(ActionExecutor other) {
+    this.lastActionMetadata = other.lastActionMetadata;
+    this.actionStateMachine.copyFrom(other.actionStateMachine);
+  }
+
   /**
   * Does the action on the board if possible.
   *
@@ -72,6 +86,9 @@ public final class ActionExecutor {
   * @return whether the action was successful or not.
   */
   public boolean doAction(ActionMetadata amd, Player p) {
+    if (this.undoLog != null) {
+      this.undoLog.push(amd.getAction(), this.lastActionMetadata);
+    }
     this.lastActionMetadata = amd;
 
     SpecificActionExecutor executor = this.actionToExecutorMap.get(amd.getAction());
@@ -79,7 +96,54 @@ public final class ActionExecutor {
 
     if (successful) {
       this.actionStateMachine.nextActionState();
+    } else if (this.undoLog != null) {
+      this.undoLog.discard();
     }
     return successful;
   }
+
+  //****************************************************************************
+  //*********************************** Undo ***********************************
+  //****************************************************************************
+
+  /**
+   * Starts or stops recording an undo record for every successful action. Stopping drops
+   * every record.
+   *
+   * @param recording whether to record undo records.
+   */
+  public void setRecordingUndo(boolean recording) {
+    if (!recording) {
+      this.undoLog = null;
+    } else if (this.undoLog == null) {
+      this.undoLog = new UndoLog(this.game, this.actionStateMachine);
+    }
+  }
+
+  public boolean isRecordingUndo() {
+    return this.undoLog != null;
+  }
+
+  /**
+   * Returns the amount of successful actions which can be undone.
+   *
+   * @return amount of undo records.
+   */
+  public int getUndoableActionCount() {
+    return this.undoLog == null ? 0 : this.undoLog.size();
+  }
+
+  /**
+   * Restores the game to exactly how it was before the most recent successful action
+   * recorded since undo recording started, including the gamestate history.
+   *
+   * @return whether there was an action to undo.
+   */
+  public boolean undo() {
+    if (this.undoLog == null || this.undoLog.isEmpty()) {
+      return false;
+    }
+    this.lastActionMetadata = this.undoLog.pop();
+    return true;
+  }
 }
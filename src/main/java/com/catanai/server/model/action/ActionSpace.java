@@ -0,0 +1,308 @@
+package com.catanai.server.model.action;
+
+import com.catanai.server.model.board.graph.BoardTopology;
+import com.catanai.server.model.player.PlayerID;
+import com.catanai.server.model.player.ResourceHand;
+import java.util.Arrays;
+
+/**
+ * Fixed, flat numbering of every concrete action, so a policy can pick an action with a single
+ * softmax over SIZE ids and a legal mask. Ids are laid out in Action order, one block per
+ * action: a road per edge, a settlement and a city per node, a knight and a robber move per
+ * tile and victim (0 for nobody), a road building per pair of edges, a year of plenty per pair
+ * of resources, a monopoly per resource, and a discard per composition of at most
+ * MAX_DISCARD cards. Drawing a development card, ending the turn and rolling the dice have
+ * one id each.
+ *
+ * <p>Trades are left out, as are discards of more than MAX_DISCARD cards; those can still be
+ * played as int[] moves. Both encode() and decode() are table lookups. Decoded moves are
+ * shared between all callers and must not be modified.
+ */
+public final class ActionSpace {
+  /** Most cards a discard in the action space holds, enough for hands of up to 25 cards. */
+  public static final int MAX_DISCARD = 12;
+
+  /** Number of ids; every id is below it. */
+  public static final int SIZE;
+
+  /** Number of 64-bit words of a packed legal mask. */
+  public static final int MASK_WORDS;
+
+  private static final int NUM_RESOURCES = ResourceHand.NUM_RESOURCES;
+  private static final int NUM_EDGES = BoardTopology.NUM_EDGES;
+  private static final int NUM_NODES = BoardTopology.NUM_NODES;
+  private static final int NUM_VICTIMS = PlayerID.values().length + 1;
+
+  /**
+   * Ways of splitting a total into parts, by parts then total. A discard and the cards it
+   * leaves out of MAX_DISCARD split MAX_DISCARD into NUM_RESOURCES + 1 parts.
+   */
+  private static final int[][] compositions = new int[NUM_RESOURCES + 2][MAX_DISCARD + 1];
+
+  /** Ways of splitting a total into parts whose first part is below a value; ranks discards. */
+  private static final int[][][] compositionsBelow = new int[NUM_RESOURCES + 2][MAX_DISCARD + 1][MAX_DISCARD + 2];
+
+  /** First id of each action, indexed by Action value; -1 for actions left out. */
+  private static final int[] offsets = new int[Action.values().length + 1];
+
+  /** Number of ids of each action, indexed by Action value. */
+  private static final int[] sizes = new int[Action.values().length + 1];
+
+  /** Index of each pair of distinct edges, indexed by edge * NUM_EDGES + edge, in either order. */
+  private static final int[] edgePairs = new int[NUM_EDGES * NUM_EDGES];
+
+  /** Index of each pair of resources, indexed by resource * NUM_RESOURCES + resource. */
+  private static final int[] resourcePairs = new int[NUM_RESOURCES * NUM_RESOURCES];
+
+  /** Move of every id, as played by players. */
+  private static final int[][] moves;
+
+  static {
+    countCompositions();
+    Arrays.fill(offsets, -1);
+    sizes[Action.PLAY_ROAD.getValue()] = NUM_EDGES;
+    sizes[Action.PLAY_SETTLEMENT.getValue()] = NUM_NODES;
+    sizes[Action.PLAY_CITY.getValue()] = NUM_NODES;
+    sizes[Action.PLAY_KNIGHT.getValue()] = BoardTopology.NUM_TILES * NUM_VICTIMS;
+    sizes[Action.PLAY_ROAD_BUILDING.getValue()] = NUM_EDGES * (NUM_EDGES - 1) / 2;
+    sizes[Action.PLAY_YEAR_OF_PLENTY.getValue()] = NUM_RESOURCES * (NUM_RESOURCES + 1) / 2;
+    sizes[Action.PLAY_MONOPOLY.getValue()] = NUM_RESOURCES;
+    sizes[Action.DRAW_DEVELOPMENT_CARD.getValue()] = 1;
+    sizes[Action.MOVE_ROBBER.getValue()] = BoardTopology.NUM_TILES * NUM_VICTIMS;
+    sizes[Action.DISCARD.getValue()] = compositions[NUM_RESOURCES + 1][MAX_DISCARD];
+    sizes[Action.END_TURN.getValue()] = 1;
+    sizes[Action.ROLL_DICE.getValue()] = 1;
+
+    int size = 0;
+    for (Action action : Action.values()) {
+      if (sizes[action.getValue()] > 0) {
+        offsets[action.getValue()] = size;
+        size += sizes[action.getValue()];
+      }
+    }
+    SIZE = size;
+    MASK_WORDS = (size + Long.SIZE - 1) / Long.SIZE;
+    moves = new int[SIZE][LegalActionEnumerator.MOVE_LENGTH];
+    fillMoves();
+  }
+
+  private ActionSpace() {}
+
+  /**
+   * Returns the id of a move.
+   *
+   * @param move action followed by its metadata, as returned by Player.play().
+   * @return id of the move, or -1 if the move is not in the action space.
+   */
+  public static int encode(int[] move) {
+    if (move.length == 0 || move[0] < 0 || move[0] >= offsets.length || offsets[move[0]] < 0) {
+      return -1;
+    }
+    int offset = offsets[move[0]];
+    switch (Action.valueOf(move[0])) {
+      case PLAY_ROAD:
+        return inRange(move, 1, NUM_EDGES) ? offset + move[1] : -1;
+      case PLAY_SETTLEMENT:
+      case PLAY_CITY:
+        return inRange(move, 1, NUM_NODES) ? offset + move[1] : -1;
+      case PLAY_KNIGHT:
+      case MOVE_ROBBER:
+        return inRange(move, 1, BoardTopology.NUM_TILES) && inRange(move, 2, NUM_VICTIMS)
+            ? offset + move[1] * NUM_VICTIMS + move[2]
+            : -1;
+      case PLAY_ROAD_BUILDING:
+        return inRange(move, 1, NUM_EDGES) && inRange(move, 2, NUM_EDGES) && move[1] != move[2]
+            ? offset + edgePairs[move[1] * NUM_EDGES + move[2]]
+            : -1;
+      case PLAY_YEAR_OF_PLENTY:
+        return inRange(move, 1, NUM_RESOURCES) && inRange(move, 2, NUM_RESOURCES)
+            ? offset + resourcePairs[move[1] * NUM_RESOURCES + move[2]]
+            : -1;
+      case PLAY_MONOPOLY:
+        return inRange(move, 1, NUM_RESOURCES) ? offset + move[1] : -1;
+      case DISCARD:
+        int rank = rankDiscard(move);
+        return rank < 0 ? -1 : offset + rank;
+      default:
+        return offset;
+    }
+  }
+
+  /**
+   * Returns the move of an id.
+   *
+   * @param id id of the move, from 0 to SIZE - 1.
+   * @return the move, shared between callers; it must not be modified.
+   */
+  public static int[] decode(int id) {
+    if (id < 0 || id >= SIZE) {
+      throw new IllegalArgumentException("Action id " + id + " is not between 0 and " + (SIZE - 1) + ".");
+    }
+    return moves[id];
+  }
+
+  /**
+   * Returns the first id of an action; its ids are the next getActionSize(action) ids.
+   *
+   * @param action action to find the ids of.
+   * @return first id of the action, or -1 if the action is not in the action space.
+   */
+  public static int getActionOffset(Action action) {
+    return offsets[action.getValue()];
+  }
+
+  public static int getActionSize(Action action) {
+    return sizes[action.getValue()];
+  }
+
+  /**
+   * Marks the ids of the moves listed by the last call to enumerate() of an enumerator, clearing
+   * every other id.
+   *
+   * @param legalActions enumerator listing the legal moves.
+   * @param mask mask of SIZE ids to fill.
+   * @return amount of listed moves in the action space.
+   */
+  public static int fillLegalMask(LegalActionEnumerator legalActions, boolean[] mask) {
+    Arrays.fill(mask, false);
+    int marked = 0;
+    for (int i = 0; i < legalActions.size(); i++) {
+      int id = encode(legalActions.get(i));
+      if (id >= 0 && !mask[id]) {
+        mask[id] = true;
+        marked++;
+      }
+    }
+    return marked;
+  }
+
+  /**
+   * Marks the ids of the moves listed by the last call to enumerate() of an enumerator in a packed
+   * mask, id i being bit i % 64 of word i / 64, and clears every other id.
+   *
+   * @param legalActions enumerator listing the legal moves.
+   * @param mask mask of MASK_WORDS words to fill.
+   * @return amount of listed moves in the action space.
+   */
+  public static int fillLegalMask(LegalActionEnumerator legalActions, long[] mask) {
+    Arrays.fill(mask, 0L);
+    int marked = 0;
+    for (int i = 0; i < legalActions.size(); i++) {
+      int id = encode(legalActions.get(i));
+      if (id >= 0 && (mask[id >>> 6] & 1L << id) == 0) {
+        mask[id >>> 6] |= 1L << id;
+        marked++;
+      }
+    }
+    return marked;
+  }
+
+  private static boolean inRange(int[] move, int index, int bound) {
+    return move.length > index && move[index] >= 0 && move[index] < bound;
+  }
+
+  //****************************************************************************
+  //******************************** Discards **********************************
+  //****************************************************************************
+
+  private static void countCompositions() {
+    for (int total = 0; total <= MAX_DISCARD; total++) {
+      compositions[1][total] = 1;
+    }
+    for (int parts = 2; parts < compositions.length; parts++) {
+      for (int total = 0; total <= MAX_DISCARD; total++) {
+        for (int first = 0; first <= total; first++) {
+          compositionsBelow[parts][total][first + 1] =
+              compositionsBelow[parts][total][first] + compositions[parts - 1][total - first];
+        }
+        compositions[parts][total] = compositionsBelow[parts][total][total + 1];
+      }
+    }
+  }
+
+  /**
+   * Ranks a discard among the ways of splitting MAX_DISCARD between the resources and the
+   * cards left out, in lexicographic order.
+   */
+  private static int rankDiscard(int[] move) {
+    if (move.length < 1 + NUM_RESOURCES) {
+      return -1;
+    }
+    int remaining = MAX_DISCARD;
+    int rank = 0;
+    for (int r = 0; r < NUM_RESOURCES; r++) {
+      int amount = move[1 + r];
+      if (amount < 0 || amount > remaining) {
+        return -1;
+      }
+      rank += compositionsBelow[NUM_RESOURCES + 1 - r][remaining][amount];
+      remaining -= amount;
+    }
+    return rank;
+  }
+
+  //****************************************************************************
+  //********************************** Moves ***********************************
+  //****************************************************************************
+
+  private static void fillMoves() {
+    for (int edge = 0; edge < NUM_EDGES; edge++) {
+      set(Action.PLAY_ROAD, edge, edge);
+    }
+    for (int node = 0; node < NUM_NODES; node++) {
+      set(Action.PLAY_SETTLEMENT, node, node);
+      set(Action.PLAY_CITY, node, node);
+    }
+    for (int tile = 0; tile < BoardTopology.NUM_TILES; tile++) {
+      for (int victim = 0; victim < NUM_VICTIMS; victim++) {
+        set(Action.PLAY_KNIGHT, tile * NUM_VICTIMS + victim, tile, victim);
+        set(Action.MOVE_ROBBER, tile * NUM_VICTIMS + victim, tile, victim);
+      }
+    }
+    int pair = 0;
+    for (int first = 0; first < NUM_EDGES; first++) {
+      for (int second = first + 1; second < NUM_EDGES; second++) {
+        edgePairs[first * NUM_EDGES + second] = pair;
+        edgePairs[second * NUM_EDGES + first] = pair;
+        set(Action.PLAY_ROAD_BUILDING, pair++, first, second);
+      }
+    }
+    pair = 0;
+    for (int first = 0; first < NUM_RESOURCES; first++) {
+      for (int second = first; second < NUM_RESOURCES; second++) {
+        resourcePairs[first * NUM_RESOURCES + second] = pair;
+        resourcePairs[second * NUM_RESOURCES + first] = pair;
+        set(Action.PLAY_YEAR_OF_PLENTY, pair++, first, second);
+      }
+    }
+    for (int r = 0; r < NUM_RESOURCES; r++) {
+      set(Action.PLAY_MONOPOLY, r, r);
+    }
+    set(Action.DRAW_DEVELOPMENT_CARD, 0);
+    set(Action.END_TURN, 0);
+    set(Action.ROLL_DICE, 0);
+    fillDiscards(new int[NUM_RESOURCES], 0, MAX_DISCARD, new int[1]);
+  }
+
+  /**
+   * Fills the discards of at most remaining cards of resources r and up, in rank order.
+   */
+  private static void fillDiscards(int[] discard, int r, int remaining, int[] rank) {
+    if (r == NUM_RESOURCES) {
+      int[] move = moves[offsets[Action.DISCARD.getValue()] + rank[0]++];
+      move[0] = Action.DISCARD.getValue();
+      System.arraycopy(discard, 0, move, 1, NUM_RESOURCES);
+      return;
+    }
+    for (int amount = 0; amount <= remaining; amount++) {
+      discard[r] = amount;
+      fillDiscards(discard, r + 1, remaining - amount, rank);
+    }
+  }
+
+  private static void set(Action action, int index, int... metadata) {
+    int[] move = moves[offsets[action.getValue()] + index];
+    move[0] = action.getValue();
+    System.arraycopy(metadata, 0, move, 1, metadata.length);
+  }
+}
@@ -3,7 +3,9 @@ package com.catanai.server.model.action;
 import com.catanai.server.model.Game;
 import com.catanai.server.model.player.Player;
 import com.catanai.server.model.player.PlayerID;
+import java.util.ArrayList;
 import java.util.LinkedList;
+import java.util.List;
 import java.util.Queue;
 import lombok.Getter;
 
@@ -116,7 +118,9 @@ public final class ActionStateMachine {
   /**
    * Handles the dice roll action state.
    * The dice roll is succeeded by:
-   *  - Discard, if the dice roll is a 7.
+   *  - Discard, if the dice roll is a 7 and a player has more than 7 cards; the first of them
+   *    becomes the current player.
+   *  - Move robber, if the dice roll is a 7 and nobody has to discard.
    *  - Business as usual, if the dice roll is not a 7.
    *
    * @return the next action state.
@@ -127,6 +131,7 @@ public final class ActionStateMachine {
       if (getPlayersToDiscard()) {
         return ActionState.MOVE_ROBBER;
       }
+      this.game.setCurrentPlayer(this.playersToDiscard.poll());
       return ActionState.DISCARD;
     }
 
@@ -139,6 +144,8 @@ public final class ActionStateMachine {
 
     for (Player player : this.game.getPlayers()) {
       if (player.getAmountOfResourceCardsInHand() > 7) {
+        // Discarding for an earlier 7 in the same round does not spare a player this one.
+        player.setHasDiscardedThisTurn(false);
         playersToDiscard.add(player);
       }
     }
@@ -163,14 +170,6 @@ public final class ActionStateMachine {
    * @return the next action state.
    */
   private ActionState handleActionStateDiscard() {
-    // Check if any players have to discard, and if so,
-    // make those players discard.
-    if (this.playersToDiscard == null) {
-      if (getPlayersToDiscard()) {
-        return ActionState.MOVE_ROBBER;
-      }
-    }
-
     // Get the next player to discard.
     Player playerToDiscard = this.playersToDiscard.poll();
 
@@ -205,14 +204,14 @@ public final class ActionStateMachine {
     }
 
     // If the current player's last action was end turn, then the next player.
-    if (this.game.getCurrentPlayer().getPreviousAction().getAction() == Action.END_TURN) {
+    if (this.game.getCurrentPlayer().getPreviousAction() == Action.END_TURN) {
       Player nextPlayer = this.game.getPlayers().get(this.game.getCurrentPlayer().getID().getValue() % 4);
       this.game.setCurrentPlayer(nextPlayer);
       return ActionState.ROLL_DICE;
     }
 
     // If the current player's last action was to offer a trade, throw NotImplementedException.
-    if (this.game.getCurrentPlayer().getPreviousAction().getAction() == Action.OFFER_TRADE) {
+    if (this.game.getCurrentPlayer().getPreviousAction() == Action.OFFER_TRADE) {
       return ActionState.TRADE;
     }
 
@@ -270,4 +269,119 @@ public final class ActionStateMachine {
     this.currentActionState = this.getNextActionState();
   }
 
+  /**
+   * Overwrites this state machine with the state of another one, whose players are matched to
+   * the players of this state machine's game by ID.
+   *
+   * @param other state machine to copy.
+   */
+  void copyFrom(ActionStateMachine other) {
+    this.currentActionState = other.currentActionState;
+    this.turnPlayer = this.samePlayer(other.turnPlayer);
+    this.playersToDiscard = this.samePlayers(other.playersToDiscard);
+    this.playersToGetTradeResponse = this.samePlayers(other.playersToGetTradeResponse);
+  }
+
+  /**
+   * Saved state of a state machine, reused between saves.
+   */
+  static final class Snapshot {
+    private ActionState currentActionState;
+    private Player turnPlayer;
+    private boolean discarding;
+    private final List<Player> playersToDiscard = new ArrayList<>();
+    private boolean trading;
+    private final List<Player> playersToGetTradeResponse = new ArrayList<>();
+  }
+
+  /**
+   * Saves the state of this state machine.
+   *
+   * @param snapshot snapshot to overwrite.
+   */
+  void saveTo(Snapshot snapshot) {
+    snapshot.currentActionState = this.currentActionState;
+    snapshot.turnPlayer = this.turnPlayer;
+    snapshot.discarding = this.playersToDiscard != null;
+    snapshot.playersToDiscard.clear();
+    if (snapshot.discarding) {
+      snapshot.playersToDiscard.addAll(this.playersToDiscard);
+    }
+    snapshot.trading = this.playersToGetTradeResponse != null;
+    snapshot.playersToGetTradeResponse.clear();
+    if (snapshot.trading) {
+      snapshot.playersToGetTradeResponse.addAll(this.playersToGetTradeResponse);
+    }
+  }
+
+  /**
+   * Restores a state saved with saveTo().
+   *
+   * @param snapshot snapshot to restore.
+   */
+  void restoreFrom(Snapshot snapshot) {
+    this.currentActionState = snapshot.currentActionState;
+    this.turnPlayer = snapshot.turnPlayer;
+    this.playersToDiscard = restoreQueue(this.playersToDiscard, snapshot.discarding, snapshot.playersToDiscard);
+    this.playersToGetTradeResponse = restoreQueue(
+        this.playersToGetTradeResponse, snapshot.trading, snapshot.playersToGetTradeResponse
+    );
+  }
+
+  private static Queue<Player> restoreQueue(Queue<Player> queue, boolean present, List<Player> players) {
+    if (!present) {
+      return null;
+    }
+    Queue<Player> restored = queue == null ? new LinkedList<>() : queue;
+    restored.clear();
+    restored.addAll(players);
+    return restored;
+  }
+
+  private Player samePlayer(Player other) {
+    return other == null ? null : this.game.getPlayerByID(other.getID());
+  }
+
+  private Queue<Player> samePlayers(Queue<Player> others) {
+    if (others == null) {
+      return null;
+    }
+    Queue<Player> players = new LinkedList<>();
+    for (Player other : others) {
+      players.add(this.samePlayer(other));
+    }
+    return players;
+  }
+
+  //****************************************************************************
+  //********************************** Getters *********************************
+  //****************************************************************************
+
+  /**
+   * Returns the player whose turn it is while discarding or trading, otherwise null.
+   *
+   * @return the turn player, or null.
+   */
+  public Player getTurnPlayer() {
+    return this.turnPlayer;
+  }
+
+  /**
+   * Returns the players who still have to discard, in order, or null if no discard is in progress.
+   *
+   * @return copy of the players left to discard, or null.
+   */
+  public List<Player> getPendingDiscards() {
+    return this.playersToDiscard == null ? null : new ArrayList<>(this.playersToDiscard);
+  }
+
+  /**
+   * Returns the players who still have to respond to a trade, in order, or null if no trade is in progress.
+   *
+   * @return copy of the players left to respond, or null.
+   */
+  public List<Player> getPendingTradeResponses() {
+    return this.playersToGetTradeResponse == null ? null : new ArrayList<>(this.playersToGetTradeResponse);
+  }
+
 }
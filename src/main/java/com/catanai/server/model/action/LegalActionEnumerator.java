@@ -0,0 +1,289 @@
+package com.catanai.server.model.action;
+
+import com.catanai.server.model.Game;
+import com.catanai.server.model.bank.Dealer;
+import com.catanai.server.model.bank.card.DevelopmentCard;
+import com.catanai.server.model.bank.card.ResourceCard;
+import com.catanai.server.model.board.Board;
+import com.catanai.server.model.board.LegalMoveGenerator;
+import com.catanai.server.model.board.building.Building;
+import com.catanai.server.model.board.building.Settlement;
+import com.catanai.server.model.board.graph.BoardTopology;
+import com.catanai.server.model.player.BuildCost;
+import com.catanai.server.model.player.Player;
+import com.catanai.server.model.player.PlayerID;
+import com.catanai.server.model.player.ResourceHand;
+import java.util.Arrays;
+
+/**
+ * Lists the actions the current player of a game may take, as the int[] moves players return
+ * from play(), e.g. for random playouts and tree search. Every listed action succeeds when
+ * played next.
+ *
+ * <p>Moves are written into rows owned by the enumerator, which are overwritten by the next
+ * call to enumerate(); copy a move to keep it. Rows only grow, so enumerating allocates
+ * nothing once the largest action list has been seen.
+ *
+ * <p>Some actions the executors accept are left out: trades, development cards played before
+ * rolling (the state machine then moves on as if the dice were rolled), robbing yourself, and
+ * moving the robber without robbing when a player could be robbed.
+ */
+public final class LegalActionEnumerator {
+  /** Length of every move row; a discard is the longest move listed. */
+  public static final int MOVE_LENGTH = 1 + ResourceHand.NUM_RESOURCES;
+
+  private static final int NUM_RESOURCES = ResourceHand.NUM_RESOURCES;
+
+  private int[][] moves = new int[64][MOVE_LENGTH];
+  private int size;
+
+  /** Scratch resource vector used while listing discards. */
+  private final int[] discard = new int[NUM_RESOURCES];
+
+  /** Scratch edge indices used while listing road building pairs. */
+  private final int[] edges = new int[BoardTopology.NUM_EDGES];
+
+  /**
+   * Lists the actions of the current player of a game.
+   *
+   * @param game game to list actions of.
+   * @return amount of actions listed.
+   */
+  public int enumerate(Game game) {
+    this.size = 0;
+    Player p = game.getCurrentPlayer();
+    switch (game.getActionExecutor().getActionStateMachine().getCurrentActionState()) {
+      case FIRST_SETTLEMENT:
+      case SECOND_SETTLEMENT:
+        this.addNodes(Action.PLAY_SETTLEMENT, game.getBoard().getLegalMoves().getSettlementMask(p.getID(), true));
+        break;
+      case FIRST_ROAD:
+      case SECOND_ROAD:
+        this.enumerateStartingRoads(game, p);
+        break;
+      case ROLL_DICE:
+        if (!p.hasRolledDiceThisTurn()) {
+          this.add(Action.ROLL_DICE.getValue());
+        }
+        break;
+      case DISCARD:
+        this.enumerateDiscards(game, p);
+        break;
+      case MOVE_ROBBER:
+        this.enumerateRobberMoves(game, p, Action.MOVE_ROBBER, true);
+        break;
+      case BUSINESS_AS_USUAL:
+        this.enumerateBusinessAsUsual(game, p);
+        break;
+      default:
+        break;
+    }
+    return this.size;
+  }
+
+  /**
+   * Returns a move listed by the last call to enumerate().
+   *
+   * @param index index of the move, below the amount listed.
+   * @return the move; overwritten by the next call to enumerate().
+   */
+  public int[] get(int index) {
+    return this.moves[index];
+  }
+
+  public int size() {
+    return this.size;
+  }
+
+  //****************************************************************************
+  //******************************* Action states ******************************
+  //****************************************************************************
+
+  private void enumerateStartingRoads(Game game, Player p) {
+    // Starting roads must touch the starting settlement just placed.
+    Settlement lastSettlement = p.getSecondStartingSettlement() != null
+        ? p.getSecondStartingSettlement()
+        : p.getFirstStartingSettlement();
+    if (lastSettlement == null) {
+      return;
+    }
+    LegalMoveGenerator legalMoves = game.getBoard().getLegalMoves();
+    int node = lastSettlement.getPlacement();
+    this.addEdges(
+        Action.PLAY_ROAD,
+        legalMoves.getRoadMaskLow(p.getID()) & BoardTopology.getNodeEdgeMaskLow(node),
+        legalMoves.getRoadMaskHigh(p.getID()) & BoardTopology.getNodeEdgeMaskHigh(node)
+    );
+  }
+
+  private void enumerateDiscards(Game game, Player p) {
+    int inHand = p.getAmountOfResourceCardsInHand();
+    if (inHand < 8 || p.hasDiscardedThisTurn() || game.getLastDiceRollValue() != 7) {
+      return;
+    }
+    this.addDiscards(p.getResourceCards(), 0, inHand / 2);
+  }
+
+  /**
+   * Adds every way of discarding the remaining amount from resources r and up.
+   */
+  private void addDiscards(ResourceHand hand, int r, int remaining) {
+    if (r == NUM_RESOURCES - 1) {
+      if (hand.get(ResourceCard.valueOf(r)) < remaining) {
+        return;
+      }
+      this.discard[r] = remaining;
+      int[] move = this.next();
+      move[0] = Action.DISCARD.getValue();
+      System.arraycopy(this.discard, 0, move, 1, NUM_RESOURCES);
+      return;
+    }
+    int most = Math.min(remaining, hand.get(ResourceCard.valueOf(r)));
+    for (int amount = 0; amount <= most; amount++) {
+      this.discard[r] = amount;
+      this.addDiscards(hand, r + 1, remaining - amount);
+    }
+  }
+
+  /**
+   * Adds a robber move to every tile but the robber's, robbing each other player with a
+   * building on the tile. Tiles without such a player are listed without robbing, if allowed.
+   */
+  private void enumerateRobberMoves(Game game, Player p, Action action, boolean allowNoVictim) {
+    Board board = game.getBoard();
+    for (int tile = 0; tile < BoardTopology.NUM_TILES; tile++) {
+      if (tile == board.getTileIndexCurrentlyBlocked()) {
+        continue;
+      }
+      int victims = 0;
+      for (int node : BoardTopology.getTileNodes(tile)) {
+        Building building = board.getNodes().get(node).getBuilding();
+        if (building != null && building.getPlayerId() != p.getID()) {
+          victims |= 1 << building.getPlayerId().getValue();
+        }
+      }
+      if (victims == 0 && allowNoVictim) {
+        this.add(action.getValue(), tile, 0);
+      }
+      for (PlayerID victim : PlayerID.values()) {
+        if ((victims & (1 << victim.getValue())) != 0) {
+          this.add(action.getValue(), tile, victim.getValue());
+        }
+      }
+    }
+  }
+
+  private void enumerateBusinessAsUsual(Game game, Player p) {
+    LegalMoveGenerator legalMoves = game.getBoard().getLegalMoves();
+    PlayerID id = p.getID();
+    if (p.getRemainingRoads() > 0 && p.canAfford(BuildCost.ROAD)) {
+      this.addEdges(Action.PLAY_ROAD, legalMoves.getRoadMaskLow(id), legalMoves.getRoadMaskHigh(id));
+    }
+    if (p.getRemainingSettlements() > 0 && p.canAfford(BuildCost.SETTLEMENT)) {
+      this.addNodes(Action.PLAY_SETTLEMENT, legalMoves.getSettlementMask(id, false));
+    }
+    if (p.getRemainingCities() > 0 && p.canAfford(BuildCost.CITY)) {
+      this.addNodes(Action.PLAY_CITY, legalMoves.getCityMask(id));
+    }
+    if (p.canAfford(BuildCost.DEVELOPMENT_CARD) && game.getDealer().canDrawDevelopmentCard()) {
+      this.add(Action.DRAW_DEVELOPMENT_CARD.getValue());
+    }
+    if (!p.hasPlayedDevelopmentCardThisTurn()) {
+      this.enumerateDevelopmentCards(game, p, legalMoves);
+    }
+    this.add(Action.END_TURN.getValue());
+  }
+
+  private void enumerateDevelopmentCards(Game game, Player p, LegalMoveGenerator legalMoves) {
+    if (p.hasDevelopmentCard(DevelopmentCard.KNIGHT)) {
+      // A knight moved without robbing is not used up, so it is only listed with a victim.
+      this.enumerateRobberMoves(game, p, Action.PLAY_KNIGHT, false);
+    }
+    if (p.hasDevelopmentCard(DevelopmentCard.ROAD_BUILDING) && p.getRemainingRoads() >= 2) {
+      int count = 0;
+      for (long bits = legalMoves.getRoadMaskLow(p.getID()); bits != 0; bits &= bits - 1) {
+        this.edges[count++] = Long.numberOfTrailingZeros(bits);
+      }
+      for (long bits = legalMoves.getRoadMaskHigh(p.getID()); bits != 0; bits &= bits - 1) {
+        this.edges[count++] = 64 + Long.numberOfTrailingZeros(bits);
+      }
+      for (int i = 0; i < count; i++) {
+        for (int j = i + 1; j < count; j++) {
+          this.add(Action.PLAY_ROAD_BUILDING.getValue(), this.edges[i], this.edges[j]);
+        }
+      }
+    }
+    if (p.hasDevelopmentCard(DevelopmentCard.YEAR_OF_PLENTY)) {
+      Dealer dealer = game.getDealer();
+      for (int first = 0; first < NUM_RESOURCES; first++) {
+        for (int second = first; second < NUM_RESOURCES; second++) {
+          boolean drawable = first == second
+              ? dealer.canDrawResource(ResourceCard.valueOf(first), 2)
+              : dealer.canDrawResource(ResourceCard.valueOf(first), 1)
+                  && dealer.canDrawResource(ResourceCard.valueOf(second), 1);
+          if (drawable) {
+            this.add(Action.PLAY_YEAR_OF_PLENTY.getValue(), first, second);
+          }
+        }
+      }
+    }
+    if (p.hasDevelopmentCard(DevelopmentCard.MONOPOLY)) {
+      for (int r = 0; r < NUM_RESOURCES; r++) {
+        this.add(Action.PLAY_MONOPOLY.getValue(), r);
+      }
+    }
+  }
+
+  //****************************************************************************
+  //*********************************** Rows ***********************************
+  //****************************************************************************
+
+  private void addNodes(Action action, long nodes) {
+    for (long bits = nodes; bits != 0; bits &= bits - 1) {
+      this.add(action.getValue(), Long.numberOfTrailingZeros(bits));
+    }
+  }
+
+  private void addEdges(Action action, long low, long high) {
+    for (long bits = low; bits != 0; bits &= bits - 1) {
+      this.add(action.getValue(), Long.numberOfTrailingZeros(bits));
+    }
+    for (long bits = high; bits != 0; bits &= bits - 1) {
+      this.add(action.getValue(), 64 + Long.numberOfTrailingZeros(bits));
+    }
+  }
+
+  private void add(int action) {
+    this.next()[0] = action;
+  }
+
+  private void add(int action, int first) {
+    int[] move = this.next();
+    move[0] = action;
+    move[1] = first;
+  }
+
+  private void add(int action, int first, int second) {
+    int[] move = this.next();
+    move[0] = action;
+    move[1] = first;
+    move[2] = second;
+  }
+
+  /**
+   * Returns the next row, cleared, growing the rows if they are all used.
+   */
+  private int[] next() {
+    if (this.size == this.moves.length) {
+      int[][] grown = new int[this.moves.length * 2][];
+      System.arraycopy(this.moves, 0, grown, 0, this.moves.length);
+      for (int i = this.moves.length; i < grown.length; i++) {
+        grown[i] = new int[MOVE_LENGTH];
+      }
+      this.moves = grown;
+    }
+    int[] move = this.moves[this.size++];
+    Arrays.fill(move, 0);
+    return move;
+  }
+}
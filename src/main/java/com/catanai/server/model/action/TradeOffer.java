@@ -45,6 +45,21 @@ public class TradeOffer {
     this.receivingAccepted = null;
   }
 
+  /**
+   * Copies a trade offer and its responses. The offered and requested cards are shared.
+   *
+   * @param other trade offer to copy.
+   */
+  public TradeOffer(TradeOffer other) {
+    this.playerOffering = other.playerOffering;
+    this.resourcesOffered = other.resourcesOffered;
+    this.offeringAccepted = other.offeringAccepted;
+
+    this.playerReceiving = other.playerReceiving;
+    this.resourcesRequested = other.resourcesRequested;
+    this.receivingAccepted = other.receivingAccepted;
+  }
+
   //****************************************************************************
   //*************************** Getters and Setters ****************************
   //****************************************************************************
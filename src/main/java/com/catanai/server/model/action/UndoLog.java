@@ -0,0 +1,169 @@
+package com.catanai.server.model.action;
+
+import com.catanai.server.model.Game;
+import com.catanai.server.model.bank.Dealer;
+import com.catanai.server.model.board.Board;
+import com.catanai.server.model.player.DeterministicPlayer;
+import com.catanai.server.model.player.Player;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Stack of undo records for the successful actions of an ActionExecutor, so a single game can
+ * be searched depth-first by doing and undoing actions instead of forking it.
+ *
+ * <p>A record saves what an action may change before it is done: every player's hands, pieces
+ * and flags, the banks, the action state machine, the current player, trade offers and their
+ * responses, dice roll and gamestate history length, and the board when the action places a piece or moves the
+ * robber. Records are kept once created and overwritten when the stack grows back, so doing and
+ * undoing actions at depths already reached allocates nothing. The game's generators are not
+ * rewound, so dice, steals and development cards after an undo may differ.
+ */
+final class UndoLog {
+  /** Actions which change the board, and need it saved. */
+  private static final Set<Action> BOARD_ACTIONS = EnumSet.of(
+      Action.PLAY_ROAD,
+      Action.PLAY_SETTLEMENT,
+      Action.PLAY_CITY,
+      Action.PLAY_ROAD_BUILDING,
+      Action.PLAY_KNIGHT,
+      Action.MOVE_ROBBER
+  );
+
+  private final Game game;
+  private final ActionStateMachine actionStateMachine;
+  private final List<Record> records;
+  private int size;
+
+  UndoLog(Game game, ActionStateMachine actionStateMachine) {
+    this.game = game;
+    this.actionStateMachine = actionStateMachine;
+    this.records = new ArrayList<>();
+    this.size = 0;
+  }
+
+  /**
+   * Saves the state of the game before an action is done.
+   *
+   * @param action action about to be done.
+   * @param lastActionMetadata the executor's last action before this one.
+   */
+  void push(Action action, ActionMetadata lastActionMetadata) {
+    if (this.size == this.records.size()) {
+      this.records.add(new Record(this.game));
+    }
+    this.records.get(this.size++).save(this.game, this.actionStateMachine, action, lastActionMetadata);
+  }
+
+  /**
+   * Drops the most recent record without restoring it, for an action which failed.
+   */
+  void discard() {
+    this.size--;
+  }
+
+  /**
+   * Restores the game to before the most recent recorded action, and drops its record.
+   *
+   * @return the executor's last action before the undone action.
+   */
+  ActionMetadata pop() {
+    return this.records.get(--this.size).restore(this.game, this.actionStateMachine);
+  }
+
+  boolean isEmpty() {
+    return this.size == 0;
+  }
+
+  int size() {
+    return this.size;
+  }
+
+  /**
+   * State of a game before one action, saved into objects which are reused between saves.
+   */
+  private static final class Record {
+    private final Player[] players;
+    private final Board board;
+    private final Dealer dealer;
+    private final ActionStateMachine.Snapshot machine;
+    /** Open trade offers, and the responses they had; responses are set on the live offers. */
+    private final List<TradeOffer> tradeOffers;
+    private final List<Boolean> offeringAccepted;
+    private final List<Boolean> receivingAccepted;
+    private boolean boardSaved;
+    private Player currentPlayer;
+    private boolean ended;
+    private int lastDiceRollValue;
+    private int gameStateCount;
+    private ActionMetadata lastActionMetadata;
+
+    Record(Game game) {
+      this.players = new Player[game.getPlayers().size()];
+      for (int i = 0; i < this.players.length; i++) {
+        this.players[i] = new DeterministicPlayer(game.getPlayers().get(i).getID());
+      }
+      this.board = new Board(game.getBoard());
+      this.dealer = new Dealer();
+      this.machine = new ActionStateMachine.Snapshot();
+      this.tradeOffers = new ArrayList<>();
+      this.offeringAccepted = new ArrayList<>();
+      this.receivingAccepted = new ArrayList<>();
+    }
+
+    void save(Game game, ActionStateMachine machine, Action action, ActionMetadata lastActionMetadata) {
+      Board gameBoard = game.getBoard();
+      for (int i = 0; i < this.players.length; i++) {
+        this.players[i].copyStateFrom(game.getPlayers().get(i), gameBoard);
+      }
+      this.boardSaved = BOARD_ACTIONS.contains(action);
+      if (this.boardSaved) {
+        this.board.copyStateFrom(gameBoard);
+      }
+      this.dealer.copyStateFrom(game.getDealer());
+      machine.saveTo(this.machine);
+      this.tradeOffers.clear();
+      this.offeringAccepted.clear();
+      this.receivingAccepted.clear();
+      List<TradeOffer> gameTradeOffers = game.getTradeOffers();
+      for (int i = 0; i < gameTradeOffers.size(); i++) {
+        TradeOffer offer = gameTradeOffers.get(i);
+        this.tradeOffers.add(offer);
+        this.offeringAccepted.add(offer.getOfferingAccepted());
+        this.receivingAccepted.add(offer.getReceivingAccepted());
+      }
+      this.currentPlayer = game.getCurrentPlayer();
+      this.ended = game.hasEnded();
+      this.lastDiceRollValue = game.getLastDiceRollValue();
+      this.gameStateCount = game.getGameStateCount();
+      this.lastActionMetadata = lastActionMetadata;
+    }
+
+    ActionMetadata restore(Game game, ActionStateMachine machine) {
+      Board gameBoard = game.getBoard();
+      for (int i = 0; i < this.players.length; i++) {
+        game.getPlayers().get(i).copyStateFrom(this.players[i], gameBoard);
+      }
+      if (this.boardSaved) {
+        gameBoard.copyStateFrom(this.board);
+      }
+      game.getDealer().copyStateFrom(this.dealer);
+      machine.restoreFrom(this.machine);
+      List<TradeOffer> gameTradeOffers = game.getTradeOffers();
+      gameTradeOffers.clear();
+      for (int i = 0; i < this.tradeOffers.size(); i++) {
+        TradeOffer offer = this.tradeOffers.get(i);
+        offer.setOfferingAccepted(this.offeringAccepted.get(i));
+        offer.setReceivingAccepted(this.receivingAccepted.get(i));
+        gameTradeOffers.add(offer);
+      }
+      game.setCurrentPlayer(this.currentPlayer);
+      game.setEnded(this.ended);
+      game.setLastDiceRollValue(this.lastDiceRollValue);
+      game.rewindGameStates(this.gameStateCount);
+      return this.lastActionMetadata;
+    }
+  }
+}
@@ -6,6 +6,7 @@ import com.catanai.server.model.action.ActionState;
 import com.catanai.server.model.action.TradeOffer;
 import com.catanai.server.model.bank.card.ResourceCard;
 import com.catanai.server.model.player.Player;
+import com.catanai.server.model.player.ResourceHand;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
@@ -64,7 +65,7 @@ public final class AcceptTradeExecutor implements SpecificActionExecutor {
     // Ensure the player has the cards for the trade offer.
     TradeOffer tradeOffer = playerTradeOffers.get(0);
     Map<ResourceCard, Integer> resourcesOffered = tradeOffer.getResourcesOffered();
-    Map<ResourceCard, Integer> playerResources = p.getResourceCards();
+    ResourceHand playerResources = p.getResourceCards();
     for (int i = 0; i < 5; i++) {
       ResourceCard rc = ResourceCard.valueOf(i);
       if (playerResources.get(rc) < resourcesOffered.get(rc)) {
@@ -3,8 +3,8 @@ package com.catanai.server.model.action.executors;
 import com.catanai.server.model.Game;
 import com.catanai.server.model.action.ActionMetadata;
 import com.catanai.server.model.action.ActionState;
-import com.catanai.server.model.bank.card.ResourceCard;
 import com.catanai.server.model.board.building.City;
+import com.catanai.server.model.player.BuildCost;
 import com.catanai.server.model.player.Player;
 import org.jetbrains.annotations.NotNull;
 
@@ -41,12 +41,8 @@ public class CityExecutor implements SpecificActionExecutor {
    * @return whether the action was successful or not
    */
   public boolean buildCity(ActionMetadata amd, Player p) {
-    // Ensure player has all the required resources for a city
-    boolean hasOre = p.hasAmountOfResourceInHand(ResourceCard.ORE, 3);
-    boolean hasGrain = p.hasAmountOfResourceInHand(ResourceCard.GRAIN, 2);
-
     // Validate the player can place the city.
-    if (!hasOre || !hasGrain) { // Validate player has enough ore and wheat for city.
+    if (!p.canAfford(BuildCost.CITY)) { // Validate player has enough ore and wheat for city.
       return false;
     } else if (amd.getRelevantMetadata()[0] > 53) { // Validate the placement is on the board.
       return false;
@@ -65,8 +61,9 @@ public class CityExecutor implements SpecificActionExecutor {
     p.setRemainingCities(p.getRemainingCities() - 1);
     p.setRemainingSettlements(p.getRemainingSettlements() + 1);
     p.setVictoryPoints(p.getVictoryPoints() + 1);
-    p.removeAmountOfResourceCardFromHand(ResourceCard.ORE, 3);
-    p.removeAmountOfResourceCardFromHand(ResourceCard.GRAIN, 2);
+    p.pay(BuildCost.CITY);
+    this.game.getDealer().returnResources(BuildCost.CITY);
+    p.removeNodeFromPossibleCityNodes(this.game.getBoard().getNodes().get(amd.getRelevantMetadata()[0]));
     return true;
   }
 }
@@ -5,6 +5,7 @@ import com.catanai.server.model.action.ActionMetadata;
 import com.catanai.server.model.action.ActionState;
 import com.catanai.server.model.bank.card.ResourceCard;
 import com.catanai.server.model.player.Player;
+import com.catanai.server.model.player.ResourceHand;
 import org.jetbrains.annotations.NotNull;
 
 /**
@@ -42,11 +43,10 @@ public class DiscardExecutor implements SpecificActionExecutor {
     }
 
     // Ensure the player has the cards they are attempting to discard.
-    for (int i = 0; i < 5; i++) {
-      ResourceCard card = ResourceCard.valueOf(i);
-      if (!p.hasAmountOfResourceInHand(card, relevantMetadata[i])) {
-        return false;
-      }
+    if (!p.getResourceCards().canAfford(relevantMetadata)) {
+      return false;
+    }
+    for (int i = 0; i < ResourceHand.NUM_RESOURCES; i++) {
       amountOfCardsAttemptingToDiscard += relevantMetadata[i];
     }
 
@@ -56,9 +56,9 @@ public class DiscardExecutor implements SpecificActionExecutor {
     }
 
     // Discard the cards.
-    for (int i = 0; i < 5; i++) {
+    p.getResourceCards().removeAll(relevantMetadata);
+    for (int i = 0; i < ResourceHand.NUM_RESOURCES; i++) {
       ResourceCard card = ResourceCard.valueOf(i);
-      p.removeAmountOfResourceCardFromHand(card, relevantMetadata[i]);
       for (int j = 0; j < relevantMetadata[i]; j++) {
         this.game.getDealer().returnResource(card);
       }
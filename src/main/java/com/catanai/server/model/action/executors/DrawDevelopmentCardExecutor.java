@@ -3,7 +3,7 @@ package com.catanai.server.model.action.executors;
 import com.catanai.server.model.Game;
 import com.catanai.server.model.action.ActionMetadata;
 import com.catanai.server.model.action.ActionState;
-import com.catanai.server.model.bank.card.ResourceCard;
+import com.catanai.server.model.player.BuildCost;
 import com.catanai.server.model.player.Player;
 import org.jetbrains.annotations.NotNull;
 
@@ -27,12 +27,7 @@ public class DrawDevelopmentCardExecutor implements SpecificActionExecutor {
   }
 
   private boolean drawDevelopmentCard(Player p) {
-    boolean hasOre = p.hasAmountOfResourceInHand(ResourceCard.ORE, 1);
-    boolean hasGrain = p.hasAmountOfResourceInHand(ResourceCard.GRAIN, 1);
-    boolean hasWool = p.hasAmountOfResourceInHand(ResourceCard.WOOL, 1);
-
-    
-    if (!hasOre || !hasGrain || !hasWool) { // Check if the player has the cards required for dev card.
+    if (!p.canAfford(BuildCost.DEVELOPMENT_CARD)) { // Check if the player has the cards required for dev card.
       return false;
     } else if (
         this.game.getDealer().getDevelopmentBank().getCurrentBankSize() < 1
@@ -40,7 +35,9 @@ public class DrawDevelopmentCardExecutor implements SpecificActionExecutor {
       return false;
     }
 
-    // Draw a development card.
+    // Pay for and draw a development card.
+    p.pay(BuildCost.DEVELOPMENT_CARD);
+    this.game.getDealer().returnResources(BuildCost.DEVELOPMENT_CARD);
     p.addDevelopmentCard(this.game.getDealer().drawDevelopmentCard());
     return true;
   }
@@ -72,7 +72,7 @@ public class KnightExecutor implements SpecificActionExecutor {
     }
 
     // Steal card from player connected to tile.
-    ResourceCard randCardFromHand = playerToStealFrom.takeRandomCardFromHand();
+    ResourceCard randCardFromHand = playerToStealFrom.takeRandomCardFromHand(this.game.getRandom());
     if (randCardFromHand != null) {
       p.addToResourceCards(randCardFromHand);
     }
@@ -80,6 +80,8 @@ public class KnightExecutor implements SpecificActionExecutor {
     // Remove the knight from the player's hand and set the played dev card flag.
     p.removeDevelopmentCard(DevelopmentCard.KNIGHT);
     p.setPlayedDevelopmentCardThisTurn(true);
+    p.setNumKnightsPlayed(p.getNumKnightsPlayed() + 1);
+    this.game.updateLargestArmy();
     return true;
   }
 }
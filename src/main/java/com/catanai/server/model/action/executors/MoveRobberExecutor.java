@@ -70,7 +70,7 @@ public class MoveRobberExecutor implements SpecificActionExecutor {
 
     // Steal card from player connected to tile.
     if (playerToStealFrom != null) {
-      ResourceCard randCardFromHand = playerToStealFrom.takeRandomCardFromHand();
+      ResourceCard randCardFromHand = playerToStealFrom.takeRandomCardFromHand(this.game.getRandom());
       if (randCardFromHand != null) {
         p.addToResourceCards(randCardFromHand);
       }
@@ -37,14 +37,12 @@ public final class OfferTradeExecutor implements SpecificActionExecutor {
 
   private boolean offerInitialTrade(ActionMetadata amd, Player p) {
     // Check if this player has the cards required for the trade, and populate offering cards.
-    Map<ResourceCard, Integer> currentPlayerResourceCards = p.getResourceCards();
+    if (!p.getResourceCards().canAfford(amd.getRelevantMetadata())) {
+      return false;
+    }
     Map<ResourceCard, Integer> offerCards = new HashMap<>();
     for (int i = 0; i < 5; i++) {
-      ResourceCard card = ResourceCard.valueOf(i);
-      if (amd.getRelevantMetadata()[i] > currentPlayerResourceCards.get(card)) {
-        return false;
-      }
-      offerCards.put(card, amd.getRelevantMetadata()[i]);
+      offerCards.put(ResourceCard.valueOf(i), amd.getRelevantMetadata()[i]);
     }
 
     // Populate cards the player would like to receive from the trade.
@@ -68,14 +66,12 @@ public final class OfferTradeExecutor implements SpecificActionExecutor {
 
   private boolean offerCounterTrade(ActionMetadata amd, Player p) {
     // Check if this player has the cards required for the trade, and populate offering cards.
-    Map<ResourceCard, Integer> currentPlayerResourceCards = p.getResourceCards();
+    if (!p.getResourceCards().canAfford(amd.getRelevantMetadata())) {
+      return false;
+    }
     Map<ResourceCard, Integer> offerCards = new HashMap<>();
     for (int i = 0; i < 5; i++) {
-      ResourceCard card = ResourceCard.valueOf(i);
-      if (amd.getRelevantMetadata()[i] > currentPlayerResourceCards.get(card)) {
-        return false;
-      }
-      offerCards.put(card, amd.getRelevantMetadata()[i]);
+      offerCards.put(ResourceCard.valueOf(i), amd.getRelevantMetadata()[i]);
     }
 
 
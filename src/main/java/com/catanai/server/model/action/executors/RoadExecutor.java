@@ -3,15 +3,10 @@ package com.catanai.server.model.action.executors;
 import com.catanai.server.model.Game;
 import com.catanai.server.model.action.ActionMetadata;
 import com.catanai.server.model.action.ActionState;
-import com.catanai.server.model.bank.card.ResourceCard;
 import com.catanai.server.model.board.building.Road;
-import com.catanai.server.model.board.building.Settlement;
 import com.catanai.server.model.board.graph.Edge;
+import com.catanai.server.model.player.BuildCost;
 import com.catanai.server.model.player.Player;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Optional;
-import java.util.stream.Collectors;
 import org.jetbrains.annotations.NotNull;
 
 /**
@@ -63,23 +58,9 @@ public class RoadExecutor implements SpecificActionExecutor {
     // Remove 1 road from the player.
     p.setRemainingRoads(p.getRemainingRoads() - 1);
 
-    // Remove the edge from the player's possible road edges.
-    p.removeEdgeFromPossibleRoadEdges(attemptedRoadEdge);
+    // Update edges and nodes on the board where the player can build.
+    this.updatePossiblePlacements(p);
 
-    // Update edges on the board where the player can place roads.
-    p.clearPossibleRoadEdges();
-    this.game.getBoard().getEdges().stream()
-      .map(e -> new Road(e.getIndex(), p.getID()))
-      .filter(r -> this.game.getBoard().canPlaceRoad(r))
-      .forEach(r -> p.addEdgeToPossibleRoadEdges(this.game.getBoard().getEdges().get(r.getPlacement())));
-    
-    // Update nodes on the board where the player can place settlements.
-    p.clearPossibleSettlementNodes();
-    this.game.getBoard().getNodes().stream()
-      .map(n -> new Settlement(n.getIndex(), p.getID(), false))
-      .filter(s -> this.game.getBoard().canPlaceSettlement(s))
-      .forEach(s -> p.addNodeToPossibleSettlementNodes(this.game.getBoard().getNodes().get(s.getPlacement()))); 
-    
     // Add road to player's roads.
     p.addRoad(attemptedRoad);
 
@@ -88,13 +69,11 @@ public class RoadExecutor implements SpecificActionExecutor {
 
   private boolean regularRoad(@NotNull ActionMetadata amd, @NotNull Player p) {
     int roadIndex = amd.getRelevantMetadata()[0];
-    boolean hasBrick = p.hasAmountOfResourceInHand(ResourceCard.BRICK, 1);
-    boolean hasLumber = p.hasAmountOfResourceInHand(ResourceCard.LUMBER, 1);
     final Road roadToPlace = new Road(roadIndex, p.getID());
     Edge edgeToPlaceRoadOn = this.game.getBoard().getEdges().get(roadIndex);
 
     // Ensure player has brick and lumber for road.
-    if (!hasBrick || !hasLumber) {
+    if (!p.canAfford(BuildCost.ROAD)) {
       return false;
     }
     // Ensure player has roads remaining.
@@ -114,82 +93,27 @@ public class RoadExecutor implements SpecificActionExecutor {
     this.game.getBoard().placeRoad(roadToPlace);
 
     // Remove resources from player.
-    p.removeAmountOfResourceCardFromHand(ResourceCard.BRICK, 1);
-    p.removeAmountOfResourceCardFromHand(ResourceCard.LUMBER, 1);
+    p.pay(BuildCost.ROAD);
+    this.game.getDealer().returnResources(BuildCost.ROAD);
 
     // Remove one road from player.
     p.setRemainingRoads(p.getRemainingRoads() - 1);
 
-    // Remove edge from possible road edges.
-    p.removeEdgeFromPossibleRoadEdges(edgeToPlaceRoadOn);
+    // Update edges and nodes on the board where the player can build.
+    this.updatePossiblePlacements(p);
 
     // Add road to player's roads.
     p.addRoad(roadToPlace);
 
-    // Check if the player has the longest road.
-    if (this.playerHasLongestRoad(p)) {
-      p.setLongestRoad(true);
-    }
+    // Check if the player now has the longest road.
+    this.game.updateLongestRoad();
     return true;
   }
 
-  private boolean playerHasLongestRoad(@NotNull Player p) {
-    // Select a random road of a player.
-    List<Edge> playerRoadEdges = p.getRoads().stream()
-        .map(r -> this.game.getBoard().getEdges().get(r.getPlacement()))
-        .collect(Collectors.toList());
-
-    List<Integer> pathLengths = new ArrayList<>();
-
-    for (Edge e : playerRoadEdges) {
-      List<Edge> visitedEdges = new ArrayList<>();
-      pathLengths.addAll(this.findPathLength(e, visitedEdges));
-    }
-
-    Optional<Integer> maxPathLength = pathLengths.stream()
-            .map(Integer::intValue)
-            .max((o1, o2) -> Integer.compare(o1, o2));
-
-    if (maxPathLength.isEmpty()) {
-      return false;
-    }
-
-    for (Player player : this.game.getPlayers()) {
-      // Check to see if the given player is the current player
-      if (p == player) {
-        continue;
-      }
-      if (maxPathLength.get() > player.getLongestRoadSize()) {
-        p.setVictoryPoints(p.getVictoryPoints() + 2);
-        p.setLongestRoad(true);
-
-        player.setVictoryPoints(p.getVictoryPoints() - 2);
-        p.setLongestRoad(false);
-        return true;
-      }
-    }
-
-    return false;
-  }
-
-  private List<Integer> findPathLength(@NotNull Edge e, List<Edge> visitedEdges) {
-    List<Integer> pathLengths = new ArrayList<Integer>(); 
-    List<Edge> connectedEdges = e.getNodes().stream()
-        .flatMap(n -> n.getConnectedEdges().stream())
-        .filter(edge -> edge != e)
-        .filter(Edge::hasRoad)
-        .filter(edge -> edge.getRoad().getPlayerId() == e.getRoad().getPlayerId())
-        .filter(edge -> !visitedEdges.contains(edge))
-        .collect(Collectors.toList());
-    
-    for (Edge connectedEdge : connectedEdges) {
-      if (visitedEdges.contains(connectedEdge)) {
-        continue;
-      }
-      visitedEdges.add(connectedEdge);
-      pathLengths.addAll(this.findPathLength(e, visitedEdges).stream().map(i -> i + 1).collect(Collectors.toList()));
-    }
-
-    return pathLengths;
+  private void updatePossiblePlacements(@NotNull Player p) {
+    p.clearPossibleRoadEdges();
+    p.addAllEdgesToPossibleRoadEdges(this.game.getBoard().getLegalRoadEdges(p.getID()));
+    p.clearPossibleSettlementNodes();
+    this.game.getBoard().getLegalSettlementNodes(p.getID()).forEach(p::addNodeToPossibleSettlementNodes);
   }
 }
@@ -3,10 +3,10 @@ package com.catanai.server.model.action.executors;
 import com.catanai.server.model.Game;
 import com.catanai.server.model.action.ActionMetadata;
 import com.catanai.server.model.action.ActionState;
-import com.catanai.server.model.bank.card.ResourceCard;
 import com.catanai.server.model.board.building.Settlement;
 import com.catanai.server.model.board.graph.Node;
 import com.catanai.server.model.board.tile.Terrain;
+import com.catanai.server.model.player.BuildCost;
 import com.catanai.server.model.player.Player;
 import org.jetbrains.annotations.NotNull;
 
@@ -136,32 +136,34 @@ public final class SettlementExecutor implements SpecificActionExecutor {
     p.setRemainingSettlements(p.getRemainingSettlements() - 1);
     p.setVictoryPoints(p.getVictoryPoints() + 1);
 
-    // Add the edges connected to this settlement to player's possible road edges.
+    Node settlementNode = this.game.getBoard().getNodes().get(attemptedSettlement.getPlacement());
     p.clearPossibleRoadEdges();
-    p.addAllEdgesToPossibleRoadEdges(
-        this.game.getBoard().getNodes().get(attemptedSettlement.getPlacement()).getConnectedEdges()
-    );
+    if (attemptedSettlement.isInitialPlacement()) {
+      // A starting road must be connected to the starting settlement just placed.
+      p.addAllEdgesToPossibleRoadEdges(settlementNode.getConnectedEdges());
+    } else {
+      // Update edges and nodes on the board where the player can build.
+      p.addAllEdgesToPossibleRoadEdges(this.game.getBoard().getLegalRoadEdges(p.getID()));
+      p.clearPossibleSettlementNodes();
+      this.game.getBoard().getLegalSettlementNodes(p.getID()).forEach(p::addNodeToPossibleSettlementNodes);
+    }
 
     // Add this node to possible city nodes for the player.
-    Node settlementNode = this.game.getBoard().getNodes().get(attemptedSettlement.getPlacement());
     p.addNodeToPossibleCityNodes(settlementNode);
 
     // Remove node from possible settlement nodes.
     p.removeNodeFromPossibleSettlementNodes(settlementNode);
+
+    // The settlement may have broken another player's longest road.
+    this.game.updateLongestRoad();
   }
 
   private boolean hasResourcesForSettlement(Player p) {
-    boolean hasWool = p.hasAmountOfResourceInHand(ResourceCard.WOOL, 1);
-    boolean hasBrick = p.hasAmountOfResourceInHand(ResourceCard.BRICK, 1);
-    boolean hasGrain = p.hasAmountOfResourceInHand(ResourceCard.GRAIN, 1);
-    boolean hasLumber = p.hasAmountOfResourceInHand(ResourceCard.LUMBER, 1);
-    return hasWool && hasBrick && hasGrain && hasLumber;
+    return p.canAfford(BuildCost.SETTLEMENT);
   }
 
   private void removeSettlementResourcesFromHand(Player p) {
-    p.removeAmountOfResourceCardFromHand(ResourceCard.BRICK, 1);
-    p.removeAmountOfResourceCardFromHand(ResourceCard.WOOL, 1);
-    p.removeAmountOfResourceCardFromHand(ResourceCard.GRAIN, 1);
-    p.removeAmountOfResourceCardFromHand(ResourceCard.LUMBER, 1);
+    p.pay(BuildCost.SETTLEMENT);
+    this.game.getDealer().returnResources(BuildCost.SETTLEMENT);
   }
 }
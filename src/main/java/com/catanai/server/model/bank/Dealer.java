@@ -3,20 +3,73 @@ package com.catanai.server.model.bank;
 import com.catanai.server.model.bank.card.DevelopmentCard;
 import com.catanai.server.model.bank.card.ResourceCard;
 import com.catanai.server.model.board.tile.Terrain;
+import com.catanai.server.model.player.BuildCost;
+import com.catanai.server.model.player.ResourceHand;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Objects;
+import java.util.SplittableRandom;
 
 /**
  * Represents a dealer for all banks in a game of Catan.
  */
 public final class Dealer {
-  private DevelopmentBank developmentCardBank = new DevelopmentBank();
-  private ResourceBank woolBank = new ResourceBank(ResourceCard.WOOL);
-  private ResourceBank oreBank = new ResourceBank(ResourceCard.ORE);
-  private ResourceBank lumberBank = new ResourceBank(ResourceCard.LUMBER);
-  private ResourceBank brickBank = new ResourceBank(ResourceCard.BRICK);
-  private ResourceBank grainBank = new ResourceBank(ResourceCard.GRAIN);
+  private final DevelopmentBank developmentCardBank;
+  private final ResourceBank woolBank;
+  private final ResourceBank oreBank;
+  private final ResourceBank lumberBank;
+  private final ResourceBank brickBank;
+  private final ResourceBank grainBank;
+
+  /**
+   * Creates a dealer with full banks.
+   */
+  public Dealer() {
+    this(new SplittableRandom());
+  }
+
+  /**
+   * Creates a dealer with full banks, dealing development cards in an order decided by a generator.
+   *
+   * @param random generator of the development card draws, used by this dealer only.
+   */
+  public Dealer(SplittableRandom random) {
+    this.developmentCardBank = new DevelopmentBank(random);
+    this.woolBank = new ResourceBank(ResourceCard.WOOL);
+    this.oreBank = new ResourceBank(ResourceCard.ORE);
+    this.lumberBank = new ResourceBank(ResourceCard.LUMBER);
+    this.brickBank = new ResourceBank(ResourceCard.BRICK);
+    this.grainBank = new ResourceBank(ResourceCard.GRAIN);
+  }
+
+  /**
+   * Creates an independent copy of a dealer and its banks.
+   *
+   * @param other dealer to copy.
+   * @param random generator of the copy's development card draws; other's is left untouched.
+   */
+  public Dealer(Dealer other, SplittableRandom random) {
+    this.developmentCardBank = new DevelopmentBank(other.developmentCardBank, random);
+    this.woolBank = new ResourceBank(other.woolBank);
+    this.oreBank = new ResourceBank(other.oreBank);
+    this.lumberBank = new ResourceBank(other.lumberBank);
+    this.brickBank = new ResourceBank(other.brickBank);
+    this.grainBank = new ResourceBank(other.grainBank);
+  }
+
+  /**
+   * Overwrites the cards left in every bank with those left in another dealer's banks.
+   *
+   * @param other dealer to copy.
+   */
+  public void copyStateFrom(Dealer other) {
+    this.developmentCardBank.copyStateFrom(other.developmentCardBank);
+    this.woolBank.copyStateFrom(other.woolBank);
+    this.oreBank.copyStateFrom(other.oreBank);
+    this.lumberBank.copyStateFrom(other.lumberBank);
+    this.brickBank.copyStateFrom(other.brickBank);
+    this.grainBank.copyStateFrom(other.grainBank);
+  }
   
   public DevelopmentCard drawDevelopmentCard() {
     return developmentCardBank.takeCard();
@@ -36,6 +89,27 @@ public final class Dealer {
     return bank.takeCard();
   }
   
+  /**
+  * Draws up to the given amount of a resource from the relevant bank at once.
+  *
+  * @param c resource card associated with resource to draw.
+  * @param amount amount of cards to draw.
+  * @return amount of cards drawn, fewer than amount if the bank runs out.
+  */
+  public int drawResources(ResourceCard c, int amount) {
+    return this.getAssociatedBank(c).takeCards(amount);
+  }
+
+  /**
+  * Returns the amount of cards left in the bank of a resource.
+  *
+  * @param c resource card associated with bank.
+  * @return amount of cards in the bank.
+  */
+  public int getResourceBankSize(ResourceCard c) {
+    return this.getAssociatedBank(c).getCurrentBankSize();
+  }
+
   /**
   * Draws resource from the relevant bank.
   *
@@ -61,6 +135,20 @@ public final class Dealer {
     return bank.addCard(c);
   }
   
+  /**
+   * Returns the resources paid for a piece to their banks.
+   *
+   * @param cost cost which was paid.
+   */
+  public void returnResources(BuildCost cost) {
+    for (int r = 0; r < ResourceHand.NUM_RESOURCES; r++) {
+      ResourceCard card = ResourceCard.valueOf(r);
+      for (int i = 0; i < cost.getAmount(card); i++) {
+        this.returnResource(card);
+      }
+    }
+  }
+
   /**
   * Returns resource to associated bank.
   *
@@ -104,7 +192,20 @@ public final class Dealer {
    * @return the relevant bank to the given terrain.
    */
   private ResourceBank getAssociatedBank(ResourceCard c) {
-    return this.getResourceBanks().get(c);
+    switch (c) {
+      case LUMBER:
+        return this.lumberBank;
+      case GRAIN:
+        return this.grainBank;
+      case BRICK:
+        return this.brickBank;
+      case ORE:
+        return this.oreBank;
+      case WOOL:
+        return this.woolBank;
+      default:
+        return null;
+    }
   }
 
   /**
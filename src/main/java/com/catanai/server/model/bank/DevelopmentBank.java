@@ -2,41 +2,73 @@ package com.catanai.server.model.bank;
 
 import com.catanai.server.model.bank.card.Card;
 import com.catanai.server.model.bank.card.DevelopmentCard;
-import java.util.ArrayList;
-import java.util.Collections;
+import java.util.SplittableRandom;
 
 /**
 * Represents a bank of development cards.
+*
+* <p>The bank only keeps the amount of each card left, indexed by DevelopmentCard value.
+* Every draw takes one of the remaining cards uniformly at random, which deals the cards
+* in the same distribution as a shuffled deck, and in the same order for the same seed.
 */
 public final class DevelopmentBank extends Bank {
-  DevelopmentCard[] cards;
-  
+  /** Amount of each card in a full bank, indexed by DevelopmentCard value. */
+  private static final int[] STARTING_COUNTS = {14, 2, 2, 2, 5};
+
+  private final int[] counts;
+  private final SplittableRandom random;
+
   /**
    * Create a bank of development cards.
    */
   public DevelopmentBank() {
+    this(new SplittableRandom());
+  }
+
+  /**
+   * Create a bank of development cards which deals in an order decided by a seed.
+   *
+   * @param seed seed of the draw order.
+   */
+  public DevelopmentBank(long seed) {
+    this(new SplittableRandom(seed));
+  }
+
+  /**
+   * Creates an independent copy of a development bank. The copy draws with its own generator,
+   * so the other bank deals the same cards whether or not it was copied.
+   *
+   * @param other bank to copy.
+   * @param random generator of the copy's draw order, used by the copy only.
+   */
+  public DevelopmentBank(DevelopmentBank other, SplittableRandom random) {
+    this(random);
+    this.currentCardIndex = other.currentCardIndex;
+    System.arraycopy(other.counts, 0, this.counts, 0, this.counts.length);
+  }
+
+  /**
+   * Overwrites the cards left in this bank with those left in another bank. The generator
+   * of this bank is kept.
+   *
+   * @param other bank to copy.
+   */
+  public void copyStateFrom(DevelopmentBank other) {
+    this.currentCardIndex = other.currentCardIndex;
+    System.arraycopy(other.counts, 0, this.counts, 0, this.counts.length);
+  }
+
+  /**
+   * Create a bank of development cards which deals in an order decided by a generator.
+   *
+   * @param random generator of the draw order, used by this bank only.
+   */
+  public DevelopmentBank(SplittableRandom random) {
     this.min = 0;
     this.max = 25;
     this.currentCardIndex = this.max - 1;
-    this.cards = new DevelopmentCard[this.max];
-    ArrayList<DevelopmentCard> cards = new ArrayList<>();
-    for (int i = 0; i < 14; i++) {
-      cards.add(DevelopmentCard.KNIGHT);
-    }
-    for (int i = 0; i < 5; i++) {
-      cards.add(DevelopmentCard.VICTORY_POINT);
-    }
-    for (int i = 0; i < 2; i++) {
-      cards.add(DevelopmentCard.YEAR_OF_PLENTY);
-    }
-    for (int i = 0; i < 2; i++) {
-      cards.add(DevelopmentCard.MONOPOLY);
-    }
-    for (int i = 0; i < 2; i++) {
-      cards.add(DevelopmentCard.ROAD_BUILDING);
-    }
-    Collections.shuffle(cards);
-    cards.toArray(this.cards);
+    this.counts = STARTING_COUNTS.clone();
+    this.random = random;
   }
   
   @Override
@@ -51,9 +83,34 @@ public final class DevelopmentBank extends Bank {
     if (this.currentCardIndex < this.min) {
       return null;
     }
-    DevelopmentCard devCard = this.cards[this.currentCardIndex];
-    this.cards[this.currentCardIndex] = null;
+    int pick = this.random.nextInt(this.getCurrentBankSize());
     this.currentCardIndex -= 1;
-    return devCard;
+    for (int d = 0; d < this.counts.length; d++) {
+      if (pick < this.counts[d]) {
+        this.counts[d]--;
+        return DevelopmentCard.valueOf(d);
+      }
+      pick -= this.counts[d];
+    }
+    return null;
+  }
+
+  /**
+   * Returns the amount of a development card left in the bank.
+   *
+   * @param card development card to count.
+   * @return amount of the card left.
+   */
+  public int getCount(DevelopmentCard card) {
+    return this.counts[card.getValue()];
+  }
+
+  /**
+   * Copies the amount of each card left into an array, indexed by DevelopmentCard value.
+   *
+   * @param destination array of at least 5 entries.
+   */
+  public void copyCountsTo(int[] destination) {
+    System.arraycopy(this.counts, 0, destination, 0, this.counts.length);
   }
 }
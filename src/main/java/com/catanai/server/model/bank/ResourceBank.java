@@ -2,6 +2,7 @@ package com.catanai.server.model.bank;
 
 import com.catanai.server.model.bank.card.Card;
 import com.catanai.server.model.bank.card.ResourceCard;
+import java.util.Arrays;
 
 /**
 * Represents a bank containing a resource card.
@@ -24,6 +25,28 @@ public final class ResourceBank extends Bank {
     }
   }
   
+  /**
+   * Creates an independent copy of a resource bank.
+   *
+   * @param other bank to copy.
+   */
+  public ResourceBank(ResourceBank other) {
+    this.max = other.max;
+    this.min = other.min;
+    this.currentCardIndex = other.currentCardIndex;
+    this.cards = other.cards.clone();
+  }
+
+  /**
+   * Overwrites the cards of this bank with those of another bank of the same resource.
+   *
+   * @param other bank to copy.
+   */
+  public void copyStateFrom(ResourceBank other) {
+    this.currentCardIndex = other.currentCardIndex;
+    System.arraycopy(other.cards, 0, this.cards, 0, this.max);
+  }
+  
   @Override
   public ResourceCard takeCard() {
     if (this.currentCardIndex < this.min) {
@@ -35,6 +58,19 @@ public final class ResourceBank extends Bank {
     return toReturn;
   }
   
+  /**
+   * Takes up to the given amount of cards from the bank at once.
+   *
+   * @param amount amount of cards to take.
+   * @return amount of cards taken, fewer than amount if the bank runs out.
+   */
+  public int takeCards(int amount) {
+    int taken = Math.max(0, Math.min(amount, this.getCurrentBankSize()));
+    Arrays.fill(this.cards, this.currentCardIndex + 1 - taken, this.currentCardIndex + 1, null);
+    this.currentCardIndex -= taken;
+    return taken;
+  }
+
   @Override
   public boolean addCard(Card card) {
     if (this.currentCardIndex + 1 >= this.max) {
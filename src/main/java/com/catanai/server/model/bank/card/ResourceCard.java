@@ -1,8 +1,5 @@
 package com.catanai.server.model.bank.card;
 
-import java.util.Arrays;
-import java.util.Optional;
-
 /**
 * Represents a resource card.
 */
@@ -12,6 +9,9 @@ public enum ResourceCard implements Card {
   LUMBER(2),
   ORE(3),
   BRICK(4);
+
+  /** Every resource card, indexed by value; values() copies its array on each call. */
+  private static final ResourceCard[] VALUES = values();
   
   private final int value;
 
@@ -33,10 +33,6 @@ public enum ResourceCard implements Card {
     if (value < 0 || value > 4) {
       return null;
     }
-    Optional<ResourceCard> rc = Arrays.stream(values())
-            .filter(resource -> resource.value == value)
-            .findFirst();
-    
-    return rc.orElse(null);
+    return VALUES[value];
   }
 }
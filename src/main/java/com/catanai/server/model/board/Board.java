@@ -3,22 +3,30 @@ package com.catanai.server.model.board;
 import com.catanai.server.model.board.building.City;
 import com.catanai.server.model.board.building.Road;
 import com.catanai.server.model.board.building.Settlement;
+import com.catanai.server.model.board.graph.BoardTopology;
 import com.catanai.server.model.board.graph.Edge;
 import com.catanai.server.model.board.graph.Node;
 import com.catanai.server.model.board.graph.NodeMapper;
 import com.catanai.server.model.board.tile.Tile;
 import com.catanai.server.model.board.tile.TileGenerator;
+import com.catanai.server.model.player.PlayerID;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.SplittableRandom;
 import lombok.Getter;
 
 /**
 * Represents the full game board.
+*
+* <p>Rule checks (LegalMoveGenerator, LongestRoadCalculator, ProductionIndex) read adjacency from
+* the shared BoardTopology and keep their state in primitive arrays and masks. Each board still
+* builds its own 54 Node and 72 Edge objects and links them through NodeMapper, since executors,
+* players, tiles and GameState read pieces through them. The linking follows BoardTopology, so it
+* does no I/O or parsing. Still, creating and forking a game allocates this graph.
 */
 public final class Board {
-  private static final int numNodes = 54;
-  private static final int numEdges = 72;
+  private static final int numNodes = BoardTopology.NUM_NODES;
+  private static final int numEdges = BoardTopology.NUM_EDGES;
 
   @Getter
   private List<Node> nodes;
@@ -34,11 +42,29 @@ public final class Board {
 
   @Getter
   private List<Node> portNodes;
+
+  @Getter
+  private final LegalMoveGenerator legalMoves;
+
+  @Getter
+  private final LongestRoadCalculator longestRoads;
+
+  @Getter
+  private final ProductionIndex production;
   
   /**
    * Constructs a board with all nodes, edges and tiles.
    */
   public Board() {
+    this(new SplittableRandom());
+  }
+
+  /**
+   * Constructs a board with all nodes, edges and tiles, laid out by a generator.
+   *
+   * @param random generator deciding the tiles and ports.
+   */
+  public Board(SplittableRandom random) {
     // Initialize nodes.
     this.nodes = new ArrayList<Node>(numNodes);
     for (int i = 0; i < numNodes; i++) {
@@ -51,7 +77,7 @@ public final class Board {
       edges.add(new Edge(i));
     }
 
-    this.tiles = new TileGenerator().getRandomizedTiles();
+    this.tiles = new TileGenerator(random).getRandomizedTiles();
 
     for (int i = 0; i < this.tiles.size(); i++) {
       Tile t = this.tiles.get(i);
@@ -61,12 +87,16 @@ public final class Board {
       }
     }
 
+    this.legalMoves = new LegalMoveGenerator();
+    this.longestRoads = new LongestRoadCalculator();
+    this.production = new ProductionIndex(this.tiles, this.tileIndexCurrentlyBlocked);
+
     // Map nodes to edges
     NodeMapper nm = new NodeMapper();
     nm.mapNodesToEdges(nodes, edges);
 
     // Map nodes to ports.
-    nm.mapNodesToPorts(nodes);
+    nm.mapNodesToPorts(nodes, random);
 
     // Map nodes to tiles.
     nm.mapNodesToTiles(nodes, tiles);
@@ -76,6 +106,64 @@ public final class Board {
     this.populatePortNodes();
   }
 
+  /**
+   * Creates an independent copy of a board. Buildings and ports are shared, since they are
+   * never changed once placed; nodes, edges and tiles are copied and linked to each other again.
+   *
+   * @param other board to copy.
+   */
+  public Board(Board other) {
+    this.nodes = new ArrayList<Node>(numNodes);
+    for (Node node : other.nodes) {
+      this.nodes.add(new Node(node));
+    }
+    this.edges = new ArrayList<Edge>(numEdges);
+    for (Edge edge : other.edges) {
+      this.edges.add(new Edge(edge));
+    }
+    this.tiles = new ArrayList<Tile>(other.tiles.size());
+    for (Tile tile : other.tiles) {
+      this.tiles.add(new Tile(tile));
+    }
+    this.tileIndexCurrentlyBlocked = other.tileIndexCurrentlyBlocked;
+
+    this.legalMoves = new LegalMoveGenerator();
+    this.legalMoves.copyFrom(other.legalMoves);
+    this.longestRoads = new LongestRoadCalculator();
+    this.longestRoads.copyFrom(other.longestRoads);
+    this.production = new ProductionIndex(this.tiles, this.tileIndexCurrentlyBlocked);
+    this.production.copyFrom(other.production);
+
+    NodeMapper nm = new NodeMapper();
+    nm.mapNodesToEdges(this.nodes, this.edges);
+    nm.mapNodesToTiles(this.nodes, this.tiles);
+
+    this.portNodes = new ArrayList<Node>();
+    this.populatePortNodes();
+  }
+
+  /**
+   * Overwrites the pieces and robber of this board with those of another board with the same
+   * tiles, such as a copy of this board.
+   *
+   * @param other board to copy.
+   */
+  public void copyStateFrom(Board other) {
+    for (int i = 0; i < numNodes; i++) {
+      this.nodes.get(i).copyStateFrom(other.nodes.get(i));
+    }
+    for (int i = 0; i < numEdges; i++) {
+      this.edges.get(i).copyStateFrom(other.edges.get(i));
+    }
+    for (int i = 0; i < this.tiles.size(); i++) {
+      this.tiles.get(i).copyStateFrom(other.tiles.get(i));
+    }
+    this.tileIndexCurrentlyBlocked = other.tileIndexCurrentlyBlocked;
+    this.legalMoves.copyFrom(other.legalMoves);
+    this.longestRoads.copyFrom(other.longestRoads);
+    this.production.copyFrom(other.production);
+  }
+
   /**
    * Populates the port nodes variable with all the nodes which have ports.
    */
@@ -97,6 +185,8 @@ public final class Board {
     Edge curEdge = this.edges.get(road.getPlacement());
     if (this.canPlaceRoad(road)) {
       curEdge.setRoad(road);
+      this.legalMoves.roadPlaced(road.getPlacement(), road.getPlayerId());
+      this.longestRoads.roadPlaced(road.getPlacement(), road.getPlayerId());
       return true;
     }
     return false;
@@ -109,33 +199,7 @@ public final class Board {
    * @return whether the placement was succesful or not.
    */
   public boolean canPlaceRoad(Road road) {
-    Edge curEdge = this.edges.get(road.getPlacement());
-    // If the current edge already has a road, cannot place road.
-    if (curEdge.hasRoad()) {
-      return false;
-    }
-
-    // Check if any of the surrounding nodes have a settlement by the same player.
-    List<Node> curEdgeNodes = curEdge.getNodes();
-    boolean hasBuildingOneNodeAway = curEdgeNodes
-        .stream()
-        .anyMatch(
-          (node) -> node.hasBuilding()
-            && node.getBuilding().getPlayerId() == road.getPlayerId()
-        );
-    if (hasBuildingOneNodeAway) {
-      return true;
-    }
-
-    // Check if any of the surrounding edges have a road by the same player.
-    List<Edge> oneEdgeAway = curEdgeNodes.stream()
-        .map((node) -> node.getConnectedEdges())
-        .flatMap(List::stream)
-        .filter((edge) -> !edge.equals(curEdge))
-        .collect(Collectors.toList());
-    
-    return oneEdgeAway.stream()
-        .anyMatch((edge) -> edge.hasRoad() && edge.getRoad().getPlayerId() == road.getPlayerId());
+    return this.legalMoves.canPlaceRoad(road.getPlacement(), road.getPlayerId());
   }
 
   /**
@@ -149,6 +213,9 @@ public final class Board {
     Node curNode = this.nodes.get(settlement.getPlacement());
     if (this.canPlaceSettlement(settlement)) {
       curNode.setBuilding(settlement);
+      this.legalMoves.settlementPlaced(settlement.getPlacement(), settlement.getPlayerId());
+      this.longestRoads.settlementPlaced(settlement.getPlacement(), settlement.getPlayerId());
+      this.production.buildingPlaced(settlement.getPlacement(), settlement.getPlayerId(), 1);
       return true;
     }
     return false;
@@ -162,36 +229,9 @@ public final class Board {
    * @return whether the settlement was successful or not.
    */
   public boolean canPlaceSettlement(Settlement settlement) {
-    Node curNode = this.nodes.get(settlement.getPlacement());
-    // Check if attempted placement node has a building
-    if (curNode.hasBuilding()) {
-      return false;
-    }
-
-    // Check if there are any settlements within 1 edge of the given node.
-    List<Edge> connectedEdges = curNode.getConnectedEdges();
-    boolean buildingOneNodeAway = connectedEdges
-        .stream()
-        .map((edge) -> edge.getNodes())
-        .flatMap(List::stream)
-        .collect(Collectors.toList())
-        .stream()
-        .filter((node) -> !node.equals(curNode))
-        .anyMatch((node) -> node.hasBuilding());
-
-    if (buildingOneNodeAway) {
-      return false;
-    }
-
-    if (settlement.isInitialPlacement()) {
-      return true;
-    }
-
-    // Check if there is a road nearby, if not first settlement
-    return connectedEdges.stream()
-        .anyMatch(
-          (edge) -> edge.hasRoad() && edge.getRoad().getPlayerId() == settlement.getPlayerId()
-        );
+    return this.legalMoves.canPlaceSettlement(
+        settlement.getPlacement(), settlement.getPlayerId(), settlement.isInitialPlacement()
+    );
   }
 
   /**
@@ -205,6 +245,8 @@ public final class Board {
     Node curNode = this.nodes.get(city.getPlacement());
     if (this.canPlaceCity(city)) {
       curNode.setBuilding(city);
+      this.legalMoves.cityPlaced(city.getPlacement(), city.getPlayerId());
+      this.production.buildingPlaced(city.getPlacement(), city.getPlayerId(), 2);
       return true;
     }
     return false;
@@ -217,11 +259,36 @@ public final class Board {
    * @return whether or not the city can be placed.
    */
   public boolean canPlaceCity(City city) {
-    Node curNode = this.nodes.get(city.getPlacement());
+    return this.legalMoves.canPlaceCity(city.getPlacement(), city.getPlayerId());
+  }
 
-    return curNode.hasBuilding()
-        && curNode.getBuilding() instanceof Settlement
-        && curNode.getBuilding().getPlayerId() == city.getPlayerId();
+  /**
+   * Returns the edges the player may currently build a road on.
+   *
+   * @param playerId player placing the road.
+   * @return legal edges, in index order.
+   */
+  public List<Edge> getLegalRoadEdges(PlayerID playerId) {
+    List<Edge> legalEdges = new ArrayList<Edge>();
+    for (int edge : LegalMoveGenerator.toIndices(
+        this.legalMoves.getRoadMaskLow(playerId), this.legalMoves.getRoadMaskHigh(playerId))) {
+      legalEdges.add(this.edges.get(edge));
+    }
+    return legalEdges;
+  }
+
+  /**
+   * Returns the nodes the player may currently build a settlement on, outside of the starting turns.
+   *
+   * @param playerId player placing the settlement.
+   * @return legal nodes, in index order.
+   */
+  public List<Node> getLegalSettlementNodes(PlayerID playerId) {
+    List<Node> legalNodes = new ArrayList<Node>();
+    for (int node : LegalMoveGenerator.toIndices(this.legalMoves.getSettlementMask(playerId, false), 0)) {
+      legalNodes.add(this.nodes.get(node));
+    }
+    return legalNodes;
   }
 
   /**
@@ -237,6 +304,7 @@ public final class Board {
     this.tiles.get(this.tileIndexCurrentlyBlocked).setBlocked(false);
     this.tiles.get(tileIndex).setBlocked(true);
     this.tileIndexCurrentlyBlocked = tileIndex;
+    this.production.robberMoved(tileIndex);
     return true;
   }
 }
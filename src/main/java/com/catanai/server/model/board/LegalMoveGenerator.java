@@ -0,0 +1,210 @@
+package com.catanai.server.model.board;
+
+import com.catanai.server.model.board.graph.BoardTopology;
+import com.catanai.server.model.player.PlayerID;
+
+/**
+ * Keeps the legal road, settlement and city placements of every player up to date
+ * as pieces are placed on the board, so legality is a bit test instead of a board scan.
+ *
+ * <p>Masks are indexed the same way as GameState edges and nodes. Edge masks are split
+ * into a low word (edges 0-63) and a high word (edges 64-71). Resources, remaining pieces
+ * and the action state are not considered here.
+ */
+public final class LegalMoveGenerator {
+  private static final int NUM_PLAYERS = 4;
+  private static final long ALL_NODES = (1L << BoardTopology.NUM_NODES) - 1;
+
+  /** Edges which already have a road. */
+  private long occupiedEdgesLow;
+  private long occupiedEdgesHigh;
+
+  /** Nodes which have a building, or are next to one. */
+  private long blockedNodes;
+
+  /** Edges each player may build a road on. */
+  private final long[] roadsLow = new long[NUM_PLAYERS];
+  private final long[] roadsHigh = new long[NUM_PLAYERS];
+
+  /** Nodes touched by each player's roads. */
+  private final long[] roadNodes = new long[NUM_PLAYERS];
+
+  /** Nodes with a settlement of each player, which may be upgraded to cities. */
+  private final long[] cities = new long[NUM_PLAYERS];
+
+  /**
+   * Overwrites this generator with the state of another.
+   *
+   * @param other generator to copy.
+   */
+  public void copyFrom(LegalMoveGenerator other) {
+    this.occupiedEdgesLow = other.occupiedEdgesLow;
+    this.occupiedEdgesHigh = other.occupiedEdgesHigh;
+    this.blockedNodes = other.blockedNodes;
+    System.arraycopy(other.roadsLow, 0, this.roadsLow, 0, NUM_PLAYERS);
+    System.arraycopy(other.roadsHigh, 0, this.roadsHigh, 0, NUM_PLAYERS);
+    System.arraycopy(other.roadNodes, 0, this.roadNodes, 0, NUM_PLAYERS);
+    System.arraycopy(other.cities, 0, this.cities, 0, NUM_PLAYERS);
+  }
+
+  //****************************************************************************
+  //********************************* Updates **********************************
+  //****************************************************************************
+
+  /**
+   * Records a road placed by a player.
+   *
+   * @param edge edge index 0-71.
+   * @param playerId owner of the road.
+   */
+  public void roadPlaced(int edge, PlayerID playerId) {
+    int p = playerId.getValue() - 1;
+    if (edge < 64) {
+      this.occupiedEdgesLow |= 1L << edge;
+    } else {
+      this.occupiedEdgesHigh |= 1L << (edge - 64);
+    }
+    for (int i = 0; i < NUM_PLAYERS; i++) {
+      this.roadsLow[i] &= ~this.occupiedEdgesLow;
+      this.roadsHigh[i] &= ~this.occupiedEdgesHigh;
+    }
+    this.roadsLow[p] |= BoardTopology.getEdgeNeighbourMaskLow(edge) & ~this.occupiedEdgesLow;
+    this.roadsHigh[p] |= BoardTopology.getEdgeNeighbourMaskHigh(edge) & ~this.occupiedEdgesHigh;
+    for (int node : BoardTopology.getEdgeNodes(edge)) {
+      this.roadNodes[p] |= 1L << node;
+    }
+  }
+
+  /**
+   * Records a settlement placed by a player.
+   *
+   * @param node node index 0-53.
+   * @param playerId owner of the settlement.
+   */
+  public void settlementPlaced(int node, PlayerID playerId) {
+    int p = playerId.getValue() - 1;
+    this.blockedNodes |= (1L << node) | BoardTopology.getNodeNeighbourMask(node);
+    this.roadsLow[p] |= BoardTopology.getNodeEdgeMaskLow(node) & ~this.occupiedEdgesLow;
+    this.roadsHigh[p] |= BoardTopology.getNodeEdgeMaskHigh(node) & ~this.occupiedEdgesHigh;
+    this.cities[p] |= 1L << node;
+  }
+
+  /**
+   * Records a settlement upgraded to a city.
+   *
+   * @param node node index 0-53.
+   * @param playerId owner of the city.
+   */
+  public void cityPlaced(int node, PlayerID playerId) {
+    this.cities[playerId.getValue() - 1] &= ~(1L << node);
+  }
+
+  //****************************************************************************
+  //********************************* Queries **********************************
+  //****************************************************************************
+
+  public boolean canPlaceRoad(int edge, PlayerID playerId) {
+    return edge < 64
+        ? (this.getRoadMaskLow(playerId) & (1L << edge)) != 0
+        : (this.getRoadMaskHigh(playerId) & (1L << (edge - 64))) != 0;
+  }
+
+  public boolean canPlaceSettlement(int node, PlayerID playerId, boolean initialPlacement) {
+    return (this.getSettlementMask(playerId, initialPlacement) & (1L << node)) != 0;
+  }
+
+  public boolean canPlaceCity(int node, PlayerID playerId) {
+    return (this.getCityMask(playerId) & (1L << node)) != 0;
+  }
+
+  public long getRoadMaskLow(PlayerID playerId) {
+    return this.roadsLow[playerId.getValue() - 1];
+  }
+
+  public long getRoadMaskHigh(PlayerID playerId) {
+    return this.roadsHigh[playerId.getValue() - 1];
+  }
+
+  /**
+   * Returns the nodes a player may build a settlement on. Starting settlements only
+   * need to respect the distance rule; later ones must also touch one of the player's roads.
+   *
+   * @param playerId player placing the settlement.
+   * @param initialPlacement whether the settlement is a starting settlement.
+   * @return bitmask of legal nodes.
+   */
+  public long getSettlementMask(PlayerID playerId, boolean initialPlacement) {
+    long free = ~this.blockedNodes & ALL_NODES;
+    return initialPlacement ? free : free & this.roadNodes[playerId.getValue() - 1];
+  }
+
+  public long getCityMask(PlayerID playerId) {
+    return this.cities[playerId.getValue() - 1];
+  }
+
+  /**
+   * Returns the legal roads of a player as a vector indexed like GameState edges.
+   *
+   * @param playerId player placing the road.
+   * @return 72 flags, true where the player may build a road.
+   */
+  public boolean[] getLegalRoads(PlayerID playerId) {
+    return toFlags(this.getRoadMaskLow(playerId), this.getRoadMaskHigh(playerId), BoardTopology.NUM_EDGES);
+  }
+
+  /**
+   * Returns the legal settlements of a player as a vector indexed like GameState nodes.
+   *
+   * @param playerId player placing the settlement.
+   * @param initialPlacement whether the settlement is a starting settlement.
+   * @return 54 flags, true where the player may build a settlement.
+   */
+  public boolean[] getLegalSettlements(PlayerID playerId, boolean initialPlacement) {
+    return toFlags(this.getSettlementMask(playerId, initialPlacement), 0, BoardTopology.NUM_NODES);
+  }
+
+  /**
+   * Returns the legal cities of a player as a vector indexed like GameState nodes.
+   *
+   * @param playerId player placing the city.
+   * @return 54 flags, true where the player may build a city.
+   */
+  public boolean[] getLegalCities(PlayerID playerId) {
+    return toFlags(this.getCityMask(playerId), 0, BoardTopology.NUM_NODES);
+  }
+
+  /**
+   * Expands a split bitmask into one flag per index.
+   *
+   * @param low bits 0-63.
+   * @param high bits 64 and up.
+   * @param size length of the returned vector.
+   * @return flags for each index.
+   */
+  public static boolean[] toFlags(long low, long high, int size) {
+    boolean[] flags = new boolean[size];
+    for (int i = 0; i < size; i++) {
+      flags[i] = i < 64 ? (low & (1L << i)) != 0 : (high & (1L << (i - 64))) != 0;
+    }
+    return flags;
+  }
+
+  /**
+   * Lists the indices set in a split bitmask, in ascending order.
+   *
+   * @param low bits 0-63.
+   * @param high bits 64 and up.
+   * @return set indices.
+   */
+  public static int[] toIndices(long low, long high) {
+    int[] indices = new int[Long.bitCount(low) + Long.bitCount(high)];
+    int i = 0;
+    for (long bits = low; bits != 0; bits &= bits - 1) {
+      indices[i++] = Long.numberOfTrailingZeros(bits);
+    }
+    for (long bits = high; bits != 0; bits &= bits - 1) {
+      indices[i++] = 64 + Long.numberOfTrailingZeros(bits);
+    }
+    return indices;
+  }
+}
@@ -0,0 +1,264 @@
+package com.catanai.server.model.board;
+
+import com.catanai.server.model.board.graph.BoardTopology;
+import com.catanai.server.model.player.PlayerID;
+
+/**
+ * Keeps the length of every player's longest road up to date as pieces are placed on the board.
+ *
+ * <p>A road is the longest trail through a player's road edges which uses every edge at most once.
+ * A trail may end on a node with another player's settlement or city, but cannot pass through it.
+ * Edges are tracked in the same low (0-63) and high (64-71) words as LegalMoveGenerator, and trails
+ * are searched with primitive visited masks. Placing a road only searches the road network the
+ * road joins; a settlement only causes a search for the players whose roads it breaks.
+ */
+public final class LongestRoadCalculator {
+  /** Amount of roads a road needs before it can be the longest road. */
+  public static final int MIN_LONGEST_ROAD = 5;
+
+  private static final int NUM_PLAYERS = 4;
+
+  /** Road edges of each player. */
+  private final long[] roadsLow = new long[NUM_PLAYERS];
+  private final long[] roadsHigh = new long[NUM_PLAYERS];
+
+  /** Nodes with a settlement or city of each player. */
+  private final long[] buildings = new long[NUM_PLAYERS];
+
+  /** Length of each player's longest road. */
+  private final int[] lengths = new int[NUM_PLAYERS];
+
+  /**
+   * Overwrites this calculator with the state of another.
+   *
+   * @param other calculator to copy.
+   */
+  public void copyFrom(LongestRoadCalculator other) {
+    System.arraycopy(other.roadsLow, 0, this.roadsLow, 0, NUM_PLAYERS);
+    System.arraycopy(other.roadsHigh, 0, this.roadsHigh, 0, NUM_PLAYERS);
+    System.arraycopy(other.buildings, 0, this.buildings, 0, NUM_PLAYERS);
+    System.arraycopy(other.lengths, 0, this.lengths, 0, NUM_PLAYERS);
+  }
+
+  //****************************************************************************
+  //********************************* Updates **********************************
+  //****************************************************************************
+
+  /**
+   * Records a road placed by a player, extending their longest road if the road network it
+   * joins is now longer.
+   *
+   * @param edge edge index 0-71.
+   * @param playerId owner of the road.
+   */
+  public void roadPlaced(int edge, PlayerID playerId) {
+    int p = playerId.getValue() - 1;
+    if (edge < 64) {
+      this.roadsLow[p] |= 1L << edge;
+    } else {
+      this.roadsHigh[p] |= 1L << (edge - 64);
+    }
+    // Roads are only ever added, so no other road network of the player can get shorter.
+    int length = longestRoadThrough(edge, this.roadsLow[p], this.roadsHigh[p], this.brokenNodes(p));
+    this.lengths[p] = Math.max(this.lengths[p], length);
+  }
+
+  /**
+   * Records a settlement placed by a player, shortening the roads of other players it breaks.
+   *
+   * @param node node index 0-53.
+   * @param playerId owner of the settlement.
+   */
+  public void settlementPlaced(int node, PlayerID playerId) {
+    int owner = playerId.getValue() - 1;
+    this.buildings[owner] |= 1L << node;
+    for (int p = 0; p < NUM_PLAYERS; p++) {
+      // Only a node with at least two of the player's roads joins them.
+      int roadsOnNode = Long.bitCount(BoardTopology.getNodeEdgeMaskLow(node) & this.roadsLow[p])
+          + Long.bitCount(BoardTopology.getNodeEdgeMaskHigh(node) & this.roadsHigh[p]);
+      if (p != owner && roadsOnNode > 1) {
+        this.lengths[p] = longestRoad(this.roadsLow[p], this.roadsHigh[p], this.brokenNodes(p));
+      }
+    }
+  }
+
+  public int getLongestRoad(PlayerID playerId) {
+    return this.lengths[playerId.getValue() - 1];
+  }
+
+  private long brokenNodes(int p) {
+    long broken = 0;
+    for (int i = 0; i < NUM_PLAYERS; i++) {
+      if (i != p) {
+        broken |= this.buildings[i];
+      }
+    }
+    return broken;
+  }
+
+  //****************************************************************************
+  //********************************* Search ***********************************
+  //****************************************************************************
+
+  /**
+   * Returns the longest road among all of a player's road networks.
+   *
+   * @param roadsLow player's road edges 0-63.
+   * @param roadsHigh player's road edges 64-71.
+   * @param brokenNodes nodes with buildings of other players.
+   * @return length of the longest road.
+   */
+  public static int longestRoad(long roadsLow, long roadsHigh, long brokenNodes) {
+    // A trail never leaves its road network, so searching all networks at once finds the longest.
+    return longestTrail(roadsLow, roadsHigh, brokenNodes);
+  }
+
+  /**
+   * Returns the longest road within the road network containing the given edge.
+   *
+   * @param edge edge index 0-71 of one of the player's roads.
+   * @param roadsLow player's road edges 0-63.
+   * @param roadsHigh player's road edges 64-71.
+   * @param brokenNodes nodes with buildings of other players.
+   * @return length of the longest road through the network of the edge.
+   */
+  public static int longestRoadThrough(int edge, long roadsLow, long roadsHigh, long brokenNodes) {
+    // Flood fill the road edges reachable from the edge without passing through a broken node.
+    long networkLow = edge < 64 ? 1L << edge : 0;
+    long networkHigh = edge < 64 ? 0 : 1L << (edge - 64);
+    long frontierLow = networkLow;
+    long frontierHigh = networkHigh;
+    while (frontierLow != 0 || frontierHigh != 0) {
+      int current;
+      if (frontierLow != 0) {
+        current = Long.numberOfTrailingZeros(frontierLow);
+        frontierLow &= frontierLow - 1;
+      } else {
+        current = 64 + Long.numberOfTrailingZeros(frontierHigh);
+        frontierHigh &= frontierHigh - 1;
+      }
+      for (int node : BoardTopology.getEdgeNodes(current)) {
+        if ((brokenNodes & (1L << node)) != 0) {
+          continue;
+        }
+        long nextLow = BoardTopology.getNodeEdgeMaskLow(node) & roadsLow & ~networkLow;
+        long nextHigh = BoardTopology.getNodeEdgeMaskHigh(node) & roadsHigh & ~networkHigh;
+        networkLow |= nextLow;
+        networkHigh |= nextHigh;
+        frontierLow |= nextLow;
+        frontierHigh |= nextHigh;
+      }
+    }
+    return longestTrail(networkLow, networkHigh, brokenNodes);
+  }
+
+  /**
+   * Returns the longest trail through the given road edges, trying every node as the start.
+   */
+  private static int longestTrail(long roadsLow, long roadsHigh, long brokenNodes) {
+    long nodes = 0;
+    for (long edges = roadsLow; edges != 0; edges &= edges - 1) {
+      nodes |= edgeNodeMask(Long.numberOfTrailingZeros(edges));
+    }
+    for (long edges = roadsHigh; edges != 0; edges &= edges - 1) {
+      nodes |= edgeNodeMask(64 + Long.numberOfTrailingZeros(edges));
+    }
+    int longest = 0;
+    for (; nodes != 0; nodes &= nodes - 1) {
+      int node = Long.numberOfTrailingZeros(nodes);
+      longest = Math.max(longest, longestTrailFrom(node, roadsLow, roadsHigh, brokenNodes, 0, 0));
+    }
+    return longest;
+  }
+
+  private static long edgeNodeMask(int edge) {
+    int[] edgeNodes = BoardTopology.getEdgeNodes(edge);
+    return (1L << edgeNodes[0]) | (1L << edgeNodes[1]);
+  }
+
+  /**
+   * Returns the longest trail from a node over the unvisited road edges.
+   */
+  private static int longestTrailFrom(
+      int node,
+      long roadsLow,
+      long roadsHigh,
+      long brokenNodes,
+      long visitedLow,
+      long visitedHigh
+  ) {
+    int longest = 0;
+    long nextLow = BoardTopology.getNodeEdgeMaskLow(node) & roadsLow & ~visitedLow;
+    for (; nextLow != 0; nextLow &= nextLow - 1) {
+      int edge = Long.numberOfTrailingZeros(nextLow);
+      int length = 1 + continueTrail(
+          edge, node, roadsLow, roadsHigh, brokenNodes, visitedLow | (1L << edge), visitedHigh
+      );
+      longest = Math.max(longest, length);
+    }
+    long nextHigh = BoardTopology.getNodeEdgeMaskHigh(node) & roadsHigh & ~visitedHigh;
+    for (; nextHigh != 0; nextHigh &= nextHigh - 1) {
+      int bit = Long.numberOfTrailingZeros(nextHigh);
+      int length = 1 + continueTrail(
+          64 + bit, node, roadsLow, roadsHigh, brokenNodes, visitedLow, visitedHigh | (1L << bit)
+      );
+      longest = Math.max(longest, length);
+    }
+    return longest;
+  }
+
+  /**
+   * Returns the longest trail continuing from the far end of an edge, which is 0 if the far
+   * end is a broken node.
+   */
+  private static int continueTrail(
+      int edge,
+      int fromNode,
+      long roadsLow,
+      long roadsHigh,
+      long brokenNodes,
+      long visitedLow,
+      long visitedHigh
+  ) {
+    int[] edgeNodes = BoardTopology.getEdgeNodes(edge);
+    int toNode = edgeNodes[0] == fromNode ? edgeNodes[1] : edgeNodes[0];
+    if ((brokenNodes & (1L << toNode)) != 0) {
+      return 0;
+    }
+    return longestTrailFrom(toNode, roadsLow, roadsHigh, brokenNodes, visitedLow, visitedHigh);
+  }
+
+  //****************************************************************************
+  //********************************** Award ***********************************
+  //****************************************************************************
+
+  /**
+   * Decides who holds the longest road. The holder keeps it while no one has a longer road;
+   * otherwise it goes to the single player with the longest road of at least MIN_LONGEST_ROAD,
+   * and is held by no one if several players tie for it.
+   *
+   * @param lengths longest road of each player, by player index.
+   * @param holder index of the player currently holding the longest road, or -1.
+   * @return index of the player who should hold the longest road, or -1.
+   */
+  public static int longestRoadHolder(int[] lengths, int holder) {
+    int longest = 0;
+    int longestCount = 0;
+    int longestPlayer = -1;
+    for (int p = 0; p < lengths.length; p++) {
+      if (lengths[p] > longest) {
+        longest = lengths[p];
+        longestCount = 1;
+        longestPlayer = p;
+      } else if (lengths[p] == longest) {
+        longestCount++;
+      }
+    }
+    if (longest < MIN_LONGEST_ROAD) {
+      return -1;
+    } else if (holder >= 0 && lengths[holder] == longest) {
+      return holder;
+    }
+    return longestCount == 1 ? longestPlayer : -1;
+  }
+}
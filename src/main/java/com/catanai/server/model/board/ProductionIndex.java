@@ -0,0 +1,162 @@
+package com.catanai.server.model.board;
+
+import com.catanai.server.model.bank.card.ResourceCard;
+import com.catanai.server.model.board.graph.BoardTopology;
+import com.catanai.server.model.board.tile.Tile;
+import com.catanai.server.model.player.PlayerID;
+import java.util.List;
+
+/**
+ * Index from each dice roll to the (tile, node) pairs which produce on it, so producing
+ * resources only visits buildings which are paid out. A pair is listed for every building
+ * next to a tile with the roll's chit, unless the robber is on the tile. The index is updated
+ * as buildings are placed and the robber moves.
+ *
+ * <p>Players are indexed 0-3 (PlayerID value - 1) and resources by ResourceCard value.
+ */
+public final class ProductionIndex {
+  private static final int NUM_ROLLS = 13;
+
+  /** At most 2 tiles have the same chit, each with 6 nodes. */
+  private static final int MAX_PAIRS = 12;
+
+  /** Chit and produced resource (-1 for none) of each tile. */
+  private final int[] tileRoll = new int[BoardTopology.NUM_TILES];
+  private final int[] tileResource = new int[BoardTopology.NUM_TILES];
+  private int robberTile;
+
+  /** Owner (-1 for none) and amount produced by the building on each node. */
+  private final int[] nodeOwner = new int[BoardTopology.NUM_NODES];
+  private final int[] nodeAmount = new int[BoardTopology.NUM_NODES];
+
+  /** Producing (tile, node) pairs of each roll. */
+  private final int[][] pairTiles = new int[NUM_ROLLS][MAX_PAIRS];
+  private final int[][] pairNodes = new int[NUM_ROLLS][MAX_PAIRS];
+  private final int[] pairCounts = new int[NUM_ROLLS];
+
+  /**
+   * Creates the index of a board without buildings.
+   *
+   * @param tiles tiles of the board, in tile index order.
+   * @param robberTile tile the robber starts on.
+   */
+  public ProductionIndex(List<Tile> tiles, int robberTile) {
+    for (int t = 0; t < BoardTopology.NUM_TILES; t++) {
+      Tile tile = tiles.get(t);
+      this.tileRoll[t] = tile.getTerrainChit().getValue();
+      this.tileResource[t] = resourceOf(tile);
+    }
+    this.robberTile = robberTile;
+    for (int n = 0; n < BoardTopology.NUM_NODES; n++) {
+      this.nodeOwner[n] = -1;
+    }
+  }
+
+  /**
+   * Overwrites this index with the state of another index of the same tiles.
+   *
+   * @param other index to copy.
+   */
+  public void copyFrom(ProductionIndex other) {
+    this.robberTile = other.robberTile;
+    System.arraycopy(other.nodeOwner, 0, this.nodeOwner, 0, BoardTopology.NUM_NODES);
+    System.arraycopy(other.nodeAmount, 0, this.nodeAmount, 0, BoardTopology.NUM_NODES);
+    for (int roll = 0; roll < NUM_ROLLS; roll++) {
+      System.arraycopy(other.pairTiles[roll], 0, this.pairTiles[roll], 0, other.pairCounts[roll]);
+      System.arraycopy(other.pairNodes[roll], 0, this.pairNodes[roll], 0, other.pairCounts[roll]);
+    }
+    System.arraycopy(other.pairCounts, 0, this.pairCounts, 0, NUM_ROLLS);
+  }
+
+  //****************************************************************************
+  //********************************* Updates **********************************
+  //****************************************************************************
+
+  /**
+   * Records a settlement or city placed on a node.
+   *
+   * @param node node index 0-53.
+   * @param playerId owner of the building.
+   * @param amount resources the building produces; 1 for a settlement, 2 for a city.
+   */
+  public void buildingPlaced(int node, PlayerID playerId, int amount) {
+    this.nodeOwner[node] = playerId.getValue() - 1;
+    this.nodeAmount[node] = amount;
+    for (int tile : BoardTopology.getNodeTiles(node)) {
+      this.reindex(this.tileRoll[tile]);
+    }
+  }
+
+  /**
+   * Records the robber moving to another tile.
+   *
+   * @param tile tile index 0-18 the robber is now on.
+   */
+  public void robberMoved(int tile) {
+    int previous = this.robberTile;
+    this.robberTile = tile;
+    this.reindex(this.tileRoll[previous]);
+    this.reindex(this.tileRoll[tile]);
+  }
+
+  /**
+   * Rebuilds the pairs of one roll from the tiles with its chit.
+   */
+  private void reindex(int roll) {
+    if (roll < 0 || roll >= NUM_ROLLS) {
+      return;
+    }
+    int count = 0;
+    for (int t = 0; t < BoardTopology.NUM_TILES; t++) {
+      if (this.tileRoll[t] != roll || this.tileResource[t] < 0 || t == this.robberTile) {
+        continue;
+      }
+      for (int node : BoardTopology.getTileNodes(t)) {
+        if (this.nodeOwner[node] >= 0) {
+          this.pairTiles[roll][count] = t;
+          this.pairNodes[roll][count] = node;
+          count++;
+        }
+      }
+    }
+    this.pairCounts[roll] = count;
+  }
+
+  //****************************************************************************
+  //********************************* Queries **********************************
+  //****************************************************************************
+
+  /**
+   * Adds what every player is owed for a dice roll, if the banks had enough for everyone.
+   *
+   * @param roll dice roll 2-12.
+   * @param payouts amounts owed, indexed [player][resource]; added to, not cleared.
+   */
+  public void addPayouts(int roll, int[][] payouts) {
+    if (roll < 0 || roll >= NUM_ROLLS) {
+      return;
+    }
+    int[] tiles = this.pairTiles[roll];
+    int[] nodes = this.pairNodes[roll];
+    for (int i = 0; i < this.pairCounts[roll]; i++) {
+      payouts[this.nodeOwner[nodes[i]]][this.tileResource[tiles[i]]] += this.nodeAmount[nodes[i]];
+    }
+  }
+
+  private static int resourceOf(Tile tile) {
+    switch (tile.getTerrain()) {
+      case FOREST:
+        return ResourceCard.LUMBER.getValue();
+      case PASTURE:
+        return ResourceCard.WOOL.getValue();
+      case FIELD:
+        return ResourceCard.GRAIN.getValue();
+      case HILL:
+        return ResourceCard.BRICK.getValue();
+      case MOUNTAIN:
+        return ResourceCard.ORE.getValue();
+      default:
+        return -1;
+    }
+  }
+}
@@ -0,0 +1,230 @@
+package com.catanai.server.model.board.graph;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Static adjacency of the Catan board, shared by every game.
+ * Loaded once from node_edge_mapping.txt and node_tile_mapping.txt on the classpath,
+ * and kept as primitive arrays and bitmasks.
+ *
+ * <p>Returned arrays are shared between all callers and must not be modified.
+ * Edge bitmasks are split into a low word (edges 0-63) and a high word (edges 64-71).
+ */
+public final class BoardTopology {
+  public static final int NUM_NODES = 54;
+  public static final int NUM_EDGES = 72;
+  public static final int NUM_TILES = 19;
+  public static final int NUM_PORTS = 9;
+
+  private static final int[][] nodeEdges = new int[NUM_NODES][];
+  private static final int[][] edgeNodes = new int[NUM_EDGES][2];
+  private static final int[][] tileNodes = new int[NUM_TILES][];
+  private static final int[][] nodeTiles = new int[NUM_NODES][];
+  private static final int[][] nodeNodes = new int[NUM_NODES][];
+  private static final int[][] edgeEdges = new int[NUM_EDGES][];
+
+  private static final long[] nodeNeighbourMasks = new long[NUM_NODES];
+  private static final long[] nodeEdgeMasksLow = new long[NUM_NODES];
+  private static final long[] nodeEdgeMasksHigh = new long[NUM_NODES];
+  private static final long[] edgeNeighbourMasksLow = new long[NUM_EDGES];
+  private static final long[] edgeNeighbourMasksHigh = new long[NUM_EDGES];
+
+  /** The two nodes attached to each port. */
+  private static final int[][] portNodes = {
+    {0, 3}, {1, 5}, {11, 16}, {10, 15}, {33, 38}, {26, 32}, {47, 51}, {42, 46}, {49, 52}
+  };
+
+  static {
+    loadNodeEdgeMapping();
+    loadNodeTileMapping();
+    computeNeighbours();
+  }
+
+  private BoardTopology() {}
+
+  //****************************************************************************
+  //********************************* Loading **********************************
+  //****************************************************************************
+
+  private static void loadNodeEdgeMapping() {
+    int[] edgeNodeCount = new int[NUM_EDGES];
+    for (int[] mapping : readMapping("node_edge_mapping.txt")) {
+      int nodeId = mapping[0];
+      int[] edges = new int[mapping.length - 1];
+      for (int i = 1; i < mapping.length; i++) {
+        edges[i - 1] = mapping[i];
+        edgeNodes[mapping[i]][edgeNodeCount[mapping[i]]++] = nodeId;
+      }
+      nodeEdges[nodeId] = edges;
+    }
+  }
+
+  private static void loadNodeTileMapping() {
+    List<List<Integer>> tilesOfNodes = new ArrayList<>(NUM_NODES);
+    for (int i = 0; i < NUM_NODES; i++) {
+      tilesOfNodes.add(new ArrayList<>());
+    }
+    for (int[] mapping : readMapping("node_tile_mapping.txt")) {
+      int tileId = mapping[0];
+      int[] nodes = new int[mapping.length - 1];
+      for (int i = 1; i < mapping.length; i++) {
+        nodes[i - 1] = mapping[i];
+        tilesOfNodes.get(mapping[i]).add(tileId);
+      }
+      tileNodes[tileId] = nodes;
+    }
+    for (int i = 0; i < NUM_NODES; i++) {
+      nodeTiles[i] = tilesOfNodes.get(i).stream().mapToInt(Integer::intValue).toArray();
+    }
+  }
+
+  private static void computeNeighbours() {
+    for (int n = 0; n < NUM_NODES; n++) {
+      nodeNodes[n] = new int[nodeEdges[n].length];
+      for (int i = 0; i < nodeEdges[n].length; i++) {
+        int e = nodeEdges[n][i];
+        int other = edgeNodes[e][0] == n ? edgeNodes[e][1] : edgeNodes[e][0];
+        nodeNodes[n][i] = other;
+        nodeNeighbourMasks[n] |= 1L << other;
+        if (e < 64) {
+          nodeEdgeMasksLow[n] |= 1L << e;
+        } else {
+          nodeEdgeMasksHigh[n] |= 1L << (e - 64);
+        }
+      }
+    }
+    for (int e = 0; e < NUM_EDGES; e++) {
+      List<Integer> neighbours = new ArrayList<>();
+      for (int n : edgeNodes[e]) {
+        for (int other : nodeEdges[n]) {
+          if (other != e) {
+            neighbours.add(other);
+            if (other < 64) {
+              edgeNeighbourMasksLow[e] |= 1L << other;
+            } else {
+              edgeNeighbourMasksHigh[e] |= 1L << (other - 64);
+            }
+          }
+        }
+      }
+      edgeEdges[e] = neighbours.stream().mapToInt(Integer::intValue).toArray();
+    }
+  }
+
+  /**
+   * Reads a "id: id, id, ..." mapping file from the classpath into zero-indexed rows.
+   *
+   * @param fileName mapping file to read
+   * @return one row per line, the key followed by the mapped ids
+   */
+  private static List<int[]> readMapping(String fileName) {
+    List<int[]> rows = new ArrayList<>();
+    for (String line : readMappingFile(fileName)) {
+      String[] splitLine = line.split(":");
+      String[] ids = splitLine[1].split(",");
+      int[] row = new int[ids.length + 1];
+      row[0] = Integer.parseInt(splitLine[0].strip()) - 1;
+      for (int i = 0; i < ids.length; i++) {
+        row[i + 1] = Integer.parseInt(ids[i].strip()) - 1;
+      }
+      rows.add(row);
+    }
+    return rows;
+  }
+
+  /**
+   * Reads the lines of a mapping file from the classpath.
+   *
+   * @param fileName mapping file to read, e.g. node_edge_mapping.txt
+   * @return non-empty lines of the file
+   */
+  public static List<String> readMappingFile(String fileName) {
+    InputStream stream = BoardTopology.class.getResourceAsStream("/" + fileName);
+    if (stream == null) {
+      throw new IllegalStateException("Could not find mapping file " + fileName + " on the classpath.");
+    }
+    List<String> lines = new ArrayList<>();
+    try (BufferedReader reader = new BufferedReader(new InputStreamReader(stream, StandardCharsets.UTF_8))) {
+      String line;
+      while ((line = reader.readLine()) != null) {
+        if (!line.isBlank()) {
+          lines.add(line);
+        }
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    return lines;
+  }
+
+  //****************************************************************************
+  //********************************* Getters **********************************
+  //****************************************************************************
+
+  public static int[] getNodeEdges(int node) {
+    return nodeEdges[node];
+  }
+
+  public static int[] getEdgeNodes(int edge) {
+    return edgeNodes[edge];
+  }
+
+  public static int[] getTileNodes(int tile) {
+    return tileNodes[tile];
+  }
+
+  public static int[] getNodeTiles(int node) {
+    return nodeTiles[node];
+  }
+
+  /**
+   * Returns the nodes one edge away from a node.
+   *
+   * @param node node index 0-53.
+   * @return neighbouring nodes.
+   */
+  public static int[] getNodeNeighbours(int node) {
+    return nodeNodes[node];
+  }
+
+  /**
+   * Returns the edges sharing a node with an edge, excluding the edge itself.
+   *
+   * @param edge edge index 0-71.
+   * @return neighbouring edges.
+   */
+  public static int[] getEdgeNeighbours(int edge) {
+    return edgeEdges[edge];
+  }
+
+  public static int[] getPortNodes(int port) {
+    return portNodes[port];
+  }
+
+  public static long getNodeNeighbourMask(int node) {
+    return nodeNeighbourMasks[node];
+  }
+
+  public static long getNodeEdgeMaskLow(int node) {
+    return nodeEdgeMasksLow[node];
+  }
+
+  public static long getNodeEdgeMaskHigh(int node) {
+    return nodeEdgeMasksHigh[node];
+  }
+
+  public static long getEdgeNeighbourMaskLow(int edge) {
+    return edgeNeighbourMasksLow[edge];
+  }
+
+  public static long getEdgeNeighbourMaskHigh(int edge) {
+    return edgeNeighbourMasksHigh[edge];
+  }
+}
@@ -24,6 +24,25 @@ public final class Edge {
     this.nodes = new ArrayList<Node>();
     this.road = null;
   }
+
+  /**
+   * Copies the index and road of an edge. The copy is not linked to any nodes; see NodeMapper.
+   *
+   * @param other edge to copy.
+   */
+  public Edge(Edge other) {
+    this(other.index);
+    this.copyStateFrom(other);
+  }
+
+  /**
+   * Overwrites the road of this edge with that of another edge, even if this edge has a road.
+   *
+   * @param other edge to copy.
+   */
+  public void copyStateFrom(Edge other) {
+    this.road = other.road;
+  }
   
   //****************************************************************************
   //*************************** Getters and setters ****************************
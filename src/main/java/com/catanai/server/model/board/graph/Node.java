@@ -30,6 +30,28 @@ public final class Node {
     this.port = Port.NO_PORT;
     this.blocked = false;
   }
+
+  /**
+   * Copies the index, building, port and robber state of a node. The copy is not linked
+   * to any edges or tiles; see NodeMapper.
+   *
+   * @param other node to copy.
+   */
+  public Node(Node other) {
+    this(other.index);
+    this.port = other.port;
+    this.copyStateFrom(other);
+  }
+
+  /**
+   * Overwrites the building and robber state of this node with those of another node.
+   *
+   * @param other node to copy.
+   */
+  public void copyStateFrom(Node other) {
+    this.building = other.building;
+    this.blocked = other.blocked;
+  }
   
   //****************************************************************************
   //*************************** Getters and setters ****************************
@@ -25,6 +25,29 @@ public final class Tile {
     this.blocked = terrain == Terrain.DESERT;
     this.nodes = new ArrayList<Node>();
   }
+
+  /**
+   * Copies the terrain, chit and robber state of a tile. The copy is not linked to any
+   * nodes; see NodeMapper.
+   *
+   * @param other tile to copy.
+   */
+  public Tile(Tile other) {
+    this.terrain = other.terrain;
+    this.terrainChit = other.terrainChit;
+    this.nodes = new ArrayList<Node>();
+    this.copyStateFrom(other);
+  }
+
+  /**
+   * Overwrites the robber state of this tile with that of another tile. The nodes of this
+   * tile are not changed; they copy their own state.
+   *
+   * @param other tile to copy.
+   */
+  public void copyStateFrom(Tile other) {
+    this.blocked = other.blocked;
+  }
   
   //****************************************************************************
   //*************************** Getters and setters ****************************
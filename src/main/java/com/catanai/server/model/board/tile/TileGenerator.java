@@ -3,13 +3,24 @@ package com.catanai.server.model.board.tile;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
-import java.util.Random;
+import java.util.SplittableRandom;
 
 /**
 * Generates a randomized set of tiles for a catan game.
 */
 public final class TileGenerator {
   private static final int numTiles = 19;
+
+  private final SplittableRandom random;
+
+  /**
+   * Creates a tile generator.
+   *
+   * @param random generator deciding the layout of the tiles.
+   */
+  public TileGenerator(SplittableRandom random) {
+    this.random = random;
+  }
   
   /**
   * Get a list of randomized tiles (terrain and chit values).
@@ -25,8 +36,7 @@ public final class TileGenerator {
       "Terrains does not match terrains chit size. Cannot instantiate.";
     
     // 50% chance to reverse the direction of the terrain.
-    Random rand = new Random();
-    boolean reversed = rand.nextInt(2) == 1;
+    boolean reversed = this.random.nextInt(2) == 1;
     
     // Reverse direction of terrain if needed.
     if (reversed) {
@@ -67,8 +77,7 @@ public final class TileGenerator {
     List<TerrainChit> innerEdge = terrainChits.subList(12, 18);
     
     // Get a random rotation, between 0-5
-    Random rand = new Random();
-    int rotation = rand.nextInt(6);
+    int rotation = this.random.nextInt(6);
     
     // Rotate according to the random rotation.
     Collections.rotate(outerEdge, rotation * 2);
@@ -128,7 +137,9 @@ public final class TileGenerator {
     terrains.add(Terrain.DESERT);
     
     // Shuffle the terrains
-    Collections.shuffle(terrains);
+    for (int i = terrains.size() - 1; i > 0; i--) {
+      Collections.swap(terrains, i, this.random.nextInt(i + 1));
+    }
     
     return terrains;
   }
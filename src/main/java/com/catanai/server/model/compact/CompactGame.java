@@ -0,0 +1,1337 @@
+package com.catanai.server.model.compact;
+
+import static com.catanai.server.model.board.graph.BoardTopology.NUM_EDGES;
+import static com.catanai.server.model.board.graph.BoardTopology.NUM_NODES;
+import static com.catanai.server.model.board.graph.BoardTopology.NUM_TILES;
+import static com.catanai.server.model.board.graph.BoardTopology.getEdgeNeighbourMaskHigh;
+import static com.catanai.server.model.board.graph.BoardTopology.getEdgeNeighbourMaskLow;
+import static com.catanai.server.model.board.graph.BoardTopology.getEdgeNodes;
+import static com.catanai.server.model.board.graph.BoardTopology.getNodeEdgeMaskHigh;
+import static com.catanai.server.model.board.graph.BoardTopology.getNodeEdgeMaskLow;
+import static com.catanai.server.model.board.graph.BoardTopology.getNodeNeighbourMask;
+import static com.catanai.server.model.board.graph.BoardTopology.getNodeTiles;
+import static com.catanai.server.model.board.graph.BoardTopology.getTileNodes;
+
+import com.catanai.server.model.Game;
+import com.catanai.server.model.action.Action;
+import com.catanai.server.model.action.ActionState;
+import com.catanai.server.model.action.ActionStateMachine;
+import com.catanai.server.model.action.TradeOffer;
+import com.catanai.server.model.bank.card.DevelopmentCard;
+import com.catanai.server.model.bank.card.ResourceCard;
+import com.catanai.server.model.board.LongestRoadCalculator;
+import com.catanai.server.model.board.building.Building;
+import com.catanai.server.model.board.building.Settlement;
+import com.catanai.server.model.board.graph.Edge;
+import com.catanai.server.model.board.graph.Node;
+import com.catanai.server.model.board.tile.Tile;
+import com.catanai.server.model.player.Player;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+/**
+* Compact game engine storing a full game of Catan in primitive arrays and bitmasks.
+* Applies the same rules as the SpecificActionExecutor implementations and the
+* ActionStateMachine, without allocating while stepping. A compact game is created
+* from a Game, which acts as the reference engine, and reports its state in the same
+* layout as GameState.
+*
+* <p>Conversion only goes one way: there is no CompactGame to Game conversion, since a Game
+* cannot be rebuilt from a gamestate. To check the compact engine against the reference, step
+* a Game and a CompactGame made from it with the same actions and compare toMap() with the
+* Game's GameState.
+*
+* <p>Players are indexed 0-3 (PlayerID value - 1), resources by ResourceCard value and
+* development cards by DevelopmentCard value.
+*/
+public final class CompactGame {
+  private static final int NUM_PLAYERS = 4;
+  private static final int NUM_RESOURCES = 5;
+  private static final int NUM_DEVELOPMENT_TYPES = 5;
+  private static final int MAX_TRADE_OFFERS = 16;
+
+  /** Nodes on which each of the 9 ports is reported in a gamestate. */
+  private static final int[] PORT_NODES = {0, 1, 10, 11, 26, 33, 42, 47, 49};
+
+  /** Resource produced by each terrain value (-1 for desert). */
+  private static final int[] TERRAIN_RESOURCE = {-1, 2, 0, 1, 4, 3};
+
+  private static final int WOOL = ResourceCard.WOOL.getValue();
+  private static final int GRAIN = ResourceCard.GRAIN.getValue();
+  private static final int LUMBER = ResourceCard.LUMBER.getValue();
+  private static final int ORE = ResourceCard.ORE.getValue();
+  private static final int BRICK = ResourceCard.BRICK.getValue();
+
+  private static final int KNIGHT = DevelopmentCard.KNIGHT.getValue();
+  private static final int ROAD_BUILDING = DevelopmentCard.ROAD_BUILDING.getValue();
+  private static final int YEAR_OF_PLENTY = DevelopmentCard.YEAR_OF_PLENTY.getValue();
+  private static final int MONOPOLY = DevelopmentCard.MONOPOLY.getValue();
+
+  private SplittableRandom random;
+
+  //****************************************************************************
+  //********************************** Board ***********************************
+  //****************************************************************************
+
+  private final int[] tileTerrain = new int[NUM_TILES];
+  private final int[] tileChit = new int[NUM_TILES];
+  private int robberTile;
+  private final int[] nodePort = new int[NUM_NODES];
+
+  private final long[] settlements = new long[NUM_PLAYERS];
+  private final long[] cities = new long[NUM_PLAYERS];
+  private final long[] roadsLow = new long[NUM_PLAYERS];
+  private final long[] roadsHigh = new long[NUM_PLAYERS];
+
+  //****************************************************************************
+  //********************************** Banks ***********************************
+  //****************************************************************************
+
+  private final int[] resourceBank = new int[NUM_RESOURCES];
+  /** Amount of each development card left, drawn from uniformly at random. */
+  private final int[] developmentBank = new int[NUM_DEVELOPMENT_TYPES];
+  private int developmentDeckSize;
+
+  //****************************************************************************
+  //********************************* Players **********************************
+  //****************************************************************************
+
+  private final int[][] resources = new int[NUM_PLAYERS][NUM_RESOURCES];
+  private final int[][] knownResources = new int[NUM_PLAYERS][NUM_RESOURCES];
+  private final int[][] developmentCards = new int[NUM_PLAYERS][NUM_DEVELOPMENT_TYPES];
+  private final int[][] developmentCardsDrawnThisTurn = new int[NUM_PLAYERS][NUM_DEVELOPMENT_TYPES];
+
+  private final int[] victoryPoints = new int[NUM_PLAYERS];
+  private final int[] remainingSettlements = new int[NUM_PLAYERS];
+  private final int[] remainingCities = new int[NUM_PLAYERS];
+  private final int[] remainingRoads = new int[NUM_PLAYERS];
+  private final int[] knightsPlayed = new int[NUM_PLAYERS];
+  private final boolean[] largestArmy = new boolean[NUM_PLAYERS];
+  private final boolean[] longestRoad = new boolean[NUM_PLAYERS];
+  private final int[] longestRoadSize = new int[NUM_PLAYERS];
+
+  private final boolean[] playedDevelopmentCardThisTurn = new boolean[NUM_PLAYERS];
+  private final boolean[] rolledDiceThisTurn = new boolean[NUM_PLAYERS];
+  private final boolean[] discardedThisTurn = new boolean[NUM_PLAYERS];
+  private final int[] previousAction = new int[NUM_PLAYERS];
+
+  private final int[] firstSettlement = new int[NUM_PLAYERS];
+  private final int[] secondSettlement = new int[NUM_PLAYERS];
+  private final long[] possibleRoadsLow = new long[NUM_PLAYERS];
+  private final long[] possibleRoadsHigh = new long[NUM_PLAYERS];
+
+  //****************************************************************************
+  //******************************** Turn state ********************************
+  //****************************************************************************
+
+  private ActionState actionState;
+  private int currentPlayer;
+  private int turnPlayer;
+  private int lastDiceRollValue;
+  private int lastAction;
+
+  /** Players who still have to discard; only meaningful while discardQueueActive. */
+  private final int[] discardQueue = new int[NUM_PLAYERS];
+  private int discardQueueHead;
+  private int discardQueueSize;
+  private boolean discardQueueActive;
+
+  /** Players who still have to respond to a trade; only meaningful while tradeQueueActive. */
+  private final int[] tradeQueue = new int[NUM_PLAYERS + 1];
+  private int tradeQueueHead;
+  private int tradeQueueSize;
+  private boolean tradeQueueActive;
+
+  /** Each trade offer is [offering, receiving, offered x5, requested x5]. */
+  private final int[][] tradeOffers = new int[MAX_TRADE_OFFERS][2 + 2 * NUM_RESOURCES];
+  private int numTradeOffers;
+
+  /** Scratch array for production, reused between rolls. */
+  private final int[][] production = new int[NUM_PLAYERS][NUM_RESOURCES];
+  private final int[] productionTotals = new int[NUM_RESOURCES];
+
+  private CompactGame(SplittableRandom random) {
+    this.random = random;
+  }
+
+  /**
+   * Creates a compact copy of the given game, drawing randomness from the game's splitRandom(),
+   * so converting a game does not change its own random events.
+   *
+   * @param game reference game to convert.
+   * @return compact game in the same state as game.
+   */
+  public static CompactGame fromGame(Game game) {
+    return fromGame(game, game.splitRandom());
+  }
+
+  /**
+   * Creates a compact copy of the given game.
+   *
+   * @param game reference game to convert.
+   * @param random generator used for dice rolls, stealing and development card draws.
+   * @return compact game in the same state as game.
+   */
+  public static CompactGame fromGame(Game game, SplittableRandom random) {
+    CompactGame cg = new CompactGame(random);
+    cg.loadBoard(game);
+    cg.loadBanks(game);
+    cg.loadPlayers(game);
+    cg.loadTurnState(game);
+    return cg;
+  }
+
+  /**
+   * Creates an independent copy of this compact game.
+   *
+   * @return copy of this game, with a split random generator.
+   */
+  public CompactGame copy() {
+    CompactGame cg = new CompactGame(this.random.split());
+    cg.copyFrom(this);
+    return cg;
+  }
+
+  /**
+   * Overwrites this game with the state of other, without allocating.
+   * Useful for resetting a game from a template between playouts.
+   *
+   * @param other game to copy the state of.
+   */
+  public void copyFrom(CompactGame other) {
+    System.arraycopy(other.tileTerrain, 0, this.tileTerrain, 0, NUM_TILES);
+    System.arraycopy(other.tileChit, 0, this.tileChit, 0, NUM_TILES);
+    this.robberTile = other.robberTile;
+    System.arraycopy(other.nodePort, 0, this.nodePort, 0, NUM_NODES);
+    System.arraycopy(other.settlements, 0, this.settlements, 0, NUM_PLAYERS);
+    System.arraycopy(other.cities, 0, this.cities, 0, NUM_PLAYERS);
+    System.arraycopy(other.roadsLow, 0, this.roadsLow, 0, NUM_PLAYERS);
+    System.arraycopy(other.roadsHigh, 0, this.roadsHigh, 0, NUM_PLAYERS);
+
+    System.arraycopy(other.resourceBank, 0, this.resourceBank, 0, NUM_RESOURCES);
+    System.arraycopy(other.developmentBank, 0, this.developmentBank, 0, NUM_DEVELOPMENT_TYPES);
+    this.developmentDeckSize = other.developmentDeckSize;
+
+    for (int p = 0; p < NUM_PLAYERS; p++) {
+      System.arraycopy(other.resources[p], 0, this.resources[p], 0, NUM_RESOURCES);
+      System.arraycopy(other.knownResources[p], 0, this.knownResources[p], 0, NUM_RESOURCES);
+      System.arraycopy(other.developmentCards[p], 0, this.developmentCards[p], 0, NUM_DEVELOPMENT_TYPES);
+      System.arraycopy(
+          other.developmentCardsDrawnThisTurn[p], 0, this.developmentCardsDrawnThisTurn[p], 0, NUM_DEVELOPMENT_TYPES
+      );
+    }
+    System.arraycopy(other.victoryPoints, 0, this.victoryPoints, 0, NUM_PLAYERS);
+    System.arraycopy(other.remainingSettlements, 0, this.remainingSettlements, 0, NUM_PLAYERS);
+    System.arraycopy(other.remainingCities, 0, this.remainingCities, 0, NUM_PLAYERS);
+    System.arraycopy(other.remainingRoads, 0, this.remainingRoads, 0, NUM_PLAYERS);
+    System.arraycopy(other.knightsPlayed, 0, this.knightsPlayed, 0, NUM_PLAYERS);
+    System.arraycopy(other.largestArmy, 0, this.largestArmy, 0, NUM_PLAYERS);
+    System.arraycopy(other.longestRoad, 0, this.longestRoad, 0, NUM_PLAYERS);
+    System.arraycopy(other.longestRoadSize, 0, this.longestRoadSize, 0, NUM_PLAYERS);
+    System.arraycopy(other.playedDevelopmentCardThisTurn, 0, this.playedDevelopmentCardThisTurn, 0, NUM_PLAYERS);
+    System.arraycopy(other.rolledDiceThisTurn, 0, this.rolledDiceThisTurn, 0, NUM_PLAYERS);
+    System.arraycopy(other.discardedThisTurn, 0, this.discardedThisTurn, 0, NUM_PLAYERS);
+    System.arraycopy(other.previousAction, 0, this.previousAction, 0, NUM_PLAYERS);
+    System.arraycopy(other.firstSettlement, 0, this.firstSettlement, 0, NUM_PLAYERS);
+    System.arraycopy(other.secondSettlement, 0, this.secondSettlement, 0, NUM_PLAYERS);
+    System.arraycopy(other.possibleRoadsLow, 0, this.possibleRoadsLow, 0, NUM_PLAYERS);
+    System.arraycopy(other.possibleRoadsHigh, 0, this.possibleRoadsHigh, 0, NUM_PLAYERS);
+
+    this.actionState = other.actionState;
+    this.currentPlayer = other.currentPlayer;
+    this.turnPlayer = other.turnPlayer;
+    this.lastDiceRollValue = other.lastDiceRollValue;
+    this.lastAction = other.lastAction;
+    System.arraycopy(other.discardQueue, 0, this.discardQueue, 0, this.discardQueue.length);
+    this.discardQueueHead = other.discardQueueHead;
+    this.discardQueueSize = other.discardQueueSize;
+    this.discardQueueActive = other.discardQueueActive;
+    System.arraycopy(other.tradeQueue, 0, this.tradeQueue, 0, this.tradeQueue.length);
+    this.tradeQueueHead = other.tradeQueueHead;
+    this.tradeQueueSize = other.tradeQueueSize;
+    this.tradeQueueActive = other.tradeQueueActive;
+    for (int i = 0; i < other.numTradeOffers; i++) {
+      System.arraycopy(other.tradeOffers[i], 0, this.tradeOffers[i], 0, this.tradeOffers[i].length);
+    }
+    this.numTradeOffers = other.numTradeOffers;
+  }
+
+  //****************************************************************************
+  //******************************* Conversion *********************************
+  //****************************************************************************
+
+  private void loadBoard(Game game) {
+    List<Tile> tiles = game.getBoard().getTiles();
+    for (int i = 0; i < NUM_TILES; i++) {
+      this.tileTerrain[i] = tiles.get(i).getTerrain().getValue();
+      this.tileChit[i] = tiles.get(i).getTerrainChit().getValue();
+    }
+    this.robberTile = game.getBoard().getTileIndexCurrentlyBlocked();
+
+    List<Node> nodes = game.getBoard().getNodes();
+    for (int n = 0; n < NUM_NODES; n++) {
+      Node node = nodes.get(n);
+      this.nodePort[n] = node.getPort().getValue();
+      if (node.hasBuilding()) {
+        Building building = node.getBuilding();
+        int p = building.getPlayerId().getValue() - 1;
+        if (building instanceof Settlement) {
+          this.settlements[p] |= 1L << n;
+        } else {
+          this.cities[p] |= 1L << n;
+        }
+      }
+    }
+
+    List<Edge> edges = game.getBoard().getEdges();
+    for (int e = 0; e < NUM_EDGES; e++) {
+      if (edges.get(e).hasRoad()) {
+        this.addRoadBit(edges.get(e).getRoad().getPlayerId().getValue() - 1, e);
+      }
+    }
+  }
+
+  private void loadBanks(Game game) {
+    game.getDealer().getResourceBanks().forEach(
+        (card, bank) -> this.resourceBank[card.getValue()] = bank.getCurrentBankSize()
+    );
+    game.getDealer().getDevelopmentBank().copyCountsTo(this.developmentBank);
+    this.developmentDeckSize = game.getDealer().getDevelopmentBank().getCurrentBankSize();
+  }
+
+  private void loadPlayers(Game game) {
+    for (Player player : game.getPlayers()) {
+      int p = player.getID().getValue() - 1;
+      player.getResourceCards().copyTo(this.resources[p]);
+      player.getKnownCards().copyTo(this.knownResources[p]);
+      player.getDevelopmentCards().copyTo(this.developmentCards[p]);
+      player.getDevelopmentCardsDrawnThisTurn().copyTo(this.developmentCardsDrawnThisTurn[p]);
+      this.victoryPoints[p] = player.getVictoryPoints();
+      this.remainingSettlements[p] = player.getRemainingSettlements();
+      this.remainingCities[p] = player.getRemainingCities();
+      this.remainingRoads[p] = player.getRemainingRoads();
+      this.knightsPlayed[p] = player.getNumKnightsPlayed();
+      this.largestArmy[p] = player.hasLargestArmy();
+      this.longestRoad[p] = player.hasLongestRoad();
+      this.longestRoadSize[p] = game.getBoard().getLongestRoads().getLongestRoad(player.getID());
+      this.playedDevelopmentCardThisTurn[p] = player.hasPlayedDevelopmentCardThisTurn();
+      this.rolledDiceThisTurn[p] = player.hasRolledDiceThisTurn();
+      this.discardedThisTurn[p] = player.hasDiscardedThisTurn();
+      this.previousAction[p] = player.getPreviousAction() == null
+          ? 0
+          : player.getPreviousAction().getValue();
+      this.firstSettlement[p] = player.getFirstStartingSettlement() == null
+          ? -1
+          : player.getFirstStartingSettlement().getPlacement();
+      this.secondSettlement[p] = player.getSecondStartingSettlement() == null
+          ? -1
+          : player.getSecondStartingSettlement().getPlacement();
+      for (Edge e : player.getPossibleRoadEdges()) {
+        if (e.getIndex() < 64) {
+          this.possibleRoadsLow[p] |= 1L << e.getIndex();
+        } else {
+          this.possibleRoadsHigh[p] |= 1L << (e.getIndex() - 64);
+        }
+      }
+    }
+  }
+
+  private void loadTurnState(Game game) {
+    ActionStateMachine asm = game.getActionExecutor().getActionStateMachine();
+    this.actionState = asm.getCurrentActionState();
+    this.currentPlayer = game.getCurrentPlayer().getID().getValue() - 1;
+    this.turnPlayer = asm.getTurnPlayer() == null ? -1 : asm.getTurnPlayer().getID().getValue() - 1;
+    this.lastDiceRollValue = game.getLastDiceRollValue();
+    this.lastAction = game.getLastAction();
+
+    List<Player> toDiscard = asm.getPendingDiscards();
+    this.discardQueueActive = toDiscard != null;
+    if (toDiscard != null) {
+      for (Player player : toDiscard) {
+        this.discardQueue[this.discardQueueSize++] = player.getID().getValue() - 1;
+      }
+    }
+    List<Player> toRespond = asm.getPendingTradeResponses();
+    this.tradeQueueActive = toRespond != null;
+    if (toRespond != null) {
+      for (Player player : toRespond) {
+        this.tradeQueue[this.tradeQueueSize++] = player.getID().getValue() - 1;
+      }
+    }
+
+    for (TradeOffer offer : game.getTradeOffers()) {
+      int[] row = this.tradeOffers[this.numTradeOffers++];
+      row[0] = offer.getPlayerOffering().getValue() - 1;
+      row[1] = offer.getPlayerReceiving().getValue() - 1;
+      for (int r = 0; r < NUM_RESOURCES; r++) {
+        row[2 + r] = offer.getResourcesOffered().get(ResourceCard.valueOf(r));
+        row[2 + NUM_RESOURCES + r] = offer.getResourcesRequested().get(ResourceCard.valueOf(r));
+      }
+    }
+  }
+
+  /**
+   * Converts this game to a map with the same keys and layout as GameState.toMap().
+   *
+   * @return map of gamestate.
+   */
+  public Map<String, int[][]> toMap() {
+    Map<String, int[][]> map = new HashMap<>();
+    int[][] tiles = new int[NUM_TILES][];
+    for (int i = 0; i < NUM_TILES; i++) {
+      tiles[i] = new int[] {this.tileTerrain[i], this.tileChit[i]};
+    }
+    map.put("tiles", tiles);
+
+    int[] banks = new int[NUM_RESOURCES + 1];
+    System.arraycopy(this.resourceBank, 0, banks, 0, NUM_RESOURCES);
+    banks[NUM_RESOURCES] = this.developmentDeckSize;
+    map.put("banks", new int[][] {banks});
+
+    int[][] perspective = new int[NUM_PLAYERS][];
+    int[][] full = new int[NUM_PLAYERS][];
+    int[][] devCards = new int[NUM_PLAYERS][];
+    int[][] metadata = new int[NUM_PLAYERS][];
+    for (int p = 0; p < NUM_PLAYERS; p++) {
+      perspective[p] = (p == this.currentPlayer ? this.resources[p] : this.knownResources[p]).clone();
+      full[p] = this.resources[p].clone();
+      devCards[p] = this.developmentCards[p].clone();
+      metadata[p] = new int[] {
+        this.victoryPoints[p],
+        this.largestArmy[p] ? 1 : 0,
+        this.longestRoad[p] ? 1 : 0,
+        this.remainingSettlements[p],
+        this.remainingCities[p],
+        this.remainingRoads[p],
+        this.knightsPlayed[p],
+        sum(this.developmentCards[p])
+      };
+    }
+    map.put("playerPerspectiveResourceCards", perspective);
+    map.put("playerFullResourceCards", full);
+    map.put("playerDevelopmentCards", devCards);
+
+    int[] edges = new int[NUM_EDGES];
+    for (int e = 0; e < NUM_EDGES; e++) {
+      edges[e] = this.getRoadOwner(e) + 1;
+    }
+    map.put("edges", new int[][] {edges});
+
+    int[][] nodes = new int[NUM_NODES][];
+    for (int n = 0; n < NUM_NODES; n++) {
+      int owner = this.getBuildingOwner(n);
+      if (owner < 0) {
+        nodes[n] = new int[] {0, 0};
+      } else {
+        nodes[n] = new int[] {owner + 1, (this.cities[owner] & (1L << n)) != 0 ? 2 : 1};
+      }
+    }
+    map.put("nodes", nodes);
+
+    int[] ports = new int[PORT_NODES.length];
+    for (int i = 0; i < PORT_NODES.length; i++) {
+      ports[i] = this.nodePort[PORT_NODES[i]];
+    }
+    map.put("ports", new int[][] {ports});
+    map.put("playerMetadata", metadata);
+    map.put("lastRoll", new int[][] {{this.lastDiceRollValue}});
+    map.put("currentPlayer", new int[][] {{this.currentPlayer + 1}});
+    map.put("actionID", new int[][] {{this.lastAction}});
+    map.put("finished", new int[][] {{this.actionState == ActionState.FINISHED ? 1 : 0}});
+    map.put("actionState", new int[][] {{this.actionState.getValue()}});
+    return map;
+  }
+
+  //****************************************************************************
+  //*************************** Gameplay Functions *****************************
+  //****************************************************************************
+
+  /**
+   * Attempts the given action as the current player, the same way Game.nextMove
+   * does with the metadata returned by a player.
+   *
+   * @param metadata action followed by its metadata, as sent by a player.
+   * @return whether the action was successful or not.
+   */
+  public boolean doAction(int[] metadata) {
+    Action action = metadata.length == 0 ? null : Action.valueOf(metadata[0]);
+    if (action == null) {
+      return false;
+    }
+    int p = this.currentPlayer;
+    this.lastAction = action.getValue();
+    this.previousAction[p] = action.getValue();
+
+    if (this.execute(action, metadata, p)) {
+      this.nextActionState();
+      return true;
+    }
+    return false;
+  }
+
+  private boolean execute(Action action, int[] md, int p) {
+    ActionState state = this.actionState;
+    switch (action) {
+      case PLAY_ROAD:
+        if (state == ActionState.FIRST_ROAD || state == ActionState.SECOND_ROAD) {
+          return this.startingRoad(arg(md, 1), p);
+        }
+        return state == ActionState.BUSINESS_AS_USUAL && this.regularRoad(arg(md, 1), p);
+      case PLAY_SETTLEMENT:
+        if (state == ActionState.FIRST_SETTLEMENT || state == ActionState.SECOND_SETTLEMENT) {
+          return this.startingSettlement(arg(md, 1), p, state == ActionState.SECOND_SETTLEMENT);
+        }
+        return state == ActionState.BUSINESS_AS_USUAL && this.regularSettlement(arg(md, 1), p);
+      case PLAY_CITY:
+        return state == ActionState.BUSINESS_AS_USUAL && this.buildCity(arg(md, 1), p);
+      case PLAY_KNIGHT:
+        return (state == ActionState.BUSINESS_AS_USUAL || state == ActionState.ROLL_DICE)
+            && this.playKnight(arg(md, 1), arg(md, 2), p);
+      case PLAY_ROAD_BUILDING:
+        return state == ActionState.BUSINESS_AS_USUAL && this.playRoadBuilding(arg(md, 1), arg(md, 2), p);
+      case PLAY_YEAR_OF_PLENTY:
+        return (state == ActionState.BUSINESS_AS_USUAL || state == ActionState.ROLL_DICE)
+            && this.playYearOfPlenty(arg(md, 1), arg(md, 2), p);
+      case PLAY_MONOPOLY:
+        return (state == ActionState.BUSINESS_AS_USUAL || state == ActionState.ROLL_DICE)
+            && this.playMonopoly(arg(md, 1), p);
+      case DRAW_DEVELOPMENT_CARD:
+        return state == ActionState.BUSINESS_AS_USUAL && this.drawDevelopmentCard(p);
+      case OFFER_TRADE:
+        if (state == ActionState.BUSINESS_AS_USUAL) {
+          return this.offerTrade(md, p, false);
+        }
+        return state == ActionState.TRADE && this.offerTrade(md, p, true);
+      case ACCEPT_TRADE:
+      case DECLINE_TRADE:
+        // The accept and decline executors compare a full trade vector against the single
+        // player id in their metadata, so neither can match an offer successfully.
+        return false;
+      case MOVE_ROBBER:
+        return state == ActionState.MOVE_ROBBER && this.moveRobber(arg(md, 1), arg(md, 2), p);
+      case DISCARD:
+        return state == ActionState.DISCARD && this.discard(md, p);
+      case END_TURN:
+        return state == ActionState.BUSINESS_AS_USUAL && this.endTurn(p);
+      case ROLL_DICE:
+        return state == ActionState.ROLL_DICE && this.rollDice(p);
+      default:
+        return false;
+    }
+  }
+
+  /*---------------------------------Buildings--------------------------------*/
+
+  private boolean startingSettlement(int node, int p, boolean second) {
+    if (node < 0 || node >= NUM_NODES || !this.canPlaceSettlement(node, p, true)) {
+      return false;
+    }
+    this.settlements[p] |= 1L << node;
+    if (second) {
+      this.secondSettlement[p] = node;
+      // Give the player one of each resource surrounding their second settlement.
+      for (int tile : getNodeTiles(node)) {
+        int r = TERRAIN_RESOURCE[this.tileTerrain[tile]];
+        if (r >= 0 && this.resourceBank[r] > 0) {
+          this.resourceBank[r]--;
+          this.resources[p][r]++;
+          this.knownResources[p][r]++;
+        }
+      }
+    } else {
+      this.firstSettlement[p] = node;
+    }
+    this.settlementPlaced(node, p, true);
+    return true;
+  }
+
+  private boolean regularSettlement(int node, int p) {
+    int[] hand = this.resources[p];
+    if (hand[WOOL] < 1 || hand[BRICK] < 1 || hand[GRAIN] < 1 || hand[LUMBER] < 1) {
+      return false;
+    } else if (node < 0 || node >= NUM_NODES || !this.canPlaceSettlement(node, p, false)) {
+      return false;
+    } else if (this.remainingSettlements[p] < 1) {
+      return false;
+    }
+    this.settlements[p] |= 1L << node;
+    hand[BRICK]--;
+    hand[WOOL]--;
+    hand[GRAIN]--;
+    hand[LUMBER]--;
+    this.returnToBank(BRICK, 1);
+    this.returnToBank(WOOL, 1);
+    this.returnToBank(GRAIN, 1);
+    this.returnToBank(LUMBER, 1);
+    this.settlementPlaced(node, p, false);
+    return true;
+  }
+
+  /**
+   * Mirrors SettlementExecutor.updatePlayerMetadata: after a starting settlement the player's
+   * possible roads become the edges of the new settlement, otherwise every legal road.
+   */
+  private void settlementPlaced(int node, int p, boolean initialPlacement) {
+    this.remainingSettlements[p]--;
+    this.victoryPoints[p]++;
+    if (initialPlacement) {
+      this.possibleRoadsLow[p] = getNodeEdgeMaskLow(node);
+      this.possibleRoadsHigh[p] = getNodeEdgeMaskHigh(node);
+    } else {
+      this.updatePossibleRoads(p);
+    }
+
+    // The settlement may have broken another player's longest road.
+    for (int other = 0; other < NUM_PLAYERS; other++) {
+      int roadsOnNode = Long.bitCount(getNodeEdgeMaskLow(node) & this.roadsLow[other])
+          + Long.bitCount(getNodeEdgeMaskHigh(node) & this.roadsHigh[other]);
+      if (other != p && roadsOnNode > 1) {
+        this.longestRoadSize[other] = LongestRoadCalculator.longestRoad(
+            this.roadsLow[other], this.roadsHigh[other], this.otherBuildings(other)
+        );
+      }
+    }
+    this.updateLongestRoad();
+  }
+
+  private boolean startingRoad(int edge, int p) {
+    if (edge < 0 || edge >= NUM_EDGES || !this.isPossibleRoad(edge, p) || !this.canPlaceRoad(edge, p)) {
+      return false;
+    }
+    this.addRoadBit(p, edge);
+    this.remainingRoads[p]--;
+    this.updatePossibleRoads(p);
+    this.roadPlaced(edge, p);
+    this.updateLongestRoad();
+    return true;
+  }
+
+  private boolean regularRoad(int edge, int p) {
+    int[] hand = this.resources[p];
+    if (hand[BRICK] < 1 || hand[LUMBER] < 1) {
+      return false;
+    } else if (this.remainingRoads[p] < 1) {
+      return false;
+    } else if (edge < 0 || edge >= NUM_EDGES || !this.isPossibleRoad(edge, p) || !this.canPlaceRoad(edge, p)) {
+      return false;
+    }
+    this.addRoadBit(p, edge);
+    hand[BRICK]--;
+    hand[LUMBER]--;
+    this.returnToBank(BRICK, 1);
+    this.returnToBank(LUMBER, 1);
+    this.remainingRoads[p]--;
+    this.updatePossibleRoads(p);
+    this.roadPlaced(edge, p);
+    this.updateLongestRoad();
+    return true;
+  }
+
+  private boolean buildCity(int node, int p) {
+    int[] hand = this.resources[p];
+    if (hand[ORE] < 3 || hand[GRAIN] < 2) {
+      return false;
+    } else if (node < 0 || node >= NUM_NODES) {
+      return false;
+    } else if (this.remainingCities[p] < 1) {
+      return false;
+    } else if ((this.settlements[p] & (1L << node)) == 0) {
+      return false;
+    }
+    this.settlements[p] &= ~(1L << node);
+    this.cities[p] |= 1L << node;
+    this.remainingCities[p]--;
+    this.remainingSettlements[p]++;
+    this.victoryPoints[p]++;
+    hand[ORE] -= 3;
+    hand[GRAIN] -= 2;
+    this.returnToBank(ORE, 3);
+    this.returnToBank(GRAIN, 2);
+    return true;
+  }
+
+  /**
+   * Mirrors Dealer.returnResource, which ignores cards past a full bank.
+   */
+  private void returnToBank(int r, int amount) {
+    this.resourceBank[r] = Math.min(19, this.resourceBank[r] + amount);
+  }
+
+  /*---------------------------------Dev Cards--------------------------------*/
+
+  private boolean playKnight(int tile, int victim, int p) {
+    if (this.playedDevelopmentCardThisTurn[p] || this.developmentCards[p][KNIGHT] < 1) {
+      return false;
+    } else if (tile < 0 || tile >= NUM_TILES || victim < 0 || victim > 5) {
+      return false;
+    }
+    if (victim == 0 || victim == 5) {
+      // Like KnightExecutor, moving the robber without a victim does not use up the knight.
+      return this.placeRobber(tile);
+    }
+    if (!this.hasBuildingOnTile(victim - 1, tile) || !this.placeRobber(tile)) {
+      return false;
+    }
+    this.steal(victim - 1, p);
+    this.developmentCards[p][KNIGHT]--;
+    this.playedDevelopmentCardThisTurn[p] = true;
+    this.knightsPlayed[p]++;
+    this.updateLargestArmy();
+    return true;
+  }
+
+  private boolean playRoadBuilding(int edge1, int edge2, int p) {
+    if (this.playedDevelopmentCardThisTurn[p] || this.developmentCards[p][ROAD_BUILDING] < 1) {
+      return false;
+    } else if (this.remainingRoads[p] < 2) {
+      return false;
+    } else if (edge1 < 0 || edge1 >= NUM_EDGES || edge2 < 0 || edge2 >= NUM_EDGES) {
+      return false;
+    } else if (edge1 == edge2 || !this.canPlaceRoad(edge1, p) || !this.canPlaceRoad(edge2, p)) {
+      return false;
+    }
+    this.addRoadBit(p, edge1);
+    this.addRoadBit(p, edge2);
+    this.updatePossibleRoads(p);
+    this.roadPlaced(edge1, p);
+    this.roadPlaced(edge2, p);
+    this.updateLongestRoad();
+    this.developmentCards[p][ROAD_BUILDING]--;
+    this.remainingRoads[p] -= 2;
+    this.playedDevelopmentCardThisTurn[p] = true;
+    return true;
+  }
+
+  private boolean playYearOfPlenty(int resource1, int resource2, int p) {
+    if (resource1 < 0 || resource1 >= NUM_RESOURCES || resource2 < 0 || resource2 >= NUM_RESOURCES) {
+      return false;
+    }
+    boolean canDraw = resource1 == resource2
+        ? this.resourceBank[resource1] >= 2
+        : this.resourceBank[resource1] >= 1 && this.resourceBank[resource2] >= 1;
+    if (this.developmentCards[p][YEAR_OF_PLENTY] < 1 || !canDraw || this.playedDevelopmentCardThisTurn[p]) {
+      return false;
+    }
+    this.developmentCards[p][YEAR_OF_PLENTY]--;
+    this.playedDevelopmentCardThisTurn[p] = true;
+    // Mirrors YearOfPlentyExecutor, which draws a single card from the bank for a pair.
+    this.resourceBank[resource1]--;
+    if (resource1 == resource2) {
+      this.resources[p][resource1] += 2;
+      this.knownResources[p][resource1] += 2;
+    } else {
+      this.resourceBank[resource2]--;
+      this.resources[p][resource1]++;
+      this.knownResources[p][resource1]++;
+      this.resources[p][resource2]++;
+      this.knownResources[p][resource2]++;
+    }
+    return true;
+  }
+
+  private boolean playMonopoly(int resource, int p) {
+    if (this.developmentCards[p][MONOPOLY] < 1 || this.playedDevelopmentCardThisTurn[p]) {
+      return false;
+    } else if (resource < 0 || resource >= NUM_RESOURCES) {
+      return false;
+    }
+    for (int other = 0; other < NUM_PLAYERS; other++) {
+      if (other != p) {
+        int amount = this.resources[other][resource];
+        this.resources[other][resource] = 0;
+        this.resources[p][resource] += amount;
+        this.knownResources[p][resource] += amount;
+      }
+    }
+    this.developmentCards[p][MONOPOLY]--;
+    this.playedDevelopmentCardThisTurn[p] = true;
+    return true;
+  }
+
+  private boolean drawDevelopmentCard(int p) {
+    int[] hand = this.resources[p];
+    if (hand[ORE] < 1 || hand[GRAIN] < 1 || hand[WOOL] < 1) {
+      return false;
+    } else if (this.developmentDeckSize < 1) {
+      return false;
+    }
+    hand[ORE]--;
+    hand[GRAIN]--;
+    hand[WOOL]--;
+    this.returnToBank(ORE, 1);
+    this.returnToBank(GRAIN, 1);
+    this.returnToBank(WOOL, 1);
+    int pick = this.random.nextInt(this.developmentDeckSize--);
+    for (int d = 0; d < NUM_DEVELOPMENT_TYPES; d++) {
+      if (pick < this.developmentBank[d]) {
+        this.developmentBank[d]--;
+        this.developmentCardsDrawnThisTurn[p][d]++;
+        return true;
+      }
+      pick -= this.developmentBank[d];
+    }
+    return true;
+  }
+
+  /*----------------------------------Trading---------------------------------*/
+
+  private boolean offerTrade(int[] md, int p, boolean counter) {
+    for (int r = 0; r < NUM_RESOURCES; r++) {
+      if (arg(md, 1 + r) > this.resources[p][r]) {
+        return false;
+      }
+    }
+    if (!counter) {
+      for (int other = 0; other < NUM_PLAYERS; other++) {
+        if (other != p) {
+          this.addTradeOffer(md, p, other);
+        }
+      }
+      return true;
+    }
+
+    int turnPlayerOffering = -1;
+    int offersToPlayer = 0;
+    for (int i = 0; i < this.numTradeOffers; i++) {
+      if (this.tradeOffers[i][1] == p) {
+        turnPlayerOffering = this.tradeOffers[i][0];
+        offersToPlayer++;
+      }
+    }
+    if (offersToPlayer != 1) {
+      throw new RuntimeException("Something went terribly wrong in CompactGame: offerTrade.");
+    }
+    this.addTradeOffer(md, p, turnPlayerOffering);
+    return true;
+  }
+
+  private void addTradeOffer(int[] md, int offering, int receiving) {
+    if (this.numTradeOffers == MAX_TRADE_OFFERS) {
+      throw new IllegalStateException("Too many open trade offers.");
+    }
+    int[] row = this.tradeOffers[this.numTradeOffers++];
+    row[0] = offering;
+    row[1] = receiving;
+    for (int i = 0; i < 2 * NUM_RESOURCES; i++) {
+      row[2 + i] = arg(md, 1 + i);
+    }
+  }
+
+  /*-----------------------------Robber & Discard-----------------------------*/
+
+  private boolean moveRobber(int tile, int victim, int p) {
+    if (tile < 0 || tile >= NUM_TILES || victim < 0 || victim > NUM_PLAYERS) {
+      return false;
+    } else if (victim != 0 && !this.hasBuildingOnTile(victim - 1, tile)) {
+      return false;
+    } else if (!this.placeRobber(tile)) {
+      return false;
+    }
+    if (victim != 0) {
+      this.steal(victim - 1, p);
+    }
+    return true;
+  }
+
+  private boolean discard(int[] md, int p) {
+    int[] hand = this.resources[p];
+    int inHand = sum(hand);
+    if (inHand < 8 || this.discardedThisTurn[p] || this.lastDiceRollValue != 7) {
+      return false;
+    }
+    int attempting = 0;
+    for (int r = 0; r < NUM_RESOURCES; r++) {
+      if (hand[r] < arg(md, 1 + r)) {
+        return false;
+      }
+      attempting += arg(md, 1 + r);
+    }
+    if (attempting != inHand / 2) {
+      return false;
+    }
+    for (int r = 0; r < NUM_RESOURCES; r++) {
+      int amount = arg(md, 1 + r);
+      if (hand[r] - amount >= 0) {
+        hand[r] -= amount;
+      }
+      this.resourceBank[r] = Math.min(19, this.resourceBank[r] + Math.max(amount, 0));
+    }
+    this.discardedThisTurn[p] = true;
+    return true;
+  }
+
+  /*-------------------------------Turn control-------------------------------*/
+
+  private boolean endTurn(int p) {
+    for (int d = 0; d < NUM_DEVELOPMENT_TYPES; d++) {
+      this.developmentCards[p][d] += this.developmentCardsDrawnThisTurn[p][d];
+      this.developmentCardsDrawnThisTurn[p][d] = 0;
+    }
+    this.discardedThisTurn[p] = false;
+    this.playedDevelopmentCardThisTurn[p] = false;
+    this.rolledDiceThisTurn[p] = false;
+    return true;
+  }
+
+  private boolean rollDice(int p) {
+    if (this.rolledDiceThisTurn[p]) {
+      return false;
+    }
+    this.rolledDiceThisTurn[p] = true;
+    // Same dice as Game.rollDice.
+    int dice1Value = this.random.nextInt(1, 7);
+    int dice2Value = this.random.nextInt(1, 7);
+    this.lastDiceRollValue = dice1Value + dice2Value;
+    this.produce(this.lastDiceRollValue);
+    return true;
+  }
+
+  /**
+   * Produces resources for the dice roll with the same rules as Game.produce, accumulating
+   * the payouts in a reusable scratch array.
+   *
+   * @param diceRoll the number of the dice roll
+   */
+  public void produce(int diceRoll) {
+    for (int p = 0; p < NUM_PLAYERS; p++) {
+      for (int r = 0; r < NUM_RESOURCES; r++) {
+        this.production[p][r] = 0;
+      }
+    }
+    for (int r = 0; r < NUM_RESOURCES; r++) {
+      this.productionTotals[r] = 0;
+    }
+
+    for (int t = 0; t < NUM_TILES; t++) {
+      int r = TERRAIN_RESOURCE[this.tileTerrain[t]];
+      if (this.tileChit[t] != diceRoll || r < 0 || t == this.robberTile) {
+        continue;
+      }
+      for (int n : getTileNodes(t)) {
+        for (int p = 0; p < NUM_PLAYERS; p++) {
+          int amount = (this.settlements[p] & (1L << n)) != 0 ? 1 : (this.cities[p] & (1L << n)) != 0 ? 2 : 0;
+          this.production[p][r] += amount;
+          this.productionTotals[r] += amount;
+        }
+      }
+    }
+
+    // A resource the bank cannot cover for everyone is not produced at all,
+    // unless a single player is owed it, who then gets the rest of the bank.
+    for (int r = 0; r < NUM_RESOURCES; r++) {
+      if (this.productionTotals[r] == 0) {
+        continue;
+      }
+      int playersOwed = 0;
+      int lastPlayerOwed = -1;
+      for (int p = 0; p < NUM_PLAYERS; p++) {
+        if (this.production[p][r] > 0) {
+          playersOwed++;
+          lastPlayerOwed = p;
+        }
+      }
+      if (this.resourceBank[r] >= this.productionTotals[r]) {
+        for (int p = 0; p < NUM_PLAYERS; p++) {
+          this.payOut(p, r, this.production[p][r]);
+        }
+      } else if (playersOwed == 1) {
+        this.payOut(lastPlayerOwed, r, this.resourceBank[r]);
+      }
+    }
+  }
+
+  private void payOut(int p, int r, int amount) {
+    this.resourceBank[r] -= amount;
+    this.resources[p][r] += amount;
+    this.knownResources[p][r] += amount;
+  }
+
+  //****************************************************************************
+  //**************************** Action state machine **************************
+  //****************************************************************************
+
+  private void nextActionState() {
+    switch (this.actionState) {
+      case FIRST_SETTLEMENT:
+        this.actionState = ActionState.FIRST_ROAD;
+        break;
+      case FIRST_ROAD:
+        if (countPlaced(this.firstSettlement) >= NUM_PLAYERS) {
+          this.actionState = ActionState.SECOND_SETTLEMENT;
+        } else {
+          this.currentPlayer = (this.currentPlayer + 1) % NUM_PLAYERS;
+          this.actionState = ActionState.FIRST_SETTLEMENT;
+        }
+        break;
+      case SECOND_SETTLEMENT:
+        this.actionState = ActionState.SECOND_ROAD;
+        break;
+      case SECOND_ROAD:
+        if (countPlaced(this.secondSettlement) >= NUM_PLAYERS) {
+          this.actionState = ActionState.ROLL_DICE;
+        } else {
+          this.currentPlayer = this.currentPlayer - 1;
+          this.actionState = ActionState.SECOND_SETTLEMENT;
+        }
+        break;
+      case ROLL_DICE:
+        if (this.lastDiceRollValue != 7) {
+          this.actionState = ActionState.BUSINESS_AS_USUAL;
+        } else {
+          this.actionState = this.fillDiscardQueue() ? ActionState.MOVE_ROBBER : this.nextDiscardState();
+        }
+        break;
+      case DISCARD:
+        this.actionState = this.nextDiscardState();
+        break;
+      case MOVE_ROBBER:
+        this.actionState = ActionState.BUSINESS_AS_USUAL;
+        break;
+      case BUSINESS_AS_USUAL:
+        if (this.victoryPoints[this.currentPlayer] >= 10) {
+          this.actionState = ActionState.FINISHED;
+        } else if (this.previousAction[this.currentPlayer] == Action.END_TURN.getValue()) {
+          this.currentPlayer = (this.currentPlayer + 1) % NUM_PLAYERS;
+          this.actionState = ActionState.ROLL_DICE;
+        } else if (this.previousAction[this.currentPlayer] == Action.OFFER_TRADE.getValue()) {
+          this.actionState = ActionState.TRADE;
+        }
+        break;
+      case TRADE:
+        this.actionState = this.nextTradeState();
+        break;
+      default:
+        throw new RuntimeException("Invalid action state.");
+    }
+  }
+
+  /**
+   * Queues the players who must discard, returning true if nobody has to.
+   */
+  private boolean fillDiscardQueue() {
+    this.discardQueueHead = 0;
+    this.discardQueueSize = 0;
+    for (int p = 0; p < NUM_PLAYERS; p++) {
+      if (sum(this.resources[p]) > 7) {
+        this.discardedThisTurn[p] = false;
+        this.discardQueue[this.discardQueueSize++] = p;
+      }
+    }
+    if (this.discardQueueSize == 0) {
+      this.discardQueueActive = false;
+      this.turnPlayer = -1;
+      return true;
+    }
+    this.discardQueueActive = true;
+    this.turnPlayer = this.currentPlayer;
+    return false;
+  }
+
+  /**
+   * Makes the next player who must discard the current player, or the turn player once all have.
+   */
+  private ActionState nextDiscardState() {
+    if (this.discardQueueHead < this.discardQueueSize) {
+      this.currentPlayer = this.discardQueue[this.discardQueueHead++];
+      return ActionState.DISCARD;
+    }
+    this.currentPlayer = this.turnPlayer;
+    this.discardQueueActive = false;
+    this.turnPlayer = -1;
+    return ActionState.MOVE_ROBBER;
+  }
+
+  private ActionState nextTradeState() {
+    if (!this.tradeQueueActive) {
+      this.tradeQueueActive = true;
+      this.tradeQueueHead = 0;
+      this.tradeQueueSize = 0;
+      for (int p = 0; p < NUM_PLAYERS; p++) {
+        if (p != this.currentPlayer) {
+          this.tradeQueue[this.tradeQueueSize++] = p;
+        }
+      }
+      this.turnPlayer = this.currentPlayer;
+      this.tradeQueue[this.tradeQueueSize++] = this.turnPlayer;
+    }
+    if (this.tradeQueueHead == this.tradeQueueSize) {
+      this.tradeQueueActive = false;
+      this.currentPlayer = this.turnPlayer;
+      return ActionState.BUSINESS_AS_USUAL;
+    }
+    this.currentPlayer = this.tradeQueue[this.tradeQueueHead++];
+    return ActionState.TRADE;
+  }
+
+  //****************************************************************************
+  //*************************** Helper Functions *******************************
+  //****************************************************************************
+
+  private boolean canPlaceSettlement(int node, int p, boolean initialPlacement) {
+    long occupied = this.getOccupiedNodes();
+    if ((occupied & (1L << node)) != 0 || (occupied & getNodeNeighbourMask(node)) != 0) {
+      return false;
+    }
+    if (initialPlacement) {
+      return true;
+    }
+    return (this.roadsLow[p] & getNodeEdgeMaskLow(node)) != 0 || (this.roadsHigh[p] & getNodeEdgeMaskHigh(node)) != 0;
+  }
+
+  private boolean canPlaceRoad(int edge, int p) {
+    if (this.getRoadOwner(edge) >= 0) {
+      return false;
+    }
+    long buildings = this.settlements[p] | this.cities[p];
+    if ((buildings & ((1L << getEdgeNodes(edge)[0]) | (1L << getEdgeNodes(edge)[1]))) != 0) {
+      return true;
+    }
+    return (this.roadsLow[p] & getEdgeNeighbourMaskLow(edge)) != 0
+        || (this.roadsHigh[p] & getEdgeNeighbourMaskHigh(edge)) != 0;
+  }
+
+  /**
+   * Every edge the player can now legally build on becomes a possible road.
+   */
+  private void updatePossibleRoads(int p) {
+    long low = 0;
+    long high = 0;
+    for (int e = 0; e < NUM_EDGES; e++) {
+      if (this.canPlaceRoad(e, p)) {
+        if (e < 64) {
+          low |= 1L << e;
+        } else {
+          high |= 1L << (e - 64);
+        }
+      }
+    }
+    this.possibleRoadsLow[p] = low;
+    this.possibleRoadsHigh[p] = high;
+  }
+
+  private boolean isPossibleRoad(int edge, int p) {
+    return edge < 64
+        ? (this.possibleRoadsLow[p] & (1L << edge)) != 0
+        : (this.possibleRoadsHigh[p] & (1L << (edge - 64))) != 0;
+  }
+
+  private void addRoadBit(int p, int edge) {
+    if (edge < 64) {
+      this.roadsLow[p] |= 1L << edge;
+    } else {
+      this.roadsHigh[p] |= 1L << (edge - 64);
+    }
+  }
+
+  /**
+   * Mirrors LongestRoadCalculator.roadPlaced.
+   */
+  private void roadPlaced(int edge, int p) {
+    int length = LongestRoadCalculator.longestRoadThrough(
+        edge, this.roadsLow[p], this.roadsHigh[p], this.otherBuildings(p)
+    );
+    this.longestRoadSize[p] = Math.max(this.longestRoadSize[p], length);
+  }
+
+  /**
+   * Mirrors Game.updateLongestRoad.
+   */
+  private void updateLongestRoad() {
+    int holder = -1;
+    for (int p = 0; p < NUM_PLAYERS; p++) {
+      if (this.longestRoad[p]) {
+        holder = p;
+      }
+    }
+    int newHolder = LongestRoadCalculator.longestRoadHolder(this.longestRoadSize, holder);
+    if (newHolder == holder) {
+      return;
+    }
+    if (holder >= 0) {
+      this.longestRoad[holder] = false;
+      this.victoryPoints[holder] -= 2;
+    }
+    if (newHolder >= 0) {
+      this.longestRoad[newHolder] = true;
+      this.victoryPoints[newHolder] += 2;
+    }
+  }
+
+  /**
+   * Mirrors Game.updateLargestArmy.
+   */
+  private void updateLargestArmy() {
+    int holder = -1;
+    int most = 0;
+    for (int p = 0; p < NUM_PLAYERS; p++) {
+      if (this.largestArmy[p]) {
+        holder = p;
+      }
+      if (this.knightsPlayed[p] > this.knightsPlayed[most]) {
+        most = p;
+      }
+    }
+    if (most == holder || this.knightsPlayed[most] < Game.MIN_LARGEST_ARMY) {
+      return;
+    } else if (holder >= 0 && this.knightsPlayed[most] <= this.knightsPlayed[holder]) {
+      return;
+    }
+    if (holder >= 0) {
+      this.largestArmy[holder] = false;
+      this.victoryPoints[holder] -= 2;
+    }
+    this.largestArmy[most] = true;
+    this.victoryPoints[most] += 2;
+  }
+
+  private long otherBuildings(int p) {
+    long buildings = 0;
+    for (int other = 0; other < NUM_PLAYERS; other++) {
+      if (other != p) {
+        buildings |= this.settlements[other] | this.cities[other];
+      }
+    }
+    return buildings;
+  }
+
+  private boolean hasBuildingOnTile(int p, int tile) {
+    long buildings = this.settlements[p] | this.cities[p];
+    for (int n : getTileNodes(tile)) {
+      if ((buildings & (1L << n)) != 0) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private boolean placeRobber(int tile) {
+    if (this.robberTile == tile) {
+      return false;
+    }
+    this.robberTile = tile;
+    return true;
+  }
+
+  /**
+   * Moves a random resource type the victim holds into the thief's hand, like
+   * Player.takeRandomCardFromHand (the stolen card is not known to other players).
+   */
+  private void steal(int victim, int thief) {
+    int[] hand = this.resources[victim];
+    int types = 0;
+    for (int r = 0; r < NUM_RESOURCES; r++) {
+      if (hand[r] > 0) {
+        types++;
+      }
+    }
+    if (types == 0) {
+      return;
+    }
+    int pick = this.random.nextInt(types);
+    for (int r = 0; r < NUM_RESOURCES; r++) {
+      if (hand[r] > 0 && pick-- == 0) {
+        hand[r]--;
+        this.resources[thief][r]++;
+        return;
+      }
+    }
+  }
+
+  private long getOccupiedNodes() {
+    long occupied = 0;
+    for (int p = 0; p < NUM_PLAYERS; p++) {
+      occupied |= this.settlements[p] | this.cities[p];
+    }
+    return occupied;
+  }
+
+  private static int arg(int[] metadata, int index) {
+    return index < metadata.length ? metadata[index] : 0;
+  }
+
+  private static int sum(int[] values) {
+    int total = 0;
+    for (int v : values) {
+      total += v;
+    }
+    return total;
+  }
+
+  private static int countPlaced(int[] placements) {
+    int count = 0;
+    for (int placement : placements) {
+      if (placement >= 0) {
+        count++;
+      }
+    }
+    return count;
+  }
+
+  //****************************************************************************
+  //********************************** Getters *********************************
+  //****************************************************************************
+
+  public ActionState getActionState() {
+    return this.actionState;
+  }
+
+  /**
+   * Returns the index (0-3) of the player whose action is expected next.
+   *
+   * @return index of the current player.
+   */
+  public int getCurrentPlayerIndex() {
+    return this.currentPlayer;
+  }
+
+  public int getLastDiceRollValue() {
+    return this.lastDiceRollValue;
+  }
+
+  public int getVictoryPoints(int playerIndex) {
+    return this.victoryPoints[playerIndex];
+  }
+
+  public int getResourceCount(int playerIndex, ResourceCard card) {
+    return this.resources[playerIndex][card.getValue()];
+  }
+
+  public int getRobberTile() {
+    return this.robberTile;
+  }
+
+  /**
+   * Returns the index of the player with a road on the edge, or -1 if it is empty.
+   *
+   * @param edge edge index 0-71.
+   * @return owner index, or -1.
+   */
+  public int getRoadOwner(int edge) {
+    for (int p = 0; p < NUM_PLAYERS; p++) {
+      boolean hasRoad = edge < 64
+          ? (this.roadsLow[p] & (1L << edge)) != 0
+          : (this.roadsHigh[p] & (1L << (edge - 64))) != 0;
+      if (hasRoad) {
+        return p;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Returns the index of the player with a building on the node, or -1 if it is empty.
+   *
+   * @param node node index 0-53.
+   * @return owner index, or -1.
+   */
+  public int getBuildingOwner(int node) {
+    for (int p = 0; p < NUM_PLAYERS; p++) {
+      if (((this.settlements[p] | this.cities[p]) & (1L << node)) != 0) {
+        return p;
+      }
+    }
+    return -1;
+  }
+}
@@ -0,0 +1,220 @@
+package com.catanai.server.model.gamestate;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * Reads a game archive written by GameArchiveWriter. The archive is memory mapped, and any step
+ * of any game is found through the index without reading the other games. Blocks are stored
+ * step-major in chunks which each start with a keyframe, see GameArchiveWriter. An uncompressed
+ * step is rebuilt from the keyframe before it; a compressed game is inflated once and kept
+ * until another game is read.
+ *
+ * <p>A reader is not thread safe; open one per thread.
+ */
+public final class GameArchive implements Closeable {
+  private final FileChannel channel;
+  private final MappedByteBuffer buffer;
+  private final boolean compressed;
+  private final int keyframeInterval;
+
+  /** Index entry of each game, by game id. */
+  private final Map<Long, Integer> entries;
+  private final long[] gameIds;
+  private final int[] offsets;
+  private final int[] lengths;
+  private final int[] steps;
+
+  private final Inflater inflater;
+
+  /** Inflated block of the last compressed game read, or -1 for none. */
+  private int inflatedEntry = -1;
+  private byte[] inflated = new byte[0];
+
+  private GameArchive(FileChannel channel) throws IOException {
+    this.channel = channel;
+    if (channel.size() > GameArchiveWriter.MAX_LENGTH) {
+      throw new IOException("Archive is larger than " + GameArchiveWriter.MAX_LENGTH + " bytes.");
+    }
+    this.buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+    this.buffer.order(ByteOrder.LITTLE_ENDIAN);
+    int footer = this.buffer.capacity() - GameArchiveWriter.FOOTER_LENGTH;
+    if (footer < GameArchiveWriter.HEADER_LENGTH
+        || this.buffer.getInt(0) != GameArchiveWriter.MAGIC
+        || this.buffer.getInt(footer + Long.BYTES + Integer.BYTES) != GameArchiveWriter.MAGIC) {
+      throw new IOException("Not a complete game archive.");
+    }
+    if (this.buffer.getInt(Integer.BYTES) != GameState.FLAT_SIZE) {
+      throw new IOException("Archive holds gamestates of " + this.buffer.getInt(Integer.BYTES) + " values.");
+    }
+    this.keyframeInterval = this.buffer.getInt(2 * Integer.BYTES);
+    this.compressed = (this.buffer.getInt(3 * Integer.BYTES) & GameArchiveWriter.FLAG_COMPRESSED) != 0;
+    this.inflater = this.compressed ? new Inflater() : null;
+
+    int indexOffset = (int) this.buffer.getLong(footer);
+    int count = this.buffer.getInt(footer + Long.BYTES);
+    this.entries = new HashMap<>(count * 2);
+    this.gameIds = new long[count];
+    this.offsets = new int[count];
+    this.lengths = new int[count];
+    this.steps = new int[count];
+    for (int i = 0; i < count; i++) {
+      int entry = indexOffset + i * GameArchiveWriter.INDEX_ENTRY_LENGTH;
+      this.gameIds[i] = this.buffer.getLong(entry);
+      this.offsets[i] = (int) this.buffer.getLong(entry + Long.BYTES);
+      this.lengths[i] = this.buffer.getInt(entry + 2 * Long.BYTES);
+      this.steps[i] = this.buffer.getInt(entry + 2 * Long.BYTES + Integer.BYTES);
+      this.entries.put(this.gameIds[i], i);
+    }
+  }
+
+  /**
+   * Opens an archive for reading.
+   *
+   * @param path file of the archive.
+   * @return the archive.
+   * @throws IOException if the file cannot be read or is not a complete archive.
+   */
+  public static GameArchive open(Path path) throws IOException {
+    FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+    try {
+      return new GameArchive(channel);
+    } catch (IOException | RuntimeException e) {
+      channel.close();
+      throw e;
+    }
+  }
+
+  public int getGameCount() {
+    return this.gameIds.length;
+  }
+
+  /**
+   * Returns the id of a game by its position in the archive, e.g. to iterate over every game.
+   *
+   * @param index position of the game, in the order the games were written.
+   * @return id of the game.
+   */
+  public long getGameId(int index) {
+    return this.gameIds[index];
+  }
+
+  public boolean hasGame(long gameId) {
+    return this.entries.containsKey(gameId);
+  }
+
+  /**
+   * Returns the number of gamestates stored for a game.
+   *
+   * @param gameId id of the game.
+   * @return number of steps of the game.
+   */
+  public int getStepCount(long gameId) {
+    return this.steps[this.entry(gameId)];
+  }
+
+  /**
+   * Rebuilds a gamestate of a game.
+   *
+   * @param gameId id of the game.
+   * @param step index of the gamestate within the game.
+   * @return snapshot of the gamestate.
+   */
+  public GameState getGameState(long gameId, int step) {
+    int[] flat = new int[GameState.FLAT_SIZE];
+    this.readStep(gameId, step, flat);
+    return GameState.fromArray(flat);
+  }
+
+  /**
+   * Reads the values of a gamestate, in the layout of GameState.writeBinary, without allocating.
+   *
+   * @param gameId id of the game.
+   * @param step index of the gamestate within the game.
+   * @param values array of GameState.BINARY_LENGTH values to fill.
+   */
+  public void readStep(long gameId, int step, int[] values) {
+    int entry = this.entry(gameId);
+    if (step < 0 || step >= this.steps[entry]) {
+      throw new IndexOutOfBoundsException("Game " + gameId + " has no step " + step + ".");
+    }
+    ByteBuffer block = this.block(entry);
+    int keyframe = step - step % this.keyframeInterval;
+    int position = block.position() + keyframe * GameState.FLAT_SIZE;
+    for (int i = 0; i < GameState.FLAT_SIZE; i++) {
+      values[i] = block.get(position + i);
+    }
+    for (int s = keyframe + 1; s <= step; s++) {
+      position += GameState.FLAT_SIZE;
+      for (int i = 0; i < GameState.FLAT_SIZE; i++) {
+        values[i] = (byte) (values[i] + block.get(position + i));
+      }
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    if (this.inflater != null) {
+      this.inflater.end();
+    }
+    this.channel.close();
+  }
+
+  private int entry(long gameId) {
+    Integer entry = this.entries.get(gameId);
+    if (entry == null) {
+      throw new IllegalArgumentException("Game " + gameId + " is not in the archive.");
+    }
+    return entry;
+  }
+
+  /**
+   * Returns the values of a game's block, from its position.
+   */
+  private ByteBuffer block(int entry) {
+    if (!this.compressed) {
+      return this.buffer.duplicate().position(this.offsets[entry]);
+    }
+    if (this.inflatedEntry != entry) {
+      this.inflate(entry);
+    }
+    return ByteBuffer.wrap(this.inflated);
+  }
+
+  private void inflate(int entry) {
+    int length = this.steps[entry] * GameState.FLAT_SIZE;
+    if (this.inflated.length < length) {
+      this.inflated = new byte[length];
+    }
+    ByteBuffer stored = this.buffer.duplicate();
+    stored.position(this.offsets[entry]).limit(this.offsets[entry] + this.lengths[entry]);
+    this.inflater.reset();
+    this.inflater.setInput(stored);
+    try {
+      int inflatedLength = 0;
+      while (inflatedLength < length && !this.inflater.finished()) {
+        int read = this.inflater.inflate(this.inflated, inflatedLength, length - inflatedLength);
+        if (read == 0 && (this.inflater.needsInput() || this.inflater.needsDictionary())) {
+          break;
+        }
+        inflatedLength += read;
+      }
+      if (inflatedLength != length) {
+        throw new IllegalStateException("Block of game " + this.gameIds[entry] + " is truncated.");
+      }
+    } catch (DataFormatException e) {
+      throw new IllegalStateException("Block of game " + this.gameIds[entry] + " is corrupt.", e);
+    }
+    this.inflatedEntry = entry;
+  }
+}
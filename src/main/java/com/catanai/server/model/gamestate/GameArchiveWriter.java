@@ -0,0 +1,181 @@
+package com.catanai.server.model.gamestate;
+
+import com.catanai.server.model.Game;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.zip.Deflater;
+
+/**
+ * Writes the gamestates of finished games to a game archive, e.g. for offline datasets and
+ * replays without the database. Read archives back with GameArchive.
+ *
+ * <p>An archive is little-endian. A header (magic, gamestate length, keyframe interval, flags)
+ * is followed by one block per game, then an index of every game (id, block offset, block
+ * length, steps) and a footer (index offset, game count, magic). A block is stored step-major,
+ * not by column: the GameState.FLAT_SIZE int8 values of step 0, then those of step 1, and so
+ * on. The steps form chunks of keyframeInterval steps; the first step of a chunk is a full
+ * gamestate, and each other step holds its difference from the step before, which is mostly
+ * zeros. A step is rebuilt from the start of its chunk. With compression, each block is
+ * deflated on its own, so a game can be read without the rest of the archive.
+ */
+public final class GameArchiveWriter implements Closeable {
+  static final int MAGIC = 0x31414743;
+  static final int HEADER_LENGTH = 4 * Integer.BYTES;
+  static final int INDEX_ENTRY_LENGTH = 2 * Long.BYTES + 2 * Integer.BYTES;
+  static final int FOOTER_LENGTH = Long.BYTES + 2 * Integer.BYTES;
+  static final int FLAG_COMPRESSED = 1;
+
+  /** Archives are mapped into memory whole when read. */
+  static final long MAX_LENGTH = Integer.MAX_VALUE;
+
+  private final FileChannel channel;
+  private final boolean compressed;
+  private final int keyframeInterval;
+  private final Deflater deflater;
+
+  private final List<long[]> index = new ArrayList<>();
+  private final Set<Long> gameIds = new HashSet<>();
+  private long position = HEADER_LENGTH;
+  private byte[] block = new byte[0];
+  private byte[] deflated = new byte[0];
+
+  public GameArchiveWriter(Path path, boolean compressed) throws IOException {
+    this(path, compressed, GameStateHistory.DEFAULT_KEYFRAME_INTERVAL);
+  }
+
+  /**
+   * Creates an archive, replacing any file at path.
+   *
+   * @param path file to write the archive to.
+   * @param compressed whether to deflate each game's block.
+   * @param keyframeInterval steps between two full gamestates in a block.
+   * @throws IOException if the file cannot be created.
+   */
+  public GameArchiveWriter(Path path, boolean compressed, int keyframeInterval) throws IOException {
+    if (keyframeInterval < 1) {
+      throw new IllegalArgumentException("Keyframe interval must be positive.");
+    }
+    this.channel = FileChannel.open(
+        path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING
+    );
+    this.compressed = compressed;
+    this.keyframeInterval = keyframeInterval;
+    this.deflater = compressed ? new Deflater(Deflater.BEST_SPEED) : null;
+    ByteBuffer header = ByteBuffer.allocate(HEADER_LENGTH).order(ByteOrder.LITTLE_ENDIAN);
+    header.putInt(MAGIC).putInt(GameState.FLAT_SIZE).putInt(keyframeInterval).putInt(compressed ? FLAG_COMPRESSED : 0);
+    this.writeFully(header.flip(), 0);
+  }
+
+  /**
+   * Writes every gamestate of a game, from its gamestate history.
+   *
+   * @param gameId id to store the game under.
+   * @param game game to write, usually finished, which has been recording its gamestates.
+   * @throws IOException if the archive cannot be written.
+   */
+  public void writeGame(long gameId, Game game) throws IOException {
+    if (!game.isRecordingGameStates()) {
+      throw new IllegalArgumentException("Game " + gameId + " has not recorded its gamestates.");
+    }
+    this.writeGame(gameId, game.getGameStates());
+  }
+
+  /**
+   * Writes a game's gamestates, in order.
+   *
+   * @param gameId id to store the game under, unique within the archive.
+   * @param gameStates gamestates of the game; every value must fit in an int8.
+   * @throws IOException if the archive cannot be written.
+   */
+  public void writeGame(long gameId, List<GameState> gameStates) throws IOException {
+    if (!this.gameIds.add(gameId)) {
+      throw new IllegalArgumentException("Game " + gameId + " is already in the archive.");
+    }
+    int steps = gameStates.size();
+    int length = steps * GameState.FLAT_SIZE;
+    if (this.block.length < length) {
+      this.block = new byte[length];
+    }
+    int[] previous = new int[GameState.FLAT_SIZE];
+    for (int step = 0; step < steps; step++) {
+      int[] flat = gameStates.get(step).toArray();
+      boolean keyframe = step % this.keyframeInterval == 0;
+      int offset = step * GameState.FLAT_SIZE;
+      for (int i = 0; i < flat.length; i++) {
+        if (flat[i] != (byte) flat[i]) {
+          throw new IllegalArgumentException("Value " + flat[i] + " of step " + step + " does not fit in an int8.");
+        }
+        this.block[offset + i] = (byte) (keyframe ? flat[i] : flat[i] - previous[i]);
+      }
+      previous = flat;
+    }
+
+    ByteBuffer stored = this.compressed ? this.deflate(length) : ByteBuffer.wrap(this.block, 0, length);
+    int storedLength = stored.remaining();
+    if (this.position + storedLength + (long) (this.index.size() + 1) * INDEX_ENTRY_LENGTH + FOOTER_LENGTH
+        > MAX_LENGTH) {
+      throw new IOException("Archive would exceed " + MAX_LENGTH + " bytes; start a new archive.");
+    }
+    this.writeFully(stored, this.position);
+    this.index.add(new long[] {gameId, this.position, storedLength, steps});
+    this.position += storedLength;
+  }
+
+  private ByteBuffer deflate(int length) {
+    int bound = length + length / 1000 + 64;
+    if (this.deflated.length < bound) {
+      this.deflated = new byte[bound];
+    }
+    this.deflater.reset();
+    this.deflater.setInput(this.block, 0, length);
+    this.deflater.finish();
+    int deflatedLength = 0;
+    while (!this.deflater.finished()) {
+      if (deflatedLength == this.deflated.length) {
+        byte[] grown = new byte[this.deflated.length * 2];
+        System.arraycopy(this.deflated, 0, grown, 0, deflatedLength);
+        this.deflated = grown;
+      }
+      deflatedLength += this.deflater.deflate(this.deflated, deflatedLength, this.deflated.length - deflatedLength);
+    }
+    return ByteBuffer.wrap(this.deflated, 0, deflatedLength);
+  }
+
+  /**
+   * Writes the index and footer, and closes the file.
+   */
+  @Override
+  public void close() throws IOException {
+    try {
+      ByteBuffer tail = ByteBuffer
+          .allocate(this.index.size() * INDEX_ENTRY_LENGTH + FOOTER_LENGTH)
+          .order(ByteOrder.LITTLE_ENDIAN);
+      for (long[] entry : this.index) {
+        tail.putLong(entry[0]).putLong(entry[1]).putInt((int) entry[2]).putInt((int) entry[3]);
+      }
+      tail.putLong(this.position).putInt(this.index.size()).putInt(MAGIC);
+      this.writeFully(tail.flip(), this.position);
+    } finally {
+      if (this.deflater != null) {
+        this.deflater.end();
+      }
+      this.channel.close();
+    }
+  }
+
+  private void writeFully(ByteBuffer buffer, long at) throws IOException {
+    long offset = at;
+    while (buffer.hasRemaining()) {
+      offset += this.channel.write(buffer, offset);
+    }
+  }
+}
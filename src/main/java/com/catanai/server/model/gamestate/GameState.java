@@ -1,8 +1,8 @@
 package com.catanai.server.model.gamestate;
 
 import com.catanai.server.model.Game;
+import com.catanai.server.model.action.ActionState;
 import com.catanai.server.model.bank.ResourceBank;
-import com.catanai.server.model.bank.card.DevelopmentCard;
 import com.catanai.server.model.bank.card.ResourceCard;
 import com.catanai.server.model.board.building.Building;
 import com.catanai.server.model.board.building.Settlement;
@@ -11,22 +11,43 @@ import com.catanai.server.model.board.graph.Node;
 import com.catanai.server.model.board.tile.Port;
 import com.catanai.server.model.board.tile.Tile;
 import com.catanai.server.model.player.Player;
-import java.util.ArrayList;
+import com.catanai.server.model.player.ResourceHand;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 /**
 * Respresents all Catan game data as arrays of integers.
 * The GameState can be used as a sort of "minified" game, where a
 * a game at a given turn could be reconstructed with a single gamestate 
 * from a certain player's perspective.
+* A gamestate created with the constructor is a snapshot: it does not change when the
+* game it was created from does. A live gamestate (see live()) follows its game instead,
+* computing each section on first access and caching it until the game invalidates it.
 */
 // public final class GameState implements RlEnv.Step {
 public final class GameState {
-  /** The game which this gamestate refers to, i.e. current board state. */
-  private Game game;
-  
+  /** Offsets of each section when the gamestate is flattened with toArray(). */
+  private static final int TILES_OFFSET = 0;
+  private static final int BANKS_OFFSET = TILES_OFFSET + 19 * 2;
+  private static final int PERSPECTIVE_CARDS_OFFSET = BANKS_OFFSET + 6;
+  private static final int FULL_CARDS_OFFSET = PERSPECTIVE_CARDS_OFFSET + 4 * 5;
+  private static final int DEVELOPMENT_CARDS_OFFSET = FULL_CARDS_OFFSET + 4 * 5;
+  private static final int EDGES_OFFSET = DEVELOPMENT_CARDS_OFFSET + 4 * 5;
+  private static final int NODES_OFFSET = EDGES_OFFSET + 72;
+  private static final int PORTS_OFFSET = NODES_OFFSET + 54 * 2;
+  private static final int PLAYER_METADATA_OFFSET = PORTS_OFFSET + 9;
+  private static final int SCALARS_OFFSET = PLAYER_METADATA_OFFSET + 4 * 8;
+  /** Amount of ints in a flattened gamestate. */
+  static final int FLAT_SIZE = SCALARS_OFFSET + 5;
+  /** Amount of int16 values written by writeBinary(). */
+  public static final int BINARY_LENGTH = FLAT_SIZE;
+
   /** Contains information about tile chit and terrain values. */
   private int[][] tiles;
   
@@ -75,6 +96,21 @@ public final class GameState {
 
   /** Contains information on the last action played by the player. */
   private int lastAction;
+
+  /** Contains the ID of the player whose move is next. */
+  private int currentPlayer;
+
+  /** Contains whether the game has finished (1) or not (0). */
+  private int finished;
+
+  /** Contains the value of the action state the game is in. */
+  private int actionState;
+  
+  /** Game backing a live gamestate; null for snapshots. */
+  private final Game game;
+
+  /** Sections of a live gamestate which must be recomputed before they are read. */
+  private final EnumSet<GameStateSection> staleSections;
   
   /**
    * Creates a new gamestate according to @param game.
@@ -82,30 +118,122 @@ public final class GameState {
    * @param game game of catan at a certain point in time.
    */
   public GameState(Game game) {
+    this(null, EnumSet.noneOf(GameStateSection.class));
+    this.populateScalars(game);
+    for (GameStateSection section : GameStateSection.values()) {
+      this.populate(section, game);
+    }
+  }
+
+  /**
+   * Creates a gamestate without computing any section.
+   *
+   * @param game game backing a live gamestate, or null for a snapshot.
+   * @param staleSections sections which have not been computed yet.
+   */
+  private GameState(Game game, EnumSet<GameStateSection> staleSections) {
     this.game = game;
-    this.tiles = new int[19][2];
-    this.banks = new int[6];
-    this.playerPerspectiveResourceCards = new int[4][5];
-    this.playerFullResourceCards = new int[4][5];
-    this.playerDevelopmentCards = new int[4][5];
-    this.edges = new int[72];
-    this.nodes = new int[54][2];
-    this.ports = new int[9];
-    this.playerMetadata = new int[4][8];
+    this.staleSections = staleSections;
+  }
+
+  /**
+   * Creates a live gamestate of the given game. Sections are only computed when they
+   * are read, and are cached until invalidated with invalidate().
+   *
+   * @param game game to observe.
+   * @return live gamestate of game.
+   */
+  public static GameState live(Game game) {
+    return new GameState(game, EnumSet.allOf(GameStateSection.class));
+  }
+
+  /**
+   * Marks sections of a live gamestate as changed in the game, so they are
+   * recomputed on their next access. Has no effect on snapshots.
+   *
+   * @param sections sections which may have changed.
+   */
+  public void invalidate(Set<GameStateSection> sections) {
+    if (this.game != null) {
+      this.staleSections.addAll(sections);
+    }
+  }
+
+  /**
+   * Returns whether a section of a live gamestate has yet to be recomputed.
+   */
+  boolean isStale(GameStateSection section) {
+    return this.staleSections.contains(section);
+  }
+
+  /**
+   * Computes a section of a live gamestate if it is stale.
+   *
+   * @param section section about to be read.
+   */
+  private void materialize(GameStateSection section) {
+    if (this.game != null && this.staleSections.remove(section)) {
+      this.populate(section, this.game);
+    }
+  }
+
+  /**
+   * Computes every stale section and the scalar values of a live gamestate.
+   */
+  private void materializeAll() {
+    if (this.game == null) {
+      return;
+    }
+    this.populateScalars(this.game);
+    for (GameStateSection section : GameStateSection.values()) {
+      this.materialize(section);
+    }
+  }
+
+  private void populate(GameStateSection section, Game game) {
+    switch (section) {
+      case TILES:
+        this.populateTiles(game);
+        break;
+      case BANKS:
+        this.populateBanks(game);
+        break;
+      case PLAYER_PERSPECTIVE_RESOURCE_CARDS:
+        this.populatePlayerPerspectiveResourceCards(game);
+        break;
+      case PLAYER_FULL_RESOURCE_CARDS:
+        this.populatePlayerFullResourceCards(game);
+        break;
+      case PLAYER_DEVELOPMENT_CARDS:
+        this.populatePlayerDevelopmentCards(game);
+        break;
+      case EDGES:
+        this.populateEdges(game);
+        break;
+      case NODES:
+        this.populateNodes(game);
+        break;
+      case PORTS:
+        this.populatePorts(game);
+        break;
+      case PLAYER_METADATA:
+        this.populatePlayerMetadata(game);
+        break;
+      default:
+        throw new IllegalArgumentException("Unknown gamestate section " + section + ".");
+    }
+  }
+
+  private void populateScalars(Game game) {
     this.lastDiceRollValue = game.getLastDiceRollValue();
     this.lastAction = game.getLastAction();
-    
-    // Populate all class variables.
-    this.populateTiles();
-    this.populateBanks();
-    this.populatePlayerPerspectiveResourceCards();
-    this.populatePlayerFullResourceCards();
-    this.populatePlayerDevelopmentCards();
-    this.populateEdges();
-    this.populateNodes();
-    this.populatePorts();
-    this.populatePlayerMetadata();
+    this.currentPlayer = game.getCurrentPlayer().getID().getValue();
+    this.finished = game.hasEnded() ? 1 : 0;
+    this.actionState = game.getActionExecutor() == null
+        ? ActionState.FIRST_SETTLEMENT.getValue()
+        : game.getActionExecutor().getActionStateMachine().getCurrentActionState().getValue();
   }
+
   
   /**
   * Populates the tiles variable with the current gamestate's tiles.
@@ -114,7 +242,8 @@ public final class GameState {
   *   -> Tile 0 has terrain 0 and terrain chit 4
   *   -> Tile 1 has terrain 2 and terrain chit 5
   */
-  private void populateTiles() {
+  private void populateTiles(Game game) {
+    this.tiles = new int[19][2];
     List<Tile> tiles = game.getBoard().getTiles();
     for (int i = 0; i < tiles.size(); i++) {
       Tile curTile = tiles.get(i);
@@ -136,8 +265,9 @@ public final class GameState {
   *   -> the brick bank has a size of 1
   *   -> the development bank has a size of 7
   */
-  private void populateBanks() {
-    Map<ResourceCard, ResourceBank> banks = this.game.getDealer().getResourceBanks();
+  private void populateBanks(Game game) {
+    this.banks = new int[6];
+    Map<ResourceCard, ResourceBank> banks = game.getDealer().getResourceBanks();
 
     // Add resource bank sizes.
     for (int i = 0; i < 5; i++) {
@@ -146,7 +276,7 @@ public final class GameState {
       this.banks[i] = curBank.getCurrentBankSize();
     }
     // Add development bank size.
-    int devBankSize = this.game.getDealer().getDevelopmentBank().getCurrentBankSize();
+    int devBankSize = game.getDealer().getDevelopmentBank().getCurrentBankSize();
     this.banks[5] = devBankSize;
   }
   
@@ -163,23 +293,15 @@ public final class GameState {
   *     -> 4 brick
   * etc... until all players cards are populated.
   */
-  private void populatePlayerPerspectiveResourceCards() {
-    for (int i = 0; i < this.game.getPlayers().size(); i++) {
-      Player curPlayer = this.game.getPlayers().get(i);
-      Map<ResourceCard, Integer> numCards = 
-          curPlayer.equals(this.game.getCurrentPlayer()) 
+  private void populatePlayerPerspectiveResourceCards(Game game) {
+    this.playerPerspectiveResourceCards = new int[4][5];
+    for (int i = 0; i < game.getPlayers().size(); i++) {
+      Player curPlayer = game.getPlayers().get(i);
+      ResourceHand numCards =
+          curPlayer.equals(game.getCurrentPlayer())
           ? curPlayer.getResourceCards()
           : curPlayer.getKnownCards();
-      // Add cards to append to playerResourceCards.
-      ArrayList<Integer> toAddToPlayerResourceCards = new ArrayList<Integer>();
-      for (int j = 0; j < 5; j++) {
-        ResourceCard card = ResourceCard.valueOf(j);
-        toAddToPlayerResourceCards.add(numCards.get(card));
-      }
-      playerPerspectiveResourceCards[i] = new int[5];
-      for (int j = 0; j < playerPerspectiveResourceCards[i].length; j++) {
-        playerPerspectiveResourceCards[i][j] = toAddToPlayerResourceCards.get(j);
-      }
+      numCards.copyTo(playerPerspectiveResourceCards[i]);
     }
   }
   
@@ -195,20 +317,11 @@ public final class GameState {
   *     -> 4 brick
   * etc... until all players cards are populated.
   */
-  private void populatePlayerFullResourceCards() {
-    for (int i = 0; i < this.game.getPlayers().size(); i++) {
-      Player curPlayer = this.game.getPlayers().get(i);
-      Map<ResourceCard, Integer> numCards = curPlayer.getResourceCards();
-      // Add cards to append to playerResourceCards.
-      ArrayList<Integer> toAddToPlayerResourceCards = new ArrayList<Integer>();
-      for (int j = 0; j < 5; j++) {
-        ResourceCard card = ResourceCard.valueOf(j);
-        toAddToPlayerResourceCards.add(numCards.get(card));
-      }
-      playerFullResourceCards[i] = new int[5];
-      for (int j = 0; j < playerFullResourceCards[i].length; j++) {
-        playerFullResourceCards[i][j] = toAddToPlayerResourceCards.get(j);
-      }
+  private void populatePlayerFullResourceCards(Game game) {
+    this.playerFullResourceCards = new int[4][5];
+    for (int i = 0; i < game.getPlayers().size(); i++) {
+      Player curPlayer = game.getPlayers().get(i);
+      curPlayer.getResourceCards().copyTo(playerFullResourceCards[i]);
     }
   }
 
@@ -216,23 +329,10 @@ public final class GameState {
    * Populates player's development cards with the amount of each dev card the
    * player has in their hand.
    */
-  private void populatePlayerDevelopmentCards() {
-    for (int i = 0; i < this.game.getPlayers().size(); i++) {
-      Player curPlayer = this.game.getPlayers().get(i);
-      Map<DevelopmentCard, Integer> numCards = new HashMap<>();
-      // Add cards to append to playerResourceCards.
-      List<DevelopmentCard> devCards = curPlayer.getDevelopmentCards();
-      for (int j = 0; j < 5; j++) {
-        DevelopmentCard card = DevelopmentCard.valueOf(j);
-        int numOfThisDevCard = (int) devCards.stream()
-            .filter(devCard -> devCard.getValue() == card.getValue())
-            .count();
-        numCards.put(card, numOfThisDevCard);
-      }
-      playerDevelopmentCards[i] = new int[5];
-      for (int j = 0; j < playerFullResourceCards[i].length; j++) {
-        playerDevelopmentCards[i][j] = numCards.get(DevelopmentCard.valueOf(j));
-      }
+  private void populatePlayerDevelopmentCards(Game game) {
+    this.playerDevelopmentCards = new int[4][5];
+    for (int i = 0; i < game.getPlayers().size(); i++) {
+      game.getPlayers().get(i).getDevelopmentCards().copyTo(playerDevelopmentCards[i]);
     }
   }
   
@@ -248,8 +348,9 @@ public final class GameState {
   *   -> The sixth edge has a road from player 2.
   * etc... for all 72 possible edges on the board.
   */
-  private void populateEdges() {
-    List<Edge> gameEdges = this.game.getBoard().getEdges();
+  private void populateEdges(Game game) {
+    this.edges = new int[72];
+    List<Edge> gameEdges = game.getBoard().getEdges();
     for (int i = 0; i < this.edges.length; i++) {
       if (!gameEdges.get(i).hasRoad()) {
         this.edges[i] = 0;
@@ -269,8 +370,9 @@ public final class GameState {
   *   -> Player 2 has a settlement on the fourth node.
   * etc... for all 54 possible nodes on the board.
   */
-  private void populateNodes() {
-    List<Node> boardNodes = this.game.getBoard().getNodes();
+  private void populateNodes(Game game) {
+    this.nodes = new int[54][2];
+    List<Node> boardNodes = game.getBoard().getNodes();
     for (int i = 0; i < this.nodes.length; i++) {
       if (!boardNodes.get(i).hasBuilding()) {
         this.nodes[i] = new int[] { 0, 0 };
@@ -293,8 +395,9 @@ public final class GameState {
   *   -> Port two (connected to nodes 1, 5) is a grain two-to-one port.
   * etc... for all 9 ports on the board.
   */
-  private void populatePorts() {
-    List<Node> nodes = this.game.getBoard().getNodes();
+  private void populatePorts(Game game) {
+    this.ports = new int[9];
+    List<Node> nodes = game.getBoard().getNodes();
     int[] nodeWithPortIndexes = {
       0, 1, 10, 11, 26, 33, 42, 47, 49
     };
@@ -320,8 +423,9 @@ public final class GameState {
   *     -> Has 0 development cards in hand
   * etc... for all 4 players of the game.
   */
-  private void populatePlayerMetadata() {
-    List<? extends Player> players = this.game.getPlayers();
+  private void populatePlayerMetadata(Game game) {
+    this.playerMetadata = new int[4][8];
+    List<? extends Player> players = game.getPlayers();
     for (int i = 0; i < players.size(); i++) {
       Player curPlayer = players.get(i);
       int[] curPlayerMetadata = new int[8];
@@ -332,7 +436,7 @@ public final class GameState {
       curPlayerMetadata[4] = curPlayer.getRemainingCities();
       curPlayerMetadata[5] = curPlayer.getRemainingRoads();
       curPlayerMetadata[6] = curPlayer.getNumKnightsPlayed();
-      curPlayerMetadata[7] = curPlayer.getDevelopmentCards().size();
+      curPlayerMetadata[7] = curPlayer.getDevelopmentCards().total();
       this.playerMetadata[i] = curPlayerMetadata;
     }
   }
@@ -342,39 +446,58 @@ public final class GameState {
   //****************************************************************************
   
   public int[][] getTiles() {
+    this.materialize(GameStateSection.TILES);
     return this.tiles;
   }
   
   public int[] getBanks() {
+    this.materialize(GameStateSection.BANKS);
     return this.banks;
   }
   
   public int[][] getPlayerPerspectiveResourceCards() {
+    this.materialize(GameStateSection.PLAYER_PERSPECTIVE_RESOURCE_CARDS);
     return this.playerPerspectiveResourceCards;
   }
   
   public int[][] getPlayerFullResourceCards() {
+    this.materialize(GameStateSection.PLAYER_FULL_RESOURCE_CARDS);
     return this.playerFullResourceCards;
   }
   
   public int[] getEdges() {
+    this.materialize(GameStateSection.EDGES);
     return this.edges;
   }
   
   public int[][] getNodes() {
+    this.materialize(GameStateSection.NODES);
     return this.nodes;
   }
   
   public int[] getPorts() {
+    this.materialize(GameStateSection.PORTS);
     return this.ports;
   }
   
   public int[][] getPlayerMetadata() {
+    this.materialize(GameStateSection.PLAYER_METADATA);
     return this.playerMetadata;
   }
   
   public int getLastDiceRollValue() {
-    return this.lastDiceRollValue;
+    return this.game == null ? this.lastDiceRollValue : this.game.getLastDiceRollValue();
+  }
+
+  /**
+   * Returns the game backing a live gamestate, e.g. for players which search the game itself.
+   * It is not part of the gamestate's JSON.
+   *
+   * @return game of a live gamestate; null for a snapshot.
+   */
+  @JsonIgnore
+  public Game getGame() {
+    return this.game;
   }
 
   /**
@@ -383,6 +506,7 @@ public final class GameState {
    * @return map of gamestate.
    */
   public Map<String, int[][]> toMap() {
+    this.materializeAll();
     Map<String, int[][]> map = new HashMap<>();
     map.put("tiles", this.tiles);
     map.put("banks", new int[][] {banks});
@@ -394,14 +518,96 @@ public final class GameState {
     map.put("ports", new int[][] {this.ports});
     map.put("playerMetadata", this.playerMetadata);
     map.put("lastRoll", new int[][] {{this.lastDiceRollValue}});
-    map.put("currentPlayer", new int[][] {{this.game.getCurrentPlayer().getID().getValue()}});
+    map.put("currentPlayer", new int[][] {{this.currentPlayer}});
     map.put("actionID", new int[][] {{this.lastAction}});
-    map.put("finished", new int[][] {{this.game.hasEnded() ? 1 : 0}});
-    map.put(
-        "actionState",
-        new int[][] {{this.game.getActionExecutor().getActionStateMachine().getCurrentActionState().getValue()}}
-    );
+    map.put("finished", new int[][] {{this.finished}});
+    map.put("actionState", new int[][] {{this.actionState}});
     
     return map;
   }
+
+  //****************************************************************************
+  //******************************* Flat layout ********************************
+  //****************************************************************************
+
+  /**
+   * Flattens this gamestate into a single array, section by section in the
+   * order of toMap(), followed by the scalar values.
+   *
+   * @return flattened gamestate of length FLAT_SIZE.
+   */
+  int[] toArray() {
+    this.materializeAll();
+    int[] flat = new int[FLAT_SIZE];
+    flatten(this.tiles, flat, TILES_OFFSET);
+    System.arraycopy(this.banks, 0, flat, BANKS_OFFSET, this.banks.length);
+    flatten(this.playerPerspectiveResourceCards, flat, PERSPECTIVE_CARDS_OFFSET);
+    flatten(this.playerFullResourceCards, flat, FULL_CARDS_OFFSET);
+    flatten(this.playerDevelopmentCards, flat, DEVELOPMENT_CARDS_OFFSET);
+    System.arraycopy(this.edges, 0, flat, EDGES_OFFSET, this.edges.length);
+    flatten(this.nodes, flat, NODES_OFFSET);
+    System.arraycopy(this.ports, 0, flat, PORTS_OFFSET, this.ports.length);
+    flatten(this.playerMetadata, flat, PLAYER_METADATA_OFFSET);
+    flat[SCALARS_OFFSET] = this.lastDiceRollValue;
+    flat[SCALARS_OFFSET + 1] = this.lastAction;
+    flat[SCALARS_OFFSET + 2] = this.currentPlayer;
+    flat[SCALARS_OFFSET + 3] = this.finished;
+    flat[SCALARS_OFFSET + 4] = this.actionState;
+    return flat;
+  }
+
+  /**
+   * Writes this gamestate to a buffer as BINARY_LENGTH int16 values, in the layout of toArray():
+   * tiles (38), banks (6), perspective resource cards (20), full resource cards (20),
+   * development cards (20), edges (72), nodes (108), ports (9), player metadata (32),
+   * then last roll, action id, current player, finished and action state.
+   * Every value in a gamestate fits in an int16.
+   *
+   * @param buffer buffer to write to, in its own byte order.
+   */
+  public void writeBinary(ByteBuffer buffer) {
+    for (int value : this.toArray()) {
+      buffer.putShort((short) value);
+    }
+  }
+
+  /**
+   * Rebuilds a gamestate flattened with toArray().
+   *
+   * @param flat flattened gamestate.
+   * @return the gamestate.
+   */
+  static GameState fromArray(int[] flat) {
+    GameState gameState = new GameState(null, EnumSet.noneOf(GameStateSection.class));
+    gameState.tiles = unflatten(flat, TILES_OFFSET, 19, 2);
+    gameState.banks = Arrays.copyOfRange(flat, BANKS_OFFSET, BANKS_OFFSET + 6);
+    gameState.playerPerspectiveResourceCards = unflatten(flat, PERSPECTIVE_CARDS_OFFSET, 4, 5);
+    gameState.playerFullResourceCards = unflatten(flat, FULL_CARDS_OFFSET, 4, 5);
+    gameState.playerDevelopmentCards = unflatten(flat, DEVELOPMENT_CARDS_OFFSET, 4, 5);
+    gameState.edges = Arrays.copyOfRange(flat, EDGES_OFFSET, EDGES_OFFSET + 72);
+    gameState.nodes = unflatten(flat, NODES_OFFSET, 54, 2);
+    gameState.ports = Arrays.copyOfRange(flat, PORTS_OFFSET, PORTS_OFFSET + 9);
+    gameState.playerMetadata = unflatten(flat, PLAYER_METADATA_OFFSET, 4, 8);
+    gameState.lastDiceRollValue = flat[SCALARS_OFFSET];
+    gameState.lastAction = flat[SCALARS_OFFSET + 1];
+    gameState.currentPlayer = flat[SCALARS_OFFSET + 2];
+    gameState.finished = flat[SCALARS_OFFSET + 3];
+    gameState.actionState = flat[SCALARS_OFFSET + 4];
+    return gameState;
+  }
+
+  private static void flatten(int[][] section, int[] flat, int offset) {
+    for (int[] row : section) {
+      System.arraycopy(row, 0, flat, offset, row.length);
+      offset += row.length;
+    }
+  }
+
+  private static int[][] unflatten(int[] flat, int offset, int rows, int columns) {
+    int[][] section = new int[rows][];
+    for (int i = 0; i < rows; i++) {
+      section[i] = Arrays.copyOfRange(flat, offset + i * columns, offset + (i + 1) * columns);
+    }
+    return section;
+  }
 }
@@ -0,0 +1,144 @@
+package com.catanai.server.model.gamestate;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Stores every gamestate of a game as periodic keyframes plus the cells which
+ * changed between consecutive gamestates. Past gamestates are rebuilt on request,
+ * so a long game keeps a few ints per action alive instead of a full snapshot.
+ */
+public final class GameStateHistory {
+  /** Default number of gamestates between two keyframes. */
+  public static final int DEFAULT_KEYFRAME_INTERVAL = 64;
+
+  private final int keyframeInterval;
+
+  /** Full flattened gamestate every keyframeInterval gamestates. */
+  private final List<int[]> keyframes;
+
+  /**
+   * Changes from the previous gamestate as (index, value) pairs, one entry per
+   * gamestate. Entries for keyframes are empty.
+   */
+  private final List<int[]> deltas;
+
+  /** Flattened most recent gamestate, used to compute the next delta. */
+  private int[] previous;
+
+  /** Reused buffer for computing deltas. */
+  private int[] deltaBuffer;
+
+  public GameStateHistory() {
+    this(DEFAULT_KEYFRAME_INTERVAL);
+  }
+
+  /**
+   * Creates an empty history.
+   *
+   * @param keyframeInterval number of gamestates between two full keyframes.
+   */
+  public GameStateHistory(int keyframeInterval) {
+    if (keyframeInterval < 1) {
+      throw new IllegalArgumentException("Keyframe interval must be positive.");
+    }
+    this.keyframeInterval = keyframeInterval;
+    this.keyframes = new ArrayList<>();
+    this.deltas = new ArrayList<>();
+    this.deltaBuffer = new int[2 * GameState.FLAT_SIZE];
+  }
+
+  /**
+   * Appends a gamestate to the history.
+   *
+   * @param gameState gamestate to append.
+   */
+  public void add(GameState gameState) {
+    int[] flat = gameState.toArray();
+    if (this.deltas.size() % this.keyframeInterval == 0) {
+      this.keyframes.add(flat);
+      this.deltas.add(new int[0]);
+    } else {
+      int size = 0;
+      for (int i = 0; i < flat.length; i++) {
+        if (flat[i] != this.previous[i]) {
+          this.deltaBuffer[size++] = i;
+          this.deltaBuffer[size++] = flat[i];
+        }
+      }
+      this.deltas.add(Arrays.copyOf(this.deltaBuffer, size));
+    }
+    this.previous = flat;
+  }
+
+  /**
+   * Rebuilds the gamestate at the given position in the history.
+   *
+   * @param index position of the gamestate, 0 being the initial gamestate.
+   * @return the gamestate.
+   */
+  public GameState get(int index) {
+    return GameState.fromArray(this.flatten(index));
+  }
+
+  /**
+   * Drops every gamestate after the first size gamestates, such as when actions are undone.
+   *
+   * @param size amount of gamestates to keep; at least 1.
+   */
+  public void truncate(int size) {
+    if (size < 1 || size > this.deltas.size()) {
+      throw new IndexOutOfBoundsException("Size: " + size + ", History size: " + this.deltas.size());
+    }
+    if (size == this.deltas.size()) {
+      return;
+    }
+    this.deltas.subList(size, this.deltas.size()).clear();
+    int keyframes = (size - 1) / this.keyframeInterval + 1;
+    this.keyframes.subList(keyframes, this.keyframes.size()).clear();
+    this.previous = this.flatten(size - 1);
+  }
+
+  /**
+   * Rebuilds the flattened gamestate at the given position in the history.
+   */
+  private int[] flatten(int index) {
+    if (index < 0 || index >= this.deltas.size()) {
+      throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + this.deltas.size());
+    }
+    int keyframe = index / this.keyframeInterval;
+    int[] flat = this.keyframes.get(keyframe).clone();
+    for (int i = keyframe * this.keyframeInterval + 1; i <= index; i++) {
+      int[] delta = this.deltas.get(i);
+      for (int j = 0; j < delta.length; j += 2) {
+        flat[delta[j]] = delta[j + 1];
+      }
+    }
+    return flat;
+  }
+
+  public int size() {
+    return this.deltas.size();
+  }
+
+  /**
+   * Returns a read-only list view of the history which rebuilds gamestates as they are accessed.
+   *
+   * @return list view of the history.
+   */
+  public List<GameState> asList() {
+    return new AbstractList<GameState>() {
+      @Override
+      public GameState get(int index) {
+        return GameStateHistory.this.get(index);
+      }
+
+      @Override
+      public int size() {
+        return GameStateHistory.this.size();
+      }
+    };
+  }
+}
@@ -0,0 +1,65 @@
+package com.catanai.server.model.gamestate;
+
+import com.catanai.server.model.action.Action;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Sections of a gamestate which are computed and cached separately.
+ */
+public enum GameStateSection {
+  TILES,
+  BANKS,
+  PLAYER_PERSPECTIVE_RESOURCE_CARDS,
+  PLAYER_FULL_RESOURCE_CARDS,
+  PLAYER_DEVELOPMENT_CARDS,
+  EDGES,
+  NODES,
+  PORTS,
+  PLAYER_METADATA;
+
+  private static final Map<Action, Set<GameStateSection>> changedByAction = new EnumMap<>(Action.class);
+
+  static {
+    // Hands, banks and player metadata are included wherever an action may touch them,
+    // and the perspective cards change whenever the current player does.
+    Set<GameStateSection> hands = EnumSet.of(
+        PLAYER_PERSPECTIVE_RESOURCE_CARDS, PLAYER_FULL_RESOURCE_CARDS, BANKS
+    );
+    put(Action.PLAY_ROAD, hands, EDGES, PLAYER_METADATA);
+    put(Action.PLAY_SETTLEMENT, hands, NODES, PLAYER_METADATA);
+    put(Action.PLAY_CITY, hands, NODES, PLAYER_METADATA);
+    put(Action.PLAY_KNIGHT, hands, PLAYER_DEVELOPMENT_CARDS, PLAYER_METADATA);
+    put(Action.PLAY_ROAD_BUILDING, hands, EDGES, PLAYER_DEVELOPMENT_CARDS, PLAYER_METADATA);
+    put(Action.PLAY_YEAR_OF_PLENTY, hands, PLAYER_DEVELOPMENT_CARDS, PLAYER_METADATA);
+    put(Action.PLAY_MONOPOLY, hands, PLAYER_DEVELOPMENT_CARDS, PLAYER_METADATA);
+    put(Action.DRAW_DEVELOPMENT_CARD, hands, PLAYER_DEVELOPMENT_CARDS, PLAYER_METADATA);
+    put(Action.OFFER_TRADE, hands);
+    put(Action.ACCEPT_TRADE, hands);
+    put(Action.DECLINE_TRADE, hands);
+    put(Action.MOVE_ROBBER, hands);
+    put(Action.DISCARD, hands);
+    put(Action.END_TURN, hands, PLAYER_DEVELOPMENT_CARDS, PLAYER_METADATA);
+    put(Action.ROLL_DICE, hands);
+  }
+
+  private static void put(Action action, Set<GameStateSection> hands, GameStateSection... others) {
+    EnumSet<GameStateSection> sections = EnumSet.copyOf(hands);
+    Collections.addAll(sections, others);
+    changedByAction.put(action, Collections.unmodifiableSet(sections));
+  }
+
+  /**
+   * Returns the sections of a gamestate which may change when the action succeeds.
+   * Tiles and ports never change during a game.
+   *
+   * @param action action which was performed.
+   * @return sections possibly changed by the action.
+   */
+  public static Set<GameStateSection> changedBy(Action action) {
+    return changedByAction.get(action);
+  }
+}
@@ -0,0 +1,24 @@
+package com.catanai.server.model.player;
+
+import com.catanai.server.model.bank.card.ResourceCard;
+
+/**
+ * Resources paid for each purchasable piece, as vectors indexed by ResourceCard value.
+ */
+public enum BuildCost {
+  ROAD(0, 0, 1, 0, 1),
+  SETTLEMENT(1, 1, 1, 0, 1),
+  CITY(0, 2, 0, 3, 0),
+  DEVELOPMENT_CARD(1, 1, 0, 1, 0);
+
+  /** Amount of each resource, indexed by ResourceCard value. */
+  final int[] amounts;
+
+  BuildCost(int wool, int grain, int lumber, int ore, int brick) {
+    this.amounts = new int[] {wool, grain, lumber, ore, brick};
+  }
+
+  public int getAmount(ResourceCard card) {
+    return this.amounts[card.getValue()];
+  }
+}
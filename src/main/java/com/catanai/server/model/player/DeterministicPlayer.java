@@ -1,5 +1,6 @@
 package com.catanai.server.model.player;
 
+import com.catanai.server.model.action.Action;
 import com.catanai.server.model.action.ActionMetadata;
 import com.catanai.server.model.gamestate.GameState;
 import java.util.Arrays;
@@ -21,8 +22,7 @@ public final class DeterministicPlayer extends Player {
   public int[] play(GameState gameState) {
     // int[] move = this.moveMetadatas.poll();
     int[] move = this.moveMetadatas.remove();
-    ActionMetadata metadata = new ActionMetadata(move);
-    this.previousAction = metadata;
+    this.previousAction = Action.valueOf(move[0]);
     return move;
   }
 
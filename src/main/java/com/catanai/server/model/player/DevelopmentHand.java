@@ -0,0 +1,76 @@
+package com.catanai.server.model.player;
+
+import com.catanai.server.model.bank.card.DevelopmentCard;
+
+/**
+ * Amount of each development card a player holds, kept in a primitive array indexed by
+ * DevelopmentCard value.
+ */
+public final class DevelopmentHand {
+  /** Amount of development card types. */
+  public static final int NUM_DEVELOPMENT_CARDS = 5;
+
+  private final int[] counts = new int[NUM_DEVELOPMENT_CARDS];
+  private int total;
+
+  public boolean has(DevelopmentCard card) {
+    return this.counts[card.getValue()] > 0;
+  }
+
+  public int count(DevelopmentCard card) {
+    return this.counts[card.getValue()];
+  }
+
+  public int total() {
+    return this.total;
+  }
+
+  public void add(DevelopmentCard card) {
+    this.counts[card.getValue()]++;
+    this.total++;
+  }
+
+  /**
+   * Removes one of a development card, if the hand holds it.
+   *
+   * @param card development card to remove.
+   * @return whether the card was removed.
+   */
+  public boolean remove(DevelopmentCard card) {
+    int d = card.getValue();
+    if (this.counts[d] < 1) {
+      return false;
+    }
+    this.counts[d]--;
+    this.total--;
+    return true;
+  }
+
+  /**
+   * Moves every card of another hand into this one, leaving the other hand empty.
+   *
+   * @param other hand to take the cards of.
+   */
+  public void takeAll(DevelopmentHand other) {
+    for (int d = 0; d < NUM_DEVELOPMENT_CARDS; d++) {
+      this.counts[d] += other.counts[d];
+      other.counts[d] = 0;
+    }
+    this.total += other.total;
+    other.total = 0;
+  }
+
+  public void copyFrom(DevelopmentHand other) {
+    System.arraycopy(other.counts, 0, this.counts, 0, NUM_DEVELOPMENT_CARDS);
+    this.total = other.total;
+  }
+
+  /**
+   * Copies the amount of each card into an array, indexed by DevelopmentCard value.
+   *
+   * @param destination array of at least NUM_DEVELOPMENT_CARDS entries.
+   */
+  public void copyTo(int[] destination) {
+    System.arraycopy(this.counts, 0, destination, 0, NUM_DEVELOPMENT_CARDS);
+  }
+}
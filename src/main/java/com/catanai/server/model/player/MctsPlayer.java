@@ -0,0 +1,365 @@
+package com.catanai.server.model.player;
+
+import com.catanai.server.model.Game;
+import com.catanai.server.model.action.Action;
+import com.catanai.server.model.action.LegalActionEnumerator;
+import com.catanai.server.model.gamestate.GameState;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Player choosing each action by Monte Carlo tree search on the game it plays in, found through
+ * the live gamestate passed to play(). Every iteration forks the game, walks the tree with UCB1,
+ * adds one action and then plays random legal actions until the game ends or a limit is hit.
+ *
+ * <p>Dice, stolen cards and development cards make the game random, so the tree is open loop:
+ * a node is the sequence of actions leading to it, and its children are matched against the
+ * actions legal in each iteration's sampled state. A finished game rewards its winner with 1;
+ * otherwise each player is rewarded with their share of the victory points. The search sees
+ * every hand, not just what the player would know.
+ *
+ * <p>With more than one thread the search is root parallel: each thread grows its own tree
+ * from its own fork, and the action whose root child was visited most across all trees wins.
+ */
+public final class MctsPlayer extends Player {
+  public static final int DEFAULT_ITERATIONS = 1000;
+
+  /** Random actions played from a new node before the game is scored. */
+  private static final int MAX_ROLLOUT_ACTIONS = 300;
+
+  /** UCB1 exploration constant, for rewards between 0 and 1. */
+  private static final double EXPLORATION = 0.7;
+
+  private final int iterations;
+  private final long timeLimitMillis;
+  private final int threads;
+  private final SplittableRandom random;
+
+  /**
+   * Creates a single threaded player searching DEFAULT_ITERATIONS iterations per action.
+   *
+   * @param id id of the player.
+   */
+  public MctsPlayer(PlayerID id) {
+    this(id, System.nanoTime());
+  }
+
+  /**
+   * Creates a single threaded player searching DEFAULT_ITERATIONS iterations per action, which
+   * plays the same actions in the same game for the same seed.
+   *
+   * @param id id of the player.
+   * @param seed seed of the random actions and tie breaks.
+   */
+  public MctsPlayer(PlayerID id, long seed) {
+    this(id, DEFAULT_ITERATIONS, 0, 1, seed);
+  }
+
+  /**
+   * Creates a player. The search for an action stops when either limit is reached.
+   *
+   * @param id id of the player.
+   * @param iterations iterations per action over all threads, or 0 for only the time limit.
+   * @param timeLimitMillis time per action in milliseconds, or 0 for only the iteration limit.
+   * @param threads amount of trees searched at the same time.
+   * @param seed seed of the random actions and tie breaks.
+   */
+  public MctsPlayer(PlayerID id, int iterations, long timeLimitMillis, int threads, long seed) {
+    super(id);
+    if (iterations < 0 || timeLimitMillis < 0 || (iterations == 0 && timeLimitMillis == 0)) {
+      throw new IllegalArgumentException("A search needs an iteration or time limit.");
+    }
+    if (threads < 1) {
+      throw new IllegalArgumentException("Threads must be positive.");
+    }
+    this.iterations = iterations;
+    this.timeLimitMillis = timeLimitMillis;
+    this.threads = threads;
+    this.random = new SplittableRandom(seed);
+  }
+
+  @Override
+  public int[] play(GameState gameState) {
+    Game game = gameState.getGame();
+    if (game == null) {
+      throw new IllegalArgumentException("MctsPlayer needs the live gamestate of its game.");
+    }
+    int[] move = this.search(game);
+    this.previousAction = Action.valueOf(move[0]);
+    return move;
+  }
+
+  /**
+   * Searches a game for the current player's action. The game is only forked, never changed.
+   *
+   * @param game game to search.
+   * @return the action visited most, or END_TURN if no action is legal.
+   */
+  int[] search(Game game) {
+    LegalActionEnumerator legalActions = new LegalActionEnumerator();
+    int count = legalActions.enumerate(game);
+    if (count == 0) {
+      return new int[] {Action.END_TURN.getValue()};
+    } else if (count == 1) {
+      return legalActions.get(0).clone();
+    }
+
+    long deadline = this.timeLimitMillis > 0
+        ? System.nanoTime() + this.timeLimitMillis * 1_000_000L
+        : Long.MAX_VALUE;
+    int perThread = this.iterations > 0 ? (this.iterations + this.threads - 1) / this.threads : Integer.MAX_VALUE;
+    List<Search> searches = new ArrayList<>(this.threads);
+    for (int i = 0; i < this.threads; i++) {
+      searches.add(new Search(game.fork(), this.random.split(), perThread, deadline));
+    }
+    this.runAll(searches);
+    return mostVisited(searches);
+  }
+
+  private void runAll(List<Search> searches) {
+    if (searches.size() == 1) {
+      searches.get(0).run();
+      return;
+    }
+    ExecutorService pool = Executors.newFixedThreadPool(searches.size());
+    try {
+      List<Future<?>> futures = new ArrayList<>(searches.size());
+      for (Search search : searches) {
+        futures.add(pool.submit(search::run));
+      }
+      for (Future<?> future : futures) {
+        future.get();
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while searching.", e);
+    } catch (ExecutionException e) {
+      throw new IllegalStateException("Search failed.", e.getCause());
+    } finally {
+      pool.shutdownNow();
+    }
+  }
+
+  /**
+   * Returns the root action with the most visits summed over every tree.
+   */
+  private static int[] mostVisited(List<Search> searches) {
+    Map<Long, TreeNode> merged = new HashMap<>();
+    for (Search search : searches) {
+      for (TreeNode child : search.root.children) {
+        TreeNode total = merged.computeIfAbsent(child.key, key -> new TreeNode(child.move, child.mover));
+        total.visits += child.visits;
+        total.reward += child.reward;
+      }
+    }
+    TreeNode best = null;
+    for (TreeNode child : merged.values()) {
+      if (best == null
+          || child.visits > best.visits
+          || (child.visits == best.visits && child.reward > best.reward)) {
+        best = child;
+      }
+    }
+    return best == null ? new int[] {Action.END_TURN.getValue()} : best.move.clone();
+  }
+
+  //****************************************************************************
+  //*********************************** Search *********************************
+  //****************************************************************************
+
+  /**
+   * One tree, searched by a single thread from its own fork of the game.
+   */
+  private static final class Search {
+    private final Game game;
+    private final SplittableRandom random;
+    private final int iterations;
+    private final long deadline;
+    private final TreeNode root = new TreeNode(null, -1);
+    private final LegalActionEnumerator legalActions = new LegalActionEnumerator();
+    private final List<TreeNode> path = new ArrayList<>();
+    private final double[] rewards = new double[PlayerID.values().length];
+
+    Search(Game game, SplittableRandom random, int iterations, long deadline) {
+      this.game = game;
+      this.random = random;
+      this.iterations = iterations;
+      this.deadline = deadline;
+    }
+
+    void run() {
+      for (int i = 0; i < this.iterations && System.nanoTime() < this.deadline; i++) {
+        this.iterate();
+      }
+    }
+
+    private void iterate() {
+      Game g = this.game.fork();
+      TreeNode node = this.root;
+      this.path.clear();
+      this.path.add(node);
+
+      // Walk down the tree until an action is added to it.
+      while (!g.hasEnded()) {
+        int count = this.legalActions.enumerate(g);
+        if (count == 0) {
+          break;
+        }
+        TreeNode child = node.select(this.legalActions, count, playerIndex(g), this.random);
+        if (!play(g, child.move)) {
+          break;
+        }
+        this.path.add(child);
+        if (child.visits == 0) {
+          break;
+        }
+        node = child;
+      }
+
+      this.rollout(g);
+      this.score(g);
+      for (TreeNode visited : this.path) {
+        visited.visits++;
+        if (visited.mover >= 0) {
+          visited.reward += this.rewards[visited.mover];
+        }
+      }
+    }
+
+    private void rollout(Game g) {
+      for (int i = 0; i < MAX_ROLLOUT_ACTIONS && !g.hasEnded(); i++) {
+        int count = this.legalActions.enumerate(g);
+        if (count == 0 || !play(g, this.legalActions.get(this.random.nextInt(count)))) {
+          return;
+        }
+      }
+    }
+
+    /**
+     * Rewards the winner of a finished game with 1, and otherwise every player with their
+     * share of the victory points.
+     */
+    private void score(Game g) {
+      List<? extends Player> players = g.getPlayers();
+      if (g.hasEnded()) {
+        for (int p = 0; p < this.rewards.length; p++) {
+          this.rewards[p] = 0;
+        }
+        this.rewards[playerIndex(g)] = 1;
+        return;
+      }
+      int total = 0;
+      for (Player p : players) {
+        total += p.getVictoryPoints();
+      }
+      for (int p = 0; p < this.rewards.length; p++) {
+        this.rewards[p] = total == 0
+            ? 1.0 / this.rewards.length
+            : (double) players.get(p).getVictoryPoints() / total;
+      }
+    }
+  }
+
+  /**
+   * Plays an action as the current player of a fork. An engine error ends the simulation
+   * like an illegal action.
+   */
+  private static boolean play(Game g, int[] move) {
+    ((DeterministicPlayer) g.getCurrentPlayer()).addNextMove(move);
+    try {
+      return g.nextMove();
+    } catch (RuntimeException e) {
+      return false;
+    }
+  }
+
+  private static int playerIndex(Game g) {
+    return g.getCurrentPlayer().getID().getValue() - 1;
+  }
+
+  //****************************************************************************
+  //************************************ Tree **********************************
+  //****************************************************************************
+
+  /**
+   * Node reached by an action; visits and rewards are from the view of the player who took it.
+   */
+  private static final class TreeNode {
+    private final int[] move;
+    private final long key;
+    private final int mover;
+    private final List<TreeNode> children = new ArrayList<>();
+    private int visits;
+    private double reward;
+
+    TreeNode(int[] move, int mover) {
+      this.move = move;
+      this.key = move == null ? -1 : keyOf(move);
+      this.mover = mover;
+    }
+
+    /**
+     * Returns a child for one of the listed actions: a new child for an action not in the tree
+     * yet if there is one, otherwise the child with the best UCB1 score.
+     */
+    TreeNode select(LegalActionEnumerator legalActions, int count, int mover, SplittableRandom random) {
+      TreeNode best = null;
+      double bestScore = Double.NEGATIVE_INFINITY;
+      int untried = 0;
+      int untriedIndex = -1;
+      TreeNode untriedChild = null;
+      double logVisits = Math.log(Math.max(1, this.visits));
+      for (int i = 0; i < count; i++) {
+        TreeNode child = this.child(keyOf(legalActions.get(i)));
+        if (child == null || child.visits == 0) {
+          // Pick uniformly among the untried actions while scanning.
+          if (random.nextInt(++untried) == 0) {
+            untriedIndex = i;
+            untriedChild = child;
+          }
+        } else if (untried == 0) {
+          double score = child.reward / child.visits + EXPLORATION * Math.sqrt(logVisits / child.visits);
+          if (score > bestScore) {
+            bestScore = score;
+            best = child;
+          }
+        }
+      }
+      if (untriedChild != null) {
+        return untriedChild;
+      } else if (untriedIndex >= 0) {
+        TreeNode child = new TreeNode(legalActions.get(untriedIndex).clone(), mover);
+        this.children.add(child);
+        return child;
+      }
+      return best;
+    }
+
+    private TreeNode child(long key) {
+      for (TreeNode child : this.children) {
+        if (child.key == key) {
+          return child;
+        }
+      }
+      return null;
+    }
+
+    /**
+     * Packs a move into a long; every entry of a listed move is below 256.
+     */
+    private static long keyOf(int[] move) {
+      long key = 0;
+      for (int i = 0; i < LegalActionEnumerator.MOVE_LENGTH; i++) {
+        key = (key << 8) | move[i];
+      }
+      return key;
+    }
+  }
+}
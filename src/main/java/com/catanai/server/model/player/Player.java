@@ -1,18 +1,17 @@
 package com.catanai.server.model.player;
 
-import com.catanai.server.model.action.ActionMetadata;
+import com.catanai.server.model.action.Action;
 import com.catanai.server.model.bank.card.DevelopmentCard;
 import com.catanai.server.model.bank.card.ResourceCard;
+import com.catanai.server.model.board.Board;
 import com.catanai.server.model.board.building.Road;
 import com.catanai.server.model.board.building.Settlement;
 import com.catanai.server.model.board.graph.Edge;
 import com.catanai.server.model.board.graph.Node;
 import com.catanai.server.model.gamestate.GameState;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
-import java.util.Random;
+import java.util.SplittableRandom;
 import lombok.Getter;
 
 /**
@@ -24,14 +23,14 @@ public abstract class Player {
   protected int victoryPoints;
 
   @Getter
-  protected Map<ResourceCard, Integer> resourceCards;
+  protected ResourceHand resourceCards;
   @Getter
-  protected Map<ResourceCard, Integer> knownCards;
+  protected ResourceHand knownCards;
 
   @Getter
-  protected List<DevelopmentCard> developmentCards;
+  protected DevelopmentHand developmentCards;
   @Getter
-  protected List<DevelopmentCard> developmentCardsDrawnThisTurn;
+  protected DevelopmentHand developmentCardsDrawnThisTurn;
   protected boolean playedDevelopmentCardThisTurn;
 
   @Getter
@@ -62,7 +61,7 @@ public abstract class Player {
   protected boolean hasFinishedTurn;
   protected boolean hasDiscardedThisTurn;
   @Getter
-  protected ActionMetadata previousAction;
+  protected Action previousAction;
 
   @Getter
   protected Settlement firstStartingSettlement;
@@ -76,15 +75,11 @@ public abstract class Player {
     this.id = id;
     this.victoryPoints = 0;
 
-    this.resourceCards = new HashMap<>();
-    this.knownCards = new HashMap<>();
-    for (int i = 0; i < 5; i++) {
-      this.resourceCards.put(ResourceCard.valueOf(i), 0);
-      this.knownCards.put(ResourceCard.valueOf(i), 0);
-    }
+    this.resourceCards = new ResourceHand();
+    this.knownCards = new ResourceHand();
 
-    this.developmentCards = new ArrayList<>();
-    this.developmentCardsDrawnThisTurn = new ArrayList<>();
+    this.developmentCards = new DevelopmentHand();
+    this.developmentCardsDrawnThisTurn = new DevelopmentHand();
     this.playedDevelopmentCardThisTurn = false;
 
     this.remainingSettlements = 5;
@@ -111,6 +106,55 @@ public abstract class Player {
     this.secondStartingSettlement = null;
   }
 
+  /**
+   * Overwrites the game state of this player with that of another player, such as when
+   * forking a game. The possible placements of the other player are looked up by index
+   * on the given board; pieces and actions are shared, since they are never changed.
+   *
+   * @param other player to copy.
+   * @param board board this player plays on.
+   */
+  public void copyStateFrom(Player other, Board board) {
+    this.victoryPoints = other.victoryPoints;
+    this.resourceCards.copyFrom(other.resourceCards);
+    this.knownCards.copyFrom(other.knownCards);
+    this.developmentCards.copyFrom(other.developmentCards);
+    this.developmentCardsDrawnThisTurn.copyFrom(other.developmentCardsDrawnThisTurn);
+    this.playedDevelopmentCardThisTurn = other.playedDevelopmentCardThisTurn;
+
+    this.remainingSettlements = other.remainingSettlements;
+    this.remainingCities = other.remainingCities;
+    this.remainingRoads = other.remainingRoads;
+
+    this.possibleRoadEdges.clear();
+    for (Edge e : other.possibleRoadEdges) {
+      this.possibleRoadEdges.add(board.getEdges().get(e.getIndex()));
+    }
+    this.possibleSettlementNodes.clear();
+    for (Node n : other.possibleSettlementNodes) {
+      this.possibleSettlementNodes.add(board.getNodes().get(n.getIndex()));
+    }
+    this.possibleCityNodes.clear();
+    for (Node n : other.possibleCityNodes) {
+      this.possibleCityNodes.add(board.getNodes().get(n.getIndex()));
+    }
+    this.roads.clear();
+    this.roads.addAll(other.roads);
+
+    this.numKnightsPlayed = other.numKnightsPlayed;
+    this.largestArmy = other.largestArmy;
+    this.longestRoad = other.longestRoad;
+    this.longestRoadSize = other.longestRoadSize;
+
+    this.rolledDiceThisTurn = other.rolledDiceThisTurn;
+    this.hasFinishedTurn = other.hasFinishedTurn;
+    this.hasDiscardedThisTurn = other.hasDiscardedThisTurn;
+    this.previousAction = other.previousAction;
+
+    this.firstStartingSettlement = other.firstStartingSettlement;
+    this.secondStartingSettlement = other.secondStartingSettlement;
+  }
+
   /**
   * Query the player to choose their next action.
   *
@@ -140,53 +184,50 @@ public abstract class Player {
 
   /*---------------------------------Resources--------------------------------*/
   public void addToResourceCards(ResourceCard card) {
-    this.resourceCards.put(card, this.resourceCards.get(card) + 1);
+    this.resourceCards.add(card, 1);
   }
   
   public void addToKnownCards(ResourceCard card) {
     this.addToResourceCards(card);
-    this.knownCards.put(card, this.knownCards.get(card) + 1);
+    this.knownCards.add(card, 1);
   }
   
   public void addAmountToResourceCards(ResourceCard card, int amount) {
-    this.resourceCards.put(card, this.resourceCards.get(card) + amount);
+    this.resourceCards.add(card, amount);
   }
   
   public void addAmountToKnownCards(ResourceCard card, int amount) {
     this.addAmountToResourceCards(card, amount);
-    this.knownCards.put(card, this.knownCards.get(card) + amount);
+    this.knownCards.add(card, amount);
   }
 
   /**
   * Removes a random card from this player's hand.
   *
+  * @param random generator of the game being played.
   * @return a random card removed from this player's hand if available; otherwise null.
   */
-  public ResourceCard takeRandomCardFromHand() {
-    // Get all resource cards which are greater than zero in hand.
-    List<ResourceCard> cards = new ArrayList<>();
-    for (ResourceCard card : this.resourceCards.keySet()) {
-      if (this.resourceCards.get(card) > 0) {
-        cards.add(card);
-      }
-    }
-
-    // Pick one of these resources at random
-    if (cards.isEmpty()) {
-      return null;
-    }
-    Random rand = new Random();
-    int index = rand.nextInt(cards.size());
-    ResourceCard card = cards.get(index);
-
-    // Remove this card from hand.
-    this.resourceCards.put(card, this.resourceCards.get(card) - 1);
-    return card;
+  public ResourceCard takeRandomCardFromHand(SplittableRandom random) {
+    return this.resourceCards.removeRandom(random);
   }
   
   public boolean hasAmountOfResourceInHand(ResourceCard card, int amount) {
     return this.resourceCards.get(card) >= amount;
   }
+
+  public boolean canAfford(BuildCost cost) {
+    return this.resourceCards.canAfford(cost);
+  }
+
+  /**
+   * Removes the resources of a piece from this player's hand, if they hold all of them.
+   *
+   * @param cost piece being paid for.
+   * @return whether the resources were removed.
+   */
+  public boolean pay(BuildCost cost) {
+    return this.resourceCards.pay(cost);
+  }
   
   /**
    * Removes all of the specified card from the player's hand, and returns the 
@@ -196,12 +237,7 @@ public abstract class Player {
    * @return amount of resource removed from player's hand
    */
   public int removeAllOfOneCardFromHand(ResourceCard card) {
-    if (this.resourceCards.containsKey(card)) {
-      int numCards = this.resourceCards.get(card);
-      this.resourceCards.put(card, 0);
-      return numCards;
-    }
-    return 0;
+    return this.resourceCards.removeAll(card);
   }
   
   /**
@@ -211,10 +247,7 @@ public abstract class Player {
    * @param amount amount of resource to remove
    */
   public void removeAmountOfResourceCardFromHand(ResourceCard card, int amount) {
-    int resourceSizeAfterRemoval = this.resourceCards.get(card) - amount;
-    if (this.resourceCards.get(card) - amount >= 0) {
-      this.resourceCards.put(card, resourceSizeAfterRemoval);
-    }
+    this.resourceCards.remove(card, amount);
   }
   
   /**
@@ -223,17 +256,15 @@ public abstract class Player {
    * @return total amount of resource cards in this player's hand.
    */
   public int getAmountOfResourceCardsInHand() {
-    int amount = 0;
-    for (ResourceCard card : this.resourceCards.keySet()) {
-      amount += this.resourceCards.get(card);
-    }
-    return amount;
+    return this.resourceCards.total();
   }
   /*--------------------------------------------------------------------------*/
 
   /*---------------------------------Dev Cards--------------------------------*/
   public void addDevelopmentCard(DevelopmentCard card) {
-    this.developmentCardsDrawnThisTurn.add(card);
+    if (card != null) {
+      this.developmentCardsDrawnThisTurn.add(card);
+    }
   }
 
   public void removeDevelopmentCard(DevelopmentCard card) {
@@ -249,12 +280,11 @@ public abstract class Player {
   }
 
   public void addAllDevelopmentCardsDrawnThisTurnToDevelopmentCards() {
-    this.developmentCards.addAll(this.developmentCardsDrawnThisTurn);
-    this.developmentCardsDrawnThisTurn.clear();
+    this.developmentCards.takeAll(this.developmentCardsDrawnThisTurn);
   }
   
   public boolean hasDevelopmentCard(DevelopmentCard card) {
-    return this.developmentCards.contains(card);
+    return this.developmentCards.has(card);
   }
   /*--------------------------------------------------------------------------*/
   
@@ -299,6 +329,10 @@ public abstract class Player {
     this.possibleCityNodes.add(n);
   }
 
+  public void removeNodeFromPossibleCityNodes(Node n) {
+    this.possibleCityNodes.remove(n);
+  }
+
   /*--------------------------------------------------------------------------*/
   
   /*---------------------------------- Roads ---------------------------------*/
@@ -349,6 +383,14 @@ public abstract class Player {
     return this.largestArmy;
   }
 
+  public void setLargestArmy(boolean largestArmy) {
+    this.largestArmy = largestArmy;
+  }
+
+  public void setNumKnightsPlayed(int numKnightsPlayed) {
+    this.numKnightsPlayed = numKnightsPlayed;
+  }
+
   /*--------------------------------------------------------------------------*/
   
   /*------------------------------ Longest Road ------------------------------*/
@@ -360,6 +402,10 @@ public abstract class Player {
     this.longestRoad = longestRoad;
   }
 
+  public void setLongestRoadSize(int longestRoadSize) {
+    this.longestRoadSize = longestRoadSize;
+  }
+
   /*--------------------------------------------------------------------------*/
   
   //****************************************************************************
@@ -0,0 +1,97 @@
+package com.catanai.server.model.player;
+
+import com.catanai.server.model.Game;
+import com.catanai.server.model.action.Action;
+import com.catanai.server.model.action.LegalActionEnumerator;
+import com.catanai.server.model.gamestate.GameState;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+/**
+ * Player choosing a random action among those legal in the game it plays in, found through the
+ * live gamestate passed to play(); e.g. for playouts, fuzzing and benchmarks. Every legal action
+ * is equally likely by default. With weights, each legal action is chosen in proportion to the
+ * weight of its Action, so a type with many placements, like roads, weighs more in total.
+ *
+ * <p>Choosing allocates nothing: the legal actions are listed into reused rows, and the returned
+ * move is one of them, overwritten by the next call to play().
+ */
+public final class RandomLegalPlayer extends Player {
+  /** Returned when nothing is legal; the game then rejects it. */
+  private static final int[] END_TURN = {Action.END_TURN.getValue()};
+
+  private final SplittableRandom random;
+  private final LegalActionEnumerator legalActions = new LegalActionEnumerator();
+
+  /** Weight of each action, indexed by Action value. */
+  private final double[] weights = new double[Action.values().length + 1];
+
+  public RandomLegalPlayer(PlayerID id) {
+    this(id, System.nanoTime());
+  }
+
+  public RandomLegalPlayer(PlayerID id, long seed) {
+    this(id, new SplittableRandom(seed), Map.of());
+  }
+
+  /**
+   * Creates a player choosing actions in proportion to their weights. If every legal action
+   * weighs 0, one is chosen uniformly.
+   *
+   * @param id id of the player.
+   * @param random source of the choices; split it to give each player its own.
+   * @param weights weight of each Action; actions left out weigh 1.
+   */
+  public RandomLegalPlayer(PlayerID id, SplittableRandom random, Map<Action, Double> weights) {
+    super(id);
+    this.random = random;
+    Arrays.fill(this.weights, 1.0);
+    for (Map.Entry<Action, Double> weight : weights.entrySet()) {
+      if (weight.getValue() < 0) {
+        throw new IllegalArgumentException("Weight of " + weight.getKey() + " is negative.");
+      }
+      this.weights[weight.getKey().getValue()] = weight.getValue();
+    }
+  }
+
+  @Override
+  public int[] play(GameState gameState) {
+    Game game = gameState.getGame();
+    if (game == null) {
+      throw new IllegalArgumentException("RandomLegalPlayer needs the live gamestate of its game.");
+    }
+    int[] move = this.choose(game);
+    this.previousAction = Action.valueOf(move[0]);
+    return move;
+  }
+
+  private int[] choose(Game game) {
+    int count = this.legalActions.enumerate(game);
+    if (count == 0) {
+      return END_TURN;
+    }
+
+    double total = 0;
+    for (int i = 0; i < count; i++) {
+      total += this.weights[this.legalActions.get(i)[0]];
+    }
+    if (total <= 0) {
+      return this.legalActions.get(this.random.nextInt(count));
+    }
+
+    double target = this.random.nextDouble() * total;
+    for (int i = 0; i < count; i++) {
+      target -= this.weights[this.legalActions.get(i)[0]];
+      if (target < 0) {
+        return this.legalActions.get(i);
+      }
+    }
+    // Rounding can leave a sliver past the last action.
+    for (int i = count - 1; ; i--) {
+      if (this.weights[this.legalActions.get(i)[0]] > 0) {
+        return this.legalActions.get(i);
+      }
+    }
+  }
+}
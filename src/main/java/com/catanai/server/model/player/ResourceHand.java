@@ -0,0 +1,169 @@
+package com.catanai.server.model.player;
+
+import com.catanai.server.model.bank.card.ResourceCard;
+import java.util.SplittableRandom;
+
+/**
+ * Amount of each resource card a player holds, kept in a primitive array indexed by
+ * ResourceCard value. Vector operations take arrays in the same order, such as the
+ * resource part of a discard or trade action.
+ */
+public final class ResourceHand {
+  /** Amount of resource types, and the length of every resource vector. */
+  public static final int NUM_RESOURCES = 5;
+
+  private final int[] counts = new int[NUM_RESOURCES];
+
+  //****************************************************************************
+  //******************************* Single cards *******************************
+  //****************************************************************************
+
+  public int get(ResourceCard card) {
+    return this.counts[card.getValue()];
+  }
+
+  public void add(ResourceCard card, int amount) {
+    this.counts[card.getValue()] += amount;
+  }
+
+  /**
+   * Removes an amount of one resource, if the hand holds that many.
+   *
+   * @param card resource to remove.
+   * @param amount amount to remove.
+   * @return whether the cards were removed.
+   */
+  public boolean remove(ResourceCard card, int amount) {
+    int r = card.getValue();
+    if (this.counts[r] < amount) {
+      return false;
+    }
+    this.counts[r] -= amount;
+    return true;
+  }
+
+  /**
+   * Removes every card of one resource.
+   *
+   * @param card resource to remove.
+   * @return amount of the resource removed.
+   */
+  public int removeAll(ResourceCard card) {
+    int r = card.getValue();
+    int amount = this.counts[r];
+    this.counts[r] = 0;
+    return amount;
+  }
+
+  /**
+   * Removes one card of a random resource type the hand holds; every type held is equally
+   * likely, regardless of how many of it are held.
+   *
+   * @param random source of the choice.
+   * @return the card removed, or null if the hand is empty.
+   */
+  public ResourceCard removeRandom(SplittableRandom random) {
+    int types = 0;
+    for (int r = 0; r < NUM_RESOURCES; r++) {
+      if (this.counts[r] > 0) {
+        types++;
+      }
+    }
+    if (types == 0) {
+      return null;
+    }
+    int pick = random.nextInt(types);
+    for (int r = 0; r < NUM_RESOURCES; r++) {
+      if (this.counts[r] > 0 && pick-- == 0) {
+        this.counts[r]--;
+        return ResourceCard.valueOf(r);
+      }
+    }
+    return null;
+  }
+
+  //****************************************************************************
+  //********************************* Vectors **********************************
+  //****************************************************************************
+
+  /**
+   * Adds a resource vector to the hand.
+   *
+   * @param amounts amount of each resource, indexed by ResourceCard value.
+   */
+  public void addAll(int[] amounts) {
+    for (int r = 0; r < NUM_RESOURCES; r++) {
+      this.counts[r] += amounts[r];
+    }
+  }
+
+  /**
+   * Returns whether the hand holds at least the amount of every resource in a vector.
+   *
+   * @param amounts amount of each resource, indexed by ResourceCard value.
+   * @return whether every amount is held.
+   */
+  public boolean canAfford(int[] amounts) {
+    for (int r = 0; r < NUM_RESOURCES; r++) {
+      if (this.counts[r] < amounts[r]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  public boolean canAfford(BuildCost cost) {
+    return this.canAfford(cost.amounts);
+  }
+
+  /**
+   * Removes a resource vector from the hand if every amount is held; otherwise the hand is
+   * left unchanged.
+   *
+   * @param amounts amount of each resource, indexed by ResourceCard value.
+   * @return whether the cards were removed.
+   */
+  public boolean removeAll(int[] amounts) {
+    if (!this.canAfford(amounts)) {
+      return false;
+    }
+    for (int r = 0; r < NUM_RESOURCES; r++) {
+      this.counts[r] -= amounts[r];
+    }
+    return true;
+  }
+
+  public boolean pay(BuildCost cost) {
+    return this.removeAll(cost.amounts);
+  }
+
+  /**
+   * Returns the total amount of cards in the hand.
+   *
+   * @return sum of every resource.
+   */
+  public int total() {
+    int total = 0;
+    for (int r = 0; r < NUM_RESOURCES; r++) {
+      total += this.counts[r];
+    }
+    return total;
+  }
+
+  /**
+   * Copies the amount of each resource into an array, indexed by ResourceCard value.
+   *
+   * @param destination array of at least NUM_RESOURCES entries.
+   */
+  public void copyTo(int[] destination) {
+    System.arraycopy(this.counts, 0, destination, 0, NUM_RESOURCES);
+  }
+
+  public void copyFrom(ResourceHand other) {
+    System.arraycopy(other.counts, 0, this.counts, 0, NUM_RESOURCES);
+  }
+
+  public int[] toArray() {
+    return this.counts.clone();
+  }
+}
@@ -0,0 +1,292 @@
+package com.catanai.server.replay;
+
+import com.catanai.server.model.action.ActionSpace;
+import com.catanai.server.model.gamestate.GameState;
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.Getter;
+
+/**
+ * Ring of transitions in a memory-mapped file, written by hosted games and sampled by trainers,
+ * possibly in other processes mapping the same file, without serializing steps. Once the ring is
+ * full, each transition overwrites the oldest one.
+ *
+ * <p>The file is little-endian. A header of HEADER_LENGTH bytes holds the magic, the version,
+ * the gamestate length, ActionSpace.SIZE, the record length and the capacity as int32 values,
+ * then the count of transitions written as an int64. It is followed by capacity records of
+ * RECORD_LENGTH bytes, transition n being in record n % capacity. A record holds:
+ * <ul>
+ *   <li>a stamp (int64): 0 for a record never written, -1 while it is written, and otherwise
+ *       the number of its transition plus one;</li>
+ *   <li>the action id (int32), -1 for an action outside the action space;</li>
+ *   <li>the reward and whether the game is done (int16 each);</li>
+ *   <li>the observation and the next observation, GameState.BINARY_LENGTH int16 values each, in
+ *       the layout of GameState.writeBinary;</li>
+ *   <li>the legal mask of the observation, ActionSpace.MASK_WORDS int64 words packed as by
+ *       ActionSpace.fillLegalMask.</li>
+ * </ul>
+ * A reader picks transition numbers below the written count, copies their records, and keeps
+ * those whose stamp is still the transition's number plus one once copied.
+ *
+ * <p>Several threads can add transitions at once. Only one buffer should write to a file.
+ */
+public final class ReplayBuffer implements Closeable {
+  public static final int DEFAULT_CAPACITY = 1 << 18;
+
+  static final int MAGIC = 0x31425243;
+  static final int VERSION = 1;
+  static final int HEADER_LENGTH = 64;
+  static final int WRITTEN_OFFSET = 6 * Integer.BYTES;
+
+  static final int STAMP_OFFSET = 0;
+  static final int ACTION_OFFSET = Long.BYTES;
+  static final int REWARD_OFFSET = ACTION_OFFSET + Integer.BYTES;
+  static final int DONE_OFFSET = REWARD_OFFSET + Short.BYTES;
+  static final int OBSERVATION_OFFSET = DONE_OFFSET + Short.BYTES;
+  static final int NEXT_OBSERVATION_OFFSET = OBSERVATION_OFFSET + GameState.BINARY_LENGTH * Short.BYTES;
+  static final int MASK_OFFSET = alignUp(NEXT_OBSERVATION_OFFSET + GameState.BINARY_LENGTH * Short.BYTES, Long.BYTES);
+
+  /** Records are padded to cache lines. */
+  static final int RECORD_LENGTH = alignUp(MASK_OFFSET + ActionSpace.MASK_WORDS * Long.BYTES, 64);
+
+  /** Atomic access to the int64 values of mapped buffers. */
+  private static final VarHandle LONGS = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+
+  private final FileChannel channel;
+  private final MappedByteBuffer header;
+
+  /** Records, mapped in segments of recordsPerSegment records since a mapping is at most 2 GB. */
+  private final MappedByteBuffer[] segments;
+  private final int recordsPerSegment;
+
+  @Getter
+  private final int capacity;
+  private final AtomicLong next;
+
+  private ReplayBuffer(FileChannel channel, int capacity, boolean writable) throws IOException {
+    this.channel = channel;
+    this.capacity = capacity;
+    FileChannel.MapMode mode = writable ? FileChannel.MapMode.READ_WRITE : FileChannel.MapMode.READ_ONLY;
+    this.header = channel.map(mode, 0, HEADER_LENGTH);
+    this.header.order(ByteOrder.LITTLE_ENDIAN);
+    this.recordsPerSegment = Integer.MAX_VALUE / RECORD_LENGTH;
+    this.segments = new MappedByteBuffer[(capacity + this.recordsPerSegment - 1) / this.recordsPerSegment];
+    for (int i = 0; i < this.segments.length; i++) {
+      int records = Math.min(this.recordsPerSegment, capacity - i * this.recordsPerSegment);
+      long position = HEADER_LENGTH + (long) i * this.recordsPerSegment * RECORD_LENGTH;
+      this.segments[i] = channel.map(mode, position, (long) records * RECORD_LENGTH);
+      this.segments[i].order(ByteOrder.LITTLE_ENDIAN);
+    }
+    this.next = new AtomicLong(this.getWrittenCount());
+  }
+
+  /**
+   * Creates an empty buffer, replacing any file at path.
+   *
+   * @param path file to map the buffer to.
+   * @param capacity most transitions held at once.
+   * @return the buffer, open for writing.
+   * @throws IOException if the file cannot be created.
+   */
+  public static ReplayBuffer create(Path path, int capacity) throws IOException {
+    if (capacity < 1) {
+      throw new IllegalArgumentException("Capacity must be positive.");
+    }
+    FileChannel channel = FileChannel.open(
+        path,
+        StandardOpenOption.CREATE,
+        StandardOpenOption.READ,
+        StandardOpenOption.WRITE,
+        StandardOpenOption.TRUNCATE_EXISTING
+    );
+    try {
+      // The file is sparse: records are zero, so never written, until they are.
+      channel.write(ByteBuffer.wrap(new byte[1]), HEADER_LENGTH + (long) capacity * RECORD_LENGTH - 1);
+      ReplayBuffer buffer = new ReplayBuffer(channel, capacity, true);
+      buffer.header
+          .putInt(0, MAGIC)
+          .putInt(Integer.BYTES, VERSION)
+          .putInt(2 * Integer.BYTES, GameState.BINARY_LENGTH)
+          .putInt(3 * Integer.BYTES, ActionSpace.SIZE)
+          .putInt(4 * Integer.BYTES, RECORD_LENGTH)
+          .putInt(5 * Integer.BYTES, capacity);
+      return buffer;
+    } catch (IOException | RuntimeException e) {
+      channel.close();
+      throw e;
+    }
+  }
+
+  /**
+   * Opens a buffer written by another buffer, e.g. in another process, to read transitions.
+   *
+   * @param path file of the buffer.
+   * @return the buffer, open for reading only.
+   * @throws IOException if the file cannot be read or was not written by a compatible buffer.
+   */
+  public static ReplayBuffer open(Path path) throws IOException {
+    FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+    try {
+      if (channel.size() < HEADER_LENGTH) {
+        throw new IOException("Not a replay buffer.");
+      }
+      ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_LENGTH).order(ByteOrder.LITTLE_ENDIAN);
+      if (header.getInt(0) != MAGIC
+          || header.getInt(Integer.BYTES) != VERSION
+          || header.getInt(2 * Integer.BYTES) != GameState.BINARY_LENGTH
+          || header.getInt(3 * Integer.BYTES) != ActionSpace.SIZE
+          || header.getInt(4 * Integer.BYTES) != RECORD_LENGTH) {
+        throw new IOException("Not a replay buffer of this version of the game.");
+      }
+      int capacity = header.getInt(5 * Integer.BYTES);
+      if (capacity < 1 || channel.size() < HEADER_LENGTH + (long) capacity * RECORD_LENGTH) {
+        throw new IOException("Replay buffer is truncated.");
+      }
+      return new ReplayBuffer(channel, capacity, false);
+    } catch (IOException | RuntimeException e) {
+      channel.close();
+      throw e;
+    }
+  }
+
+  /**
+   * Returns the number of transitions written so far, including those overwritten since.
+   */
+  public long getWrittenCount() {
+    return (long) LONGS.getAcquire(this.header, WRITTEN_OFFSET);
+  }
+
+  //****************************************************************************
+  //********************************* Writing **********************************
+  //****************************************************************************
+
+  /**
+   * Adds a transition, overwriting the oldest one if the buffer is full.
+   *
+   * @param observation gamestate the action was chosen in, as written by GameState.writeBinary,
+   *     from position 0.
+   * @param actionId ActionSpace id of the action, or -1 if it has none.
+   * @param reward reward of the action.
+   * @param done whether the game ended with the action.
+   * @param nextObservation gamestate after the action, like observation.
+   * @param legalMask legal ids of observation, as filled by ActionSpace.fillLegalMask.
+   * @return number of the transition.
+   */
+  public long add(
+      ByteBuffer observation,
+      int actionId,
+      int reward,
+      boolean done,
+      ByteBuffer nextObservation,
+      long[] legalMask
+  ) {
+    long sequence = this.next.getAndIncrement();
+    ByteBuffer segment = this.segment(sequence);
+    int record = this.recordOffset(sequence);
+    LONGS.setRelease(segment, record + STAMP_OFFSET, -1L);
+    // Readers must see the record as being written before any of its values change.
+    VarHandle.storeStoreFence();
+    segment.putInt(record + ACTION_OFFSET, actionId);
+    segment.putShort(record + REWARD_OFFSET, (short) reward);
+    segment.putShort(record + DONE_OFFSET, (short) (done ? 1 : 0));
+    ByteBuffer values = segment.duplicate();
+    values.position(record + OBSERVATION_OFFSET);
+    values.put(observation.duplicate().position(0).limit(GameState.BINARY_LENGTH * Short.BYTES));
+    values.put(nextObservation.duplicate().position(0).limit(GameState.BINARY_LENGTH * Short.BYTES));
+    for (int i = 0; i < ActionSpace.MASK_WORDS; i++) {
+      segment.putLong(record + MASK_OFFSET + i * Long.BYTES, legalMask[i]);
+    }
+    LONGS.setRelease(segment, record + STAMP_OFFSET, sequence + 1);
+    this.publish(sequence + 1);
+    return sequence;
+  }
+
+  /**
+   * Raises the written count to at least count; transitions may finish out of order.
+   */
+  private void publish(long count) {
+    long written = this.getWrittenCount();
+    while (written < count && !LONGS.compareAndSet(this.header, WRITTEN_OFFSET, written, count)) {
+      written = this.getWrittenCount();
+    }
+  }
+
+  //****************************************************************************
+  //********************************* Reading **********************************
+  //****************************************************************************
+
+  /**
+   * Copies a transition.
+   *
+   * @param sequence number of the transition, below getWrittenCount().
+   * @param transition transition to copy into.
+   * @return whether the transition was copied whole; false if it was overwritten, or is not
+   *     fully written yet.
+   */
+  public boolean read(long sequence, Transition transition) {
+    if (sequence < 0) {
+      return false;
+    }
+    ByteBuffer segment = this.segment(sequence);
+    int record = this.recordOffset(sequence);
+    if ((long) LONGS.getAcquire(segment, record + STAMP_OFFSET) != sequence + 1) {
+      return false;
+    }
+    transition.actionId = segment.getInt(record + ACTION_OFFSET);
+    transition.reward = segment.getShort(record + REWARD_OFFSET);
+    transition.done = segment.getShort(record + DONE_OFFSET) != 0;
+    for (int i = 0; i < GameState.BINARY_LENGTH; i++) {
+      transition.observation[i] = segment.getShort(record + OBSERVATION_OFFSET + i * Short.BYTES);
+      transition.nextObservation[i] = segment.getShort(record + NEXT_OBSERVATION_OFFSET + i * Short.BYTES);
+    }
+    for (int i = 0; i < ActionSpace.MASK_WORDS; i++) {
+      transition.legalMask[i] = segment.getLong(record + MASK_OFFSET + i * Long.BYTES);
+    }
+    // The values must be read before the stamp is checked again.
+    VarHandle.loadLoadFence();
+    return (long) LONGS.getAcquire(segment, record + STAMP_OFFSET) == sequence + 1;
+  }
+
+  @Override
+  public void close() throws IOException {
+    this.channel.close();
+  }
+
+  private ByteBuffer segment(long sequence) {
+    return this.segments[(int) (sequence % this.capacity) / this.recordsPerSegment];
+  }
+
+  private int recordOffset(long sequence) {
+    return (int) (sequence % this.capacity) % this.recordsPerSegment * RECORD_LENGTH;
+  }
+
+  private static int alignUp(int value, int alignment) {
+    return (value + alignment - 1) / alignment * alignment;
+  }
+
+  /**
+   * Transition read back from a buffer; reused between reads.
+   */
+  @Getter
+  public static final class Transition {
+    private final short[] observation = new short[GameState.BINARY_LENGTH];
+    private final short[] nextObservation = new short[GameState.BINARY_LENGTH];
+    private final long[] legalMask = new long[ActionSpace.MASK_WORDS];
+    private int actionId;
+    private int reward;
+    private boolean done;
+
+    public boolean isLegal(int actionId) {
+      return actionId >= 0 && actionId < ActionSpace.SIZE && (this.legalMask[actionId >>> 6] & 1L << actionId) != 0;
+    }
+  }
+}
@@ -0,0 +1,96 @@
+package com.catanai.server.simulation;
+
+import lombok.Getter;
+
+/**
+ * Outcome of one game played by the SimulationRunner.
+ */
+@Getter
+public final class SimulationResult {
+  /** Header of the CSV lines written by toCsvLine(). */
+  public static final String CSV_HEADER =
+      "game,seed,winner,finished,turns,attemptedActions,successfulActions,durationMillis,error";
+
+  private final int gameIndex;
+
+  /** Seed the game was created with; the same seeds and players replay the same game. */
+  private final long seed;
+
+  /** PlayerID value of the winner, or 0 if the game did not finish. */
+  private final int winner;
+
+  /** Whether the game reached the finished action state. */
+  private final boolean finished;
+
+  /** Amount of turns ended in the game. */
+  private final int turns;
+
+  private final int attemptedActions;
+  private final int successfulActions;
+  private final long durationNanos;
+
+  /** Class of the exception which stopped the game, or null if none was thrown. */
+  private final String error;
+
+  /**
+   * Creates the result of a game.
+   *
+   * @param gameIndex index of the game in its simulation run.
+   * @param seed seed the game was created with.
+   * @param winner PlayerID value of the winner, or 0 if the game did not finish.
+   * @param finished whether the game reached the finished action state.
+   * @param turns amount of turns ended in the game.
+   * @param attemptedActions amount of actions the players attempted.
+   * @param successfulActions amount of attempted actions which succeeded.
+   * @param durationNanos wall time taken to play the game.
+   * @param error class of the exception which stopped the game, or null if none was thrown.
+   */
+  public SimulationResult(
+      int gameIndex,
+      long seed,
+      int winner,
+      boolean finished,
+      int turns,
+      int attemptedActions,
+      int successfulActions,
+      long durationNanos,
+      String error
+  ) {
+    this.gameIndex = gameIndex;
+    this.seed = seed;
+    this.winner = winner;
+    this.finished = finished;
+    this.turns = turns;
+    this.attemptedActions = attemptedActions;
+    this.successfulActions = successfulActions;
+    this.durationNanos = durationNanos;
+    this.error = error;
+  }
+
+  /**
+   * Returns whether the game was stopped by an exception, from the engine or a player, rather
+   * than by finishing or reaching the action limit.
+   *
+   * @return whether the game crashed.
+   */
+  public boolean isCrashed() {
+    return this.error != null;
+  }
+
+  /**
+   * Formats this result as a CSV line matching CSV_HEADER, without a line separator.
+   *
+   * @return CSV line of this result.
+   */
+  public String toCsvLine() {
+    return this.gameIndex + ","
+        + this.seed + ","
+        + this.winner + ","
+        + this.finished + ","
+        + this.turns + ","
+        + this.attemptedActions + ","
+        + this.successfulActions + ","
+        + this.durationNanos / 1_000_000 + ","
+        + (this.error == null ? "" : this.error);
+  }
+}
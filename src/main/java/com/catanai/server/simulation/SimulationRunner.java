@@ -0,0 +1,236 @@
+package com.catanai.server.simulation;
+
+import com.catanai.server.model.Game;
+import com.catanai.server.model.action.Action;
+import com.catanai.server.model.player.Player;
+import com.catanai.server.model.player.PlayerID;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.reflect.Constructor;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.BiFunction;
+
+/**
+ * Plays many games concurrently without the web stack, e.g. for tournaments between policies
+ * or for measuring engine throughput. Each game gets new players from the seat factories, and
+ * is played until it finishes, a player or the engine throws, or the action limit is reached.
+ * Game i of a run is seeded with baseSeed + i, and each seat factory is given a player seed
+ * derived from the game's, so a run of seeded players can be replayed from its base seed.
+ * Results are written as CSV lines in the order games complete; games stopped by an exception
+ * have its class in the error column.
+ */
+public final class SimulationRunner {
+  public static final int DEFAULT_MAX_ACTIONS = 100_000;
+
+  /** Mixed into a game seed for its players' seeds, as the game's own generator uses it as is. */
+  private static final long PLAYER_SEED_MIX = 0x9E3779B97F4A7C15L;
+
+  private final List<BiFunction<PlayerID, Long, ? extends Player>> seats;
+  private final int threads;
+  private final int maxActions;
+  private final long baseSeed;
+
+  /**
+   * Creates a simulation runner with a random base seed, see getBaseSeed().
+   *
+   * @param seats factory for the player of each seat from its id and seed, in PlayerID order;
+   *     exactly 4.
+   * @param threads amount of games played at the same time.
+   * @param maxActions amount of attempted actions after which an unfinished game is abandoned.
+   */
+  public SimulationRunner(List<BiFunction<PlayerID, Long, ? extends Player>> seats, int threads, int maxActions) {
+    this(seats, threads, maxActions, new SplittableRandom().nextLong());
+  }
+
+  /**
+   * Creates a simulation runner.
+   *
+   * @param seats factory for the player of each seat from its id and seed, in PlayerID order;
+   *     exactly 4.
+   * @param threads amount of games played at the same time.
+   * @param maxActions amount of attempted actions after which an unfinished game is abandoned.
+   * @param baseSeed seed of the first game; game i is seeded with baseSeed + i.
+   */
+  public SimulationRunner(
+      List<BiFunction<PlayerID, Long, ? extends Player>> seats,
+      int threads,
+      int maxActions,
+      long baseSeed
+  ) {
+    if (seats.size() != PlayerID.values().length) {
+      throw new IllegalArgumentException("A seat is required for each of the 4 players.");
+    }
+    if (threads < 1 || maxActions < 1) {
+      throw new IllegalArgumentException("Threads and max actions must be positive.");
+    }
+    this.seats = List.copyOf(seats);
+    this.threads = threads;
+    this.maxActions = maxActions;
+    this.baseSeed = baseSeed;
+  }
+
+  public long getBaseSeed() {
+    return this.baseSeed;
+  }
+
+  /**
+   * Plays the given amount of games, writing the CSV header and then one line per game to the
+   * output as each game completes.
+   *
+   * @param games amount of games to play.
+   * @param output writer receiving the results; it is flushed but not closed.
+   * @return results of every game, in the order they completed.
+   * @throws IOException if writing to the output fails.
+   */
+  public List<SimulationResult> run(int games, Writer output) throws IOException {
+    ExecutorService pool = Executors.newFixedThreadPool(this.threads);
+    List<SimulationResult> results = new ArrayList<>(games);
+    try {
+      CompletionService<SimulationResult> completed = new ExecutorCompletionService<>(pool);
+      for (int i = 0; i < games; i++) {
+        final int gameIndex = i;
+        completed.submit(() -> this.playGame(gameIndex));
+      }
+
+      output.write(SimulationResult.CSV_HEADER);
+      output.write(System.lineSeparator());
+      for (int i = 0; i < games; i++) {
+        SimulationResult result = completed.take().get();
+        results.add(result);
+        output.write(result.toCsvLine());
+        output.write(System.lineSeparator());
+        output.flush();
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while waiting for games to complete.", e);
+    } catch (ExecutionException e) {
+      throw new IllegalStateException("Game failed to run.", e.getCause());
+    } finally {
+      pool.shutdownNow();
+    }
+    return results;
+  }
+
+  /**
+   * Plays a single game to completion.
+   *
+   * @param gameIndex index of the game in this run.
+   * @return result of the game.
+   */
+  SimulationResult playGame(int gameIndex) {
+    long seed = this.baseSeed + gameIndex;
+    SplittableRandom playerSeeds = new SplittableRandom(seed ^ PLAYER_SEED_MIX);
+    List<Player> players = new ArrayList<>(this.seats.size());
+    for (PlayerID id : PlayerID.values()) {
+      players.add(this.seats.get(id.getValue() - 1).apply(id, playerSeeds.nextLong()));
+    }
+
+    long start = System.nanoTime();
+    Game game = new Game(players, seed);
+    String error = null;
+    int attempted = 0;
+    int successful = 0;
+    int turns = 0;
+    try {
+      while (!game.hasEnded() && attempted < this.maxActions) {
+        attempted++;
+        if (game.nextMove()) {
+          successful++;
+          if (game.getLastAction() == Action.END_TURN.getValue()) {
+            turns++;
+          }
+        }
+      }
+    } catch (RuntimeException e) {
+      // Reported apart from games abandoned at the action limit, e.g. for fuzzing the engine.
+      error = e.getClass().getName();
+    }
+    long duration = System.nanoTime() - start;
+
+    int winner = game.hasEnded() ? game.getCurrentPlayer().getID().getValue() : 0;
+    return new SimulationResult(
+        gameIndex, seed, winner, game.hasEnded(), turns, attempted, successful, duration, error
+    );
+  }
+
+  /**
+   * Runs a simulation from the command line.
+   * Usage: SimulationRunner games threads output.csv playerClass [playerClass playerClass playerClass] [seed].
+   * Player classes need a public constructor taking a PlayerID and a long seed, like
+   * RandomLegalPlayer and MctsPlayer, or else one taking only a PlayerID, whose players then
+   * decide their own randomness. A single class fills every seat. Without a seed, a random base
+   * seed is used and printed.
+   *
+   * @param args command line arguments.
+   * @throws Exception if the players cannot be created or the output cannot be written.
+   */
+  public static void main(String[] args) throws Exception {
+    if (args.length < 4 || args.length > 8 || args.length == 6) {
+      System.err.println("Usage: SimulationRunner games threads output.csv playerClass [playerClass x3] [seed]");
+      System.exit(1);
+    }
+    boolean oneClass = args.length <= 5;
+    boolean seeded = args.length == 5 || args.length == 8;
+    int games = Integer.parseInt(args[0]);
+    int threads = Integer.parseInt(args[1]);
+    Path output = Path.of(args[2]);
+
+    List<BiFunction<PlayerID, Long, ? extends Player>> seats = new ArrayList<>();
+    for (int i = 0; i < PlayerID.values().length; i++) {
+      seats.add(playerFactory(oneClass ? args[3] : args[3 + i]));
+    }
+
+    SimulationRunner runner = seeded
+        ? new SimulationRunner(seats, threads, DEFAULT_MAX_ACTIONS, Long.parseLong(args[args.length - 1]))
+        : new SimulationRunner(seats, threads, DEFAULT_MAX_ACTIONS);
+    long start = System.nanoTime();
+    List<SimulationResult> results;
+    try (BufferedWriter writer = Files.newBufferedWriter(output, StandardCharsets.UTF_8)) {
+      results = runner.run(games, writer);
+    }
+    double seconds = (System.nanoTime() - start) / 1e9;
+    long actions = results.stream().mapToLong(SimulationResult::getAttemptedActions).sum();
+    long crashed = results.stream().filter(SimulationResult::isCrashed).count();
+    System.out.printf("Played %d games in %.2fs (%.1f games/s, %.0f actions/s) from seed %d; %d crashed.%n",
+        games, seconds, games / seconds, actions / seconds, runner.getBaseSeed(), crashed);
+  }
+
+  /**
+   * Returns a factory creating players of a class, with their seed if the class takes one.
+   *
+   * @param className name of a Player class.
+   * @return factory of the class's players.
+   * @throws ReflectiveOperationException if the class or a constructor is missing.
+   */
+  static BiFunction<PlayerID, Long, ? extends Player> playerFactory(String className)
+      throws ReflectiveOperationException {
+    Class<? extends Player> playerClass = Class.forName(className).asSubclass(Player.class);
+    try {
+      Constructor<? extends Player> seeded = playerClass.getConstructor(PlayerID.class, long.class);
+      return (id, seed) -> newPlayer(seeded, id, seed);
+    } catch (NoSuchMethodException e) {
+      Constructor<? extends Player> unseeded = playerClass.getConstructor(PlayerID.class);
+      return (id, seed) -> newPlayer(unseeded, id);
+    }
+  }
+
+  private static Player newPlayer(Constructor<? extends Player> constructor, Object... args) {
+    try {
+      return constructor.newInstance(args);
+    } catch (ReflectiveOperationException e) {
+      throw new IllegalStateException("Could not create player " + constructor.getDeclaringClass().getName() + ".", e);
+    }
+  }
+}
@@ -0,0 +1,20 @@
+package com.catanai.server;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests that the webviewer endpoints return what Jackson can serialize.
+ */
+public class TestGameStateController {
+  @Test
+  public void testRandomGameIsSerializable() throws Exception {
+    JsonNode gameState = new ObjectMapper().valueToTree(new GameStateController().randomGame());
+    Assert.assertFalse(gameState.has("game"));
+    Assert.assertEquals(19, gameState.get("tiles").size());
+    Assert.assertEquals(54, gameState.get("nodes").size());
+    Assert.assertEquals(4, gameState.get("playerMetadata").size());
+  }
+}
@@ -0,0 +1,121 @@
+package com.catanai.server.config;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests the per-session game registry.
+ */
+public class TestGameRegistry {
+  private AtomicLong clock;
+  private GameRegistry registry;
+
+  /**
+   * Setup a registry with room for two sessions and a controllable clock.
+   */
+  @Before
+  public void setUp() {
+    this.clock = new AtomicLong();
+    this.registry = new GameRegistry(2, Duration.ofSeconds(10), this.clock::get);
+  }
+
+  @Test
+  public void testSessionsHaveIndependentGames() throws Exception {
+    this.registry.handleCommand("a", "newGame", null, null, null);
+    this.registry.handleCommand("b", "newGame", null, null, null);
+    this.registry.handleCommand("a", "addPlayerMove", "[2, 0]", "1", null);
+
+    this.registry.handleCommand("a", "makeMove", null, null, null);
+
+    // Only session a's game has a settlement on node 0.
+    ObjectMapper objectMapper = new ObjectMapper();
+    JsonNode gameA = objectMapper.readTree(this.registry.handleCommand("a", "getCurrentGamestate", null, null, null));
+    JsonNode gameB = objectMapper.readTree(this.registry.handleCommand("b", "getCurrentGamestate", null, null, null));
+    Assert.assertEquals(1, gameA.get("nodes").get(0).get(0).asInt());
+    Assert.assertEquals(0, gameB.get("nodes").get(0).get(0).asInt());
+    Assert.assertEquals(2, this.registry.size());
+  }
+
+  @Test
+  public void testFullRegistryRejectsNewSessions() {
+    this.registry.handleCommand("a", "newGame", null, null, null);
+    this.registry.handleCommand("b", "newGame", null, null, null);
+    Assert.assertTrue(this.registry.handleCommand("c", "newGame", null, null, null).startsWith("ERROR"));
+
+    this.registry.remove("a");
+    Assert.assertFalse(this.registry.handleCommand("c", "newGame", null, null, null).startsWith("ERROR"));
+  }
+
+  @Test
+  public void testFullRegistryIsReportedForBinaryCommands() {
+    this.registry.handleCommand("a", "newGame", null, null, null);
+    this.registry.handleCommand("b", "newGame", null, null, null);
+    Assert.assertNull(this.registry.handleBinaryCommand("c", "newGame", null, null));
+    Assert.assertEquals(GameRegistry.TOO_MANY_GAMES, this.registry.unavailableReply("c"));
+
+    // A failed command of a registered session is not a capacity error.
+    Assert.assertNull(this.registry.handleBinaryCommand("a", "stepBatch", "[15]", null));
+    Assert.assertNull(this.registry.unavailableReply("a"));
+
+    this.clock.set(Duration.ofSeconds(12).toNanos());
+    Assert.assertEquals(2, this.registry.evictIdle());
+    Assert.assertEquals(GameRegistry.SESSION_EXPIRED, this.registry.unavailableReply("a"));
+  }
+
+  @Test
+  public void testIdleSessionsAreEvictedForNewSessions() {
+    this.registry.handleCommand("a", "newGame", null, null, null);
+    this.clock.set(Duration.ofSeconds(8).toNanos());
+    this.registry.handleCommand("b", "newGame", null, null, null);
+    this.clock.set(Duration.ofSeconds(12).toNanos());
+
+    // Session a has been idle for 12 seconds, session b for 4.
+    Assert.assertFalse(this.registry.handleCommand("c", "newGame", null, null, null).startsWith("ERROR"));
+    Assert.assertEquals(2, this.registry.size());
+    Assert.assertFalse(this.registry.handleCommand("b", "getCurrentGamestate", null, null, null).startsWith("ERROR"));
+  }
+
+  @Test
+  public void testEvictedSessionIsToldItExpired() {
+    this.registry.handleCommand("a", "newGame", null, null, null);
+    this.clock.set(Duration.ofSeconds(12).toNanos());
+    Assert.assertEquals(1, this.registry.evictIdle());
+
+    Assert.assertTrue(this.registry.isExpired("a"));
+    Assert.assertEquals(GameRegistry.SESSION_EXPIRED, this.registry.handleCommand("a", "makeMove", null, null, null));
+    Assert.assertNull(this.registry.handleBinaryCommand("a", "getCurrentGamestate", null, null));
+    Assert.assertEquals(0, this.registry.size());
+
+    // Once closed, the session id can be used again.
+    this.registry.remove("a");
+    Assert.assertFalse(this.registry.handleCommand("a", "newGame", null, null, null).startsWith("ERROR"));
+  }
+
+  @Test
+  public void testSessionUsedDuringEvictionIsKept() {
+    AtomicBoolean useSession = new AtomicBoolean();
+    GameRegistry[] registry = new GameRegistry[1];
+    // Runs a command for session a right after eviction has read when a was last used.
+    LongSupplier clock = () -> {
+      if (useSession.compareAndSet(true, false)) {
+        registry[0].handleCommand("a", "getCurrentGamestate", null, null, null);
+      }
+      return this.clock.get();
+    };
+    registry[0] = new GameRegistry(2, Duration.ofSeconds(10), clock);
+    registry[0].handleCommand("a", "newGame", null, null, null);
+    this.clock.set(Duration.ofSeconds(12).toNanos());
+
+    useSession.set(true);
+    Assert.assertEquals(0, registry[0].evictIdle());
+    Assert.assertFalse(registry[0].isExpired("a"));
+    Assert.assertFalse(registry[0].handleCommand("a", "getCurrentGamestate", null, null, null).startsWith("ERROR"));
+  }
+}
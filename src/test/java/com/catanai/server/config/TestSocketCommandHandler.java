@@ -0,0 +1,193 @@
+package com.catanai.server.config;
+
+import com.catanai.server.dao.GameStatePersister;
+import com.catanai.server.dao.GameStateRow;
+import com.catanai.server.model.action.Action;
+import com.catanai.server.model.action.ActionSpace;
+import com.catanai.server.model.gamestate.GameState;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests the batched and binary socket commands.
+ */
+public class TestSocketCommandHandler {
+  private SocketCommandHandler commandHandler;
+  private ObjectMapper objectMapper;
+
+  /**
+   * Setup command handler for future test cases.
+   */
+  @Before
+  public void setUp() {
+    this.commandHandler = new SocketCommandHandler();
+    this.objectMapper = new ObjectMapper();
+  }
+
+  @Test
+  public void testNewGamesReturnsOneObservationPerGame() throws Exception {
+    JsonNode batch = this.objectMapper.readTree(this.commandHandler.handleCommand("newGames", null, null, 3));
+    Assert.assertEquals(3, batch.get("observations").size());
+    Assert.assertEquals(3, batch.get("rewards").size());
+    Assert.assertEquals(3, batch.get("dones").size());
+    Assert.assertFalse(batch.get("dones").get(0).asBoolean());
+  }
+
+  @Test
+  public void testStepBatchStepsEveryGame() throws Exception {
+    this.commandHandler.handleCommand("newGames", null, null, 2);
+    // Valid first settlement in game 0, settlement off the board in game 1.
+    String actions = "[[2.0, 0.0, 0.0, 0.0, 0.0, 0.0, 0.0, 0.0, 0.0, 0.0, 0.0], [2.0, 60.0]]";
+    JsonNode batch = this.objectMapper.readTree(this.commandHandler.handleCommand("stepBatch", actions, null, null));
+
+    Assert.assertEquals(1, batch.get("rewards").get(0).asInt());
+    Assert.assertEquals(-1, batch.get("rewards").get(1).asInt());
+
+    JsonNode observations = batch.get("observations");
+    Assert.assertEquals(1, observations.get(0).get("nodes").get(0).get(0).asInt());
+    Assert.assertEquals(0, observations.get(1).get("nodes").get(0).get(0).asInt());
+  }
+
+  @Test
+  public void testStepBatchAcceptsActionIds() throws Exception {
+    this.commandHandler.handleCommand("newGames", null, null, 2);
+    int settlementAtNode3 = ActionSpace.encode(new int[] {Action.PLAY_SETTLEMENT.getValue(), 3});
+    String actions = "[" + settlementAtNode3 + ".0, [2.0, 5.0]]";
+    JsonNode batch = this.objectMapper.readTree(this.commandHandler.handleCommand("stepBatch", actions, null, null));
+
+    Assert.assertEquals(1, batch.get("rewards").get(0).asInt());
+    Assert.assertEquals(1, batch.get("rewards").get(1).asInt());
+    Assert.assertEquals(1, batch.get("observations").get(0).get("nodes").get(3).get(0).asInt());
+    Assert.assertTrue(
+        this.commandHandler.handleCommand("stepBatch", "[-1, " + ActionSpace.SIZE + "]", null, null).startsWith("ERROR")
+    );
+  }
+
+  @Test
+  public void testLegalActionIdsAreAddable() throws Exception {
+    this.commandHandler.handleCommand("newGame", null, null);
+    JsonNode ids = this.objectMapper.readTree(this.commandHandler.handleCommand("getLegalActionIds", null, null));
+    Assert.assertEquals(54, ids.size());
+
+    this.commandHandler.handleCommand("addPlayerMove", ids.get(7).asText() + ".0", "1");
+    JsonNode gameState = this.objectMapper.readTree(this.commandHandler.handleCommand("makeMove", null, null));
+    Assert.assertEquals(1, gameState.get("successful").get(0).get(0).asInt());
+  }
+
+  @Test
+  public void testStepRepliesWithObservationAndLegalIds() throws Exception {
+    this.commandHandler.handleCommand("newGame", null, null);
+    JsonNode reply = this.objectMapper.readTree(this.commandHandler.handleStep("[2.0, 0.0]", null, 7L, null));
+
+    Assert.assertEquals(7, reply.get("requestId").asInt());
+    Assert.assertEquals(1, reply.get("reward").asInt());
+    Assert.assertFalse(reply.get("done").asBoolean());
+    Assert.assertEquals(1, reply.get("observation").get("nodes").get(0).get(0).asInt());
+    // Player one places the first road next, on one of the edges of node 0.
+    JsonNode ids = reply.get("legalActionIds");
+    Assert.assertTrue(ids.size() > 0);
+    for (JsonNode id : ids) {
+      Assert.assertEquals(Action.PLAY_ROAD.getValue(), ActionSpace.decode(id.asInt())[0]);
+    }
+
+    JsonNode failed = this.objectMapper.readTree(this.commandHandler.handleStep("[2.0, 0.0]", null, "x", null));
+    Assert.assertEquals(-1, failed.get("reward").asInt());
+    JsonNode error = this.objectMapper.readTree(this.commandHandler.handleStep("[2.0, 0.0]", 3, "y", null));
+    Assert.assertEquals("y", error.get("requestId").asText());
+    Assert.assertTrue(error.has("error"));
+  }
+
+  @Test
+  public void testBinaryStepStepsBatchedGame() {
+    this.commandHandler.handleCommand("newGames", null, null, 2);
+    int settlementAtNode5 = ActionSpace.encode(new int[] {Action.PLAY_SETTLEMENT.getValue(), 5});
+    ByteBuffer frame = ByteBuffer
+        .wrap(this.commandHandler.handleBinaryStep(settlementAtNode5 + ".0", 1, 42, null))
+        .order(ByteOrder.LITTLE_ENDIAN);
+
+    Assert.assertEquals(42, frame.getInt(0));
+    Assert.assertEquals(1, frame.getShort(4));
+    Assert.assertEquals(0, frame.getShort(6));
+    int legalCount = frame.getShort(8 + 2 * GameState.BINARY_LENGTH);
+    Assert.assertTrue(legalCount > 0);
+    Assert.assertEquals(10 + 2 * (GameState.BINARY_LENGTH + legalCount), frame.capacity());
+    Assert.assertNull(this.commandHandler.handleBinaryStep("[2.0, 5.0]", 2, 43, null));
+  }
+
+  @Test
+  public void testPersistedStepsAreQueuedWithFailedAttempts() {
+    List<GameStateRow> rows = Collections.synchronizedList(new ArrayList<>());
+    GameStatePersister persister = new GameStatePersister(
+        rows::addAll, 16, 16, Duration.ZERO, GameStatePersister.OverflowPolicy.BLOCK, Duration.ZERO
+    );
+    SocketCommandHandler persisting = new SocketCommandHandler(persister);
+    persisting.handleCommand("newGame", null, null);
+    persisting.handleStep("[2.0, 60.0]", null, null, 9L);
+    persisting.handleStep("[2.0, 4.0]", null, null, 9L);
+    persisting.handleStep("[15.0]", null, null, null);
+    persister.close();
+
+    Assert.assertEquals(1, rows.size());
+    Assert.assertEquals(9, rows.get(0).getGameId());
+    Assert.assertEquals(1, rows.get(0).getNumAttemptedActionsBeforeSuccessful());
+    Assert.assertEquals(4, rows.get(0).getActionMetadata()[0]);
+    Assert.assertEquals(1, rows.get(0).getGameState().getNodes()[4][0]);
+  }
+
+  @Test
+  public void testStepBatchRejectsWrongNumberOfActions() {
+    this.commandHandler.handleCommand("newGames", null, null, 2);
+    Assert.assertTrue(this.commandHandler.handleCommand("stepBatch", "[[15, 0]]", null, null).startsWith("ERROR"));
+  }
+
+  @Test
+  public void testStepBatchRejectsMissingOrMalformedActions() {
+    this.commandHandler.handleCommand("newGames", null, null, 2);
+    Assert.assertEquals(
+        SocketCommandHandler.BAD_BATCH_ACTIONS, this.commandHandler.handleCommand("stepBatch", null, null, null)
+    );
+    Assert.assertEquals(
+        SocketCommandHandler.BAD_BATCH_ACTIONS, this.commandHandler.handleCommand("stepBatch", "[[15, 0", null, null)
+    );
+    Assert.assertNull(this.commandHandler.handleBinaryCommand("stepBatch", null, null));
+    Assert.assertNull(this.commandHandler.handleBinaryCommand("stepBatch", "{}", null));
+  }
+
+  @Test
+  public void testNewGamesRejectsCountAboveMaximum() {
+    int tooMany = SocketCommandHandler.MAX_BATCH_GAMES + 1;
+    Assert.assertEquals(
+        SocketCommandHandler.BAD_BATCH_COUNT, this.commandHandler.handleCommand("newGames", null, null, tooMany)
+    );
+    Assert.assertNull(this.commandHandler.handleBinaryCommand("newGames", null, tooMany));
+    Assert.assertTrue(this.commandHandler.batchGames.isEmpty());
+  }
+
+  @Test
+  public void testBinaryFrameMatchesJson() throws Exception {
+    this.commandHandler.handleCommand("newGame", null, null);
+    this.commandHandler.handleCommand("addPlayerMove", "[2, 0]", "1");
+    ByteBuffer frame = ByteBuffer
+        .wrap(this.commandHandler.handleBinaryCommand("makeMove", null, null))
+        .order(ByteOrder.LITTLE_ENDIAN);
+    JsonNode json = this.objectMapper.readTree(this.commandHandler.handleCommand("getCurrentGamestate", null, null));
+
+    Assert.assertEquals(2 * (2 + GameState.BINARY_LENGTH), frame.capacity());
+    Assert.assertEquals(1, frame.getShort(0));
+    Assert.assertEquals(1, frame.getShort(2));
+    // Tiles come first, two values per tile.
+    Assert.assertEquals(json.get("tiles").get(0).get(0).asInt(), frame.getShort(4));
+    Assert.assertEquals(json.get("tiles").get(0).get(1).asInt(), frame.getShort(6));
+    // The action state is the last value.
+    Assert.assertEquals(json.get("actionState").get(0).get(0).asInt(), frame.getShort(frame.capacity() - 2));
+  }
+}
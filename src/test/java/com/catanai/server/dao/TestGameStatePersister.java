@@ -0,0 +1,206 @@
+package com.catanai.server.dao;
+
+import com.catanai.server.model.Game;
+import com.catanai.server.model.gamestate.GameState;
+import com.catanai.server.model.player.DeterministicPlayer;
+import com.catanai.server.model.player.Player;
+import com.catanai.server.model.player.PlayerID;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests the batching and overflow policies of the gamestate persister.
+ */
+public class TestGameStatePersister {
+  private GameState gameState;
+  private List<Long> writtenIds;
+
+  /**
+   * Setup a gamestate snapshot to write.
+   */
+  @Before
+  public void setUp() {
+    List<Player> players = new ArrayList<>();
+    for (PlayerID id : PlayerID.values()) {
+      players.add(new DeterministicPlayer(id));
+    }
+    this.gameState = new GameState(new Game(players));
+    this.writtenIds = Collections.synchronizedList(new ArrayList<>());
+  }
+
+  @Test
+  public void testRowsAreWrittenInBatches() {
+    List<Integer> batchSizes = Collections.synchronizedList(new ArrayList<>());
+    GameStatePersister persister = new GameStatePersister(
+        batch -> {
+          batchSizes.add(batch.size());
+          this.record(batch);
+        },
+        10_000,
+        100,
+        Duration.ofSeconds(10),
+        GameStatePersister.OverflowPolicy.BLOCK,
+        Duration.ofSeconds(1)
+    );
+    for (int i = 0; i < 250; i++) {
+      Assert.assertTrue(persister.submit(this.row(i)));
+    }
+    persister.close();
+
+    Assert.assertEquals(250, persister.getWrittenCount());
+    Assert.assertEquals(250, this.writtenIds.size());
+    for (int size : batchSizes) {
+      Assert.assertTrue(size <= 100);
+    }
+    Assert.assertFalse(persister.submit(this.row(250)));
+  }
+
+  @Test
+  public void testDropNewestKeepsQueuedRows() throws Exception {
+    CountDownLatch release = new CountDownLatch(1);
+    GameStatePersister persister = this.stalledPersister(release, GameStatePersister.OverflowPolicy.DROP_NEWEST);
+    Assert.assertTrue(persister.submit(this.row(1)));
+    Assert.assertTrue(persister.submit(this.row(2)));
+    Assert.assertFalse(persister.submit(this.row(3)));
+    release.countDown();
+    persister.close();
+
+    Assert.assertEquals(List.of(0L, 1L, 2L), this.writtenIds);
+    Assert.assertEquals(1, persister.getDroppedCount());
+  }
+
+  @Test
+  public void testDropOldestKeepsNewestRows() throws Exception {
+    CountDownLatch release = new CountDownLatch(1);
+    GameStatePersister persister = this.stalledPersister(release, GameStatePersister.OverflowPolicy.DROP_OLDEST);
+    Assert.assertTrue(persister.submit(this.row(1)));
+    Assert.assertTrue(persister.submit(this.row(2)));
+    Assert.assertTrue(persister.submit(this.row(3)));
+    release.countDown();
+    persister.close();
+
+    Assert.assertEquals(List.of(0L, 2L, 3L), this.writtenIds);
+    Assert.assertEquals(1, persister.getDroppedCount());
+  }
+
+  @Test
+  public void testFailedBatchesAreCounted() {
+    GameStatePersister persister = new GameStatePersister(
+        batch -> {
+          throw new IllegalStateException("Database is down.");
+        },
+        10,
+        10,
+        Duration.ZERO,
+        GameStatePersister.OverflowPolicy.DROP_NEWEST,
+        Duration.ZERO
+    );
+    persister.submit(this.row(0));
+    persister.close();
+    Assert.assertEquals(1, persister.getFailedCount());
+    Assert.assertEquals(0, persister.getWrittenCount());
+  }
+
+  @Test
+  public void testCloseDoesNotInterruptWriter() throws Exception {
+    CountDownLatch release = new CountDownLatch(1);
+    AtomicBoolean interrupted = new AtomicBoolean();
+    Consumer<List<GameStateRow>> writer = batch -> {
+      try {
+        release.await();
+      } catch (InterruptedException e) {
+        interrupted.set(true);
+      }
+      this.record(batch);
+    };
+    GameStatePersister persister = new GameStatePersister(
+        writer, 10, 1, Duration.ZERO, GameStatePersister.OverflowPolicy.DROP_NEWEST, Duration.ZERO
+    );
+    persister.submit(this.row(0));
+    persister.submit(this.row(1));
+    Thread closer = new Thread(persister::close);
+    closer.start();
+    while (closer.getState() != Thread.State.WAITING) {
+      Thread.sleep(1);
+    }
+    release.countDown();
+    closer.join();
+
+    Assert.assertFalse(interrupted.get());
+    Assert.assertEquals(List.of(0L, 1L), this.writtenIds);
+    Assert.assertEquals(2, persister.getWrittenCount());
+  }
+
+  @Test
+  public void testEveryRowSubmittedDuringCloseIsCounted() throws Exception {
+    GameStatePersister persister = new GameStatePersister(
+        this::record, 100, 10, Duration.ZERO, GameStatePersister.OverflowPolicy.DROP_OLDEST, Duration.ZERO
+    );
+    AtomicLong submitted = new AtomicLong();
+    List<Thread> submitters = new ArrayList<>();
+    for (int t = 0; t < 4; t++) {
+      Thread submitter = new Thread(() -> {
+        for (long i = 0; ; i++) {
+          submitted.incrementAndGet();
+          if (!persister.submit(this.row(i)) && i > 1_000) {
+            return;
+          }
+        }
+      });
+      submitters.add(submitter);
+      submitter.start();
+    }
+    while (submitted.get() < 10_000) {
+      Thread.sleep(1);
+    }
+    persister.close();
+    for (Thread submitter : submitters) {
+      submitter.join();
+    }
+
+    Assert.assertEquals(0, persister.getQueuedCount());
+    Assert.assertEquals(0, persister.getFailedCount());
+    Assert.assertEquals(submitted.get(), persister.getWrittenCount() + persister.getDroppedCount());
+    Assert.assertEquals(persister.getWrittenCount(), this.writtenIds.size());
+  }
+
+  /**
+   * Creates a persister with room for 2 rows, whose writer is stuck on row 0 until released.
+   */
+  private GameStatePersister stalledPersister(CountDownLatch release, GameStatePersister.OverflowPolicy policy)
+      throws InterruptedException {
+    Consumer<List<GameStateRow>> writer = batch -> {
+      try {
+        release.await();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      this.record(batch);
+    };
+    GameStatePersister persister = new GameStatePersister(writer, 2, 1, Duration.ZERO, policy, Duration.ZERO);
+    persister.submit(this.row(0));
+    while (persister.getQueuedCount() > 0) {
+      Thread.sleep(1);
+    }
+    return persister;
+  }
+
+  private void record(List<GameStateRow> batch) {
+    for (GameStateRow row : batch) {
+      this.writtenIds.add(row.getGameId());
+    }
+  }
+
+  private GameStateRow row(long gameId) {
+    return new GameStateRow(gameId, this.gameState, 0, 1, new int[] {0});
+  }
+}
@@ -0,0 +1,87 @@
+package com.catanai.server.dao;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.StringWriter;
+import java.lang.reflect.Proxy;
+import java.sql.Array;
+import java.sql.ResultSet;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests reading stored gamestates into primitive arrays and writing them as JSON lines.
+ */
+public class TestStoredGameState {
+  @Test
+  public void testMapperReadsSmallintArrays() throws Exception {
+    Object[] columns = {
+      7L, 3L,
+      sqlArray(new Short[][] {{1, 2}, {3, 4}}),
+      sqlArray(new Short[][] {{5}}),
+      sqlArray(new Short[][] {{6, 7}}),
+      sqlArray(new Short[] {19, 18}),
+      sqlArray(new Short[] {-1, 0, 2}),
+      sqlArray(new Short[][] {{1}}),
+      sqlArray(new Short[][] {{2}}),
+      sqlArray(new Short[][] {{3}}),
+      null,
+      8, 2, 15, 4L, 0.5
+    };
+    StoredGameState gameState = new GameStatesDAO.StoredGameStateMapper().mapRow(resultSet(columns), 0);
+
+    Assert.assertEquals(7, gameState.getId());
+    Assert.assertEquals(3, gameState.getGameId());
+    Assert.assertArrayEquals(new int[] {3, 4}, gameState.getTiles()[1]);
+    Assert.assertArrayEquals(new int[] {-1, 0, 2}, gameState.getEdges());
+    Assert.assertEquals(0, gameState.getPorts().length);
+    Assert.assertEquals(8, gameState.getLastRoll());
+    Assert.assertEquals(15, gameState.getActionId());
+
+    StringWriter json = new StringWriter();
+    try (JsonGenerator generator = new JsonFactory().createGenerator(json)) {
+      gameState.writeJson(generator);
+    }
+    JsonNode node = new ObjectMapper().readTree(json.toString());
+    Assert.assertEquals(3, node.get("game_id").asInt());
+    Assert.assertEquals(4, node.get("tiles").get(1).get(1).asInt());
+    Assert.assertEquals(19, node.get("banks").get(0).asInt());
+    Assert.assertEquals(15, node.get("actionID").asInt());
+    Assert.assertEquals(0.5, node.get("reward").asDouble(), 0);
+  }
+
+  /**
+   * Returns a result set positioned on a single row holding the given columns.
+   */
+  private static ResultSet resultSet(Object[] columns) {
+    return (ResultSet) Proxy.newProxyInstance(
+        ResultSet.class.getClassLoader(),
+        new Class<?>[] {ResultSet.class},
+        (proxy, method, args) -> {
+          Object value = columns[(Integer) args[0] - 1];
+          switch (method.getName()) {
+            case "getArray":
+              return value;
+            case "getLong":
+              return ((Number) value).longValue();
+            case "getInt":
+              return ((Number) value).intValue();
+            case "getDouble":
+              return ((Number) value).doubleValue();
+            default:
+              throw new UnsupportedOperationException(method.getName());
+          }
+        }
+    );
+  }
+
+  private static Array sqlArray(Object[] values) {
+    return (Array) Proxy.newProxyInstance(
+        Array.class.getClassLoader(),
+        new Class<?>[] {Array.class},
+        (proxy, method, args) -> "getArray".equals(method.getName()) ? values : null
+    );
+  }
+}
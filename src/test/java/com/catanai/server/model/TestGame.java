@@ -1,11 +1,22 @@
 package com.catanai.server.model;
 
+import com.catanai.server.model.action.ActionExecutor;
+import com.catanai.server.model.action.ActionState;
+import com.catanai.server.model.bank.card.ResourceCard;
 import com.catanai.server.model.board.Board;
+import com.catanai.server.model.board.building.City;
+import com.catanai.server.model.board.building.Settlement;
+import com.catanai.server.model.board.graph.BoardTopology;
+import com.catanai.server.model.board.graph.Node;
+import com.catanai.server.model.board.tile.Tile;
+import com.catanai.server.model.gamestate.GameState;
 import com.catanai.server.model.player.DeterministicPlayer;
 import com.catanai.server.model.player.Player;
 import com.catanai.server.model.player.PlayerID;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
@@ -33,4 +44,190 @@ public class TestGame {
   public void testGameInitialization() {
     Assert.assertTrue(game.getBoard().getClass().equals(Board.class));
   }
-}
\ No newline at end of file
+
+  @Test
+  public void testForkIsIndependent() {
+    int[][] startingMoves = {
+      {2, 0}, {1, 0}, {2, 1}, {1, 2}, {2, 2}, {1, 4}, {2, 7}, {1, 10},
+      {2, 8}, {1, 12}, {2, 9}, {1, 14}, {2, 10}, {1, 16}, {2, 16}, {1, 23}
+    };
+    for (int i = 0; i < 8; i++) {
+      this.playMove(this.game, startingMoves[i]);
+    }
+    Game fork = this.game.fork();
+    Map<String, int[][]> forkedState = new GameState(this.game).toMap();
+    assertSameState(forkedState, new GameState(fork).toMap());
+
+    // Playing the fork leaves the game as it was.
+    for (int i = 8; i < startingMoves.length; i++) {
+      this.playMove(fork, startingMoves[i]);
+    }
+    assertSameState(forkedState, new GameState(this.game).toMap());
+    Assert.assertNull(this.game.getBoard().getNodes().get(8).getBuilding());
+    Assert.assertNotNull(fork.getBoard().getNodes().get(8).getBuilding());
+
+    // Playing the same moves on the game catches it up with the fork.
+    for (int i = 8; i < startingMoves.length; i++) {
+      this.playMove(this.game, startingMoves[i]);
+    }
+    assertSameState(new GameState(this.game).toMap(), new GameState(fork).toMap());
+    Assert.assertEquals(
+        this.game.getActionExecutor().getActionStateMachine().getCurrentActionState(),
+        fork.getActionExecutor().getActionStateMachine().getCurrentActionState()
+    );
+  }
+
+  @Test
+  public void testUndoRestoresEveryPriorState() {
+    int[][] startingMoves = {
+      {2, 0}, {1, 0}, {2, 1}, {1, 2}, {2, 2}, {1, 4}, {2, 7}, {1, 10},
+      {2, 8}, {1, 12}, {2, 9}, {1, 14}, {2, 10}, {1, 16}, {2, 16}, {1, 23}
+    };
+    ActionExecutor executor = this.game.getActionExecutor();
+    executor.setRecordingUndo(true);
+    this.game.setRecordingGameStates(true);
+    List<Map<String, int[][]>> states = new ArrayList<>();
+    List<Integer> historySizes = new ArrayList<>();
+    for (int[] move : startingMoves) {
+      states.add(new GameState(this.game).toMap());
+      historySizes.add(this.game.getGameStates().size());
+      this.playMove(this.game, move);
+    }
+    Assert.assertEquals(startingMoves.length, executor.getUndoableActionCount());
+
+    for (int i = startingMoves.length - 1; i >= 0; i--) {
+      Assert.assertTrue(executor.undo());
+      assertSameState(states.get(i), new GameState(this.game).toMap());
+      Assert.assertEquals((int) historySizes.get(i), this.game.getGameStates().size());
+    }
+    Assert.assertFalse(executor.undo());
+    Assert.assertNull(this.game.getBoard().getNodes().get(0).getBuilding());
+    Assert.assertEquals(
+        ActionState.FIRST_SETTLEMENT,
+        executor.getActionStateMachine().getCurrentActionState()
+    );
+
+    // The undone moves can be played again, reusing the undo records.
+    for (int[] move : startingMoves) {
+      this.playMove(this.game, move);
+    }
+    Assert.assertNotNull(this.game.getBoard().getNodes().get(16).getBuilding());
+  }
+
+  @Test
+  public void testSameSeedPlaysSameGame() {
+    Game first = new Game(this.game.getPlayers(), 7);
+    Game second = new Game(this.game.getPlayers(), 7);
+    assertSameState(new GameState(first).toMap(), new GameState(second).toMap());
+    for (int i = 0; i < 100; i++) {
+      int roll = first.rollDice();
+      Assert.assertEquals(roll, second.rollDice());
+      Assert.assertTrue(roll >= 2 && roll <= 12);
+    }
+  }
+
+  @Test
+  public void testForkingKeepsGameRandomness() {
+    Game forked = new Game(this.game.getPlayers(), 7);
+    Game unforked = new Game(this.game.getPlayers(), 7);
+    for (int i = 0; i < 10; i++) {
+      Game fork = forked.fork();
+      fork.rollDice();
+      fork.getDealer().getDevelopmentBank().takeCard();
+    }
+    for (int i = 0; i < 25; i++) {
+      Assert.assertEquals(unforked.rollDice(), forked.rollDice());
+      Assert.assertEquals(
+          unforked.getDealer().getDevelopmentBank().takeCard(), forked.getDealer().getDevelopmentBank().takeCard()
+      );
+    }
+  }
+
+  @Test
+  public void testProduceMatchesBuildingsOnRolledTiles() {
+    Board board = this.game.getBoard();
+    Assert.assertTrue(board.placeSettlement(new Settlement(0, PlayerID.ONE, true)));
+    Assert.assertTrue(board.placeSettlement(new Settlement(20, PlayerID.TWO, true)));
+    Assert.assertTrue(board.placeCity(new City(20, PlayerID.TWO)));
+    Assert.assertTrue(board.placeSettlement(new Settlement(43, PlayerID.THREE, true)));
+
+    for (int tile : BoardTopology.getNodeTiles(20)) {
+      // Move the robber next to player two's city, then check every roll.
+      board.placeRobber(tile);
+      for (int roll = 2; roll <= 12; roll++) {
+        int[][] expected = this.expectedProduction(roll);
+        int[][] before = this.hands();
+        this.game.produce(roll);
+        int[][] after = this.hands();
+        for (int p = 0; p < expected.length; p++) {
+          for (int r = 0; r < expected[p].length; r++) {
+            Assert.assertEquals(expected[p][r], after[p][r] - before[p][r]);
+          }
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testShortResourceGoesToSinglePlayerOwed() {
+    Board board = this.game.getBoard();
+    Assert.assertTrue(board.placeSettlement(new Settlement(20, PlayerID.TWO, true)));
+    Assert.assertTrue(board.placeCity(new City(20, PlayerID.TWO)));
+
+    // Find a roll paying player two more than 1 of a resource, and leave 1 in its bank.
+    for (int roll = 2; roll <= 12; roll++) {
+      int[][] expected = this.expectedProduction(roll);
+      for (ResourceCard card : ResourceCard.values()) {
+        if (expected[1][card.getValue()] > 1) {
+          int bankSize = this.game.getDealer().getResourceBankSize(card);
+          this.game.getDealer().drawResources(card, bankSize - 1);
+          this.game.produce(roll);
+          Assert.assertEquals(1, this.game.getPlayerByID(PlayerID.TWO).getResourceCards().get(card));
+          Assert.assertEquals(0, this.game.getDealer().getResourceBankSize(card));
+          return;
+        }
+      }
+    }
+    Assert.fail("No roll pays out more than 1 of a resource.");
+  }
+
+  /**
+   * Computes what each player is owed for a roll by scanning every tile of the board.
+   */
+  private int[][] expectedProduction(int roll) {
+    int[][] expected = new int[4][5];
+    for (Tile tile : this.game.getBoard().getTiles()) {
+      ResourceCard card = this.game.getDealer().getAssociatedResourceCard(tile.getTerrain());
+      if (tile.getTerrainChit().getValue() != roll || tile.isBlocked() || card == null) {
+        continue;
+      }
+      for (Node node : tile.getNodes()) {
+        if (node.hasBuilding()) {
+          int amount = node.getBuilding() instanceof City ? 2 : 1;
+          expected[node.getBuilding().getPlayerId().getValue() - 1][card.getValue()] += amount;
+        }
+      }
+    }
+    return expected;
+  }
+
+  private void playMove(Game g, int[] move) {
+    ((DeterministicPlayer) g.getCurrentPlayer()).addNextMove(move);
+    Assert.assertTrue(g.nextMove());
+  }
+
+  private static void assertSameState(Map<String, int[][]> expected, Map<String, int[][]> actual) {
+    Assert.assertEquals(expected.keySet(), actual.keySet());
+    for (String key : expected.keySet()) {
+      Assert.assertTrue(key, Arrays.deepEquals(expected.get(key), actual.get(key)));
+    }
+  }
+
+  private int[][] hands() {
+    int[][] hands = new int[4][5];
+    for (Player p : this.game.getPlayers()) {
+      p.getResourceCards().copyTo(hands[p.getID().getValue() - 1]);
+    }
+    return hands;
+  }
+}
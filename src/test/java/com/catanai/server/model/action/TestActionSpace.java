@@ -0,0 +1,67 @@
+package com.catanai.server.model.action;
+
+import com.catanai.server.model.Game;
+import com.catanai.server.model.player.DeterministicPlayer;
+import com.catanai.server.model.player.Player;
+import com.catanai.server.model.player.PlayerID;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests that action ids and moves map onto each other.
+ */
+public class TestActionSpace {
+  @Test
+  public void testEveryIdDecodesToAMoveEncodingBackToIt() {
+    for (int id = 0; id < ActionSpace.SIZE; id++) {
+      Assert.assertEquals(id, ActionSpace.encode(ActionSpace.decode(id)));
+    }
+    Assert.assertEquals(
+        ActionSpace.SIZE,
+        ActionSpace.getActionOffset(Action.ROLL_DICE) + ActionSpace.getActionSize(Action.ROLL_DICE)
+    );
+  }
+
+  @Test
+  public void testMovesOutsideTheSpaceAreNotEncoded() {
+    Assert.assertEquals(-1, ActionSpace.encode(new int[] {Action.OFFER_TRADE.getValue(), 1, 0, 0, 0, 0, 0}));
+    Assert.assertEquals(-1, ActionSpace.encode(new int[] {Action.PLAY_ROAD.getValue(), 72}));
+    Assert.assertEquals(-1, ActionSpace.encode(new int[] {Action.PLAY_ROAD_BUILDING.getValue(), 3, 3}));
+    Assert.assertEquals(-1, ActionSpace.encode(new int[] {Action.DISCARD.getValue(), 13, 0, 0, 0, 0}));
+    Assert.assertEquals(
+        ActionSpace.encode(new int[] {Action.PLAY_YEAR_OF_PLENTY.getValue(), 1, 3}),
+        ActionSpace.encode(new int[] {Action.PLAY_YEAR_OF_PLENTY.getValue(), 3, 1})
+    );
+  }
+
+  @Test
+  public void testListedMovesRoundTrip() {
+    List<Player> players = new ArrayList<>();
+    for (PlayerID id : PlayerID.values()) {
+      players.add(new DeterministicPlayer(id));
+    }
+    Game game = new Game(players, 5);
+    LegalActionEnumerator legalActions = new LegalActionEnumerator();
+    boolean[] mask = new boolean[ActionSpace.SIZE];
+    SplittableRandom random = new SplittableRandom(5);
+    for (int step = 0; step < 200 && !game.hasEnded(); step++) {
+      int count = legalActions.enumerate(game);
+      if (count == 0) {
+        return;
+      }
+      Assert.assertEquals(count, ActionSpace.fillLegalMask(legalActions, mask));
+      for (int i = 0; i < count; i++) {
+        int id = ActionSpace.encode(legalActions.get(i));
+        Assert.assertTrue(mask[id]);
+        Assert.assertArrayEquals(legalActions.get(i), ActionSpace.decode(id));
+      }
+      int[] move = legalActions.get(random.nextInt(count)).clone();
+      ((DeterministicPlayer) game.getCurrentPlayer()).addNextMove(move);
+      Assert.assertTrue(game.nextMove());
+    }
+  }
+}
@@ -0,0 +1,81 @@
+package com.catanai.server.model.action;
+
+import com.catanai.server.model.Game;
+import com.catanai.server.model.bank.card.ResourceCard;
+import com.catanai.server.model.board.graph.BoardTopology;
+import com.catanai.server.model.player.DeterministicPlayer;
+import com.catanai.server.model.player.Player;
+import com.catanai.server.model.player.PlayerID;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests that the legal action enumerator lists actions the game accepts.
+ */
+public class TestLegalActionEnumerator {
+  private Game game;
+  private LegalActionEnumerator legalActions;
+
+  /**
+   * Setup game for future test cases.
+   */
+  @Before
+  public void setUp() {
+    List<Player> players = new ArrayList<>();
+    for (PlayerID id : PlayerID.values()) {
+      players.add(new DeterministicPlayer(id));
+    }
+    this.game = new Game(players);
+    this.legalActions = new LegalActionEnumerator();
+  }
+
+  @Test
+  public void testFirstSettlementListsEveryNode() {
+    Assert.assertEquals(BoardTopology.NUM_NODES, this.legalActions.enumerate(this.game));
+    for (int i = 0; i < BoardTopology.NUM_NODES; i++) {
+      Assert.assertEquals(Action.PLAY_SETTLEMENT.getValue(), this.legalActions.get(i)[0]);
+      Assert.assertEquals(i, this.legalActions.get(i)[1]);
+    }
+  }
+
+  @Test
+  public void testEveryListedActionSucceeds() {
+    Random random = new Random(11);
+    for (int games = 0; games < 5; games++) {
+      this.setUp();
+      this.playRandomListedActions(random, 200);
+    }
+  }
+
+  /**
+   * Plays random listed actions, checking on a fork that every listed action succeeds.
+   * Stops early when nothing is listed, e.g. a discard the current player cannot make.
+   */
+  private void playRandomListedActions(Random random, int steps) {
+    for (int step = 0; step < steps && !this.game.hasEnded(); step++) {
+      // Top up small hands, so building and development cards get listed.
+      Player current = this.game.getCurrentPlayer();
+      if (current.getAmountOfResourceCardsInHand() < 3) {
+        for (ResourceCard card : ResourceCard.values()) {
+          current.addAmountToResourceCards(card, 1);
+        }
+      }
+      int count = this.legalActions.enumerate(this.game);
+      if (count == 0) {
+        return;
+      }
+      for (int i = 0; i < count; i++) {
+        Game fork = this.game.fork();
+        ((DeterministicPlayer) fork.getCurrentPlayer()).addNextMove(this.legalActions.get(i).clone());
+        Assert.assertTrue("Listed action failed at step " + step, fork.nextMove());
+      }
+      int[] move = this.legalActions.get(random.nextInt(count)).clone();
+      ((DeterministicPlayer) this.game.getCurrentPlayer()).addNextMove(move);
+      Assert.assertTrue(this.game.nextMove());
+    }
+  }
+}
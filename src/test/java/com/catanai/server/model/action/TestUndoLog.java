@@ -0,0 +1,88 @@
+package com.catanai.server.model.action;
+
+import com.catanai.server.model.Game;
+import com.catanai.server.model.bank.card.ResourceCard;
+import com.catanai.server.model.gamestate.GameState;
+import com.catanai.server.model.player.DeterministicPlayer;
+import com.catanai.server.model.player.PlayerID;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests undoing actions with an undo log.
+ */
+public class TestUndoLog {
+  private Game game;
+  private UndoLog undoLog;
+  private TradeOffer offerToTwo;
+  private TradeOffer offerToThree;
+
+  /**
+   * Setup a game in which player one has offered a trade to players two and three.
+   */
+  @Before
+  public void setUp() {
+    List<DeterministicPlayer> players = new ArrayList<>();
+    for (PlayerID id : PlayerID.values()) {
+      players.add(new DeterministicPlayer(id));
+    }
+    this.game = new Game(players, 1);
+    this.undoLog = new UndoLog(this.game, this.game.getActionExecutor().getActionStateMachine());
+
+    Map<ResourceCard, Integer> offered = Map.of(
+        ResourceCard.WOOL, 1, ResourceCard.GRAIN, 0, ResourceCard.LUMBER, 0, ResourceCard.ORE, 0, ResourceCard.BRICK, 0
+    );
+    Map<ResourceCard, Integer> requested = Map.of(
+        ResourceCard.WOOL, 0, ResourceCard.GRAIN, 0, ResourceCard.LUMBER, 0, ResourceCard.ORE, 0, ResourceCard.BRICK, 1
+    );
+    this.offerToTwo = new TradeOffer(PlayerID.ONE, offered, PlayerID.TWO, requested);
+    this.offerToThree = new TradeOffer(PlayerID.ONE, offered, PlayerID.THREE, requested);
+    this.game.addTradeOffer(this.offerToTwo);
+    this.game.addTradeOffer(this.offerToThree);
+  }
+
+  @Test
+  public void testUndoingAcceptRestoresResponses() {
+    Map<String, int[][]> before = new GameState(this.game).toMap();
+    this.undoLog.push(Action.ACCEPT_TRADE, null);
+    // Accepting answers the live offer.
+    this.offerToTwo.setReceivingAccepted(true);
+    this.offerToTwo.setOfferingAccepted(true);
+
+    this.undoLog.pop();
+    assertSameState(before, new GameState(this.game).toMap());
+    Assert.assertEquals(List.of(this.offerToTwo, this.offerToThree), this.game.getTradeOffers());
+    Assert.assertNull(this.offerToTwo.getReceivingAccepted());
+    Assert.assertNull(this.offerToTwo.getOfferingAccepted());
+  }
+
+  @Test
+  public void testUndoingDeclineRestoresOfferAndResponses() {
+    this.offerToTwo.setReceivingAccepted(true);
+    Map<String, int[][]> before = new GameState(this.game).toMap();
+    this.undoLog.push(Action.DECLINE_TRADE, null);
+    // Declining answers the live offer and withdraws it.
+    this.offerToThree.setReceivingAccepted(false);
+    this.game.removeTradeOffer(this.offerToThree);
+    this.offerToTwo.setReceivingAccepted(false);
+
+    this.undoLog.pop();
+    assertSameState(before, new GameState(this.game).toMap());
+    Assert.assertEquals(List.of(this.offerToTwo, this.offerToThree), this.game.getTradeOffers());
+    Assert.assertEquals(Boolean.TRUE, this.offerToTwo.getReceivingAccepted());
+    Assert.assertNull(this.offerToThree.getReceivingAccepted());
+    Assert.assertTrue(this.undoLog.isEmpty());
+  }
+
+  private static void assertSameState(Map<String, int[][]> expected, Map<String, int[][]> actual) {
+    Assert.assertEquals(expected.keySet(), actual.keySet());
+    for (String key : expected.keySet()) {
+      Assert.assertTrue(key, Arrays.deepEquals(expected.get(key), actual.get(key)));
+    }
+  }
+}
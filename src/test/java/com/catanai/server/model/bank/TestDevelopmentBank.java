@@ -64,6 +64,23 @@ public class TestDevelopmentBank {
     Assert.assertEquals(0, devBank.getCurrentBankSize());
   }
 
+  @Test
+  public void testSameSeedDrawsSameOrder() {
+    DevelopmentBank first = new DevelopmentBank(11);
+    DevelopmentBank second = new DevelopmentBank(11);
+    for (int i = 0; i < NUM_DEV_CARDS; i++) {
+      Assert.assertEquals(first.takeCard(), second.takeCard());
+    }
+  }
+
+  @Test
+  public void testCountsDecreaseOnDraw() {
+    DevelopmentCard card = devBank.takeCard();
+    int expected = card == DevelopmentCard.KNIGHT ? 13 : 14;
+    Assert.assertEquals(expected, devBank.getCount(DevelopmentCard.KNIGHT));
+    Assert.assertEquals(NUM_DEV_CARDS - 1, devBank.getCurrentBankSize());
+  }
+
   @Test(expected = UnsupportedOperationException.class)
   public void testCannotAddCardToDevelopmentBank() {
     devBank.addCard(null);
@@ -0,0 +1,117 @@
+package com.catanai.server.model.board;
+
+import com.catanai.server.model.Game;
+import com.catanai.server.model.board.graph.Edge;
+import com.catanai.server.model.board.graph.Node;
+import com.catanai.server.model.player.DeterministicPlayer;
+import com.catanai.server.model.player.PlayerID;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests the incremental legal move generator against the board graph.
+ */
+public class TestLegalMoveGenerator {
+  private Game game;
+  private List<DeterministicPlayer> players;
+  private int[][] startingMoves;
+
+  /**
+   * Setup game for future test cases.
+   */
+  @Before
+  public void setUp() {
+    this.players = new ArrayList<DeterministicPlayer>();
+    players.add(new DeterministicPlayer(PlayerID.ONE));
+    players.add(new DeterministicPlayer(PlayerID.TWO));
+    players.add(new DeterministicPlayer(PlayerID.THREE));
+    players.add(new DeterministicPlayer(PlayerID.FOUR));
+    this.game = new Game(players);
+
+    // Starting moves in the order they are played.
+    this.startingMoves = new int[][] {
+      { 2, 0 }, { 1, 0 }, { 2, 1 }, { 1, 2 }, { 2, 2 }, { 1, 4 }, { 2, 7 }, { 1, 10 },
+      { 2, 8 }, { 1, 12 }, { 2, 9 }, { 1, 14 }, { 2, 10 }, { 1, 16 }, { 2, 16 }, { 1, 23 },
+    };
+  }
+
+  /**
+   * Teardown class variables after tests.
+   */
+  @After
+  public void tearDown() {
+    this.game = null;
+    this.players = null;
+    this.startingMoves = null;
+  }
+
+  @Test
+  public void testMasksMatchBoardAfterEveryMove() {
+    for (int[] move : this.startingMoves) {
+      this.players.get(this.game.getCurrentPlayer().getID().getValue() - 1).addNextMove(move);
+      Assert.assertTrue(this.game.nextMove());
+      for (PlayerID id : PlayerID.values()) {
+        assertMatchesBoard(this.game.getBoard(), id);
+      }
+    }
+  }
+
+  @Test
+  public void testStartingPlacementMasks() {
+    Map<String, boolean[]> masks = this.game.getLegalPlacementMasks();
+    Assert.assertEquals(72, masks.get("roads").length);
+    Assert.assertEquals(54, masks.get("settlements").length);
+    Assert.assertEquals(54, masks.get("cities").length);
+    for (boolean legal : masks.get("settlements")) {
+      Assert.assertTrue(legal);
+    }
+
+    this.players.get(0).addNextMove(this.startingMoves[0]);
+    Assert.assertTrue(this.game.nextMove());
+
+    // Only the edges of the settlement just placed are legal for the first road.
+    masks = this.game.getLegalPlacementMasks();
+    List<Edge> settlementEdges = this.game.getBoard().getNodes().get(0).getConnectedEdges();
+    for (Edge e : this.game.getBoard().getEdges()) {
+      Assert.assertEquals(settlementEdges.contains(e), masks.get("roads")[e.getIndex()]);
+    }
+    for (int i = 0; i < 54; i++) {
+      Assert.assertFalse(masks.get("settlements")[i]);
+      Assert.assertFalse(masks.get("cities")[i]);
+    }
+  }
+
+  private static void assertMatchesBoard(Board board, PlayerID id) {
+    LegalMoveGenerator legalMoves = board.getLegalMoves();
+    boolean[] roads = legalMoves.getLegalRoads(id);
+    for (Edge e : board.getEdges()) {
+      boolean expected = !e.hasRoad()
+          && (e.getNodes().stream().anyMatch(n -> n.hasBuilding() && n.getBuilding().getPlayerId() == id)
+          || e.getNodes().stream()
+              .flatMap(n -> n.getConnectedEdges().stream())
+              .anyMatch(other -> other.hasRoad() && other.getRoad().getPlayerId() == id));
+      Assert.assertEquals("edge " + e.getIndex(), expected, roads[e.getIndex()]);
+    }
+
+    boolean[] startingSettlements = legalMoves.getLegalSettlements(id, true);
+    boolean[] settlements = legalMoves.getLegalSettlements(id, false);
+    boolean[] cities = legalMoves.getLegalCities(id);
+    for (Node n : board.getNodes()) {
+      boolean free = !n.hasBuilding()
+          && n.getConnectedEdges().stream()
+              .flatMap(e -> e.getNodes().stream())
+              .noneMatch(Node::hasBuilding);
+      boolean touchesRoad = n.getConnectedEdges().stream()
+          .anyMatch(e -> e.hasRoad() && e.getRoad().getPlayerId() == id);
+      boolean ownsSettlement = n.hasBuilding() && n.getBuilding().getPlayerId() == id;
+      Assert.assertEquals("node " + n.getIndex(), free, startingSettlements[n.getIndex()]);
+      Assert.assertEquals("node " + n.getIndex(), free && touchesRoad, settlements[n.getIndex()]);
+      Assert.assertEquals("node " + n.getIndex(), ownsSettlement, cities[n.getIndex()]);
+    }
+  }
+}
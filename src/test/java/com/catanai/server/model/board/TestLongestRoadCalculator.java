@@ -0,0 +1,198 @@
+package com.catanai.server.model.board;
+
+import com.catanai.server.model.board.graph.BoardTopology;
+import com.catanai.server.model.player.PlayerID;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests the longest road calculator on road shapes built from the board topology.
+ */
+public class TestLongestRoadCalculator {
+  private LongestRoadCalculator calculator;
+
+  /**
+   * Setup an empty calculator for future test cases.
+   */
+  @Before
+  public void setUp() {
+    this.calculator = new LongestRoadCalculator();
+  }
+
+  /**
+   * Teardown class variables after tests.
+   */
+  @After
+  public void tearDown() {
+    this.calculator = null;
+  }
+
+  @Test
+  public void testStraightRoad() {
+    List<Integer> path = walk(0, 6);
+    this.placeRoads(path, PlayerID.ONE);
+    Assert.assertEquals(6, this.calculator.getLongestRoad(PlayerID.ONE));
+    Assert.assertEquals(0, this.calculator.getLongestRoad(PlayerID.TWO));
+  }
+
+  @Test
+  public void testBranchDoesNotAddToRoad() {
+    List<Integer> path = walk(0, 4);
+    this.placeRoads(path, PlayerID.ONE);
+
+    // Add a spur on the node between the first and second road.
+    int branchNode = sharedNode(path.get(0), path.get(1));
+    for (int edge : BoardTopology.getNodeEdges(branchNode)) {
+      if (!path.contains(edge)) {
+        this.calculator.roadPlaced(edge, PlayerID.ONE);
+        break;
+      }
+    }
+    Assert.assertEquals(4, this.calculator.getLongestRoad(PlayerID.ONE));
+  }
+
+  @Test
+  public void testLoopAndTail() {
+    // The 6 edges around the centre tile form a loop.
+    List<Integer> loop = new ArrayList<>();
+    int[] tileNodes = BoardTopology.getTileNodes(9);
+    for (int edge = 0; edge < BoardTopology.NUM_EDGES; edge++) {
+      int[] edgeNodes = BoardTopology.getEdgeNodes(edge);
+      if (contains(tileNodes, edgeNodes[0]) && contains(tileNodes, edgeNodes[1])) {
+        loop.add(edge);
+      }
+    }
+    Assert.assertEquals(6, loop.size());
+    this.placeRoads(loop, PlayerID.ONE);
+    Assert.assertEquals(6, this.calculator.getLongestRoad(PlayerID.ONE));
+
+    // A road leading away from the loop extends it.
+    for (int edge : BoardTopology.getNodeEdges(tileNodes[0])) {
+      if (!loop.contains(edge)) {
+        this.calculator.roadPlaced(edge, PlayerID.ONE);
+        break;
+      }
+    }
+    Assert.assertEquals(7, this.calculator.getLongestRoad(PlayerID.ONE));
+  }
+
+  @Test
+  public void testOpponentSettlementBreaksRoad() {
+    List<Integer> path = walk(0, 6);
+    this.placeRoads(path, PlayerID.ONE);
+
+    this.calculator.settlementPlaced(sharedNode(path.get(1), path.get(2)), PlayerID.TWO);
+    Assert.assertEquals(4, this.calculator.getLongestRoad(PlayerID.ONE));
+  }
+
+  @Test
+  public void testOwnSettlementDoesNotBreakRoad() {
+    List<Integer> path = walk(0, 6);
+    this.placeRoads(path, PlayerID.ONE);
+
+    this.calculator.settlementPlaced(sharedNode(path.get(1), path.get(2)), PlayerID.ONE);
+    Assert.assertEquals(6, this.calculator.getLongestRoad(PlayerID.ONE));
+  }
+
+  @Test
+  public void testIncrementalMatchesFullSearch() {
+    Random random = new Random(7);
+    for (int game = 0; game < 50; game++) {
+      LongestRoadCalculator incremental = new LongestRoadCalculator();
+      long roadsLow = 0;
+      long roadsHigh = 0;
+      long broken = 0;
+      for (int move = 0; move < 30; move++) {
+        if (random.nextInt(4) == 0) {
+          int node = random.nextInt(BoardTopology.NUM_NODES);
+          incremental.settlementPlaced(node, PlayerID.TWO);
+          broken |= 1L << node;
+        } else {
+          int edge = random.nextInt(BoardTopology.NUM_EDGES);
+          incremental.roadPlaced(edge, PlayerID.ONE);
+          if (edge < 64) {
+            roadsLow |= 1L << edge;
+          } else {
+            roadsHigh |= 1L << (edge - 64);
+          }
+        }
+        Assert.assertEquals(
+            LongestRoadCalculator.longestRoad(roadsLow, roadsHigh, broken),
+            incremental.getLongestRoad(PlayerID.ONE)
+        );
+      }
+    }
+  }
+
+  @Test
+  public void testLongestRoadHolder() {
+    // Nobody has a road of 5.
+    Assert.assertEquals(-1, LongestRoadCalculator.longestRoadHolder(new int[] {4, 3, 0, 0}, -1));
+    // A single player with a road of 5 gets it.
+    Assert.assertEquals(1, LongestRoadCalculator.longestRoadHolder(new int[] {4, 5, 0, 0}, -1));
+    // The holder keeps it on a tie.
+    Assert.assertEquals(1, LongestRoadCalculator.longestRoadHolder(new int[] {5, 5, 0, 0}, 1));
+    // A longer road takes it.
+    Assert.assertEquals(0, LongestRoadCalculator.longestRoadHolder(new int[] {6, 5, 0, 0}, 1));
+    // A broken holder loses it to a single longer road, or to no one on a tie.
+    Assert.assertEquals(2, LongestRoadCalculator.longestRoadHolder(new int[] {5, 3, 6, 0}, 1));
+    Assert.assertEquals(-1, LongestRoadCalculator.longestRoadHolder(new int[] {6, 3, 6, 0}, 1));
+    // A holder broken below 5 loses it.
+    Assert.assertEquals(-1, LongestRoadCalculator.longestRoadHolder(new int[] {4, 4, 0, 0}, 1));
+  }
+
+  //****************************************************************************
+  //********************************* Helpers **********************************
+  //****************************************************************************
+
+  private void placeRoads(List<Integer> edges, PlayerID playerId) {
+    for (int edge : edges) {
+      this.calculator.roadPlaced(edge, playerId);
+    }
+  }
+
+  /**
+   * Walks the given amount of edges from a node without visiting a node twice.
+   */
+  private static List<Integer> walk(int startNode, int length) {
+    List<Integer> path = new ArrayList<>();
+    List<Integer> visitedNodes = new ArrayList<>();
+    int node = startNode;
+    visitedNodes.add(node);
+    while (path.size() < length) {
+      boolean moved = false;
+      for (int edge : BoardTopology.getNodeEdges(node)) {
+        int[] edgeNodes = BoardTopology.getEdgeNodes(edge);
+        int next = edgeNodes[0] == node ? edgeNodes[1] : edgeNodes[0];
+        if (!visitedNodes.contains(next)) {
+          path.add(edge);
+          visitedNodes.add(next);
+          node = next;
+          moved = true;
+          break;
+        }
+      }
+      Assert.assertTrue(moved);
+    }
+    return path;
+  }
+
+  private static int sharedNode(int edge1, int edge2) {
+    int[] nodes1 = BoardTopology.getEdgeNodes(edge1);
+    return contains(BoardTopology.getEdgeNodes(edge2), nodes1[0]) ? nodes1[0] : nodes1[1];
+  }
+
+  private static boolean contains(int[] values, int value) {
+    for (int v : values) {
+      if (v == value) {
+        return true;
+      }
+    }
+    return false;
+  }
+}
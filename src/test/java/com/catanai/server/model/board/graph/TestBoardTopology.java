@@ -0,0 +1,55 @@
+package com.catanai.server.model.board.graph;
+
+import com.catanai.server.model.board.Board;
+import java.util.Arrays;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests the shared board topology.
+ */
+public class TestBoardTopology {
+
+  @Test
+  public void testEveryEdgeHasTwoNodes() {
+    for (int e = 0; e < BoardTopology.NUM_EDGES; e++) {
+      final int edge = e;
+      int[] nodes = BoardTopology.getEdgeNodes(e);
+      Assert.assertNotEquals(nodes[0], nodes[1]);
+      for (int node : nodes) {
+        Assert.assertTrue(Arrays.stream(BoardTopology.getNodeEdges(node)).anyMatch(other -> other == edge));
+      }
+    }
+  }
+
+  @Test
+  public void testNeighboursAreSymmetric() {
+    for (int n = 0; n < BoardTopology.NUM_NODES; n++) {
+      for (int other : BoardTopology.getNodeNeighbours(n)) {
+        final int node = n;
+        Assert.assertTrue(Arrays.stream(BoardTopology.getNodeNeighbours(other)).anyMatch(o -> o == node));
+        Assert.assertTrue((BoardTopology.getNodeNeighbourMask(n) & (1L << other)) != 0);
+      }
+    }
+    for (int e = 0; e < BoardTopology.NUM_EDGES; e++) {
+      for (int other : BoardTopology.getEdgeNeighbours(e)) {
+        final int edge = e;
+        Assert.assertNotEquals(e, other);
+        Assert.assertTrue(Arrays.stream(BoardTopology.getEdgeNeighbours(other)).anyMatch(o -> o == edge));
+      }
+    }
+  }
+
+  @Test
+  public void testBoardIsWiredFromTopology() {
+    Board board = new Board();
+    for (int n = 0; n < BoardTopology.NUM_NODES; n++) {
+      int[] connected = board.getNodes().get(n).getConnectedEdges().stream().mapToInt(Edge::getIndex).toArray();
+      Assert.assertArrayEquals(BoardTopology.getNodeEdges(n), connected);
+    }
+    for (int t = 0; t < BoardTopology.NUM_TILES; t++) {
+      int[] nodes = board.getTiles().get(t).getNodes().stream().mapToInt(Node::getIndex).toArray();
+      Assert.assertArrayEquals(BoardTopology.getTileNodes(t), nodes);
+    }
+  }
+}
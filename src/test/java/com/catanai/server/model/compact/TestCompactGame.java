@@ -0,0 +1,303 @@
+package com.catanai.server.model.compact;
+
+import com.catanai.server.model.Game;
+import com.catanai.server.model.action.Action;
+import com.catanai.server.model.action.ActionState;
+import com.catanai.server.model.action.LegalActionEnumerator;
+import com.catanai.server.model.bank.card.ResourceCard;
+import com.catanai.server.model.board.graph.Edge;
+import com.catanai.server.model.board.graph.Node;
+import com.catanai.server.model.gamestate.GameState;
+import com.catanai.server.model.player.DeterministicPlayer;
+import com.catanai.server.model.player.Player;
+import com.catanai.server.model.player.PlayerID;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests the compact game engine against the reference game.
+ */
+public class TestCompactGame {
+  private Game game;
+  private List<DeterministicPlayer> players;
+  private int[][] startingMoves;
+
+  /**
+   * Setup game for future test cases.
+   */
+  @Before
+  public void setUp() {
+    this.players = new ArrayList<DeterministicPlayer>();
+    players.add(new DeterministicPlayer(PlayerID.ONE));
+    players.add(new DeterministicPlayer(PlayerID.TWO));
+    players.add(new DeterministicPlayer(PlayerID.THREE));
+    players.add(new DeterministicPlayer(PlayerID.FOUR));
+    this.game = new Game(players);
+
+    // Starting moves in the order they are played.
+    this.startingMoves = new int[][] {
+      { 2, 0 }, { 1, 0 },   // Player 1
+      { 2, 1 }, { 1, 2 },   // Player 2
+      { 2, 2 }, { 1, 4 },   // Player 3
+      { 2, 7 }, { 1, 10 },  // Player 4
+      { 2, 8 }, { 1, 12 },  // Player 4
+      { 2, 9 }, { 1, 14 },  // Player 3
+      { 2, 10 }, { 1, 16 }, // Player 2
+      { 2, 16 }, { 1, 23 }, // Player 1
+    };
+  }
+
+  /**
+   * Teardown class variables after tests.
+   */
+  @After
+  public void tearDown() {
+    this.game = null;
+    this.players = null;
+    this.startingMoves = null;
+  }
+
+  @Test
+  public void testStartingMovesMatchGame() {
+    CompactGame compactGame = CompactGame.fromGame(this.game, new SplittableRandom(1));
+    assertSameState(new GameState(this.game).toMap(), compactGame.toMap());
+
+    for (int[] move : this.startingMoves) {
+      this.players.get(this.game.getCurrentPlayer().getID().getValue() - 1).addNextMove(move);
+      Assert.assertTrue(this.game.nextMove());
+      Assert.assertTrue(compactGame.doAction(move));
+      assertSameState(new GameState(this.game).toMap(), compactGame.toMap());
+    }
+    Assert.assertEquals(ActionState.ROLL_DICE, compactGame.getActionState());
+  }
+
+  @Test
+  public void testInvalidMovesRejected() {
+    CompactGame compactGame = CompactGame.fromGame(this.game, new SplittableRandom(1));
+    Assert.assertTrue(compactGame.doAction(new int[] { 2, 0 }));
+    // Road not touching the first settlement.
+    Assert.assertFalse(compactGame.doAction(new int[] { 1, 30 }));
+    Assert.assertTrue(compactGame.doAction(new int[] { 1, 0 }));
+    // Settlement one edge away from player one's settlement.
+    Assert.assertFalse(compactGame.doAction(new int[] { 2, 3 }));
+    // Rolling the dice before the starting placements are done.
+    Assert.assertFalse(compactGame.doAction(new int[] { 15 }));
+    Assert.assertEquals(ActionState.FIRST_SETTLEMENT, compactGame.getActionState());
+    Assert.assertEquals(1, compactGame.getCurrentPlayerIndex());
+  }
+
+  @Test
+  public void testFromGameAfterStartingMoves() {
+    for (int[] move : this.startingMoves) {
+      this.players.get(this.game.getCurrentPlayer().getID().getValue() - 1).addNextMove(move);
+      Assert.assertTrue(this.game.nextMove());
+    }
+    CompactGame compactGame = CompactGame.fromGame(this.game, new SplittableRandom(1));
+    assertSameState(new GameState(this.game).toMap(), compactGame.toMap());
+
+    // Rolling conserves every resource card between the bank and the players' hands.
+    int total = totalResources(compactGame.toMap());
+    Assert.assertTrue(compactGame.doAction(new int[] { 15 }));
+    Assert.assertNotEquals(ActionState.ROLL_DICE, compactGame.getActionState());
+    Assert.assertEquals(total, totalResources(compactGame.toMap()));
+  }
+
+  @Test
+  public void testCopyIsIndependent() {
+    CompactGame compactGame = CompactGame.fromGame(this.game, new SplittableRandom(1));
+    CompactGame copy = compactGame.copy();
+    Assert.assertTrue(copy.doAction(new int[] { 2, 0 }));
+
+    Assert.assertEquals(-1, compactGame.getBuildingOwner(0));
+    Assert.assertEquals(0, copy.getBuildingOwner(0));
+
+    compactGame.copyFrom(copy);
+    Assert.assertEquals(0, compactGame.getBuildingOwner(0));
+    Assert.assertEquals(ActionState.FIRST_ROAD, compactGame.getActionState());
+  }
+
+  @Test
+  public void testRandomPlayMatchesGame() {
+    int[] accepted = new int[Action.values().length + 1];
+    boolean largestArmy = false;
+    boolean longestRoad = false;
+    int sevens = 0;
+    for (long seed : new long[] {1, 3, 6}) {
+      this.players = new ArrayList<DeterministicPlayer>();
+      for (PlayerID id : PlayerID.values()) {
+        this.players.add(new DeterministicPlayer(id));
+      }
+      this.game = new Game(this.players, seed);
+      for (int[] move : this.startingMoves) {
+        this.playMove(move);
+      }
+      CompactGame compactGame = CompactGame.fromGame(this.game, gameRandom(seed));
+      assertSameGame(this.game, compactGame);
+
+      SplittableRandom choices = new SplittableRandom(seed);
+      LegalActionEnumerator legalActions = new LegalActionEnumerator();
+      for (int i = 0; i < 3000 && compactGame.getActionState() != ActionState.FINISHED; i++) {
+        int count = legalActions.enumerate(this.game);
+        if (count == 0) {
+          break;
+        }
+        int[] move = chooseMove(legalActions, count, choices);
+        if (move[0] == Action.DRAW_DEVELOPMENT_CARD.getValue()) {
+          // The game draws development cards with its dealer's generator, so the draw is copied
+          // over instead of replayed, which keeps the compact game's dice in step.
+          Assert.assertTrue(CompactGame.fromGame(this.game, new SplittableRandom(seed)).doAction(move));
+          this.playMove(move);
+          compactGame.copyFrom(CompactGame.fromGame(this.game, new SplittableRandom(seed)));
+        } else {
+          this.playMove(move);
+          Assert.assertTrue(Arrays.toString(move), compactGame.doAction(move));
+        }
+        assertSameGame(this.game, compactGame);
+
+        accepted[move[0]]++;
+        if (move[0] == Action.ROLL_DICE.getValue() && compactGame.getLastDiceRollValue() == 7) {
+          sevens++;
+        }
+        for (Player player : this.game.getPlayers()) {
+          largestArmy |= player.hasLargestArmy();
+          longestRoad |= player.hasLongestRoad();
+        }
+      }
+
+      // A trade offer leaves both engines waiting on responses, so it ends the sequence.
+      if (compactGame.getActionState() == ActionState.BUSINESS_AS_USUAL) {
+        int[] offer = this.tradeOffer(this.game.getCurrentPlayer());
+        if (offer != null) {
+          this.playMove(offer);
+          Assert.assertTrue(compactGame.doAction(offer));
+          assertSameGame(this.game, compactGame);
+          Assert.assertEquals(ActionState.TRADE, compactGame.getActionState());
+          accepted[Action.OFFER_TRADE.getValue()]++;
+        }
+      }
+    }
+
+    Assert.assertTrue(sevens > 0);
+    Assert.assertTrue(accepted[Action.DISCARD.getValue()] > 0);
+    Assert.assertTrue(accepted[Action.MOVE_ROBBER.getValue()] > 0);
+    Assert.assertTrue(accepted[Action.DRAW_DEVELOPMENT_CARD.getValue()] > 0);
+    Assert.assertTrue(accepted[Action.PLAY_KNIGHT.getValue()] > 0);
+    Assert.assertTrue(accepted[Action.OFFER_TRADE.getValue()] > 0);
+    Assert.assertTrue(largestArmy);
+    Assert.assertTrue(longestRoad);
+  }
+
+  private static void assertSameState(Map<String, int[][]> expected, Map<String, int[][]> actual) {
+    Assert.assertEquals(expected.keySet(), actual.keySet());
+    for (String key : expected.keySet()) {
+      Assert.assertTrue(key, Arrays.deepEquals(expected.get(key), actual.get(key)));
+    }
+  }
+
+  private void playMove(int[] move) {
+    this.players.get(this.game.getCurrentPlayer().getID().getValue() - 1).addNextMove(move);
+    Assert.assertTrue(Arrays.toString(move), this.game.nextMove());
+  }
+
+  /**
+   * Chooses a legal action type uniformly, then a move of that type, so roads do not crowd out
+   * development cards.
+   */
+  private static int[] chooseMove(LegalActionEnumerator legalActions, int count, SplittableRandom choices) {
+    int[] ofType = new int[Action.values().length + 1];
+    int[] types = new int[ofType.length];
+    int numTypes = 0;
+    for (int i = 0; i < count; i++) {
+      int type = legalActions.get(i)[0];
+      if (ofType[type]++ == 0) {
+        types[numTypes++] = type;
+      }
+    }
+    int action = types[choices.nextInt(numTypes)];
+    int pick = choices.nextInt(ofType[action]);
+    for (int i = 0; ; i++) {
+      if (legalActions.get(i)[0] == action && pick-- == 0) {
+        return legalActions.get(i).clone();
+      }
+    }
+  }
+
+  /**
+   * Offers 1 of the first resource the player holds for 1 of the next resource, or returns null
+   * if their hand is empty.
+   */
+  private int[] tradeOffer(Player player) {
+    for (ResourceCard card : ResourceCard.values()) {
+      if (player.getResourceCards().get(card) > 0) {
+        int[] offer = new int[11];
+        offer[0] = Action.OFFER_TRADE.getValue();
+        offer[1 + card.getValue()] = 1;
+        offer[6 + (card.getValue() + 1) % 5] = 1;
+        return offer;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Recreates the generator a game seeded with seed rolls its dice and steals with: the game
+   * splits the board's, the dealer's and its copies' generators off it when constructed.
+   */
+  private static SplittableRandom gameRandom(long seed) {
+    SplittableRandom random = new SplittableRandom(seed);
+    random.split();
+    random.split();
+    random.split();
+    return random;
+  }
+
+  /**
+   * Compares victory points, hands, banks, owners, the robber and the turn of both engines,
+   * then the rest of their gamestates.
+   */
+  private static void assertSameGame(Game game, CompactGame compactGame) {
+    Assert.assertEquals(
+        game.getActionExecutor().getActionStateMachine().getCurrentActionState(), compactGame.getActionState()
+    );
+    Assert.assertEquals(game.getCurrentPlayer().getID().getValue() - 1, compactGame.getCurrentPlayerIndex());
+    for (Player player : game.getPlayers()) {
+      int p = player.getID().getValue() - 1;
+      Assert.assertEquals(player.getVictoryPoints(), compactGame.getVictoryPoints(p));
+      for (ResourceCard card : ResourceCard.values()) {
+        Assert.assertEquals(player.getResourceCards().get(card), compactGame.getResourceCount(p, card));
+      }
+    }
+    int[] banks = compactGame.toMap().get("banks")[0];
+    for (ResourceCard card : ResourceCard.values()) {
+      Assert.assertEquals(game.getDealer().getResourceBankSize(card), banks[card.getValue()]);
+    }
+    for (Node node : game.getBoard().getNodes()) {
+      int owner = node.hasBuilding() ? node.getBuilding().getPlayerId().getValue() - 1 : -1;
+      Assert.assertEquals(owner, compactGame.getBuildingOwner(node.getIndex()));
+    }
+    for (Edge edge : game.getBoard().getEdges()) {
+      int owner = edge.hasRoad() ? edge.getRoad().getPlayerId().getValue() - 1 : -1;
+      Assert.assertEquals(owner, compactGame.getRoadOwner(edge.getIndex()));
+    }
+    Assert.assertEquals(game.getBoard().getTileIndexCurrentlyBlocked(), compactGame.getRobberTile());
+    assertSameState(new GameState(game).toMap(), compactGame.toMap());
+  }
+
+  private static int totalResources(Map<String, int[][]> state) {
+    int total = 0;
+    for (int i = 0; i < 5; i++) {
+      total += state.get("banks")[0][i];
+    }
+    for (int[] hand : state.get("playerFullResourceCards")) {
+      total += Arrays.stream(hand).sum();
+    }
+    return total;
+  }
+}
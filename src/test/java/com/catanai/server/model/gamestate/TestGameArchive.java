@@ -0,0 +1,102 @@
+package com.catanai.server.model.gamestate;
+
+import com.catanai.server.model.Game;
+import com.catanai.server.model.player.Player;
+import com.catanai.server.model.player.PlayerID;
+import com.catanai.server.model.player.RandomLegalPlayer;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests writing games to an archive and reading their gamestates back.
+ */
+public class TestGameArchive {
+  private Path path;
+  private List<Game> games;
+
+  /**
+   * Setup two games played by random players.
+   */
+  @Before
+  public void setUp() throws IOException {
+    this.path = Files.createTempFile("games", ".archive");
+    this.games = new ArrayList<>();
+    for (long seed = 1; seed <= 2; seed++) {
+      List<Player> players = new ArrayList<>();
+      for (PlayerID id : PlayerID.values()) {
+        players.add(new RandomLegalPlayer(id, seed * 10 + id.getValue()));
+      }
+      Game game = new Game(players, seed);
+      game.setRecordingGameStates(true);
+      for (int i = 0; i < 200 && !game.hasEnded() && game.nextMove(); i++) {
+        // Play until the game ends or stalls.
+      }
+      this.games.add(game);
+    }
+  }
+
+  @After
+  public void tearDown() throws IOException {
+    Files.deleteIfExists(this.path);
+  }
+
+  @Test
+  public void testUncompressedArchiveRebuildsEveryStep() throws IOException {
+    this.assertRoundTrip(false);
+  }
+
+  @Test
+  public void testCompressedArchiveRebuildsEveryStep() throws IOException {
+    this.assertRoundTrip(true);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testDuplicateGameIsRejected() throws IOException {
+    try (GameArchiveWriter writer = new GameArchiveWriter(this.path, false)) {
+      writer.writeGame(5, this.games.get(0));
+      writer.writeGame(5, this.games.get(1));
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testUnknownGameIsRejected() throws IOException {
+    try (GameArchiveWriter writer = new GameArchiveWriter(this.path, false)) {
+      writer.writeGame(5, this.games.get(0));
+    }
+    try (GameArchive archive = GameArchive.open(this.path)) {
+      Assert.assertTrue(archive.hasGame(5));
+      archive.getStepCount(6);
+    }
+  }
+
+  private void assertRoundTrip(boolean compressed) throws IOException {
+    try (GameArchiveWriter writer = new GameArchiveWriter(this.path, compressed, 8)) {
+      for (int g = 0; g < this.games.size(); g++) {
+        writer.writeGame(100 + g, this.games.get(g));
+      }
+    }
+    try (GameArchive archive = GameArchive.open(this.path)) {
+      Assert.assertEquals(2, archive.getGameCount());
+      // Read the games interleaved and backwards, so each read seeks.
+      List<GameState> first = this.games.get(0).getGameStates();
+      List<GameState> second = this.games.get(1).getGameStates();
+      Assert.assertEquals(first.size(), archive.getStepCount(100));
+      Assert.assertEquals(second.size(), archive.getStepCount(101));
+      for (int step = Math.max(first.size(), second.size()) - 1; step >= 0; step--) {
+        if (step < first.size()) {
+          Assert.assertArrayEquals(first.get(step).toArray(), archive.getGameState(100, step).toArray());
+        }
+        if (step < second.size()) {
+          Assert.assertArrayEquals(second.get(step).toArray(), archive.getGameState(101, step).toArray());
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,132 @@
+package com.catanai.server.model.gamestate;
+
+import com.catanai.server.model.Game;
+import com.catanai.server.model.action.Action;
+import com.catanai.server.model.player.DeterministicPlayer;
+import com.catanai.server.model.player.PlayerID;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests the gamestate history and live gamestates.
+ */
+public class TestGameStateHistory {
+  private Game game;
+  private List<DeterministicPlayer> players;
+  private int[][] startingMoves;
+
+  /**
+   * Setup game for future test cases.
+   */
+  @Before
+  public void setUp() {
+    this.players = new ArrayList<DeterministicPlayer>();
+    players.add(new DeterministicPlayer(PlayerID.ONE));
+    players.add(new DeterministicPlayer(PlayerID.TWO));
+    players.add(new DeterministicPlayer(PlayerID.THREE));
+    players.add(new DeterministicPlayer(PlayerID.FOUR));
+    this.game = new Game(players);
+    this.game.setRecordingGameStates(true);
+
+    // Starting moves in the order they are played.
+    this.startingMoves = new int[][] {
+      { 2, 0 }, { 1, 0 }, { 2, 1 }, { 1, 2 }, { 2, 2 }, { 1, 4 }, { 2, 7 }, { 1, 10 },
+      { 2, 8 }, { 1, 12 }, { 2, 9 }, { 1, 14 }, { 2, 10 }, { 1, 16 }, { 2, 16 }, { 1, 23 },
+    };
+  }
+
+  /**
+   * Teardown class variables after tests.
+   */
+  @After
+  public void tearDown() {
+    this.game = null;
+    this.players = null;
+    this.startingMoves = null;
+  }
+
+  @Test
+  public void testRebuiltGameStatesMatchSnapshots() {
+    GameStateHistory history = new GameStateHistory(5);
+    List<Map<String, int[][]>> snapshots = new ArrayList<>();
+    history.add(this.game.getCurrentGameState());
+    snapshots.add(this.game.getCurrentGameState().toMap());
+
+    for (int[] move : this.startingMoves) {
+      this.players.get(this.game.getCurrentPlayer().getID().getValue() - 1).addNextMove(move);
+      Assert.assertTrue(this.game.nextMove());
+      history.add(this.game.getCurrentGameState());
+      snapshots.add(this.game.getCurrentGameState().toMap());
+    }
+
+    Assert.assertEquals(snapshots.size(), history.size());
+    for (int i = 0; i < snapshots.size(); i++) {
+      assertSameState(snapshots.get(i), history.get(i).toMap());
+    }
+  }
+
+  @Test
+  public void testUnrecordedGameNeverMaterializesGameState() {
+    Game unrecorded = new Game(this.players);
+    for (int[] move : this.startingMoves) {
+      this.players.get(unrecorded.getCurrentPlayer().getID().getValue() - 1).addNextMove(move);
+      Assert.assertTrue(unrecorded.nextMove());
+    }
+
+    Assert.assertTrue(unrecorded.getGameStates().isEmpty());
+    for (GameStateSection section : GameStateSection.values()) {
+      Assert.assertTrue(unrecorded.getCurrentGameState().isStale(section));
+    }
+  }
+
+  @Test
+  public void testGameStatesAreSnapshots() {
+    Map<String, int[][]> initial = this.game.getCurrentGameState().toMap();
+    this.players.get(0).addNextMove(this.startingMoves[0]);
+    Assert.assertTrue(this.game.nextMove());
+
+    Assert.assertEquals(2, this.game.getGameStates().size());
+    assertSameState(initial, this.game.getGameStates().get(0).toMap());
+    assertSameState(this.game.getCurrentGameState().toMap(), this.game.getGameStates().get(1).toMap());
+    Assert.assertEquals(0, this.game.getGameStates().get(0).toMap().get("actionState")[0][0]);
+    Assert.assertEquals(1, this.game.getGameStates().get(1).toMap().get("actionState")[0][0]);
+  }
+
+  @Test
+  public void testLiveGameStateMatchesSnapshots() {
+    GameState live = GameState.live(this.game);
+    for (int[] move : this.startingMoves) {
+      this.players.get(this.game.getCurrentPlayer().getID().getValue() - 1).addNextMove(move);
+      Assert.assertTrue(this.game.nextMove());
+      live.invalidate(GameStateSection.changedBy(Action.valueOf(move[0])));
+      assertSameState(new GameState(this.game).toMap(), live.toMap());
+      assertSameState(new GameState(this.game).toMap(), this.game.getCurrentGameState().toMap());
+    }
+  }
+
+  @Test
+  public void testLiveGameStateCachesUntilInvalidated() {
+    GameState live = GameState.live(this.game);
+    int[] edges = live.getEdges();
+    this.players.get(0).addNextMove(this.startingMoves[0]);
+    Assert.assertTrue(this.game.nextMove());
+
+    // Edges are not changed by a settlement, so the cached section is reused.
+    live.invalidate(GameStateSection.changedBy(Action.PLAY_SETTLEMENT));
+    Assert.assertSame(edges, live.getEdges());
+    Assert.assertEquals(1, live.getNodes()[0][0]);
+  }
+
+  private static void assertSameState(Map<String, int[][]> expected, Map<String, int[][]> actual) {
+    Assert.assertEquals(expected.keySet(), actual.keySet());
+    for (String key : expected.keySet()) {
+      Assert.assertTrue(key, Arrays.deepEquals(expected.get(key), actual.get(key)));
+    }
+  }
+}
@@ -0,0 +1,63 @@
+package com.catanai.server.model.player;
+
+import com.catanai.server.model.Game;
+import com.catanai.server.model.action.Action;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests that the Monte Carlo tree search player plays legal actions.
+ */
+public class TestMctsPlayer {
+  @Test
+  public void testPlaysThroughStartingTurns() {
+    this.playStartingTurns(1);
+  }
+
+  @Test
+  public void testRootParallelSearchPlaysThroughStartingTurns() {
+    this.playStartingTurns(2);
+  }
+
+  @Test
+  public void testPlaysPastTheFirstRoll() {
+    List<Player> players = new ArrayList<>();
+    for (PlayerID id : PlayerID.values()) {
+      players.add(new MctsPlayer(id, 20, 0, 1, id.getValue()));
+    }
+    Game game = new Game(players, 3);
+
+    // Every move is legal, including the discards and robber moves after a 7.
+    int rolls = 0;
+    int sevens = 0;
+    for (int i = 0; i < 400 && !game.hasEnded(); i++) {
+      Assert.assertTrue(game.nextMove());
+      if (game.getLastAction() == Action.ROLL_DICE.getValue()) {
+        rolls++;
+        sevens += game.getLastDiceRollValue() == 7 ? 1 : 0;
+      }
+    }
+    Assert.assertTrue(rolls > 20);
+    Assert.assertTrue(sevens > 0);
+  }
+
+  private void playStartingTurns(int threads) {
+    List<Player> players = new ArrayList<>();
+    for (PlayerID id : PlayerID.values()) {
+      players.add(new MctsPlayer(id, 20, 0, threads, id.getValue()));
+    }
+    Game game = new Game(players);
+
+    // 4 players place 2 settlements and 2 roads each, then the first player rolls.
+    for (int i = 0; i < 17; i++) {
+      Assert.assertTrue(game.nextMove());
+    }
+    for (Player p : players) {
+      Assert.assertNotNull(p.getSecondStartingSettlement());
+      Assert.assertEquals(13, p.getRemainingRoads());
+    }
+    Assert.assertNotEquals(0, game.getLastDiceRollValue());
+  }
+}
@@ -0,0 +1,78 @@
+package com.catanai.server.model.player;
+
+import com.catanai.server.model.Game;
+import com.catanai.server.model.action.Action;
+import com.catanai.server.model.action.ActionState;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests that the random legal player only plays legal actions, reproducibly and by weight.
+ */
+public class TestRandomLegalPlayer {
+  @Test
+  public void testSameSeedPlaysSameStartingPlacements() {
+    Game first = this.newGame(Map.of(), 5);
+    Game second = this.newGame(Map.of(), 5);
+    for (int i = 0; i < 16; i++) {
+      Assert.assertTrue(first.nextMove());
+      Assert.assertTrue(second.nextMove());
+      Assert.assertEquals(first.getLastAction(), second.getLastAction());
+    }
+    for (int i = 0; i < 4; i++) {
+      Player a = first.getPlayers().get(i);
+      Player b = second.getPlayers().get(i);
+      Assert.assertEquals(
+          a.getSecondStartingSettlement().getPlacement(), b.getSecondStartingSettlement().getPlacement()
+      );
+    }
+  }
+
+  @Test
+  public void testOnlyWeightedActionsArePlayed() {
+    // Only ending the turn weighs anything; states without it fall back to uniform choices.
+    Map<Action, Double> weights = new EnumMap<>(Action.class);
+    for (Action action : Action.values()) {
+      weights.put(action, action == Action.END_TURN ? 1.0 : 0.0);
+    }
+    Game game = this.newGame(weights, 9);
+    for (int i = 0; i < 200 && !game.hasEnded(); i++) {
+      boolean businessAsUsual = game.getActionExecutor().getActionStateMachine().getCurrentActionState()
+          == ActionState.BUSINESS_AS_USUAL;
+      Assert.assertTrue(game.nextMove());
+      if (businessAsUsual) {
+        Assert.assertEquals(Action.END_TURN.getValue(), game.getLastAction());
+      }
+    }
+  }
+
+  @Test
+  public void testSeededGamesFinish() {
+    // Trades are never listed, so a board can leave everybody without a resource; with seed 2
+    // nobody gets brick, and the game stalls at 4 points each.
+    for (long seed : new long[] {0, 1, 3, 4, 5, 6, 7, 8, 9, 10, 11}) {
+      Game game = this.newGame(Map.of(), seed);
+      for (int i = 0; i < 50_000 && !game.hasEnded(); i++) {
+        Assert.assertTrue("Game " + seed + " rejected a listed move.", game.nextMove());
+      }
+      Assert.assertEquals(
+          ActionState.FINISHED, game.getActionExecutor().getActionStateMachine().getCurrentActionState()
+      );
+      Assert.assertTrue(game.getCurrentPlayer().getVictoryPoints() >= 10);
+    }
+  }
+
+  private Game newGame(Map<Action, Double> weights, long seed) {
+    SplittableRandom random = new SplittableRandom(seed);
+    List<Player> players = new ArrayList<>();
+    for (PlayerID id : PlayerID.values()) {
+      players.add(new RandomLegalPlayer(id, random.split(), weights));
+    }
+    return new Game(players, seed);
+  }
+}
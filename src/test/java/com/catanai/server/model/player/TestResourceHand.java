@@ -0,0 +1,72 @@
+package com.catanai.server.model.player;
+
+import com.catanai.server.model.bank.card.ResourceCard;
+import java.util.SplittableRandom;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests the vector operations of a resource hand.
+ */
+public class TestResourceHand {
+  private ResourceHand hand;
+
+  /**
+   * Setup a hand of 2 wool, 1 grain, 1 lumber and 1 brick.
+   */
+  @Before
+  public void setUp() {
+    this.hand = new ResourceHand();
+    this.hand.addAll(new int[] {2, 1, 1, 0, 1});
+  }
+
+  @Test
+  public void testTotal() {
+    Assert.assertEquals(5, this.hand.total());
+    this.hand.add(ResourceCard.ORE, 3);
+    Assert.assertEquals(8, this.hand.total());
+  }
+
+  @Test
+  public void testPayBuildCost() {
+    Assert.assertTrue(this.hand.canAfford(BuildCost.SETTLEMENT));
+    Assert.assertFalse(this.hand.canAfford(BuildCost.CITY));
+
+    Assert.assertTrue(this.hand.pay(BuildCost.SETTLEMENT));
+    Assert.assertArrayEquals(new int[] {1, 0, 0, 0, 0}, this.hand.toArray());
+
+    // A cost which cannot be paid leaves the hand unchanged.
+    Assert.assertFalse(this.hand.pay(BuildCost.ROAD));
+    Assert.assertArrayEquals(new int[] {1, 0, 0, 0, 0}, this.hand.toArray());
+  }
+
+  @Test
+  public void testRemoveVector() {
+    Assert.assertFalse(this.hand.removeAll(new int[] {3, 0, 0, 0, 0}));
+    Assert.assertEquals(5, this.hand.total());
+    Assert.assertTrue(this.hand.removeAll(new int[] {2, 0, 1, 0, 0}));
+    Assert.assertArrayEquals(new int[] {0, 1, 0, 0, 1}, this.hand.toArray());
+  }
+
+  @Test
+  public void testRemoveSingleResource() {
+    Assert.assertFalse(this.hand.remove(ResourceCard.GRAIN, 2));
+    Assert.assertTrue(this.hand.remove(ResourceCard.WOOL, 2));
+    Assert.assertEquals(0, this.hand.get(ResourceCard.WOOL));
+    Assert.assertEquals(1, this.hand.removeAll(ResourceCard.BRICK));
+    Assert.assertEquals(2, this.hand.total());
+  }
+
+  @Test
+  public void testRemoveRandomOnlyTakesHeldCards() {
+    SplittableRandom random = new SplittableRandom(3);
+    for (int i = 0; i < 5; i++) {
+      ResourceCard card = this.hand.removeRandom(random);
+      Assert.assertNotNull(card);
+      Assert.assertNotEquals(ResourceCard.ORE, card);
+    }
+    Assert.assertEquals(0, this.hand.total());
+    Assert.assertNull(this.hand.removeRandom(random));
+  }
+}
@@ -0,0 +1,118 @@
+package com.catanai.server.replay;
+
+import com.catanai.server.config.SocketCommandHandler;
+import com.catanai.server.model.action.ActionSpace;
+import com.catanai.server.model.gamestate.GameState;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests recording transitions in a replay buffer and reading them back from another mapping.
+ */
+public class TestReplayBuffer {
+  private Path path;
+
+  @Before
+  public void setUp() throws IOException {
+    this.path = Files.createTempFile("transitions", ".replay");
+  }
+
+  @After
+  public void tearDown() throws IOException {
+    Files.deleteIfExists(this.path);
+  }
+
+  @Test
+  public void testStepsAreRecordedForOtherReaders() throws IOException {
+    try (ReplayBuffer writer = ReplayBuffer.create(this.path, 8); ReplayBuffer reader = ReplayBuffer.open(this.path)) {
+      SocketCommandHandler commandHandler = new SocketCommandHandler(null, writer);
+      commandHandler.handleCommand("newGame", null, null);
+      commandHandler.handleStep("[2.0, 60.0]", null, null, null);
+      commandHandler.handleStep("[2.0, 4.0]", null, null, null);
+
+      Assert.assertEquals(8, reader.getCapacity());
+      Assert.assertEquals(2, reader.getWrittenCount());
+      ReplayBuffer.Transition transition = new ReplayBuffer.Transition();
+      Assert.assertTrue(reader.read(0, transition));
+      Assert.assertEquals(-1, transition.getReward());
+      Assert.assertEquals(-1, transition.getActionId());
+      Assert.assertFalse(transition.isLegal(transition.getActionId()));
+
+      Assert.assertTrue(reader.read(1, transition));
+      Assert.assertEquals(1, transition.getReward());
+      Assert.assertFalse(transition.isDone());
+      Assert.assertEquals(ActionSpace.encode(new int[] {2, 4}), transition.getActionId());
+      Assert.assertTrue(transition.isLegal(transition.getActionId()));
+      Assert.assertFalse(Arrays.equals(transition.getObservation(), transition.getNextObservation()));
+      Assert.assertFalse(reader.read(2, transition));
+    }
+  }
+
+  @Test
+  public void testFullBufferOverwritesOldestTransitions() throws IOException {
+    ByteBuffer observation = ByteBuffer.allocate(GameState.BINARY_LENGTH * Short.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+    long[] legalMask = new long[ActionSpace.MASK_WORDS];
+    try (ReplayBuffer buffer = ReplayBuffer.create(this.path, 2)) {
+      for (int action = 0; action < 3; action++) {
+        observation.putShort(0, (short) action);
+        Assert.assertEquals(action, buffer.add(observation, action, 1, action == 2, observation, legalMask));
+      }
+
+      Assert.assertEquals(3, buffer.getWrittenCount());
+      ReplayBuffer.Transition transition = new ReplayBuffer.Transition();
+      Assert.assertFalse(buffer.read(0, transition));
+      Assert.assertTrue(buffer.read(2, transition));
+      Assert.assertEquals(2, transition.getActionId());
+      Assert.assertEquals(2, transition.getObservation()[0]);
+      Assert.assertTrue(transition.isDone());
+    }
+  }
+
+  @Test
+  public void testReadsTakenWhileWritingAreWhole() throws Exception {
+    try (ReplayBuffer writer = ReplayBuffer.create(this.path, 2); ReplayBuffer reader = ReplayBuffer.open(this.path)) {
+      Thread writing = new Thread(() -> {
+        ByteBuffer observation = ByteBuffer.allocate(GameState.BINARY_LENGTH * Short.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        long[] legalMask = new long[ActionSpace.MASK_WORDS];
+        for (int action = 0; action < 100_000; action++) {
+          for (int i = 0; i < GameState.BINARY_LENGTH; i++) {
+            observation.putShort(i * Short.BYTES, (short) action);
+          }
+          Arrays.fill(legalMask, action);
+          writer.add(observation, action, action, false, observation, legalMask);
+        }
+      });
+      writing.start();
+
+      ReplayBuffer.Transition transition = new ReplayBuffer.Transition();
+      int whole = 0;
+      while (writing.isAlive()) {
+        long sequence = reader.getWrittenCount() - 1;
+        if (!reader.read(sequence, transition)) {
+          continue;
+        }
+        whole++;
+        short action = (short) transition.getActionId();
+        Assert.assertEquals(sequence, transition.getActionId());
+        Assert.assertEquals(action, transition.getReward());
+        for (int i = 0; i < GameState.BINARY_LENGTH; i++) {
+          Assert.assertEquals(action, transition.getObservation()[i]);
+          Assert.assertEquals(action, transition.getNextObservation()[i]);
+        }
+        for (long word : transition.getLegalMask()) {
+          Assert.assertEquals(sequence, word);
+        }
+      }
+      writing.join();
+      Assert.assertTrue(whole > 0);
+    }
+  }
+}
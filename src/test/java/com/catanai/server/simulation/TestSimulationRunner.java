@@ -0,0 +1,118 @@
+package com.catanai.server.simulation;
+
+import com.catanai.server.model.player.DeterministicPlayer;
+import com.catanai.server.model.player.Player;
+import com.catanai.server.model.player.PlayerID;
+import com.catanai.server.model.player.RandomLegalPlayer;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Comparator;
+import java.util.function.BiFunction;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests the headless simulation runner.
+ */
+public class TestSimulationRunner {
+  private List<BiFunction<PlayerID, Long, ? extends Player>> seats;
+
+  /**
+   * Setup seats which only know their starting moves.
+   */
+  @Before
+  public void setUp() {
+    int[][][] startingMoves = new int[][][] {
+      { {2, 0}, {1, 0}, {2, 16}, {1, 23} },
+      { {2, 1}, {1, 2}, {2, 10}, {1, 16} },
+      { {2, 2}, {1, 4}, {2, 9}, {1, 14} },
+      { {2, 7}, {1, 10}, {2, 8}, {1, 12} },
+    };
+    this.seats = new ArrayList<>();
+    for (int i = 0; i < 4; i++) {
+      final int[][] moves = startingMoves[i];
+      this.seats.add((id, seed) -> {
+        DeterministicPlayer p = new DeterministicPlayer(id);
+        p.addAllMoves(moves);
+        return p;
+      });
+    }
+  }
+
+  @Test
+  public void testRunPlaysEveryGameAndStreamsResults() throws Exception {
+    SimulationRunner runner = new SimulationRunner(this.seats, 2, SimulationRunner.DEFAULT_MAX_ACTIONS);
+    StringWriter output = new StringWriter();
+    List<SimulationResult> results = runner.run(5, output);
+
+    Assert.assertEquals(5, results.size());
+    String[] lines = output.toString().split(System.lineSeparator());
+    Assert.assertEquals(6, lines.length);
+    Assert.assertEquals(SimulationResult.CSV_HEADER, lines[0]);
+
+    // Players run out of moves after the starting turns, which stops the game with an exception.
+    for (SimulationResult result : results) {
+      Assert.assertFalse(result.isFinished());
+      Assert.assertTrue(result.isCrashed());
+      Assert.assertEquals("java.util.NoSuchElementException", result.getError());
+      Assert.assertTrue(lines[1 + results.indexOf(result)].endsWith(",java.util.NoSuchElementException"));
+      Assert.assertEquals(0, result.getWinner());
+      Assert.assertEquals(16, result.getSuccessfulActions());
+      Assert.assertEquals(17, result.getAttemptedActions());
+    }
+    Assert.assertEquals(5, results.stream().mapToInt(SimulationResult::getGameIndex).distinct().count());
+  }
+
+  @Test
+  public void testActionLimitAbandonsGame() {
+    SimulationRunner runner = new SimulationRunner(this.seats, 1, 10);
+    SimulationResult result = runner.playGame(0);
+    Assert.assertEquals(10, result.getAttemptedActions());
+    Assert.assertEquals(10, result.getSuccessfulActions());
+    Assert.assertFalse(result.isFinished());
+    Assert.assertFalse(result.isCrashed());
+  }
+
+  @Test
+  public void testSameBaseSeedReplaysSameGames() {
+    List<BiFunction<PlayerID, Long, ? extends Player>> randomSeats = new ArrayList<>();
+    for (int i = 0; i < 4; i++) {
+      randomSeats.add(RandomLegalPlayer::new);
+    }
+    SimulationResult first = new SimulationRunner(randomSeats, 1, 500, 42).playGame(3);
+    SimulationResult second = new SimulationRunner(randomSeats, 1, 500, 42).playGame(3);
+
+    Assert.assertEquals(45, first.getSeed());
+    Assert.assertEquals(first.getSeed(), second.getSeed());
+    Assert.assertEquals(first.getAttemptedActions(), second.getAttemptedActions());
+    Assert.assertEquals(first.getSuccessfulActions(), second.getSuccessfulActions());
+    Assert.assertEquals(first.getTurns(), second.getTurns());
+    Assert.assertEquals(first.getWinner(), second.getWinner());
+  }
+
+  @Test
+  public void testSameSeedReplaysTournamentOfCommandLinePlayers() throws Exception {
+    List<BiFunction<PlayerID, Long, ? extends Player>> randomSeats = new ArrayList<>();
+    for (int i = 0; i < 4; i++) {
+      randomSeats.add(SimulationRunner.playerFactory(RandomLegalPlayer.class.getName()));
+    }
+    List<SimulationResult> first = new SimulationRunner(randomSeats, 2, 50_000, 7).run(6, new StringWriter());
+    List<SimulationResult> second = new SimulationRunner(randomSeats, 3, 50_000, 7).run(6, new StringWriter());
+    first.sort(Comparator.comparingInt(SimulationResult::getGameIndex));
+    second.sort(Comparator.comparingInt(SimulationResult::getGameIndex));
+
+    for (int i = 0; i < 6; i++) {
+      SimulationResult a = first.get(i);
+      SimulationResult b = second.get(i);
+      Assert.assertEquals(a.getSeed(), b.getSeed());
+      Assert.assertEquals(a.getWinner(), b.getWinner());
+      Assert.assertEquals(a.isFinished(), b.isFinished());
+      Assert.assertEquals(a.getTurns(), b.getTurns());
+      Assert.assertEquals(a.getAttemptedActions(), b.getAttemptedActions());
+      Assert.assertEquals(a.getSuccessfulActions(), b.getSuccessfulActions());
+    }
+    Assert.assertTrue(first.stream().anyMatch(SimulationResult::isFinished));
+  }
+}